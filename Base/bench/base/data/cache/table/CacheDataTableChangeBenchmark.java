@@ -0,0 +1,109 @@
+package base.data.cache.table;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import base.Base;
+import base.data.DataFactory;
+import base.data.sql.BenchmarkDriver;
+import base.types.SqlConnectionPoolType;
+import base.utils.DataUtil;
+
+/**
+ * 数据库缓存表修改事件吞吐量测试
+ * 以1至8个线程随机选择行，分别执行setData+change(完整的修改事件)及直接加入延迟写入队列(add)，输出每秒事件数。
+ * 每轮结束后执行一次写入清空队列，写入耗时不计入结果；数据库使用BenchmarkDriver空驱动。
+ * 项目未引入JMH，以独立的main执行：正式测试前以最大线程数各预热一轮，预热结果不输出。
+ * 运行：java -cp 编译输出目录:libs/* base.data.cache.table.CacheDataTableChangeBenchmark 编译输出目录/ [行数] [每线程事件数]
+ * @author Devin
+ *
+ */
+public class CacheDataTableChangeBenchmark
+{
+	private final static int[] THREAD_COUNTS = { 1, 2, 4, 8 };
+
+	public static void main(String[] args) throws Exception
+	{
+		Base.setClassRootDir(args.length > 0 ? args[0] : "bin/");
+		int rowCount = args.length > 1 ? Integer.parseInt(args[1]) : 50000;
+		int eventCount = args.length > 2 ? Integer.parseInt(args[2]) : 200000;
+		BenchmarkDriver.createPool("benchmark", BenchmarkDriver.URL, "", "", 2, SqlConnectionPoolType.LOCK);
+		ICacheDataTable cacheDataTable = DataFactory.cacheController().createCacheDataTable("benchmark", "id", null, "benchmark", "benchmark_player");
+		ICacheTableRow[] cacheTableRows = new ICacheTableRow[rowCount];
+		for (int i = 0; i < rowCount; i++)
+		{
+			ICacheTableRow cacheTableRow = DataUtil.cacheTableRow();
+			cacheTableRow.setIsNewRow(false);
+			cacheTableRow.addField("id", (long) i);
+			cacheTableRow.addField("gold", i);
+			cacheDataTable.addRow(cacheTableRow);
+			cacheTableRows[i] = cacheTableRow;
+		}
+		int maxThreadCount = THREAD_COUNTS[THREAD_COUNTS.length - 1];
+		run(cacheDataTable, cacheTableRows, maxThreadCount, eventCount, true);
+		run(cacheDataTable, cacheTableRows, maxThreadCount, eventCount, false);
+		System.out.println("threads\tchange events/s\tadd events/s");
+		for (int threadCount : THREAD_COUNTS)
+		{
+			long changeEvents = run(cacheDataTable, cacheTableRows, threadCount, eventCount, true);
+			long addEvents = run(cacheDataTable, cacheTableRows, threadCount, eventCount, false);
+			System.out.println(threadCount + "\t" + changeEvents + "\t" + addEvents);
+		}
+		System.exit(0);
+	}
+
+	/**
+	 * 执行一轮测试
+	 * @param cacheDataTable 数据库缓存表
+	 * @param cacheTableRows 行列表
+	 * @param threadCount 线程数
+	 * @param eventCount 每线程事件数
+	 * @param isChange 是否执行完整的修改事件，否则直接加入延迟写入队列
+	 * @return 每秒事件数
+	 * @throws InterruptedException
+	 */
+	private static long run(final ICacheDataTable cacheDataTable, final ICacheTableRow[] cacheTableRows, int threadCount, final int eventCount, final boolean isChange) throws InterruptedException
+	{
+		final CountDownLatch startLatch = new CountDownLatch(1);
+		final CountDownLatch doneLatch = new CountDownLatch(threadCount);
+		final CacheDataTableWriteBehind writeBehind = cacheDataTable.getWriteBehind();
+		for (int i = 0; i < threadCount; i++)
+		{
+			final int seed = i;
+			new Thread()
+			{
+				public void run()
+				{
+					Random random = new Random(seed);
+					try
+					{
+						startLatch.await();
+						for (int k = 0; k < eventCount; k++)
+						{
+							ICacheTableRow cacheTableRow = cacheTableRows[random.nextInt(cacheTableRows.length)];
+							if (isChange)
+							{
+								cacheTableRow.getField("gold").setData(k);
+								cacheTableRow.change();
+							}
+							else
+							{
+								writeBehind.add(cacheTableRow);
+							}
+						}
+					}
+					catch (InterruptedException e)
+					{
+					}
+					doneLatch.countDown();
+				}
+			}.start();
+		}
+		long startTime = System.nanoTime();
+		startLatch.countDown();
+		doneLatch.await();
+		long elapsed = System.nanoTime() - startTime;
+		cacheDataTable.updateToDataByChange();
+		return (long) threadCount * eventCount * 1000000000L / elapsed;
+	}
+}
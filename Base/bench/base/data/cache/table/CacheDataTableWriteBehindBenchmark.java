@@ -0,0 +1,97 @@
+package base.data.cache.table;
+
+import java.util.Random;
+
+import base.Base;
+import base.data.DataFactory;
+import base.data.sql.BenchmarkDriver;
+import base.types.SqlConnectionPoolType;
+import base.utils.DataUtil;
+
+/**
+ * 数据库缓存表延迟批量写入吞吐量测试
+ * 先将全部行做为新行写入一次(REPLACE)，之后每轮随机修改指定数量的行并执行一次updateToDataByChange，
+ * 输出每轮修改次数下按写入耗时折算的每秒修改数、每次写入执行的批量语句数(仅空驱动)及单次写入耗时。
+ * 未指定数据库地址时使用BenchmarkDriver空驱动，只测量缓存表生成及绑定批量语句的开销；
+ * 指定真实数据库地址时需先建表：CREATE TABLE benchmark_player(id BIGINT PRIMARY KEY, gold INT, name VARCHAR(32))
+ * 运行：java -cp 编译输出目录:libs/* base.data.cache.table.CacheDataTableWriteBehindBenchmark 编译输出目录/ [总行数] [数据库地址 用户名 密码]
+ * @author Devin
+ *
+ */
+public class CacheDataTableWriteBehindBenchmark
+{
+	private final static int[] CHANGE_COUNTS = { 100, 1000, 10000 };
+	private final static int ROUNDS = 10;
+
+	public static void main(String[] args) throws Exception
+	{
+		Base.setClassRootDir(args.length > 0 ? args[0] : "bin/");
+		int rowCount = args.length > 1 ? Integer.parseInt(args[1]) : 50000;
+		String url = args.length > 2 ? args[2] : BenchmarkDriver.URL;
+		String userName = args.length > 3 ? args[3] : "";
+		String password = args.length > 4 ? args[4] : "";
+		BenchmarkDriver.createPool("benchmark", url, userName, password, 4, SqlConnectionPoolType.LOCK);
+		ICacheDataTable cacheDataTable = DataFactory.cacheController().createCacheDataTable("benchmark", "id", null, "benchmark", "benchmark_player");
+		ICacheTableRow[] cacheTableRows = new ICacheTableRow[rowCount];
+		for (int i = 0; i < rowCount; i++)
+		{
+			ICacheTableRow cacheTableRow = DataUtil.cacheTableRow();
+			cacheTableRow.addField("id", (long) i);
+			cacheTableRow.addField("gold", i);
+			cacheTableRow.addField("name", "player" + i);
+			cacheDataTable.addRow(cacheTableRow);
+			cacheTableRow.change();
+			cacheTableRows[i] = cacheTableRow;
+		}
+		long startTime = System.nanoTime();
+		if (!cacheDataTable.updateToDataByChange())
+		{
+			System.out.println("初始写入失败");
+			System.exit(1);
+		}
+		System.out.println("insert " + rowCount + " rows: " + (System.nanoTime() - startTime) / 1000000 + " ms");
+		Random random = new Random(0);
+		for (int i = 0; i < ROUNDS; i++)
+		{// 预热，结果不输出
+			run(cacheDataTable, cacheTableRows, CHANGE_COUNTS[CHANGE_COUNTS.length - 1], random);
+		}
+		System.out.println("changes\tchanges/s\tstatements/flush\tms/flush");
+		for (int changeCount : CHANGE_COUNTS)
+		{
+			long statementCount = BenchmarkDriver.statementCount.get();
+			long time = 0;
+			for (int i = 0; i < ROUNDS; i++)
+			{
+				time += run(cacheDataTable, cacheTableRows, changeCount, random);
+			}
+			long statements = (BenchmarkDriver.statementCount.get() - statementCount) / ROUNDS;
+			System.out.println(changeCount + "\t" + (long) changeCount * ROUNDS * 1000000000L / time + "\t" + (BenchmarkDriver.URL.equals(url) ? String.valueOf(statements) : "-") + "\t" + time / ROUNDS / 1000000.0);
+		}
+		System.exit(0);
+	}
+
+	/**
+	 * 执行一轮修改及写入，一半修改金币字段，一半同时修改金币及名称字段
+	 * @param cacheDataTable 数据库缓存表
+	 * @param cacheTableRows 行列表
+	 * @param changeCount 修改行数
+	 * @param random 随机数
+	 * @return 写入耗时(纳秒)
+	 */
+	private static long run(ICacheDataTable cacheDataTable, ICacheTableRow[] cacheTableRows, int changeCount, Random random)
+	{
+		for (int i = 0; i < changeCount; i++)
+		{
+			ICacheTableRow cacheTableRow = cacheTableRows[random.nextInt(cacheTableRows.length)];
+			cacheTableRow.getField("gold").setData(random.nextInt());
+			if (i % 2 == 0)
+			{
+				cacheTableRow.getField("name").setData("player" + random.nextInt());
+			}
+			cacheTableRow.change();
+		}
+		long startTime = System.nanoTime();
+		cacheDataTable.updateToDataByChange();
+		return System.nanoTime() - startTime;
+	}
+}
@@ -0,0 +1,92 @@
+package base.data.cache.table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import base.Base;
+import base.data.DataFactory;
+import base.types.JavaType;
+import base.types.SortType;
+import base.utils.DataUtil;
+
+/**
+ * 缓存表行排序测试
+ * 对同一批乱序行按“等级降序、金币升序”两个字段排序，分别以Collections.sort逐次比较读取字段(compare)
+ * 及CacheTableComparator.sort先读取排序字段再排序(sort)，输出各行数下每次排序耗时的中位数(毫秒)。
+ * 项目未引入JMH，以独立的main执行：每种方式先预热若干轮，预热结果不输出。
+ * 运行：java -cp 编译输出目录:libs/* base.data.cache.table.CacheTableComparatorBenchmark 编译输出目录/ [每种方式的轮数]
+ * @author Devin
+ *
+ */
+public class CacheTableComparatorBenchmark
+{
+	private final static int[] ROW_COUNTS = { 10000, 100000, 500000 };
+	private final static int WARMUP_ROUNDS = 5;
+
+	public static void main(String[] args) throws Exception
+	{
+		Base.setClassRootDir(args.length > 0 ? args[0] : "bin/");
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 9;
+		CacheTableComparator cacheTableComparator = CacheTableComparator.getComparator("benchmark", new Object[] { JavaType.INTEGER, "level", JavaType.LONG, "gold" }, new SortType[] { SortType.DESC, SortType.ASC });
+		System.out.println("rows\tcompare ms\tsort ms");
+		int tableIndex = 0;
+		for (int rowCount : ROW_COUNTS)
+		{
+			String tableName = "benchmark" + tableIndex++;
+			ICacheTable cacheTable = DataFactory.cacheController().createCacheTable(tableName, "id", null);
+			Random random = new Random(rowCount);
+			List<ICacheTableRow> cacheTableRows = new ArrayList<ICacheTableRow>(rowCount);
+			for (long id = 0; id < rowCount; id++)
+			{
+				ICacheTableRow cacheTableRow = DataUtil.cacheTableRow();
+				cacheTableRow.addField("id", id);
+				cacheTableRow.addField("level", random.nextInt(100));
+				cacheTableRow.addField("gold", (long) random.nextInt(1000000));
+				cacheTable.addRow(cacheTableRow);
+				cacheTableRows.add(cacheTableRow);
+			}
+			long compareTime = run(cacheTableComparator, cacheTableRows, false, rounds);
+			long sortTime = run(cacheTableComparator, cacheTableRows, true, rounds);
+			DataFactory.cacheController().removeCacheTable(tableName);
+			System.out.println(rowCount + "\t" + compareTime / 1000000.0 + "\t" + sortTime / 1000000.0);
+		}
+		System.exit(0);
+	}
+
+	/**
+	 * 执行一种排序方式的测试
+	 * @param cacheTableComparator 排序比较对象
+	 * @param cacheTableRows 行列表
+	 * @param isExtract 是否先读取排序字段再排序
+	 * @param rounds 轮数
+	 * @return 每次排序耗时的中位数(纳秒)
+	 */
+	private static long run(CacheTableComparator cacheTableComparator, List<ICacheTableRow> cacheTableRows, boolean isExtract, int rounds)
+	{
+		long[] times = new long[rounds];
+		Random random = new Random(0);
+		for (int i = -WARMUP_ROUNDS; i < rounds; i++)
+		{
+			List<ICacheTableRow> sortRows = new ArrayList<ICacheTableRow>(cacheTableRows);
+			Collections.shuffle(sortRows, random);
+			long startTime = System.nanoTime();
+			if (isExtract)
+			{
+				cacheTableComparator.sort(sortRows);
+			}
+			else
+			{
+				Collections.sort(sortRows, cacheTableComparator);
+			}
+			if (i >= 0)
+			{
+				times[i] = System.nanoTime() - startTime;
+			}
+		}
+		Arrays.sort(times);
+		return times[rounds / 2];
+	}
+}
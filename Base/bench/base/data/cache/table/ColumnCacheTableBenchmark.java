@@ -0,0 +1,104 @@
+package base.data.cache.table;
+
+import base.Base;
+import base.data.DataFactory;
+import base.types.CacheTableType;
+import base.utils.DataUtil;
+
+/**
+ * 列式缓存表内存占用测试
+ * 分别向DEFAULT及COLUMN类型的缓存表加入相同结构的行(long、int、double、String及boolean字段各一)，
+ * 输出加入前后的堆内存差值折算的每行字节数，以及按主键读取全部行的一个字段的耗时。
+ * 内存以多次System.gc()后的Runtime已用内存估算，建议以固定的-Xms及-Xmx运行以减少误差。
+ * 运行：java -Xms1g -Xmx1g -cp 编译输出目录:libs/* base.data.cache.table.ColumnCacheTableBenchmark 编译输出目录/ [行数]
+ * @author Devin
+ *
+ */
+public class ColumnCacheTableBenchmark
+{
+	private final static CacheTableType[] CACHE_TABLE_TYPES = { CacheTableType.DEFAULT, CacheTableType.COLUMN };
+
+	public static void main(String[] args) throws Exception
+	{
+		Base.setClassRootDir(args.length > 0 ? args[0] : "bin/");
+		int rowCount = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+		int tableIndex = 0;
+		for (CacheTableType cacheTableType : CACHE_TABLE_TYPES)
+		{// 预热，结果不输出
+			run(cacheTableType, "benchmark" + tableIndex++, rowCount / 10);
+		}
+		System.out.println("rows\ttype\tbytes/row\tfill ms\tread ms");
+		for (CacheTableType cacheTableType : CACHE_TABLE_TYPES)
+		{
+			System.out.println(rowCount + "\t" + cacheTableType + "\t" + run(cacheTableType, "benchmark" + tableIndex++, rowCount));
+		}
+		System.exit(0);
+	}
+
+	/**
+	 * 执行一轮测试
+	 * @param cacheTableType 缓存表类型
+	 * @param tableName 表名
+	 * @param rowCount 行数
+	 * @return 每行字节数、加入耗时及读取耗时，以“\t”分隔
+	 */
+	private static String run(CacheTableType cacheTableType, String tableName, int rowCount)
+	{
+		long usedBefore = usedMemory();
+		long startTime = System.nanoTime();
+		ICacheTable cacheTable = DataFactory.cacheController().createCacheTable(tableName, "id", null, cacheTableType);
+		for (long id = 0; id < rowCount; id++)
+		{
+			cacheTable.addRow(newRow(id));
+		}
+		long fillTime = System.nanoTime() - startTime;
+		long usedAfter = usedMemory();
+		startTime = System.nanoTime();
+		long total = 0;
+		for (long id = 0; id < rowCount; id++)
+		{
+			long gold = cacheTable.getRowByPrimaryKey(id).getField("gold").getData();
+			total += gold;
+		}
+		long readTime = System.nanoTime() - startTime;
+		if (total < 0)
+		{// 使用读取结果，避免被优化
+			System.out.println(total);
+		}
+		DataFactory.cacheController().removeCacheTable(tableName);
+		return (usedAfter - usedBefore) / rowCount + "\t" + fillTime / 1000000 + "\t" + readTime / 1000000;
+	}
+
+	/**
+	 * 多次回收后的已用堆内存
+	 * @return 字节数
+	 */
+	private static long usedMemory()
+	{
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 4; i++)
+		{
+			System.gc();
+			try
+			{
+				Thread.sleep(100);
+			}
+			catch (InterruptedException e)
+			{
+			}
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static ICacheTableRow newRow(long id)
+	{
+		ICacheTableRow cacheTableRow = DataUtil.cacheTableRow();
+		cacheTableRow.addField("id", id);
+		cacheTableRow.addField("level", (int) (id % 100));
+		cacheTableRow.addField("gold", id * 10);
+		cacheTableRow.addField("exp", id * 0.5);
+		cacheTableRow.addField("name", "player" + id);
+		cacheTableRow.addField("online", id % 2 == 0);
+		return cacheTableRow;
+	}
+}
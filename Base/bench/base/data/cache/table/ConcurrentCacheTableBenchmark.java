@@ -0,0 +1,121 @@
+package base.data.cache.table;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import base.Base;
+import base.data.DataFactory;
+import base.types.CacheTableType;
+import base.utils.DataUtil;
+
+/**
+ * 并发缓存表吞吐量测试
+ * 分别以1至32个线程对DEFAULT及CONCURRENT类型的限容量缓存表执行按主键读取(90%)及增加行(10%，超出容量时淘汰)，输出每秒操作数。
+ * 项目未引入JMH，以独立的main执行：正式测试前以最大线程数各预热一轮，预热结果不输出。
+ * 运行：java -cp 编译输出目录:libs/* base.data.cache.table.ConcurrentCacheTableBenchmark 编译输出目录/ [每轮秒数]
+ * @author Devin
+ *
+ */
+public class ConcurrentCacheTableBenchmark
+{
+	private final static int CAPACITY = 100000;
+	private final static int KEY_RANGE = 150000;
+	private final static int[] THREAD_COUNTS = { 1, 2, 4, 8, 16, 32 };
+
+	public static void main(String[] args) throws Exception
+	{
+		Base.setClassRootDir(args.length > 0 ? args[0] : "bin/");
+		long seconds = args.length > 1 ? Long.parseLong(args[1]) : 3;
+		int tableIndex = 0;
+		run(CacheTableType.DEFAULT, "benchmark" + tableIndex++, THREAD_COUNTS[THREAD_COUNTS.length - 1], seconds);
+		run(CacheTableType.CONCURRENT, "benchmark" + tableIndex++, THREAD_COUNTS[THREAD_COUNTS.length - 1], seconds);
+		System.out.println("threads\tDEFAULT ops/s\tCONCURRENT ops/s");
+		for (int threadCount : THREAD_COUNTS)
+		{
+			long defaultOps = run(CacheTableType.DEFAULT, "benchmark" + tableIndex++, threadCount, seconds);
+			long concurrentOps = run(CacheTableType.CONCURRENT, "benchmark" + tableIndex++, threadCount, seconds);
+			System.out.println(threadCount + "\t" + defaultOps + "\t" + concurrentOps);
+		}
+		System.exit(0);
+	}
+
+	/**
+	 * 执行一轮测试
+	 * @param cacheTableType 缓存表类型
+	 * @param tableName 表名
+	 * @param threadCount 线程数
+	 * @param seconds 测试秒数
+	 * @return 每秒操作数
+	 * @throws InterruptedException
+	 */
+	private static long run(CacheTableType cacheTableType, String tableName, int threadCount, long seconds) throws InterruptedException
+	{
+		final ICacheTable cacheTable = DataFactory.cacheController().createCacheTable(tableName, "id", null, CAPACITY, cacheTableType);
+		for (long id = 0; id < CAPACITY; id++)
+		{
+			cacheTable.addRow(newRow(id));
+		}
+		final AtomicLong operations = new AtomicLong();
+		final CountDownLatch startLatch = new CountDownLatch(1);
+		final CountDownLatch doneLatch = new CountDownLatch(threadCount);
+		final long[] endTime = new long[1];
+		for (int i = 0; i < threadCount; i++)
+		{
+			final int seed = i;
+			final int threads = threadCount;
+			new Thread()
+			{
+				public void run()
+				{
+					Random random = new Random(seed);
+					long count = 0;
+					try
+					{
+						startLatch.await();
+						while (System.nanoTime() < endTime[0])
+						{
+							for (int k = 0; k < 100; k++)
+							{
+								long id = random.nextInt(KEY_RANGE);
+								if (random.nextInt(10) == 0)
+								{// 各线程只增加与其序号同余的主键，避免线程间重复增加相同主键的行
+									id = id - id % threads + seed;
+									if (cacheTable.getRowByPrimaryKey(id) == null)
+									{
+										cacheTable.addRow(newRow(id));
+									}
+								}
+								else
+								{
+									cacheTable.getRowByPrimaryKey(id);
+								}
+							}
+							count += 100;
+						}
+					}
+					catch (InterruptedException e)
+					{
+					}
+					operations.addAndGet(count);
+					doneLatch.countDown();
+				}
+			}.start();
+		}
+		long startTime = System.nanoTime();
+		endTime[0] = startTime + seconds * 1000000000L;
+		startLatch.countDown();
+		doneLatch.await();
+		long elapsed = System.nanoTime() - startTime;
+		DataFactory.cacheController().removeCacheTable(tableName);
+		return operations.get() * 1000000000L / elapsed;
+	}
+
+	private static ICacheTableRow newRow(long id)
+	{
+		ICacheTableRow cacheTableRow = DataUtil.cacheTableRow();
+		cacheTableRow.addField("id", id);
+		cacheTableRow.addField("value", (int) id);
+		return cacheTableRow;
+	}
+}
@@ -0,0 +1,93 @@
+package base.data.cache.table;
+
+import java.util.Arrays;
+
+import base.Base;
+import base.data.DataFactory;
+import base.types.CacheTableType;
+import base.utils.DataUtil;
+
+/**
+ * LRU缓存表容量已满时的插入延迟测试
+ * 分别对DEFAULT及LRU类型的限容量缓存表在容量已满后执行增加至末尾(淘汰冷端行)、按中间位置插入及按中间位置取得行，
+ * 输出每次操作的平均及99分位延迟(纳秒)。
+ * 运行：java -cp 编译输出目录:libs/* base.data.cache.table.LruCacheTableBenchmark 编译输出目录/ [每轮操作次数]
+ * @author Devin
+ *
+ */
+public class LruCacheTableBenchmark
+{
+	private final static int[] CAPACITIES = { 10000, 100000, 500000 };
+	private final static CacheTableType[] CACHE_TABLE_TYPES = { CacheTableType.DEFAULT, CacheTableType.LRU };
+
+	public static void main(String[] args) throws Exception
+	{
+		Base.setClassRootDir(args.length > 0 ? args[0] : "bin/");
+		int operationCount = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+		System.out.println("capacity\ttype\tadd avg/p99 ns\tinsert avg/p99 ns\tgetRow avg/p99 ns");
+		int tableIndex = 0;
+		for (int capacity : CAPACITIES)
+		{
+			for (CacheTableType cacheTableType : CACHE_TABLE_TYPES)
+			{
+				String tableName = "benchmark" + tableIndex++;
+				ICacheTable cacheTable = DataFactory.cacheController().createCacheTable(tableName, "id", null, capacity, cacheTableType);
+				long id = 0;
+				for (; id < capacity; id++)
+				{
+					cacheTable.addRow(newRow(id));
+				}
+				long[] addTimes = new long[operationCount];
+				long[] insertTimes = new long[operationCount];
+				long[] getTimes = new long[operationCount];
+				for (int i = 0; i < operationCount; i++)
+				{
+					ICacheTableRow cacheTableRow = newRow(id++);
+					long startTime = System.nanoTime();
+					cacheTable.addRow(cacheTableRow);
+					addTimes[i] = System.nanoTime() - startTime;
+				}
+				for (int i = 0; i < operationCount; i++)
+				{
+					ICacheTableRow cacheTableRow = newRow(id++);
+					long startTime = System.nanoTime();
+					cacheTable.insertRow(cacheTableRow, capacity / 2);
+					insertTimes[i] = System.nanoTime() - startTime;
+				}
+				for (int i = 0; i < operationCount; i++)
+				{
+					long startTime = System.nanoTime();
+					cacheTable.getRow(capacity / 2);
+					getTimes[i] = System.nanoTime() - startTime;
+				}
+				DataFactory.cacheController().removeCacheTable(tableName);
+				System.out.println(capacity + "\t" + cacheTableType + "\t" + latency(addTimes) + "\t" + latency(insertTimes) + "\t" + latency(getTimes));
+			}
+		}
+		System.exit(0);
+	}
+
+	/**
+	 * 平均及99分位延迟
+	 * @param times 各次操作耗时
+	 * @return 平均/99分位
+	 */
+	private static String latency(long[] times)
+	{
+		long total = 0;
+		for (long time : times)
+		{
+			total += time;
+		}
+		Arrays.sort(times);
+		return total / times.length + "/" + times[times.length * 99 / 100];
+	}
+
+	private static ICacheTableRow newRow(long id)
+	{
+		ICacheTableRow cacheTableRow = DataUtil.cacheTableRow();
+		cacheTableRow.addField("id", id);
+		cacheTableRow.addField("value", (int) id);
+		return cacheTableRow;
+	}
+}
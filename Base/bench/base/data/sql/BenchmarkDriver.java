@@ -0,0 +1,293 @@
+package base.data.sql;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Types;
+import java.util.Enumeration;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import base.data.DataFactory;
+import base.types.SqlConnectionPoolType;
+
+/**
+ * 性能测试用的空JDBC驱动
+ * 连接地址为“jdbc:benchmark”，连接及语句均为动态代理，不进行任何网络或磁盘操作，只累计执行的语句数及绑定的参数行数。
+ * 查询返回逐行生成的只能向前读取的结果集，行数由setQueryRowCount设置，包含id(BIGINT，值为行号，从1开始)及name(VARCHAR)两列。
+ * 用于在没有数据库的环境中测量缓存表及数据库访问层自身的开销，测量结果不包含数据库的执行时间。
+ * @author Devin
+ *
+ */
+public class BenchmarkDriver implements Driver
+{
+	/**
+	 * 连接地址
+	 */
+	public final static String URL = "jdbc:benchmark";
+
+	/**
+	 * 已执行的语句数，批量执行计为一次
+	 */
+	public final static AtomicLong statementCount = new AtomicLong();
+
+	/**
+	 * 已绑定的参数行数，批量执行时每行计一次
+	 */
+	public final static AtomicLong rowCount = new AtomicLong();
+
+	/**
+	 * 查询结果集的行数
+	 */
+	private static volatile long queryRowCount;
+
+	private final static BenchmarkDriver driver = new BenchmarkDriver();
+
+	/**
+	 * 注册驱动，可重复调用
+	 * @throws SQLException
+	 */
+	public static synchronized void register() throws SQLException
+	{
+		for (Enumeration<Driver> drivers = DriverManager.getDrivers(); drivers.hasMoreElements();)
+		{
+			if (drivers.nextElement() == driver)
+				return;
+		}
+		DriverManager.registerDriver(driver);
+	}
+
+	/**
+	 * 设置查询结果集的行数
+	 * @param queryRowCount 行数
+	 */
+	public static void setQueryRowCount(long queryRowCount)
+	{
+		BenchmarkDriver.queryRowCount = queryRowCount;
+	}
+
+	/**
+	 * 创建数据库连接池，地址为URL时先注册本驱动
+	 * @param poolName 连接池名
+	 * @param url 连接地址
+	 * @param userName 用户名
+	 * @param password 密码
+	 * @param maxConnections 最大连接数
+	 * @param poolType 连接池类型
+	 * @return 连接池
+	 * @throws SQLException
+	 */
+	public static ISqlConnectionPool createPool(String poolName, String url, String userName, String password, int maxConnections, SqlConnectionPoolType poolType) throws SQLException
+	{
+		if (URL.equals(url))
+		{
+			register();
+		}
+		Properties properties = new Properties();
+		properties.setProperty("db_poolName", poolName);
+		properties.setProperty("db_driverName", URL.equals(url) ? BenchmarkDriver.class.getName() : "");
+		properties.setProperty("db_url", url);
+		properties.setProperty("db_userName", userName);
+		properties.setProperty("db_password", password);
+		properties.setProperty("db_initConnections", "1");
+		properties.setProperty("db_maxFreeConnections", String.valueOf(maxConnections));
+		properties.setProperty("db_maxActiveConnections", String.valueOf(maxConnections));
+		properties.setProperty("db_connectionTimeOut", "10000");
+		properties.setProperty("db_poolType", poolType.toString());
+		SqlConnectionConfig sqlConnectionConfig = new SqlConnectionConfig();
+		sqlConnectionConfig.init(properties, "db");
+		return DataFactory.sqlController().createPool(sqlConnectionConfig);
+	}
+
+	public Connection connect(String url, Properties info) throws SQLException
+	{
+		if (!acceptsURL(url))
+			return null;
+		return (Connection) Proxy.newProxyInstance(BenchmarkDriver.class.getClassLoader(), new Class<?>[] { Connection.class }, new InvocationHandler()
+		{
+			private boolean autoCommit = true;
+
+			public Object invoke(Object proxy, Method method, Object[] args)
+			{
+				String name = method.getName();
+				if (name.equals("prepareStatement"))
+					return newPreparedStatement();
+				if (name.equals("setAutoCommit"))
+				{
+					autoCommit = (Boolean) args[0];
+					return null;
+				}
+				if (name.equals("getAutoCommit"))
+					return autoCommit;
+				if (name.equals("isValid"))
+					return true;
+				if (name.equals("isClosed"))
+					return false;
+				return defaultValue(method.getReturnType());
+			}
+		});
+	}
+
+	/**
+	 * 创建语句代理
+	 * @return 语句
+	 */
+	private static PreparedStatement newPreparedStatement()
+	{
+		return (PreparedStatement) Proxy.newProxyInstance(BenchmarkDriver.class.getClassLoader(), new Class<?>[] { PreparedStatement.class }, new InvocationHandler()
+		{
+			private int batchCount;
+
+			public Object invoke(Object proxy, Method method, Object[] args)
+			{
+				String name = method.getName();
+				if (name.equals("addBatch"))
+				{
+					batchCount++;
+					return null;
+				}
+				if (name.equals("executeBatch"))
+				{
+					statementCount.incrementAndGet();
+					rowCount.addAndGet(batchCount);
+					int[] results = new int[batchCount];
+					batchCount = 0;
+					return results;
+				}
+				if (name.equals("executeUpdate"))
+				{
+					statementCount.incrementAndGet();
+					rowCount.incrementAndGet();
+					return 1;
+				}
+				if (name.equals("executeQuery"))
+				{
+					statementCount.incrementAndGet();
+					return newResultSet(queryRowCount);
+				}
+				return defaultValue(method.getReturnType());
+			}
+		});
+	}
+
+	/**
+	 * 创建逐行生成数据的结果集代理
+	 * @param rows 行数
+	 * @return 结果集
+	 */
+	private static ResultSet newResultSet(final long rows)
+	{
+		final ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(BenchmarkDriver.class.getClassLoader(), new Class<?>[] { ResultSetMetaData.class }, new InvocationHandler()
+		{
+			public Object invoke(Object proxy, Method method, Object[] args)
+			{
+				String name = method.getName();
+				if (name.equals("getColumnCount"))
+					return 2;
+				boolean isId = args != null && (Integer) args[0] == 1;
+				if (name.equals("getColumnLabel") || name.equals("getColumnName"))
+					return isId ? "id" : "name";
+				if (name.equals("getColumnClassName"))
+					return isId ? Long.class.getName() : String.class.getName();
+				if (name.equals("getColumnType"))
+					return isId ? Types.BIGINT : Types.VARCHAR;
+				if (name.equals("getColumnTypeName"))
+					return isId ? "BIGINT" : "VARCHAR";
+				if (name.equals("getColumnDisplaySize") || name.equals("getPrecision"))
+					return 20;
+				if (name.equals("getCatalogName") || name.equals("getSchemaName") || name.equals("getTableName"))
+					return "";
+				return defaultValue(method.getReturnType());
+			}
+		});
+		return (ResultSet) Proxy.newProxyInstance(BenchmarkDriver.class.getClassLoader(), new Class<?>[] { ResultSet.class }, new InvocationHandler()
+		{
+			private long row;
+
+			public Object invoke(Object proxy, Method method, Object[] args)
+			{
+				String name = method.getName();
+				if (name.equals("next"))
+					return ++row <= rows;
+				if (name.equals("getMetaData"))
+					return metaData;
+				if (name.equals("findColumn"))
+					return "id".equalsIgnoreCase((String) args[0]) ? 1 : 2;
+				if (name.equals("getType"))
+					return ResultSet.TYPE_FORWARD_ONLY;
+				if (name.equals("getConcurrency"))
+					return ResultSet.CONCUR_READ_ONLY;
+				if (name.startsWith("get") && args != null && args.length == 1)
+				{
+					boolean isId = args[0] instanceof Integer ? (Integer) args[0] == 1 : "id".equalsIgnoreCase((String) args[0]);
+					Class<?> returnType = method.getReturnType();
+					if (returnType == long.class)
+						return row;
+					if (returnType == int.class)
+						return (int) row;
+					if (returnType == String.class)
+						return isId ? String.valueOf(row) : "player" + row;
+					if (returnType == Object.class)
+						return isId ? Long.valueOf(row) : "player" + row;
+				}
+				return defaultValue(method.getReturnType());
+			}
+		});
+	}
+
+	/**
+	 * 方法返回类型的默认值
+	 * @param returnType 返回类型
+	 * @return 默认值
+	 */
+	private static Object defaultValue(Class<?> returnType)
+	{
+		if (returnType == boolean.class)
+			return false;
+		if (returnType == int.class)
+			return 0;
+		if (returnType == long.class)
+			return 0L;
+		return null;
+	}
+
+	public boolean acceptsURL(String url)
+	{
+		return url != null && url.startsWith(URL);
+	}
+
+	public DriverPropertyInfo[] getPropertyInfo(String url, Properties info)
+	{
+		return new DriverPropertyInfo[0];
+	}
+
+	public int getMajorVersion()
+	{
+		return 1;
+	}
+
+	public int getMinorVersion()
+	{
+		return 0;
+	}
+
+	public boolean jdbcCompliant()
+	{
+		return false;
+	}
+
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException
+	{
+		throw new SQLFeatureNotSupportedException();
+	}
+}
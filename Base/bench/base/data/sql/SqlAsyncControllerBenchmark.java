@@ -0,0 +1,165 @@
+package base.data.sql;
+
+import java.sql.ResultSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import base.Base;
+import base.data.DataFactory;
+import base.types.SqlConnectionPoolType;
+
+/**
+ * 异步SQL执行测试
+ * 以BenchmarkDriver空驱动分别测量：
+ * 1.同步executeUpdate与异步executeUpdate(最多maxQueueSize个未完成任务)的每秒执行数；
+ * 2.每批同时发起相同的异步查询，关闭及开启合并查询时每次调用实际执行的查询数；
+ * 3.不等待完成连续提交队列容量数倍的任务时，被拒绝的任务数及单次提交的最大耗时(调用方不被阻塞)。
+ * 空驱动不包含数据库的执行时间，结果只反映异步执行层自身的开销及行为。
+ * 运行：java -cp 编译输出目录:libs/* base.data.sql.SqlAsyncControllerBenchmark 编译输出目录/ [执行次数]
+ * @author Devin
+ *
+ */
+public class SqlAsyncControllerBenchmark
+{
+	private final static String UPDATE_SQL = "UPDATE player SET gold=? WHERE id=?";
+	private final static String QUERY_SQL = "SELECT id,name FROM player WHERE level=?";
+	private final static int THREADS = 4;
+	private final static int MAX_QUEUE_SIZE = 1024;
+	private final static int CALLERS = 16;
+
+	public static void main(String[] args) throws Exception
+	{
+		Base.setClassRootDir(args.length > 0 ? args[0] : "bin/");
+		int operationCount = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+		BenchmarkDriver.createPool("benchmark", BenchmarkDriver.URL, "", "", THREADS, SqlConnectionPoolType.CONCURRENT);
+		SqlAsyncController sqlAsyncController = DataFactory.sqlAsyncController();
+		sqlAsyncController.createExecutor("benchmark", THREADS, MAX_QUEUE_SIZE);
+		runSync(operationCount / 10);
+		runAsync(sqlAsyncController, operationCount / 10);
+		System.out.println("sync updates/s\t" + runSync(operationCount));
+		System.out.println("async updates/s\t" + runAsync(sqlAsyncController, operationCount));
+		BenchmarkDriver.setQueryRowCount(1000);
+		sqlAsyncController.setIsCoalesceQuery(false);
+		System.out.println("queries/call without coalescing\t" + runQuery(sqlAsyncController, operationCount / 100));
+		sqlAsyncController.setIsCoalesceQuery(true);
+		System.out.println("queries/call with coalescing\t" + runQuery(sqlAsyncController, operationCount / 100));
+		runRejected(sqlAsyncController);
+		System.exit(0);
+	}
+
+	/**
+	 * 同步执行
+	 * @param operationCount 执行次数
+	 * @return 每秒执行数
+	 */
+	private static long runSync(int operationCount)
+	{
+		SqlTypedParameter sqlTypedParameter = new SqlTypedParameter(2);
+		long startTime = System.nanoTime();
+		for (int i = 0; i < operationCount; i++)
+		{
+			sqlTypedParameter.clear();
+			sqlTypedParameter.setInt(1, i).setLong(2, i);
+			DataFactory.sqlController().executeUpdate("benchmark", UPDATE_SQL, sqlTypedParameter);
+		}
+		return (long) operationCount * 1000000000L / (System.nanoTime() - startTime);
+	}
+
+	/**
+	 * 异步执行，未完成的任务数不超过队列容量，提交方在达到容量时等待
+	 * @param sqlAsyncController 异步执行控制器
+	 * @param operationCount 执行次数
+	 * @return 每秒执行数
+	 * @throws InterruptedException
+	 */
+	private static long runAsync(SqlAsyncController sqlAsyncController, int operationCount) throws InterruptedException
+	{
+		final Semaphore permits = new Semaphore(MAX_QUEUE_SIZE);
+		final CountDownLatch doneLatch = new CountDownLatch(operationCount);
+		ISqlAsyncCallback<Boolean> callback = new ISqlAsyncCallback<Boolean>()
+		{
+			public void complete(Boolean result, Throwable error)
+			{
+				permits.release();
+				doneLatch.countDown();
+			}
+		};
+		SqlTypedParameter sqlTypedParameter = new SqlTypedParameter(2);
+		long startTime = System.nanoTime();
+		for (int i = 0; i < operationCount; i++)
+		{
+			permits.acquire();
+			sqlTypedParameter.clear();
+			sqlTypedParameter.setInt(1, i).setLong(2, i);
+			sqlAsyncController.executeUpdate("benchmark", UPDATE_SQL, sqlTypedParameter, callback);
+		}
+		doneLatch.await();
+		return (long) operationCount * 1000000000L / (System.nanoTime() - startTime);
+	}
+
+	/**
+	 * 每批同时发起CALLERS个相同的查询，等待全部完成后再发起下一批
+	 * @param sqlAsyncController 异步执行控制器
+	 * @param batchCount 批数
+	 * @return 每次调用实际执行的查询数
+	 * @throws InterruptedException
+	 */
+	private static String runQuery(SqlAsyncController sqlAsyncController, int batchCount) throws InterruptedException
+	{
+		long statementCount = BenchmarkDriver.statementCount.get();
+		SqlTypedParameter sqlTypedParameter = new SqlTypedParameter(1);
+		for (int i = 0; i < batchCount; i++)
+		{
+			final CountDownLatch doneLatch = new CountDownLatch(CALLERS);
+			ISqlAsyncCallback<ResultSet> callback = new ISqlAsyncCallback<ResultSet>()
+			{
+				public void complete(ResultSet result, Throwable error)
+				{
+					doneLatch.countDown();
+				}
+			};
+			sqlTypedParameter.clear();
+			sqlTypedParameter.setInt(1, i);
+			for (int k = 0; k < CALLERS; k++)
+			{
+				sqlAsyncController.executeQuery("benchmark", QUERY_SQL, sqlTypedParameter, callback);
+			}
+			doneLatch.await();
+		}
+		return String.valueOf((BenchmarkDriver.statementCount.get() - statementCount) / (double) (batchCount * CALLERS));
+	}
+
+	/**
+	 * 不等待完成连续提交任务
+	 * @param sqlAsyncController 异步执行控制器
+	 * @throws InterruptedException
+	 */
+	private static void runRejected(SqlAsyncController sqlAsyncController) throws InterruptedException
+	{
+		Logger.getLogger(SqlAsyncController.class.getName()).setLevel(Level.SEVERE);// 拒绝时的警告日志不输出
+		int submitCount = MAX_QUEUE_SIZE * 8;
+		final CountDownLatch doneLatch = new CountDownLatch(submitCount);
+		ISqlAsyncCallback<Boolean> callback = new ISqlAsyncCallback<Boolean>()
+		{
+			public void complete(Boolean result, Throwable error)
+			{
+				doneLatch.countDown();
+			}
+		};
+		SqlTypedParameter sqlTypedParameter = new SqlTypedParameter(2);
+		long rejectedCount = sqlAsyncController.getRejectedCount();
+		long maxSubmitTime = 0;
+		for (int i = 0; i < submitCount; i++)
+		{
+			sqlTypedParameter.clear();
+			sqlTypedParameter.setInt(1, i).setLong(2, i);
+			long startTime = System.nanoTime();
+			sqlAsyncController.executeUpdate("benchmark", UPDATE_SQL, sqlTypedParameter, callback);
+			maxSubmitTime = Math.max(maxSubmitTime, System.nanoTime() - startTime);
+		}
+		doneLatch.await();
+		System.out.println("submitted\t" + submitCount + "\trejected\t" + (sqlAsyncController.getRejectedCount() - rejectedCount) + "\tmax submit us\t" + maxSubmitTime / 1000);
+	}
+}
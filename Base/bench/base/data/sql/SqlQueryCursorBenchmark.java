@@ -0,0 +1,166 @@
+package base.data.sql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import base.Base;
+import base.data.DataFactory;
+import base.types.SqlConnectionPoolType;
+
+/**
+ * 大结果集读取内存及耗时测试
+ * 以BenchmarkDriver空驱动返回指定行数的结果集，分别以executeQuery(整个结果集缓存至内存)、query(行处理器)及openQuery(游标)读取全部行，
+ * 输出各方式的耗时以及读取到一半时相对读取前增加的堆内存(KB)。
+ * 内存以多次System.gc()后的Runtime已用内存估算，executeQuery的行数过大时可能内存不足，可用小于总行数的缓存行数限制。
+ * 运行：java -Xmx256m -cp 编译输出目录:libs/* base.data.sql.SqlQueryCursorBenchmark 编译输出目录/ [总行数] [executeQuery行数]
+ * @author Devin
+ *
+ */
+public class SqlQueryCursorBenchmark
+{
+	private final static String SQL = "SELECT id,name FROM player";
+
+	public static void main(String[] args) throws Exception
+	{
+		Base.setClassRootDir(args.length > 0 ? args[0] : "bin/");
+		long rowCount = args.length > 1 ? Long.parseLong(args[1]) : 5000000;
+		long cachedRowCount = args.length > 2 ? Long.parseLong(args[2]) : 200000;
+		BenchmarkDriver.createPool("benchmark", BenchmarkDriver.URL, "", "", 1, SqlConnectionPoolType.LOCK);
+		runQuery(rowCount / 10);
+		runCursor(rowCount / 10);
+		System.out.println("mode\trows\tms\tretained KB");
+		System.out.println("executeQuery\t" + cachedRowCount + "\t" + runExecuteQuery(cachedRowCount));
+		System.out.println("query\t" + rowCount + "\t" + runQuery(rowCount));
+		System.out.println("openQuery\t" + rowCount + "\t" + runCursor(rowCount));
+		System.exit(0);
+	}
+
+	/**
+	 * 以executeQuery读取
+	 * @param rowCount 行数
+	 * @return 耗时及增加的堆内存，以“\t”分隔
+	 * @throws SQLException
+	 */
+	private static String runExecuteQuery(long rowCount) throws SQLException
+	{
+		BenchmarkDriver.setQueryRowCount(rowCount);
+		long usedBefore = usedMemory();
+		long retained = 0;
+		long total = 0;
+		long startTime = System.nanoTime();
+		ResultSet resultSet = DataFactory.sqlController().executeQuery("benchmark", SQL);
+		while (resultSet.next())
+		{
+			long id = resultSet.getLong(1);
+			total += id;
+			if (id == rowCount / 2)
+			{
+				retained = usedMemory() - usedBefore;
+			}
+		}
+		resultSet.close();
+		return result(startTime, retained, total);
+	}
+
+	/**
+	 * 以行处理器读取
+	 * @param rowCount 行数
+	 * @return 耗时及增加的堆内存，以“\t”分隔
+	 */
+	private static String runQuery(final long rowCount)
+	{
+		BenchmarkDriver.setQueryRowCount(rowCount);
+		final long usedBefore = usedMemory();
+		final long[] values = new long[2];
+		long startTime = System.nanoTime();
+		DataFactory.sqlController().query("benchmark", SQL, null, 0, new ISqlRowHandler()
+		{
+			public boolean handle(ISqlRow row) throws SQLException
+			{
+				long id = row.getLong(1);
+				values[0] += id;
+				if (id == rowCount / 2)
+				{
+					values[1] = usedMemory() - usedBefore;
+				}
+				return true;
+			}
+		});
+		return result(startTime, values[1], values[0]);
+	}
+
+	/**
+	 * 以游标读取
+	 * @param rowCount 行数
+	 * @return 耗时及增加的堆内存，以“\t”分隔
+	 */
+	private static String runCursor(long rowCount)
+	{
+		BenchmarkDriver.setQueryRowCount(rowCount);
+		long usedBefore = usedMemory();
+		long retained = 0;
+		long total = 0;
+		long startTime = System.nanoTime();
+		SqlQueryCursor cursor = DataFactory.sqlController().openQuery("benchmark", SQL, null, 0);
+		try
+		{
+			for (ISqlRow row : cursor)
+			{
+				long id = row.getLong(1);
+				total += id;
+				if (id == rowCount / 2)
+				{
+					retained = usedMemory() - usedBefore;
+				}
+			}
+		}
+		catch (SQLException e)
+		{
+			Logger.getLogger(SqlQueryCursorBenchmark.class.getName()).log(Level.SEVERE, null, e);
+		}
+		finally
+		{
+			cursor.close();
+		}
+		return result(startTime, retained, total);
+	}
+
+	/**
+	 * 格式化结果，读取中测量内存的耗时不扣除
+	 * @param startTime 开始时间
+	 * @param retained 增加的堆内存
+	 * @param total 读取的id合计，用于避免读取被优化
+	 * @return 耗时及增加的堆内存，以“\t”分隔
+	 */
+	private static String result(long startTime, long retained, long total)
+	{
+		if (total < 0)
+		{
+			System.out.println(total);
+		}
+		return (System.nanoTime() - startTime) / 1000000 + "\t" + retained / 1024;
+	}
+
+	/**
+	 * 多次回收后的已用堆内存
+	 * @return 字节数
+	 */
+	private static long usedMemory()
+	{
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 4; i++)
+		{
+			System.gc();
+			try
+			{
+				Thread.sleep(100);
+			}
+			catch (InterruptedException e)
+			{
+			}
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
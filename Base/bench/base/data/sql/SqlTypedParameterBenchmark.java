@@ -0,0 +1,83 @@
+package base.data.sql;
+
+import java.util.Arrays;
+
+import base.Base;
+import base.data.DataFactory;
+import base.types.SqlConnectionPoolType;
+
+/**
+ * 强类型SQL参数执行开销测试
+ * 以BenchmarkDriver空驱动执行含4个参数的UPDATE语句，分别使用按名称的SqlConnectionParameter(每次新建，执行后被释放)、
+ * 每次新建的SqlTypedParameter及清除后重用的SqlTypedParameter，输出各方式每次执行耗时的中位数(纳秒)。
+ * 空驱动的语句为动态代理，结果包含代理调用的开销，不包含数据库的执行时间。
+ * 项目未引入JMH，以独立的main执行：每种方式先预热一轮，预热结果不输出。
+ * 运行：java -cp 编译输出目录:libs/* base.data.sql.SqlTypedParameterBenchmark 编译输出目录/ [每轮执行次数]
+ * @author Devin
+ *
+ */
+public class SqlTypedParameterBenchmark
+{
+	private final static String NAMED_SQL = "UPDATE player SET gold={gold},exp={exp},name={name} WHERE id={id}";
+	private final static String TYPED_SQL = "UPDATE player SET gold=?,exp=?,name=? WHERE id=?";
+	private final static int ROUNDS = 5;
+
+	public static void main(String[] args) throws Exception
+	{
+		Base.setClassRootDir(args.length > 0 ? args[0] : "bin/");
+		int operationCount = args.length > 1 ? Integer.parseInt(args[1]) : 500000;
+		BenchmarkDriver.createPool("benchmark", BenchmarkDriver.URL, "", "", 1, SqlConnectionPoolType.LOCK);
+		System.out.println("named ns/op\ttyped ns/op\ttyped reused ns/op");
+		long[][] times = new long[3][ROUNDS];
+		for (int i = -1; i < ROUNDS; i++)
+		{
+			for (int type = 0; type < 3; type++)
+			{
+				long time = run(type, operationCount);
+				if (i >= 0)
+				{
+					times[type][i] = time;
+				}
+			}
+		}
+		for (long[] typeTimes : times)
+		{
+			Arrays.sort(typeTimes);
+		}
+		System.out.println(times[0][ROUNDS / 2] + "\t" + times[1][ROUNDS / 2] + "\t" + times[2][ROUNDS / 2]);
+		System.exit(0);
+	}
+
+	/**
+	 * 执行一轮测试
+	 * @param type 0为按名称参数，1为每次新建的强类型参数，2为重用的强类型参数
+	 * @param operationCount 执行次数
+	 * @return 每次执行的平均耗时(纳秒)
+	 */
+	private static long run(int type, int operationCount)
+	{
+		SqlController sqlController = DataFactory.sqlController();
+		SqlTypedParameter reusedParameter = new SqlTypedParameter(4);
+		long startTime = System.nanoTime();
+		for (int i = 0; i < operationCount; i++)
+		{
+			if (type == 0)
+			{
+				SqlConnectionParameter sqlConnectionParameter = new SqlConnectionParameter();
+				sqlConnectionParameter.addParameter("{gold}", i);
+				sqlConnectionParameter.addParameter("{exp}", (long) i);
+				sqlConnectionParameter.addParameter("{name}", "player");
+				sqlConnectionParameter.addParameter("{id}", (long) i);
+				sqlController.executeUpdate("benchmark", NAMED_SQL, sqlConnectionParameter);
+			}
+			else
+			{
+				ISqlTypedParameter sqlTypedParameter = type == 1 ? new SqlTypedParameter(4) : reusedParameter;
+				sqlTypedParameter.clear();
+				sqlTypedParameter.setInt(1, i).setLong(2, i).setString(3, "player").setLong(4, i);
+				sqlController.executeUpdate("benchmark", TYPED_SQL, sqlTypedParameter);
+			}
+		}
+		return (System.nanoTime() - startTime) / operationCount;
+	}
+}
@@ -1,6 +1,7 @@
 package base.data;
 
 import base.data.cache.CacheController;
+import base.data.sql.SqlAsyncController;
 import base.data.sql.SqlController;
 
 public class DataFactory
@@ -9,6 +10,10 @@ public class DataFactory
 	 * 数据库连接池控制器
 	 */
 	private final static SqlController sqlController = new SqlController();
+	/**
+	 * 异步SQL执行控制器
+	 */
+	private final static SqlAsyncController sqlAsyncController = new SqlAsyncController(sqlController);
 	/**
 	 * 缓存控制器
 	 */
@@ -27,6 +32,15 @@ public class DataFactory
 		return sqlController;
 	}
 
+	/**
+	 * 异步SQL执行控制器
+	 * @return sqlAsyncController
+	 */
+	public static SqlAsyncController sqlAsyncController()
+	{
+		return sqlAsyncController;
+	}
+
 	/**
 	 * 缓存控制器
 	 * @return
@@ -9,8 +9,12 @@ import java.util.logging.Logger;
 import base.Base;
 import base.data.cache.table.CacheDataTable;
 import base.data.cache.table.CacheTable;
+import base.data.cache.table.ColumnCacheTable;
+import base.data.cache.table.ConcurrentCacheTable;
 import base.data.cache.table.ICacheDataTable;
 import base.data.cache.table.ICacheTable;
+import base.data.cache.table.LruCacheTable;
+import base.types.CacheTableType;
 import base.types.JavaType;
 import base.utils.StringUtil;
 
@@ -32,6 +36,19 @@ public class CacheController
 	 * 数据库缓存表项存储器
 	 */
 	private ConcurrentHashMap<String, ICacheDataTable> cacheDataTables = new ConcurrentHashMap<String, ICacheDataTable>();
+	/**
+	 * 缓存表行过期服务
+	 */
+	private final CacheTableExpiryService cacheTableExpiryService = new CacheTableExpiryService();
+
+	/**
+	 * 缓存表行过期服务
+	 * @return cacheTableExpiryService
+	 */
+	public CacheTableExpiryService cacheTableExpiryService()
+	{
+		return cacheTableExpiryService;
+	}
 
 	/**
 	 * 创建缓存
@@ -176,6 +193,64 @@ public class CacheController
 		}
 	}
 
+	/**
+	 * 创建缓存表
+	 * @param tableName 缓存表名
+	 * @param primaryKeyFieldName 表主键字段名
+	 * @param keyFieldNameGroups 键字段名列表组，值不允许为空
+	 * @param cacheTableType 缓存表实现类型
+	 * @return CacheTable 创建后的缓存表，如果遇到错误则返回null
+	 */
+	public ICacheTable createCacheTable(String tableName, String primaryKeyFieldName, String[][] keyFieldNameGroups, CacheTableType cacheTableType)
+	{
+		return createCacheTable(tableName, primaryKeyFieldName, keyFieldNameGroups, -1, cacheTableType);
+	}
+
+	/**
+	 * 创建缓存表
+	 * @param tableName 缓存表名
+	 * @param primaryKeyFieldName 表主键字段名
+	 * @param keyFieldNameGroups 键字段名列表组，值不允许为空
+	 * @param capacity 数据行记录容量的大小，使用LRU算法淘汰机制，值为-1时则表示不限容量
+	 * @param cacheTableType 缓存表实现类型
+	 * @return CacheTable 创建后的缓存表，如果遇到错误则返回null
+	 */
+	public ICacheTable createCacheTable(String tableName, String primaryKeyFieldName, String[][] keyFieldNameGroups, int capacity, CacheTableType cacheTableType)
+	{
+		try
+		{
+			if (cacheTables.containsKey(tableName))
+			{
+				Logger.getLogger(CacheController.class.getName()).log(Level.SEVERE, null, new Exception("将要创建的缓存表 " + tableName + " 已经存在。"));
+				return null;
+			}
+			ICacheTable cacheTable = null;
+			switch (cacheTableType)
+			{
+				case CONCURRENT:
+					cacheTable = new ConcurrentCacheTable();// 使用了内部类，不能由独立的类加载器载入
+					break;
+				case LRU:
+					cacheTable = new LruCacheTable();// 使用了内部类，不能由独立的类加载器载入
+					break;
+				case COLUMN:
+					cacheTable = Base.newClass(ColumnCacheTable.class);
+					break;
+				default:
+					cacheTable = Base.newClass(CacheTable.class);
+					break;
+			}
+			cacheTable.init(tableName, primaryKeyFieldName, keyFieldNameGroups, capacity);
+			cacheTables.put(tableName, cacheTable);
+			return cacheTable;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheController.class.getName()).log(Level.SEVERE, null, e);
+			return null;
+		}
+	}
+
 	/**
 	 * 取得缓存表
 	 * @param tableName 缓存表名
@@ -209,6 +284,7 @@ public class CacheController
 				ICacheTable cacheTable = cacheTables.remove(tableName);
 				if (cacheTable != null)
 				{
+					cacheTableExpiryService.remove(cacheTable);
 					cacheTable.dispose();
 					cacheTable = null;
 				}
@@ -9,6 +9,11 @@ public class CacheEvent extends Event
 	 */
 	public final static String ROW_FIELD_DATA_CHANGE = "rowFieldDataChange";
 
+	/**
+	 * 行中某个字段的数据发生改变，事件数据为字段名
+	 */
+	public final static String FIELD_DATA_CHANGE = "fieldDataChange";
+
 	/**
 	 * 通知表进行物理存储
 	 */
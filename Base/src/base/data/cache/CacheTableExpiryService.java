@@ -0,0 +1,188 @@
+package base.data.cache;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import base.data.cache.table.ICacheTable;
+import base.data.cache.table.ICacheTableRow;
+import base.timer.ITimerWheelListener;
+import base.timer.TimerWheel;
+
+/**
+ * 缓存表行过期服务
+ * 设置了有效时间的行加入时间轮，到期后按表分批移除，移除工作在计时器线程中进行，不占用读取行数据的路径。
+ * 时间轮项以弱引用持有表及行，不会使已被移除(淘汰)的行及已移除的表在到期前一直留在内存中；
+ * 行已被回收、行的过期时间已被重新设置(重新加入时会再次安排)或表已移除时，时间轮项在推进经过时即被丢弃。
+ * @author Devin
+ *
+ */
+public class CacheTableExpiryService implements ITimerWheelListener<CacheTableExpiryService.CacheTableExpires>
+{
+	/**
+	 * 计时器名称
+	 */
+	public final static String TIMER_NAME = "CacheTableExpiryService";
+
+	/**
+	 * 时间刻度(毫秒)
+	 */
+	public final static long TICK_DURATION = 1000;
+
+	/**
+	 * 时间轮槽数
+	 */
+	public final static int WHEEL_SIZE = 512;
+
+	/**
+	 * 每批移除的最大行数，避免单次长时间持有表写锁
+	 */
+	public final static int BATCH_SIZE = 1000;
+
+	/**
+	 * 时间轮
+	 */
+	private final TimerWheel<CacheTableExpires> timerWheel = new TimerWheel<CacheTableExpires>(TIMER_NAME, TICK_DURATION, WHEEL_SIZE, this);
+
+	/**
+	 * 已移除的缓存表，其等待过期的行不再处理
+	 */
+	private final Set<ICacheTable> removedCacheTables = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<ICacheTable, Boolean>()));
+
+	/**
+	 * 安排行的过期移除，行的有效时间不限时忽略
+	 * @param cacheTable 行所在的缓存表
+	 * @param cacheTableRow 行数据
+	 */
+	public void schedule(ICacheTable cacheTable, ICacheTableRow cacheTableRow)
+	{
+		long expiresTime = cacheTableRow.getExpiresTime();
+		if (expiresTime == Long.MAX_VALUE)
+			return;
+		schedule(cacheTable, cacheTableRow, expiresTime);
+	}
+
+	/**
+	 * 安排行在指定时间进行过期移除，到时行的有效时间已被延长时将按新的到期时间重新安排
+	 * @param cacheTable 行所在的缓存表
+	 * @param cacheTableRow 行数据
+	 * @param deadline 执行移除的时间(毫秒)
+	 */
+	public void schedule(ICacheTable cacheTable, ICacheTableRow cacheTableRow, long deadline)
+	{
+		if (removedCacheTables.contains(cacheTable))
+			return;
+		if (!timerWheel.isStarted())
+		{
+			timerWheel.start();
+		}
+		timerWheel.add(new CacheTableExpires(cacheTable, cacheTableRow), deadline);
+	}
+
+	/**
+	 * 移除缓存表时，清除该表所有等待过期的行
+	 * @param cacheTable 已移除的缓存表
+	 */
+	public void remove(ICacheTable cacheTable)
+	{
+		if (cacheTable == null)
+			return;
+		removedCacheTables.add(cacheTable);
+		timerWheel.purge();
+	}
+
+	/**
+	 * 等待过期的行数
+	 * @return 行数
+	 */
+	public int getScheduledCount()
+	{
+		return timerWheel.size();
+	}
+
+	public void expired(List<CacheTableExpires> targets)
+	{
+		Map<ICacheTable, List<ICacheTableRow>> tableRows = new IdentityHashMap<ICacheTable, List<ICacheTableRow>>();
+		for (CacheTableExpires cacheTableExpires : targets)
+		{
+			ICacheTable cacheTable = cacheTableExpires.cacheTable.get();
+			ICacheTableRow cacheTableRow = cacheTableExpires.cacheTableRow.get();
+			if (cacheTable == null || cacheTableRow == null)
+				continue;
+			List<ICacheTableRow> rows = tableRows.get(cacheTable);
+			if (rows == null)
+			{
+				rows = new ArrayList<ICacheTableRow>();
+				tableRows.put(cacheTable, rows);
+			}
+			rows.add(cacheTableRow);
+		}
+		for (Map.Entry<ICacheTable, List<ICacheTableRow>> entry : tableRows.entrySet())
+		{
+			List<ICacheTableRow> rows = entry.getValue();
+			for (int i = 0; i < rows.size(); i += BATCH_SIZE)
+			{
+				try
+				{
+					entry.getKey().removeExpiresRows(rows.subList(i, Math.min(i + BATCH_SIZE, rows.size())));
+				}
+				catch (Exception e)
+				{
+					Logger.getLogger(CacheTableExpiryService.class.getName()).log(Level.SEVERE, "缓存表 " + entry.getKey().getName() + " 移除过期行出现错误。", e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 表行已被回收、已重新安排过期或表已移除时取消，在时间轮的槽锁内调用，不请求表及行的锁
+	 */
+	public boolean isCancelled(CacheTableExpires target)
+	{
+		ICacheTable cacheTable = target.cacheTable.get();
+		ICacheTableRow cacheTableRow = target.cacheTableRow.get();
+		if (cacheTable == null || cacheTableRow == null)
+			return true;
+		if (cacheTableRow.getExpiresTime() != target.expiresTime)
+			return true;// 行已重新加入并设置了新的过期时间，由新安排的时间轮项处理
+		return removedCacheTables.contains(cacheTable);
+	}
+
+	/**
+	 * 停止过期服务并清除所有等待过期的行
+	 */
+	public synchronized void dispose()
+	{
+		timerWheel.stop();
+		timerWheel.clear();
+		removedCacheTables.clear();
+	}
+
+	/**
+	 * 等待过期的表行
+	 */
+	protected final static class CacheTableExpires
+	{
+		final WeakReference<ICacheTable> cacheTable;
+		final WeakReference<ICacheTableRow> cacheTableRow;
+
+		/**
+		 * 安排时行的过期时间
+		 */
+		final long expiresTime;
+
+		CacheTableExpires(ICacheTable cacheTable, ICacheTableRow cacheTableRow)
+		{
+			this.cacheTable = new WeakReference<ICacheTable>(cacheTable);
+			this.cacheTableRow = new WeakReference<ICacheTableRow>(cacheTableRow);
+			this.expiresTime = cacheTableRow.getExpiresTime();
+		}
+	}
+}
@@ -1,29 +1,18 @@
 package base.data.cache.table;
 
-import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
-import java.sql.SQLException;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.util.Collection;
-import java.util.Date;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Vector;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import base.data.DataFactory;
 import base.data.cache.CacheEvent;
 import base.event.Event;
 import base.timer.Timer;
 import base.timer.TimerController;
 import base.types.CacheDataTableType;
 import base.types.JavaType;
-import base.utils.DataUtil;
-import base.utils.SqlUtil;
-import base.utils.StringUtil;
-import base.utils.TypesUtil;
 
 /**
  * 数据库缓存表
@@ -32,6 +21,11 @@ import base.utils.TypesUtil;
  */
 public class CacheDataTable extends CacheTable implements ICacheDataTable
 {
+	/**
+	 * 过期行写入失败时，再次尝试移除的延迟时间(毫秒)
+	 */
+	public final static long EXPIRES_RETRY_DELAY = 5000;
+
 	/**
 	 * 数据库缓存表类型
 	 */
@@ -79,6 +73,26 @@ public class CacheDataTable extends CacheTable implements ICacheDataTable
 	 */
 	private CacheDataTableUpdateTask cacheDataTableUpdateTask;
 
+	/**
+	 * 已更改数据的延迟写入，按主键合并更改，按字段组合以PreparedStatement批量写入
+	 */
+	private final CacheDataTableWriteBehind writeBehind = new CacheDataTableWriteBehind(this, lock);
+
+	/**
+	 * 从数据库表逐行填充缓存表
+	 */
+	private final CacheDataTableLoader loader = new CacheDataTableLoader(this, lock, schema);
+
+	/**
+	 * 查找不到行时从数据库表按需读取
+	 */
+	private final CacheDataTableReadThrough readThrough = new CacheDataTableReadThrough(loader);
+
+	/**
+	 * 已更改数据的写前日志，延迟写入期间进程异常退出时可恢复
+	 */
+	private final CacheDataTableJournal journal = new CacheDataTableJournal(writeBehind);
+
 	/**
 	 * 数据库缓存表
 	 */
@@ -104,6 +118,10 @@ public class CacheDataTable extends CacheTable implements ICacheDataTable
 		this.sqlTableName = sqlTableName;
 		this.customFieldNames=customFieldNames;
 		this.customFieldJaveTypes=customFieldJaveTypes;
+		writeBehind.init(sqlConnectionPoolName, sqlTableName, primaryKeyFieldName);
+		loader.init(sqlConnectionPoolName, sqlTableName, primaryKeyFieldName, customFieldNames, customFieldJaveTypes);
+		readThrough.init(primaryKeyFieldName);
+		journal.init(primaryKeyFieldName);
 		if (capacity == -1)
 		{
 			this.cacheDataTableType = CacheDataTableType.NO_CAPACITY;
@@ -128,59 +146,20 @@ public class CacheDataTable extends CacheTable implements ICacheDataTable
 	 */
 	public void fill(String subsequentSql)
 	{
-		lock.writeLock().lock();
-		String sqlText = "";
-		switch (cacheDataTableType)
-		{
-			case CAPACITY:
-				sqlText = "SELECT * FROM " + sqlTableName + (!StringUtil.isEmptyOrNull(subsequentSql) ? " " + subsequentSql : "") + " LIMIT " + capacity;
-				break;
-			case NO_CAPACITY:
-			default:
-				sqlText = "SELECT * FROM " + sqlTableName + (!StringUtil.isEmptyOrNull(subsequentSql) ? " " + subsequentSql : "");
-				break;
-		}
-		
-		try
-		{
-			ResultSet resultSet = DataFactory.sqlController().executeQuery(sqlConnectionPoolName, sqlText);
-			if (resultSet != null)
-			{
-				ResultSetMetaData rsmd = resultSet.getMetaData();
-				int columnCount = rsmd.getColumnCount();
-				int i;
-				while (resultSet.next())
-				{
-					ICacheTableRow cacheTableRow = DataUtil.cacheTableRow();
-					cacheTableRow.setIsNewRow(false);
-					for (i = 1; i <= columnCount; i++)
-					{
-						JavaType javaType = TypesUtil.sqlTypeToJavaType(rsmd.getColumnClassName(i));
-						cacheTableRow.addField(rsmd.getColumnLabel(i), DataUtil.cacheTableField(SqlUtil.resultSetGet(resultSet, i, javaType), javaType));
-					}
+		fill(subsequentSql, 1, null);
+	}
 
-					//增加自定义字段，其字段初始值为null
-					if(customFieldNames!=null && customFieldNames.length>0 && customFieldJaveTypes!=null && customFieldJaveTypes.length>0 && customFieldNames.length == customFieldJaveTypes.length)
-					{
-						for (i=0; i < customFieldNames.length; i++)
-						{
-							cacheTableRow.addField(customFieldNames[i], DataUtil.cacheTableField(TypesUtil.getJavaTypeDefaultValue(customFieldJaveTypes[i]), customFieldJaveTypes[i]).setIsSqlSave(false));
-						}
-					}
-					addRow(cacheTableRow);
-				}
-				resultSet.close();
-				resultSet = null;
-			}
-		}
-		catch (SQLException e)
-		{
-			Logger.getLogger(CacheDataTable.class.getName()).log(Level.SEVERE, null, e);
-		}
-		finally
-		{
-			lock.writeLock().unlock();
-		}
+	/**
+	 * 从数据表中以只能向前读取的结果集逐行取得数据填充缓存表，每满一段行才持有写锁加入表
+	 * 整数主键、未指定容量且后续Sql语句仅包含WHERE条件时，按主键区间分段在多个连接上并行填充，并行填充时行的顺序不保证与数据库一致
+	 * @param subsequentSql 填充时的SQL后续Sql语句，如：WHERE 字段1>10 And 字段2<100
+	 * @param parallelism 并行读取的连接数，小于等于1时只以一个连接填充
+	 * @param cacheDataTableFillListener 填充进度监听，可为null
+	 * @return 填充的行数，填充出错时返回-1
+	 */
+	public long fill(String subsequentSql, int parallelism, ICacheDataTableFillListener cacheDataTableFillListener)
+	{
+		return loader.fill(subsequentSql, capacity, parallelism, cacheDataTableFillListener);
 	}
 
 	/**
@@ -210,150 +189,209 @@ public class CacheDataTable extends CacheTable implements ICacheDataTable
 	 */
 	public boolean updateToDataByChange(ICacheTableRow cacheTableRow, boolean saveChangeSaveFlag)
 	{
-		boolean result = false;
-		lock.writeLock().lock();
 		try
 		{
-			Vector<String> sqlTexts = new Vector<String>();
 			if(cacheTableRow!=null)
 			{
-				sqlTexts = setTableFieldSqlText(sqlTexts, cacheTableRow, saveChangeSaveFlag);
-			}
-			else
-			{
-				while (changeRows != null && changeRows.size() > 0)
-				{
-					sqlTexts = setTableFieldSqlText(sqlTexts, changeRows.remove(0), saveChangeSaveFlag);
-				}
-			}
-
-			if(sqlTexts.size()>0)
-			{
-				result = DataFactory.sqlController().executeUpdate(sqlConnectionPoolName, sqlTexts);
+				return writeBehind.flush(cacheTableRow, saveChangeSaveFlag);
 			}
+			return writeBehind.flush(saveChangeSaveFlag);
 		}
 		catch (Exception e)
 		{
 			Logger.getLogger(CacheDataTable.class.getName()).log(Level.SEVERE, null, e);
-			result = false;
+			return false;
 		}
-		finally
+	}
+
+	/**
+	 * 已更改数据的延迟写入，可取得写入的统计数据
+	 * @return writeBehind
+	 */
+	public CacheDataTableWriteBehind getWriteBehind()
+	{
+		return writeBehind;
+	}
+
+	/**
+	 * 开启写前日志，已更改的字段在加入延迟写入时追加至日志文件，全部写入数据库成功后截断日志
+	 * 开启时先将日志中上次未写入的数据写入数据库表，应在填充缓存表(fill)前调用，否则缓存表中可能为旧数据
+	 * @param filePath 日志文件路径，每个数据库缓存表使用单独的文件
+	 * @param fileSize 文件初始大小(字节)，小于等于0时使用默认值16MB，记录超出时自动扩大
+	 * @param isForce 每次追加后是否同步至磁盘，为false时只保证进程异常退出时不丢失数据
+	 * @return 重放写入数据库的行数，打开日志或写入数据库失败时返回-1且不开启
+	 */
+	public int startJournal(String filePath, int fileSize, boolean isForce)
+	{
+		if (!journal.open(filePath, fileSize))
+			return -1;
+		journal.setIsForce(isForce);
+		int replayRows = journal.replay();
+		if (replayRows < 0)
 		{
-			lock.writeLock().unlock();
+			journal.close();
+			return -1;
 		}
-		return result;
+		writeBehind.setJournal(journal);
+		return replayRows;
 	}
 
 	/**
-	 * 设置Sql语句列表
-	 * @param saveChangeSaveFlag 仅保存指定行其字段“isChangeSaveFlag”为true的字段
-	 * @return 返回传入的Sql语句列表
+	 * 关闭写前日志，尚未写入数据库的更改仍保留在日志文件中
+	 */
+	public void stopJournal()
+	{
+		writeBehind.setJournal(null);
+		journal.close();
+	}
+
+	/**
+	 * 写前日志，可取得日志的统计数据
+	 * @return journal
+	 */
+	public CacheDataTableJournal getJournal()
+	{
+		return journal;
+	}
+
+	/**
+	 * 开启按需读取，按主键或集合键查找不到行时从数据库表读取并加入缓存表，同一个键的并发读取合并为一次查询
+	 * 集合键查找时只要缓存表中存在该键的行即不再读取，按需读取时应以主键或完整的集合键查找
+	 * @param validTime 读取的行的有效时间(毫秒)，值为-1时则表示不过期，过期移除前会先写入已更改的数据
+	 * @param absentTime 数据库表中不存在的键的记录时间(毫秒)，期间查找该键不再查询数据库，小于等于0时不记录
+	 */
+	public void startReadThrough(long validTime, long absentTime)
+	{
+		readThrough.start(validTime, absentTime);
+	}
+
+	/**
+	 * 关闭按需读取
 	 */
-	private Vector<String> setTableFieldSqlText(Vector<String> sqlTexts, ICacheTableRow cacheTableRow, boolean saveChangeSaveFlag)
+	public void stopReadThrough()
 	{
-		if(cacheTableRow!=null)
+		readThrough.stop();
+	}
+
+	/**
+	 * 按需读取，可取得读取的统计数据
+	 * @return readThrough
+	 */
+	public CacheDataTableReadThrough getReadThrough()
+	{
+		return readThrough;
+	}
+
+	/**
+	 * 当前线程是否持有表的读锁或写锁，持有时不进行按需读取，避免加入行时升级锁造成死锁
+	 * @return 持有时返回true
+	 */
+	private boolean isLockHeld()
+	{
+		if (lock instanceof ReentrantReadWriteLock)
+		{
+			ReentrantReadWriteLock reentrantReadWriteLock = (ReentrantReadWriteLock) lock;
+			return reentrantReadWriteLock.getReadHoldCount() > 0 || reentrantReadWriteLock.isWriteLockedByCurrentThread();
+		}
+		return true;
+	}
+
+	public boolean addRow(ICacheTableRow cacheTableRow, long validTime)
+	{
+		if (cacheTableRow != null && readThrough.getIsEnabled())
+		{
+			readThrough.removeAbsentKeys(cacheTableRow);
+		}
+		return super.addRow(cacheTableRow, validTime);
+	}
+
+	public boolean insertRow(ICacheTableRow cacheTableRow, int index, long validTime)
+	{
+		if (cacheTableRow != null && readThrough.getIsEnabled())
+		{
+			readThrough.removeAbsentKeys(cacheTableRow);
+		}
+		return super.insertRow(cacheTableRow, index, validTime);
+	}
+
+	public ICacheTableRow getRowByPrimaryKey(Object primaryKeyFieldValue)
+	{
+		if (primaryKeyFieldValue instanceof Long || primaryKeyFieldValue instanceof Integer || primaryKeyFieldValue instanceof Short || primaryKeyFieldValue instanceof Byte)
+		{
+			return getRowByPrimaryKey(((Number) primaryKeyFieldValue).longValue());
+		}
+		ICacheTableRow cacheTableRow = super.getRowByPrimaryKey(primaryKeyFieldValue);
+		if (cacheTableRow == null && readThrough.getIsEnabled() && !isLockHeld())
+		{
+			cacheTableRow = readThrough.loadByPrimaryKey(primaryKeyFieldValue);
+		}
+		return cacheTableRow;
+	}
+
+	public ICacheTableRow getRowByPrimaryKey(long primaryKeyFieldValue)
+	{
+		ICacheTableRow cacheTableRow = super.getRowByPrimaryKey(primaryKeyFieldValue);
+		if (cacheTableRow == null && readThrough.getIsEnabled() && !isLockHeld())
+		{
+			cacheTableRow = readThrough.loadByPrimaryKey(primaryKeyFieldValue);
+		}
+		return cacheTableRow;
+	}
+
+	public ICacheTableRow getRow(String[] keyFieldNames, String[] keyFieldValues)
+	{
+		ICacheTableRow cacheTableRow = super.getRow(keyFieldNames, keyFieldValues);
+		if (cacheTableRow == null && readThrough.getIsEnabled() && !isLockHeld())
 		{
-			StringBuffer sqlText = new StringBuffer();
-			int i = 0;
-			ConcurrentHashMap<String, ICacheTableField> fields = cacheTableRow.getFields();
-			Collection<ICacheTableField> fieldValues = fields.values();
-			if (fieldValues != null && fieldValues.size() > 0)
+			Vector<ICacheTableRow> cacheTableRows = readThrough.loadByKeyFields(keyFieldNames, keyFieldValues);
+			if (cacheTableRows.size() > 0)
 			{
-				if(cacheTableRow.getIsNewRow())
-				{//如果为新创建的行数据(对应的数据库不存在该条数据)，则需要对数据库进行插入数据操作
-					StringBuffer strFieldNames = new StringBuffer();
-					StringBuffer strValues = new StringBuffer();
+				cacheTableRow = cacheTableRows.get(0);
+			}
+		}
+		return cacheTableRow;
+	}
 
-					Iterator<ICacheTableField> cacheTableFields = fieldValues.iterator();
-					while (cacheTableFields.hasNext())
-					{
-						ICacheTableField cacheTableField = cacheTableFields.next();
-						if(cacheTableField.getIsSqlSave())
-						{
-							strFieldNames.append((i != 0 ? ", " : "") + cacheTableField.getFieldName());
-							switch (cacheTableField.getJavaType())
-							{
-								case DATE:
-									Date fieldData = (Date) cacheTableField.getData();
-									DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-									strValues.append((i != 0 ? ", " : "") + "'" + dateFormat.format(fieldData) + "'");
-									break;
-								case STRING:
-									strValues.append((i != 0 ? ", " : "") + "'" + cacheTableField.getData() + "'");
-									break;
-								default:
-									strValues.append((i != 0 ? ", " : "") + cacheTableField.getData());
-									break;
-							}
-							i++;
-						}
-					}
-//					sqlText.append("INSERT INTO " + sqlTableName + " (" + strFieldNames + ") values(" + strValues + ")");
-					sqlText.append("REPLACE INTO " + sqlTableName + " (" + strFieldNames + ") values(" + strValues + ")");
-					cacheTableRow.setIsNewRow(false);
-					sqlTexts.add(sqlText.toString());
-				}
-				else
-				{//对数据库进行更新数据操作
-					boolean isExistUp=false;
-					sqlText.append("UPDATE "+sqlTableName+" SET ");
-					Iterator<ICacheTableField> cacheTableFields = fieldValues.iterator();
-					while (cacheTableFields.hasNext())
-					{
-						ICacheTableField cacheTableField = cacheTableFields.next();
-						if(cacheTableField.getIsSqlSave() && cacheTableField.getIsChange() && (saveChangeSaveFlag ? cacheTableField.getIsChangeSaveFlag() : true))
-						{
-							sqlText.append(i != 0 ? ","+cacheTableField.getFieldName() + "=" :  cacheTableField.getFieldName() + "=");
-							switch (cacheTableField.getJavaType())
-							{
-								case DATE:
-									Date fieldData = (Date) cacheTableField.getData();
-									DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-									sqlText.append("'" + dateFormat.format(fieldData) + "'");
-									break;
-								case STRING:
-									sqlText.append("'" + cacheTableField.getData() + "'");
-									break;
-								default:
-									sqlText.append(cacheTableField.getData().toString());
-									break;
-							}
-							cacheTableField.setIsChange(false);
-							cacheTableField.setIsChangeSaveFlag(false);
-							i++;
-							isExistUp=true;
-						}
-					}
-					
-					if(isExistUp)
-					{//如果存在需要更新的数据
-						sqlText.append(" WHERE "+this.primaryKeyFieldName+"=");
-						ICacheTableField primaryKeyField = cacheTableRow.getField(this.primaryKeyFieldName);//取得主键
-						switch (primaryKeyField.getJavaType())
-						{
-							case DATE:
-								Date fieldData = (Date) primaryKeyField.getData();
-								DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-								sqlText.append("'"+dateFormat.format(fieldData)+"'");
-								break;
-							case STRING:
-								sqlText.append("'"+primaryKeyField.getData()+"'");
-								break;
-							default:
-								sqlText.append(primaryKeyField.getData().toString());
-								break;
-						}
-						sqlTexts.add(sqlText.toString());
-					}
+	public Vector<ICacheTableRow> getRows(String[] keyFieldNames, String[] keyFieldValues)
+	{
+		Vector<ICacheTableRow> cacheTableRows = super.getRows(keyFieldNames, keyFieldValues);
+		if ((cacheTableRows == null || cacheTableRows.size() == 0) && readThrough.getIsEnabled() && !isLockHeld())
+		{
+			cacheTableRows = readThrough.loadByKeyFields(keyFieldNames, keyFieldValues);
+		}
+		return cacheTableRows;
+	}
+
+	/**
+	 * 批量移除已过期的行，没有未写入更改的行立即移除；有未写入更改的行交由延迟写入的计时器线程先写入再移除，
+	 * 不在过期时间轮线程中等待数据库，写入失败的行不移除，于EXPIRES_RETRY_DELAY后再次尝试
+	 * @param cacheTableRows 到期的行列表
+	 * @return 立即移除的行数
+	 */
+	public int removeExpiresRows(List<ICacheTableRow> cacheTableRows)
+	{
+		ArrayList<ICacheTableRow> removeRows = new ArrayList<ICacheTableRow>(cacheTableRows.size());
+		ArrayList<ICacheTableRow> changedRows = null;
+		for (ICacheTableRow cacheTableRow : cacheTableRows)
+		{
+			if (!writeBehind.isChanged(cacheTableRow))
+			{
+				removeRows.add(cacheTableRow);
+			}
+			else
+			{
+				if (changedRows == null)
+				{
+					changedRows = new ArrayList<ICacheTableRow>();
 				}
+				changedRows.add(cacheTableRow);
 			}
-			
-//			if(!saveChangeSaveFlag)
-//			{//如果仅保存指定行其字段“isChangeSaveFlag”为true的字段，就只保存指定的字段，有可能其它也有更改的字段没有进行保存，所以只有saveChangeSaveFlag为false值时才设置当前行数据改变状态为false，才能保证那些没有被保存的数据在下次更新时被保存
-//				cacheTableRow.setIsChange(false);
-//			}
 		}
-		return sqlTexts;
+		if (changedRows != null)
+		{
+			writeBehind.schedule(new CacheDataTableExpiresTask(this, writeBehind, changedRows));
+		}
+		return removeRows.size() > 0 ? super.removeExpiresRows(removeRows) : 0;
 	}
 
 	/**
@@ -361,8 +399,19 @@ public class CacheDataTable extends CacheTable implements ICacheDataTable
 	 * @param period 更新的间隔时间(毫秒)
 	 */
 	public void startAutoUpdate(int period)
+	{
+		startAutoUpdate(period, 0);
+	}
+
+	/**
+	 * 启动自动更新已更改数据至数据库表的操作
+	 * @param period 更新的间隔时间(毫秒)
+	 * @param batchSize 已更改的行数达到此值时不等待间隔时间立即安排一次更新，小于等于0时只按间隔时间更新
+	 */
+	public void startAutoUpdate(int period, int batchSize)
 	{
 		isAutoUpdate=true;
+		writeBehind.setBatchSize(batchSize);
 		cacheDataTableUpdateTask = new CacheDataTableUpdateTask(this);
 		timerAutoUpdate = TimerController.timer(cacheDataTableUpdateTask, 0, period);
 	}
@@ -373,6 +422,7 @@ public class CacheDataTable extends CacheTable implements ICacheDataTable
 	public void stopAutoUpdate()
 	{
 		isAutoUpdate=false;
+		writeBehind.setBatchSize(0);
 		if (timerAutoUpdate != null)
 		{
 			timerAutoUpdate.cancel();
@@ -390,13 +440,13 @@ public class CacheDataTable extends CacheTable implements ICacheDataTable
 		switch (event.getType())
 		{
 			case CacheEvent.ROW_FIELD_DATA_CHANGE:
-				lock.writeLock().lock();
 				try
 				{
 					ICacheTableRow cacheTableRow = (ICacheTableRow) event.getCurrentTarget();
-					if (!changeRows.contains(cacheTableRow))
-					{
-						changeRows.add(cacheTableRow);
+					writeBehind.add(cacheTableRow);
+					if (writeBehind.getJournal() != null)
+					{// 先加入待写入列表再追加日志，截断时已追加的记录对应的行必定已在待写入列表中；已存在于数据库的行的更改已在字段更改时追加
+						journal.append(cacheTableRow);
 					}
 					boolean saveChangeSaveFlag = (boolean)event.getData();
 					if(saveChangeSaveFlag)
@@ -408,9 +458,13 @@ public class CacheDataTable extends CacheTable implements ICacheDataTable
 				{
 					Logger.getLogger(CacheDataTable.class.getName()).log(Level.SEVERE, null, e);
 				}
-				finally
-				{
-					lock.writeLock().unlock();
+				break;
+			case CacheEvent.FIELD_DATA_CHANGE:
+				if (writeBehind.getJournal() != null)
+				{// 只追加事件中的字段，字段更改标记可能已被写入线程清除，不能由其判断更改的字段
+					ICacheTableRow cacheTableRow = (ICacheTableRow) event.getCurrentTarget();
+					writeBehind.add(cacheTableRow);
+					journal.append(cacheTableRow, (String) event.getData());
 				}
 				break;
 			case CacheEvent.DATA_TO_SAVE:
@@ -423,6 +477,9 @@ public class CacheDataTable extends CacheTable implements ICacheDataTable
 	public synchronized void dispose()
 	{
 		stopAutoUpdate();
+		stopJournal();
+		writeBehind.dispose();
+		readThrough.dispose();
 		super.dispose();
 	}
 }
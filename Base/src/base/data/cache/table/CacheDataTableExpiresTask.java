@@ -0,0 +1,72 @@
+package base.data.cache.table;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import base.data.DataFactory;
+import base.timer.TimerTask;
+import base.utils.DateUtil;
+
+/**
+ * 已过期且有未写入更改的行的写入任务
+ * 由延迟写入的计时器线程执行，写入成功的行再由数据库缓存表移除，写入失败的行保留并于EXPIRES_RETRY_DELAY后重新安排过期移除；
+ * 过期时间轮线程不等待数据库写入，一个数据库写入缓慢不会延迟其它表的过期移除。
+ * @author Devin
+ *
+ */
+public class CacheDataTableExpiresTask extends TimerTask
+{
+	private ICacheTable cacheDataTable;
+
+	private CacheDataTableWriteBehind writeBehind;
+
+	private List<ICacheTableRow> cacheTableRows;
+
+	/**
+	 * 已过期且有未写入更改的行的写入任务
+	 * @param cacheDataTable 数据库缓存表
+	 * @param writeBehind 数据库缓存表的延迟写入
+	 * @param cacheTableRows 到期的行列表
+	 */
+	public CacheDataTableExpiresTask(ICacheTable cacheDataTable, CacheDataTableWriteBehind writeBehind, List<ICacheTableRow> cacheTableRows)
+	{
+		this.cacheDataTable = cacheDataTable;
+		this.writeBehind = writeBehind;
+		this.cacheTableRows = cacheTableRows;
+	}
+
+	@Override
+	public void run()
+	{
+		ICacheTable cacheDataTable = this.cacheDataTable;
+		CacheDataTableWriteBehind writeBehind = this.writeBehind;
+		List<ICacheTableRow> cacheTableRows = this.cacheTableRows;
+		if (cacheDataTable == null || writeBehind == null || cacheTableRows == null)
+			return;
+		writeBehind.flush(cacheTableRows, false);
+		ArrayList<ICacheTableRow> writtenRows = new ArrayList<ICacheTableRow>(cacheTableRows.size());
+		long retryTime = DateUtil.getCurrentTimeMillis() + CacheDataTable.EXPIRES_RETRY_DELAY;
+		for (ICacheTableRow cacheTableRow : cacheTableRows)
+		{
+			if (!writeBehind.isChanged(cacheTableRow))
+			{
+				writtenRows.add(cacheTableRow);
+			}
+			else
+			{// 写入失败，保留该行并重新安排过期移除
+				DataFactory.cacheController().cacheTableExpiryService().schedule(cacheDataTable, cacheTableRow, retryTime);
+			}
+		}
+		if (writtenRows.size() > 0)
+		{// 移除时再次检查，写入后又发生更改的行将再次安排写入
+			cacheDataTable.removeExpiresRows(writtenRows);
+		}
+	}
+
+	public synchronized void dispose()
+	{
+		cacheDataTable = null;
+		writeBehind = null;
+		cacheTableRows = null;
+	}
+}
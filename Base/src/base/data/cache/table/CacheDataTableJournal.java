@@ -0,0 +1,775 @@
+package base.data.cache.table;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import base.types.JavaType;
+import base.utils.DataUtil;
+import base.utils.TypesUtil;
+
+/**
+ * 数据库缓存表写前日志
+ * 以内存映射文件顺序追加行的字段更改记录，数据库缓存表可以较长的间隔写入数据库，进程异常退出时已更改但未写入的数据可由日志恢复。
+ * 文件头为“魔数(int)+有效记录起始位置(int)”，每条记录为“长度(int)+CRC32校验值(int)+记录内容”，最后一条记录之后以长度0结束。
+ * 记录内容为“是否新行(byte)+主键值+字段数(short)+{字段名+字段值}”，新创建的行记录所有需要存储的字段，其它行每次字段更改只记录该字段，
+ * 记录的是字段的完整值，重复重放同一条记录结果相同。
+ * 待写入的行全部写入成功后截断写入前已追加的记录；打开日志时重放尚未截断的记录，按主键合并后直接写入数据库表，应在填充缓存表前打开。
+ * 默认只保证进程异常退出时不丢失数据，操作系统崩溃或断电时需开启每次追加后同步至磁盘。
+ * @author Devin
+ *
+ */
+public class CacheDataTableJournal
+{
+	/**
+	 * 文件头魔数
+	 */
+	private final static int MAGIC = 0x43444A31;
+
+	/**
+	 * 文件头长度
+	 */
+	private final static int HEADER_SIZE = 8;
+
+	/**
+	 * 记录头长度(长度+CRC32校验值)
+	 */
+	private final static int RECORD_HEADER_SIZE = 8;
+
+	/**
+	 * 默认的文件初始大小
+	 */
+	private final static int DEFAULT_FILE_SIZE = 16 * 1024 * 1024;
+
+	/**
+	 * 文件最大大小
+	 */
+	private final static int MAX_FILE_SIZE = Integer.MAX_VALUE - 8;
+
+	/**
+	 * 字符串编码
+	 */
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * 字段值类型标识
+	 */
+	private final static byte TYPE_NULL = 0, TYPE_BOOLEAN = 1, TYPE_BYTE = 2, TYPE_SHORT = 3, TYPE_INTEGER = 4, TYPE_LONG = 5, TYPE_FLOAT = 6, TYPE_DOUBLE = 7, TYPE_STRING = 8, TYPE_DATE = 9, TYPE_BYTES = 10;
+
+	/**
+	 * 数据库缓存表延迟写入
+	 */
+	private final CacheDataTableWriteBehind writeBehind;
+
+	/**
+	 * 主键字段名
+	 */
+	private String primaryKeyFieldName;
+
+	/**
+	 * 日志文件路径
+	 */
+	private String filePath;
+
+	/**
+	 * 日志文件
+	 */
+	private RandomAccessFile file;
+
+	/**
+	 * 日志文件的内存映射
+	 */
+	private MappedByteBuffer buffer;
+
+	/**
+	 * 有效记录的起始位置
+	 */
+	private int dataStart = HEADER_SIZE;
+
+	/**
+	 * 下一条记录的写入位置
+	 */
+	private int writeOffset = HEADER_SIZE;
+
+	/**
+	 * 有效记录起始位置对应的逻辑位置，逻辑位置为打开日志以来追加的累计字节数，不受压缩移动的影响
+	 */
+	private long startPosition = 0;
+
+	/**
+	 * 每次追加后是否同步至磁盘
+	 */
+	private volatile boolean isForce = false;
+
+	/**
+	 * 追加的记录数
+	 */
+	private final AtomicLong appendCount = new AtomicLong();
+
+	/**
+	 * 截断的次数
+	 */
+	private final AtomicLong truncateCount = new AtomicLong();
+
+	/**
+	 * 数据库缓存表写前日志
+	 * @param writeBehind 数据库缓存表延迟写入
+	 */
+	public CacheDataTableJournal(CacheDataTableWriteBehind writeBehind)
+	{
+		this.writeBehind = writeBehind;
+	}
+
+	/**
+	 * 初始化
+	 * @param primaryKeyFieldName 主键字段名
+	 */
+	public void init(String primaryKeyFieldName)
+	{
+		this.primaryKeyFieldName = primaryKeyFieldName;
+	}
+
+	/**
+	 * 日志文件路径
+	 * @return filePath
+	 */
+	public String getFilePath()
+	{
+		return filePath;
+	}
+
+	/**
+	 * 每次追加后是否同步至磁盘
+	 * @return isForce
+	 */
+	public boolean getIsForce()
+	{
+		return isForce;
+	}
+
+	/**
+	 * 每次追加后是否同步至磁盘
+	 * @param isForce 为true时操作系统崩溃或断电也不丢失数据，但每次追加都需要等待磁盘写入
+	 */
+	public void setIsForce(boolean isForce)
+	{
+		this.isForce = isForce;
+	}
+
+	/**
+	 * 是否已打开
+	 * @return isOpen
+	 */
+	public synchronized boolean getIsOpen()
+	{
+		return buffer != null;
+	}
+
+	/**
+	 * 打开日志文件，文件不存在时创建
+	 * @param filePath 日志文件路径
+	 * @param fileSize 文件初始大小(字节)，小于等于0时使用默认值16MB，记录超出时自动扩大
+	 * @return 成功返回true，否则返回false
+	 */
+	public synchronized boolean open(String filePath, int fileSize)
+	{
+		if (buffer != null)
+		{
+			Logger.getLogger(CacheDataTableJournal.class.getName()).log(Level.SEVERE, null, new Exception("数据库缓存表写前日志已打开：" + this.filePath));
+			return false;
+		}
+		try
+		{
+			File journalFile = new File(filePath);
+			if (journalFile.getParentFile() != null && !journalFile.getParentFile().exists())
+			{
+				journalFile.getParentFile().mkdirs();
+			}
+			file = new RandomAccessFile(journalFile, "rw");
+			long length = file.length();
+			int size = (int) Math.min(Math.max(length, fileSize > 0 ? fileSize : DEFAULT_FILE_SIZE), MAX_FILE_SIZE);
+			buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+			this.filePath = filePath;
+			startPosition = 0;
+			if (length < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+			{
+				if (length >= HEADER_SIZE)
+				{
+					Logger.getLogger(CacheDataTableJournal.class.getName()).log(Level.SEVERE, null, new Exception("数据库缓存表写前日志文件格式不正确，已重新创建：" + filePath));
+				}
+				dataStart = HEADER_SIZE;
+				writeOffset = HEADER_SIZE;
+				buffer.putInt(HEADER_SIZE, 0);
+				buffer.putInt(4, HEADER_SIZE);
+				buffer.putInt(0, MAGIC);
+				return true;
+			}
+			dataStart = buffer.getInt(4);
+			if (dataStart < HEADER_SIZE || dataStart > buffer.capacity())
+			{
+				dataStart = HEADER_SIZE;
+			}
+			writeOffset = dataStart;
+			while (true)
+			{// 查找最后一条完整的记录，之后的内容为未写完的记录或旧记录
+				byte[] content = readRecord(writeOffset);
+				if (content == null)
+					break;
+				writeOffset += RECORD_HEADER_SIZE + content.length;
+			}
+			return true;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheDataTableJournal.class.getName()).log(Level.SEVERE, null, new Exception("数据库缓存表写前日志文件打开失败：" + filePath, e));
+			close();
+			return false;
+		}
+	}
+
+	/**
+	 * 重放尚未截断的记录，同一主键的记录按顺序合并后写入数据库表，全部写入成功后截断日志
+	 * @return 写入的行数，写入失败时返回-1，日志保留至下次重放
+	 */
+	public synchronized int replay()
+	{
+		if (buffer == null)
+			return -1;
+		LinkedHashMap<Object, ReplayRow> replayRows = new LinkedHashMap<Object, ReplayRow>();
+		int offset = dataStart;
+		int recordCount = 0;
+		try
+		{
+			while (offset < writeOffset)
+			{
+				byte[] content = readRecord(offset);
+				if (content == null)
+					break;
+				offset += RECORD_HEADER_SIZE + content.length;
+				ByteBuffer record = ByteBuffer.wrap(content);
+				boolean isNewRow = record.get() != 0;
+				Object primaryKey = readValue(record);
+				int fieldCount = record.getShort() & 0xFFFF;
+				ReplayRow replayRow = replayRows.get(primaryKey);
+				if (replayRow == null)
+				{
+					replayRow = new ReplayRow();
+					replayRows.put(primaryKey, replayRow);
+				}
+				replayRow.isNewRow |= isNewRow;
+				for (int i = 0; i < fieldCount; i++)
+				{
+					String fieldName = readString(record);
+					replayRow.fields.put(fieldName, readValue(record));
+				}
+				recordCount++;
+			}
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheDataTableJournal.class.getName()).log(Level.SEVERE, null, new Exception("数据库缓存表写前日志重放时记录解析失败：" + filePath, e));
+			return -1;
+		}
+		if (recordCount <= 0)
+			return 0;
+
+		List<ICacheTableRow> cacheTableRows = new ArrayList<ICacheTableRow>(replayRows.size());
+		for (Entry<Object, ReplayRow> entry : replayRows.entrySet())
+		{
+			ICacheTableRow cacheTableRow = DataUtil.cacheTableRow();
+			cacheTableRow.addField(primaryKeyFieldName, DataUtil.cacheTableField(entry.getKey(), javaType(entry.getKey())));
+			for (Entry<String, Object> fieldEntry : entry.getValue().fields.entrySet())
+			{
+				if (!fieldEntry.getKey().equals(primaryKeyFieldName))
+				{
+					ICacheTableField cacheTableField = DataUtil.cacheTableField(fieldEntry.getValue(), javaType(fieldEntry.getValue()));
+					cacheTableRow.addField(fieldEntry.getKey(), cacheTableField);
+					cacheTableField.setIsChange(true);
+				}
+			}
+			cacheTableRow.setIsNewRow(entry.getValue().isNewRow);
+			cacheTableRows.add(cacheTableRow);
+		}
+		if (!writeBehind.writeDetached(cacheTableRows))
+		{
+			Logger.getLogger(CacheDataTableJournal.class.getName()).log(Level.SEVERE, null, new Exception("数据库缓存表写前日志重放时写入数据库失败，日志保留至下次重放：" + filePath));
+			return -1;
+		}
+		truncate(startPosition + (offset - dataStart));
+		return cacheTableRows.size();
+	}
+
+	/**
+	 * 追加新创建的行的记录，记录所有需要存储的字段，已存在于数据库的行的更改由字段更改记录追加
+	 * @param cacheTableRow 行数据
+	 * @return 成功返回true，否则返回false
+	 */
+	public boolean append(ICacheTableRow cacheTableRow)
+	{
+		return append(cacheTableRow, null);
+	}
+
+	/**
+	 * 追加字段的更改记录，只记录指定的字段及其当前值，新创建的行记录所有需要存储的字段
+	 * 字段值在日志锁内读取，同一字段并发更改时最后追加的记录必定为最后设置的值，不依赖会被写入线程清除的字段更改标记
+	 * @param cacheTableRow 行数据
+	 * @param fieldName 数据改变的字段名，为null时只追加新创建的行
+	 * @return 成功返回true，否则返回false
+	 */
+	public boolean append(ICacheTableRow cacheTableRow, String fieldName)
+	{
+		if (cacheTableRow == null)
+			return false;
+		if (primaryKeyFieldName.equals(fieldName))
+			return true;
+		synchronized (this)
+		{
+			if (buffer == null)
+				return false;
+			Object primaryKey = cacheTableRow.getFieldData(primaryKeyFieldName);
+			if (primaryKey == null)
+				return false;
+			RecordWriter recordWriter;
+			if (cacheTableRow.getIsNewRow())
+			{
+				ConcurrentHashMap<String, ICacheTableField> fields = cacheTableRow.getFields();
+				if (fields == null)
+					return false;
+				recordWriter = new RecordWriter(64 + fields.size() * 16);
+				recordWriter.writeByte(1);
+				recordWriter.writeValue(primaryKey);
+				int countPosition = recordWriter.size;
+				recordWriter.writeShort(0);
+				int fieldCount = 0;
+				for (ICacheTableField cacheTableField : fields.values())
+				{
+					if (cacheTableField.getIsSqlSave() && !primaryKeyFieldName.equals(cacheTableField.getFieldName()))
+					{
+						recordWriter.writeString(cacheTableField.getFieldName());
+						recordWriter.writeValue(cacheTableField.getData());
+						fieldCount++;
+					}
+				}
+				recordWriter.setShort(countPosition, fieldCount);
+			}
+			else
+			{
+				if (fieldName == null)
+					return true;
+				ICacheTableField cacheTableField = cacheTableRow.getField(fieldName);
+				if (cacheTableField == null || !cacheTableField.getIsSqlSave())
+					return true;
+				recordWriter = new RecordWriter(64);
+				recordWriter.writeByte(0);
+				recordWriter.writeValue(primaryKey);
+				recordWriter.writeShort(1);
+				recordWriter.writeString(fieldName);
+				recordWriter.writeValue(cacheTableField.getData());
+			}
+			CRC32 crc32 = new CRC32();
+			crc32.update(recordWriter.bytes, 0, recordWriter.size);
+			int recordSize = RECORD_HEADER_SIZE + recordWriter.size;
+			if (!ensureCapacity(recordSize + 4))
+				return false;
+			buffer.position(writeOffset + RECORD_HEADER_SIZE);
+			buffer.put(recordWriter.bytes, 0, recordWriter.size);
+			buffer.putInt(writeOffset + recordSize, 0);// 结束标记
+			buffer.putInt(writeOffset + 4, (int) crc32.getValue());
+			buffer.putInt(writeOffset, recordWriter.size);// 最后写入长度，未写完的记录不会被读取
+			writeOffset += recordSize;
+			if (isForce)
+			{
+				buffer.force();
+			}
+		}
+		appendCount.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * 当前的逻辑位置，此位置之前的记录在截断至此位置后不再重放
+	 * @return 逻辑位置
+	 */
+	public synchronized long getPosition()
+	{
+		return startPosition + (writeOffset - dataStart);
+	}
+
+	/**
+	 * 截断指定逻辑位置之前的记录
+	 * @param position 逻辑位置
+	 */
+	public synchronized void truncate(long position)
+	{
+		if (buffer == null || position <= startPosition)
+			return;
+		int offset = (int) Math.min(dataStart + (position - startPosition), writeOffset);
+		startPosition += offset - dataStart;
+		if (offset == writeOffset)
+		{// 已没有有效记录，从文件头之后重新开始写入
+			buffer.putInt(HEADER_SIZE, 0);
+			dataStart = HEADER_SIZE;
+			writeOffset = HEADER_SIZE;
+		}
+		else
+		{
+			dataStart = offset;
+		}
+		buffer.putInt(4, dataStart);
+		if (isForce)
+		{
+			buffer.force();
+		}
+		truncateCount.incrementAndGet();
+	}
+
+	/**
+	 * 保证有足够的空间写入
+	 * 有效记录移动至文件头之后的目标区域(含结束标记)与有效记录不重叠时才移动，先将移动后的记录写入磁盘再修改文件头，
+	 * 移动过程中崩溃时文件头仍指向完整的原记录；否则扩大文件
+	 * @param size 需要的字节数
+	 * @return 成功返回true，否则返回false
+	 */
+	private boolean ensureCapacity(int size)
+	{
+		if ((long) writeOffset + size <= buffer.capacity())
+			return true;
+		int length = writeOffset - dataStart;
+		if ((long) HEADER_SIZE + length + 4 <= dataStart && (long) HEADER_SIZE + length + size <= buffer.capacity())
+		{
+			byte[] data = new byte[length];
+			buffer.position(dataStart);
+			buffer.get(data);
+			buffer.position(HEADER_SIZE);
+			buffer.put(data);
+			buffer.putInt(HEADER_SIZE + length, 0);
+			buffer.force();
+			buffer.putInt(4, HEADER_SIZE);// 移动后的记录已写入磁盘，最后切换文件头
+			buffer.force();
+			dataStart = HEADER_SIZE;
+			writeOffset = HEADER_SIZE + length;
+			return true;
+		}
+		long newSize = Math.max((long) buffer.capacity() * 2, (long) writeOffset + size);
+		if (newSize > MAX_FILE_SIZE)
+		{
+			Logger.getLogger(CacheDataTableJournal.class.getName()).log(Level.SEVERE, null, new Exception("数据库缓存表写前日志文件超出最大大小，请缩短写入数据库的间隔：" + filePath));
+			return false;
+		}
+		try
+		{
+			buffer.force();
+			buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, newSize);
+			return true;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheDataTableJournal.class.getName()).log(Level.SEVERE, null, new Exception("数据库缓存表写前日志文件扩大失败：" + filePath, e));
+			return false;
+		}
+	}
+
+	/**
+	 * 读取指定位置的记录内容
+	 * @param offset 位置
+	 * @return 记录内容，记录不完整或校验失败时返回null
+	 */
+	private byte[] readRecord(int offset)
+	{
+		if ((long) offset + RECORD_HEADER_SIZE > buffer.capacity())
+			return null;
+		int length = buffer.getInt(offset);
+		if (length <= 0 || (long) offset + RECORD_HEADER_SIZE + length > buffer.capacity())
+			return null;
+		byte[] content = new byte[length];
+		buffer.position(offset + RECORD_HEADER_SIZE);
+		buffer.get(content);
+		CRC32 crc32 = new CRC32();
+		crc32.update(content);
+		if ((int) crc32.getValue() != buffer.getInt(offset + 4))
+			return null;
+		return content;
+	}
+
+	/**
+	 * 读取字段值
+	 * @param record 记录内容
+	 * @return 字段值
+	 */
+	private Object readValue(ByteBuffer record)
+	{
+		byte type = record.get();
+		switch (type)
+		{
+			case TYPE_NULL:
+				return null;
+			case TYPE_BOOLEAN:
+				return record.get() != 0;
+			case TYPE_BYTE:
+				return record.get();
+			case TYPE_SHORT:
+				return record.getShort();
+			case TYPE_INTEGER:
+				return record.getInt();
+			case TYPE_LONG:
+				return record.getLong();
+			case TYPE_FLOAT:
+				return record.getFloat();
+			case TYPE_DOUBLE:
+				return record.getDouble();
+			case TYPE_STRING:
+				return readString(record);
+			case TYPE_DATE:
+				return new Date(record.getLong());
+			case TYPE_BYTES:
+				byte[] bytes = new byte[record.getInt()];
+				record.get(bytes);
+				return bytes;
+			default:
+				throw new IllegalStateException("未知的字段值类型：" + type);
+		}
+	}
+
+	/**
+	 * 字段值的数据类型，值为null时按String类型
+	 * @param value 字段值
+	 * @return 数据类型
+	 */
+	private JavaType javaType(Object value)
+	{
+		return value != null ? TypesUtil.javaClassTypeToJavaType(value.getClass().getSimpleName()) : JavaType.STRING;
+	}
+
+	/**
+	 * 读取字符串
+	 * @param record 记录内容
+	 * @return 字符串
+	 */
+	private String readString(ByteBuffer record)
+	{
+		byte[] bytes = new byte[record.getInt()];
+		record.get(bytes);
+		return new String(bytes, UTF8);
+	}
+
+	/**
+	 * 追加的记录数
+	 * @return appendCount
+	 */
+	public long getAppendCount()
+	{
+		return appendCount.get();
+	}
+
+	/**
+	 * 截断的次数
+	 * @return truncateCount
+	 */
+	public long getTruncateCount()
+	{
+		return truncateCount.get();
+	}
+
+	/**
+	 * 有效记录的字节数
+	 * @return 字节数
+	 */
+	public synchronized int getSize()
+	{
+		return writeOffset - dataStart;
+	}
+
+	/**
+	 * 关闭日志文件，尚未截断的记录保留至下次打开时重放
+	 */
+	public synchronized void close()
+	{
+		try
+		{
+			if (buffer != null)
+			{
+				buffer.force();
+			}
+			if (file != null)
+			{
+				file.close();
+			}
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheDataTableJournal.class.getName()).log(Level.SEVERE, null, e);
+		}
+		buffer = null;
+		file = null;
+	}
+
+	public String toString()
+	{
+		return "filePath=" + filePath + ", size=" + getSize() + ", appendCount=" + appendCount.get() + ", truncateCount=" + truncateCount.get();
+	}
+
+	/**
+	 * 重放时按主键合并的行
+	 */
+	private static class ReplayRow
+	{
+		/**
+		 * 是否为新创建的行
+		 */
+		boolean isNewRow;
+
+		/**
+		 * 字段名及最后记录的字段值
+		 */
+		final LinkedHashMap<String, Object> fields = new LinkedHashMap<String, Object>();
+	}
+
+	/**
+	 * 记录内容的写入缓冲
+	 */
+	private static class RecordWriter
+	{
+		/**
+		 * 缓冲
+		 */
+		byte[] bytes;
+
+		/**
+		 * 已写入的字节数
+		 */
+		int size;
+
+		RecordWriter(int capacity)
+		{
+			bytes = new byte[capacity];
+		}
+
+		void ensure(int length)
+		{
+			if (size + length > bytes.length)
+			{
+				byte[] newBytes = new byte[Math.max(bytes.length * 2, size + length)];
+				System.arraycopy(bytes, 0, newBytes, 0, size);
+				bytes = newBytes;
+			}
+		}
+
+		void writeByte(int value)
+		{
+			ensure(1);
+			bytes[size++] = (byte) value;
+		}
+
+		void writeShort(int value)
+		{
+			ensure(2);
+			setShort(size, value);
+			size += 2;
+		}
+
+		void setShort(int position, int value)
+		{
+			bytes[position] = (byte) (value >>> 8);
+			bytes[position + 1] = (byte) value;
+		}
+
+		void writeInt(int value)
+		{
+			ensure(4);
+			bytes[size++] = (byte) (value >>> 24);
+			bytes[size++] = (byte) (value >>> 16);
+			bytes[size++] = (byte) (value >>> 8);
+			bytes[size++] = (byte) value;
+		}
+
+		void writeLong(long value)
+		{
+			writeInt((int) (value >>> 32));
+			writeInt((int) value);
+		}
+
+		void writeBytes(byte[] value)
+		{
+			writeInt(value.length);
+			ensure(value.length);
+			System.arraycopy(value, 0, bytes, size, value.length);
+			size += value.length;
+		}
+
+		void writeString(String value)
+		{
+			writeBytes(value.getBytes(UTF8));
+		}
+
+		void writeValue(Object value)
+		{
+			if (value == null)
+			{
+				writeByte(TYPE_NULL);
+			}
+			else if (value instanceof Boolean)
+			{
+				writeByte(TYPE_BOOLEAN);
+				writeByte((Boolean) value ? 1 : 0);
+			}
+			else if (value instanceof Byte)
+			{
+				writeByte(TYPE_BYTE);
+				writeByte((Byte) value);
+			}
+			else if (value instanceof Short)
+			{
+				writeByte(TYPE_SHORT);
+				writeShort((Short) value);
+			}
+			else if (value instanceof Integer)
+			{
+				writeByte(TYPE_INTEGER);
+				writeInt((Integer) value);
+			}
+			else if (value instanceof Long)
+			{
+				writeByte(TYPE_LONG);
+				writeLong((Long) value);
+			}
+			else if (value instanceof Float)
+			{
+				writeByte(TYPE_FLOAT);
+				writeInt(Float.floatToIntBits((Float) value));
+			}
+			else if (value instanceof Double)
+			{
+				writeByte(TYPE_DOUBLE);
+				writeLong(Double.doubleToLongBits((Double) value));
+			}
+			else if (value instanceof Date)
+			{
+				writeByte(TYPE_DATE);
+				writeLong(((Date) value).getTime());
+			}
+			else if (value instanceof byte[])
+			{
+				writeByte(TYPE_BYTES);
+				writeBytes((byte[]) value);
+			}
+			else
+			{
+				writeByte(TYPE_STRING);
+				writeString(value.toString());
+			}
+		}
+	}
+}
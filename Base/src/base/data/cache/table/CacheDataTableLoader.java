@@ -0,0 +1,548 @@
+package base.data.cache.table;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import base.data.DataFactory;
+import base.data.sql.ISqlRow;
+import base.data.sql.ISqlRowHandler;
+import base.data.sql.ISqlTypedParameter;
+import base.data.sql.SqlTypedParameter;
+import base.types.JavaType;
+import base.utils.DataUtil;
+import base.utils.SqlUtil;
+import base.utils.StringUtil;
+import base.utils.TypesUtil;
+
+/**
+ * 数据库缓存表填充
+ * 以只能向前读取的结果集逐行读取数据，结果集不缓存至内存；列名及数据类型每次查询只解析一次，行及字段由已解析的实现类直接创建。
+ * 行在读取线程中创建，每满一段后才持有表的写锁加入表，填充期间表的其它操作不会被长时间阻塞。
+ * 整数主键且未限制容量时，可按主键区间分段，在多个连接上并行读取，并行填充时行的顺序不保证与数据库一致。
+ * @author Devin
+ *
+ */
+public class CacheDataTableLoader
+{
+	/**
+	 * 每次持有写锁加入表的行数
+	 */
+	private final static int ADD_CHUNK_ROWS = 1024;
+
+	/**
+	 * 每填充此行数通知一次进度
+	 */
+	private final static int PROGRESS_ROWS = 100000;
+
+	/**
+	 * 每个并行线程分得的主键区间数，区间多于线程数以平衡各区间的行数差异
+	 */
+	private final static int RANGES_PER_THREAD = 4;
+
+	/**
+	 * 默认的每次从数据库取得的行数，MySQL驱动以此值逐行读取结果集
+	 */
+	public final static int DEFAULT_FETCH_SIZE = Integer.MIN_VALUE;
+
+	/**
+	 * 仅包含WHERE条件的后续Sql语句，可与主键区间条件组合
+	 */
+	private final static Pattern WHERE_PATTERN = Pattern.compile("^\\s*WHERE\\s+(.+)$", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+	/**
+	 * 不能与主键区间条件组合的后续Sql语句关键字
+	 */
+	private final static Pattern NOT_RANGE_PATTERN = Pattern.compile("\\b(ORDER|GROUP|LIMIT|HAVING|UNION)\\b", Pattern.CASE_INSENSITIVE);
+
+	/**
+	 * 数据库缓存表
+	 */
+	private final ICacheDataTable cacheDataTable;
+
+	/**
+	 * 数据库缓存表的读写锁，每段行加入表时持有写锁
+	 */
+	private final ReadWriteLock tableLock;
+
+	/**
+	 * 数据库缓存表的表结构
+	 */
+	private final CacheTableSchema schema;
+
+	/**
+	 * 数据库连接池名称
+	 */
+	private String sqlConnectionPoolName;
+
+	/**
+	 * 数据库表名
+	 */
+	private String sqlTableName;
+
+	/**
+	 * 主键字段名
+	 */
+	private String primaryKeyFieldName;
+
+	/**
+	 * 自定义的字段名数组
+	 */
+	private String[] customFieldNames;
+
+	/**
+	 * 对应的自定义的字段数据类型数组
+	 */
+	private JavaType[] customFieldJaveTypes;
+
+	/**
+	 * 每次从数据库取得的行数
+	 */
+	private volatile int fetchSize = DEFAULT_FETCH_SIZE;
+
+	/**
+	 * 数据库缓存表填充
+	 * @param cacheDataTable 数据库缓存表
+	 * @param tableLock 数据库缓存表的读写锁
+	 * @param schema 数据库缓存表的表结构
+	 */
+	public CacheDataTableLoader(ICacheDataTable cacheDataTable, ReadWriteLock tableLock, CacheTableSchema schema)
+	{
+		this.cacheDataTable = cacheDataTable;
+		this.tableLock = tableLock;
+		this.schema = schema;
+	}
+
+	/**
+	 * 初始化
+	 * @param sqlConnectionPoolName 数据库连接池名称
+	 * @param sqlTableName 数据库表名
+	 * @param primaryKeyFieldName 主键字段名
+	 * @param customFieldNames 自定义的字段名数组
+	 * @param customFieldJaveTypes 对应的自定义的字段数据类型数组，其长度必须与customFieldNames相等且对应
+	 */
+	public void init(String sqlConnectionPoolName, String sqlTableName, String primaryKeyFieldName, String[] customFieldNames, JavaType[] customFieldJaveTypes)
+	{
+		this.sqlConnectionPoolName = sqlConnectionPoolName;
+		this.sqlTableName = sqlTableName;
+		this.primaryKeyFieldName = primaryKeyFieldName;
+		if (customFieldNames != null && customFieldNames.length > 0 && customFieldJaveTypes != null && customFieldNames.length == customFieldJaveTypes.length)
+		{
+			this.customFieldNames = customFieldNames;
+			this.customFieldJaveTypes = customFieldJaveTypes;
+		}
+	}
+
+	/**
+	 * 每次从数据库取得的行数
+	 * @return fetchSize
+	 */
+	public int getFetchSize()
+	{
+		return fetchSize;
+	}
+
+	/**
+	 * 每次从数据库取得的行数
+	 * @param fetchSize 0为驱动默认值，默认为Integer.MIN_VALUE(MySQL驱动逐行读取)
+	 */
+	public void setFetchSize(int fetchSize)
+	{
+		this.fetchSize = fetchSize;
+	}
+
+	/**
+	 * 从数据表中取得数据填充缓存表
+	 * @param subsequentSql 填充时的SQL后续Sql语句，仅包含WHERE条件时可按主键区间并行填充
+	 * @param capacity 数据行记录容量的大小，值为-1时则表示不限容量，限制容量时只以一个连接填充
+	 * @param parallelism 并行读取的连接数，小于等于1时只以一个连接填充
+	 * @param cacheDataTableFillListener 填充进度监听，可为null
+	 * @return 填充的行数，填充出错时返回-1
+	 */
+	public long fill(String subsequentSql, int capacity, int parallelism, ICacheDataTableFillListener cacheDataTableFillListener)
+	{
+		long startTime = System.currentTimeMillis();
+		FillTask fillTask = new FillTask(cacheDataTableFillListener);
+
+		String whereCondition = null;
+		boolean isRange = parallelism > 1 && capacity == -1;
+		if (isRange && !StringUtil.isEmptyOrNull(subsequentSql))
+		{
+			Matcher matcher = WHERE_PATTERN.matcher(subsequentSql);
+			if (matcher.matches() && !NOT_RANGE_PATTERN.matcher(subsequentSql).find())
+			{
+				whereCondition = matcher.group(1);
+			}
+			else
+			{
+				isRange = false;
+			}
+		}
+
+		boolean result;
+		long[] bounds = isRange ? getPrimaryKeyBounds(whereCondition) : null;
+		if (bounds != null)
+		{
+			result = fillRanges(fillTask, whereCondition, bounds, parallelism);
+		}
+		else
+		{
+			String sqlText = "SELECT * FROM " + sqlTableName + (!StringUtil.isEmptyOrNull(subsequentSql) ? " " + subsequentSql : "") + (capacity != -1 ? " LIMIT " + capacity : "");
+			fillTask.rangeCount = 1;
+			result = fillTask.fill(sqlText, null, fetchSize);
+		}
+
+		long rowCount = result ? fillTask.rowCount.get() : -1;
+		if (cacheDataTableFillListener != null)
+		{
+			cacheDataTableFillListener.complete(cacheDataTable, rowCount, System.currentTimeMillis() - startTime);
+		}
+		return rowCount;
+	}
+
+	/**
+	 * 按条件从数据表中取得行加入缓存表，主键已存在于缓存表中的行不再加入，返回缓存表中已有的行
+	 * @param whereCondition WHERE条件，以“?”做为参数占位符
+	 * @param sqlTypedParameter 按占位符位置设置的参数值集
+	 * @param validTime 行的有效时间(毫秒)，值为-1时则表示不过期
+	 * @return 缓存表中对应的行列表，查询出错或读取的行已在缓存表中过期时返回null
+	 */
+	public Vector<ICacheTableRow> load(String whereCondition, ISqlTypedParameter sqlTypedParameter, long validTime)
+	{
+		FillTask fillTask = new FillTask(null);
+		fillTask.validTime = validTime;
+		fillTask.loadedRows = new Vector<ICacheTableRow>();
+		fillTask.rangeCount = 1;
+		if (!fillTask.fill("SELECT * FROM " + sqlTableName + " WHERE " + whereCondition, sqlTypedParameter, 0))
+			return null;
+		if (fillTask.loadedRows.size() == 0 && fillTask.readCount.get() > 0)
+			return null;// 读取的行主键已存在，但缓存表中的行已过期尚未移除
+		return fillTask.loadedRows;
+	}
+
+	/**
+	 * 取得主键的最小值及最大值，主键不是整数时返回null
+	 * @param whereCondition WHERE条件，可为null
+	 * @return [最小值, 最大值]，表中没有数据时返回长度为0的数组
+	 */
+	private long[] getPrimaryKeyBounds(String whereCondition)
+	{
+		final Object[] bounds = new Object[2];
+		String sqlText = "SELECT MIN(" + primaryKeyFieldName + "), MAX(" + primaryKeyFieldName + ") FROM " + sqlTableName + (whereCondition != null ? " WHERE " + whereCondition : "");
+		boolean result = DataFactory.sqlController().query(sqlConnectionPoolName, sqlText, null, 0, new ISqlRowHandler()
+		{
+			public boolean handle(ISqlRow row) throws SQLException
+			{
+				bounds[0] = row.getObject(1);
+				bounds[1] = row.getObject(2);
+				return false;
+			}
+		});
+		if (!result)
+			return null;
+		if (bounds[0] == null || bounds[1] == null)
+			return new long[0];
+		if (!isIntegral(bounds[0]) || !isIntegral(bounds[1]))
+			return null;
+		long min = ((Number) bounds[0]).longValue();
+		long max = ((Number) bounds[1]).longValue();
+		if (max - min < 0)
+			return null;// 区间超出long范围
+		return new long[] { min, max };
+	}
+
+	/**
+	 * 是否为整数类型
+	 * @param value 值
+	 * @return 是整数返回true
+	 */
+	private boolean isIntegral(Object value)
+	{
+		return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+	}
+
+	/**
+	 * 按主键区间分段在多个连接上并行填充
+	 * @param fillTask 填充任务
+	 * @param whereCondition WHERE条件，可为null
+	 * @param bounds 主键的最小值及最大值
+	 * @param parallelism 并行读取的连接数
+	 * @return 全部区间填充成功返回true
+	 */
+	private boolean fillRanges(final FillTask fillTask, String whereCondition, long[] bounds, int parallelism)
+	{
+		if (bounds.length == 0)
+			return true;
+		long min = bounds[0];
+		long max = bounds[1];
+		int rangeCount = (int) Math.min((long) parallelism * RANGES_PER_THREAD, max - min + 1);
+		long rangeSize = (max - min) / rangeCount + 1;
+		fillTask.rangeCount = rangeCount;
+		final String sqlText = "SELECT * FROM " + sqlTableName + " WHERE " + (whereCondition != null ? "(" + whereCondition + ") AND " : "") + primaryKeyFieldName + " BETWEEN ? AND ?";
+
+		ExecutorService executorService = Executors.newFixedThreadPool(Math.min(parallelism, rangeCount));
+		ArrayList<Future<Boolean>> futures = new ArrayList<Future<Boolean>>(rangeCount);
+		boolean result = true;
+		try
+		{
+			for (int i = 0; i < rangeCount; i++)
+			{
+				long lower = min + rangeSize * i;
+				long upper = i == rangeCount - 1 ? max : lower + rangeSize - 1;
+				final ISqlTypedParameter sqlTypedParameter = new SqlTypedParameter(2).setLong(1, lower).setLong(2, upper);
+				futures.add(executorService.submit(new Callable<Boolean>()
+				{
+					public Boolean call()
+					{
+						return fillTask.fill(sqlText, sqlTypedParameter, fetchSize);
+					}
+				}));
+			}
+			for (Future<Boolean> future : futures)
+			{
+				if (!future.get())
+				{
+					result = false;
+				}
+			}
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheDataTableLoader.class.getName()).log(Level.SEVERE, null, e);
+			result = false;
+		}
+		finally
+		{
+			executorService.shutdown();
+		}
+		return result;
+	}
+
+	/**
+	 * 填充任务，同一次填充的各区间共用
+	 */
+	private class FillTask
+	{
+		/**
+		 * 行的实现类
+		 */
+		final Class<?> rowClass;
+
+		/**
+		 * 字段的实现类
+		 */
+		final Class<?> fieldClass;
+
+		/**
+		 * 填充进度监听
+		 */
+		final ICacheDataTableFillListener cacheDataTableFillListener;
+
+		/**
+		 * 已填充的行数
+		 */
+		final AtomicLong rowCount = new AtomicLong();
+
+		/**
+		 * 从数据库读取的行数
+		 */
+		final AtomicLong readCount = new AtomicLong();
+
+		/**
+		 * 已完成的区间数
+		 */
+		final AtomicInteger finishedRanges = new AtomicInteger();
+
+		/**
+		 * 区间总数
+		 */
+		volatile int rangeCount;
+
+		/**
+		 * 行的有效时间(毫秒)，值为-1时则表示不过期
+		 */
+		long validTime = -1;
+
+		/**
+		 * 收集填充后缓存表中对应的行，为null时不收集
+		 */
+		Vector<ICacheTableRow> loadedRows;
+
+		FillTask(ICacheDataTableFillListener cacheDataTableFillListener)
+		{
+			this.cacheDataTableFillListener = cacheDataTableFillListener;
+			rowClass = DataUtil.cacheTableRow().getClass();
+			fieldClass = DataUtil.cacheTableField(null, JavaType.STRING).getClass();
+		}
+
+		/**
+		 * 执行查询并填充
+		 * @param sqlText Sql语句
+		 * @param sqlTypedParameter 参数值集，可为null
+		 * @param fetchSize 每次从数据库取得的行数
+		 * @return 填充成功返回true
+		 */
+		boolean fill(String sqlText, ISqlTypedParameter sqlTypedParameter, int fetchSize)
+		{
+			FillRowHandler fillRowHandler = new FillRowHandler();
+			boolean result = DataFactory.sqlController().query(sqlConnectionPoolName, sqlText, sqlTypedParameter, fetchSize, fillRowHandler);
+			addRows(fillRowHandler.rows);
+			int finished = finishedRanges.incrementAndGet();
+			if (cacheDataTableFillListener != null)
+			{
+				cacheDataTableFillListener.progress(cacheDataTable, rowCount.get(), finished, rangeCount);
+			}
+			return result;
+		}
+
+		/**
+		 * 逐行读取查询结果，每满一段加入表
+		 */
+		private class FillRowHandler implements ISqlRowHandler
+		{
+			/**
+			 * 列数
+			 */
+			int columnCount = -1;
+
+			/**
+			 * 列名，从1开始
+			 */
+			String[] columnLabels;
+
+			/**
+			 * 列数据类型，从1开始
+			 */
+			JavaType[] columnJavaTypes;
+
+			/**
+			 * 尚未加入表的行
+			 */
+			final ArrayList<ICacheTableRow> rows = new ArrayList<ICacheTableRow>(ADD_CHUNK_ROWS);
+
+			public boolean handle(ISqlRow row) throws SQLException
+			{
+				int i;
+				if (columnCount < 0)
+				{// 列名及数据类型只解析一次，并按结果集的列顺序分配表结构槽位
+					columnCount = row.getColumnCount();
+					columnLabels = new String[columnCount + 1];
+					columnJavaTypes = new JavaType[columnCount + 1];
+					for (i = 1; i <= columnCount; i++)
+					{
+						columnLabels[i] = row.getColumnName(i);
+						columnJavaTypes[i] = TypesUtil.sqlTypeToJavaType(row.getColumnClassName(i));
+						schema.addField(columnLabels[i]);
+					}
+				}
+
+				ICacheTableRow cacheTableRow = null;
+				try
+				{
+					cacheTableRow = (ICacheTableRow) rowClass.getDeclaredConstructor().newInstance();
+					cacheTableRow.setIsNewRow(false);
+					for (i = 1; i <= columnCount; i++)
+					{
+						cacheTableRow.addField(columnLabels[i], newField(SqlUtil.sqlRowGet(row, i, columnJavaTypes[i]), columnJavaTypes[i]));
+					}
+
+					//增加自定义字段，其字段初始值为null
+					if (customFieldNames != null)
+					{
+						for (i = 0; i < customFieldNames.length; i++)
+						{
+							cacheTableRow.addField(customFieldNames[i], newField(TypesUtil.getJavaTypeDefaultValue(customFieldJaveTypes[i]), customFieldJaveTypes[i]).setIsSqlSave(false));
+						}
+					}
+					rows.add(cacheTableRow);
+				}
+				catch (ReflectiveOperationException e)
+				{
+					if (cacheTableRow != null)
+					{// 释放未完成的行已创建的字段
+						cacheTableRow.dispose();
+					}
+					throw new SQLException(e);
+				}
+				if (rows.size() >= ADD_CHUNK_ROWS)
+				{
+					addRows(rows);
+				}
+				return true;
+			}
+		}
+
+		/**
+		 * 创建字段
+		 * @param data 字段数据
+		 * @param javaType 字段数据类型
+		 * @return 字段
+		 * @throws ReflectiveOperationException
+		 */
+		ICacheTableField newField(Object data, JavaType javaType) throws ReflectiveOperationException
+		{
+			ICacheTableField cacheTableField = (ICacheTableField) fieldClass.getDeclaredConstructor().newInstance();
+			cacheTableField.init(data, javaType);
+			return cacheTableField;
+		}
+
+		/**
+		 * 持有一次表的写锁加入一段行，并通知进度，未能加入的行(如主键已存在)在此释放
+		 * @param rows 行数据列表，加入后清空
+		 */
+		void addRows(ArrayList<ICacheTableRow> rows)
+		{
+			if (rows.size() <= 0)
+				return;
+			int addCount = 0;
+			tableLock.writeLock().lock();
+			try
+			{
+				for (ICacheTableRow cacheTableRow : rows)
+				{
+					if (cacheDataTable.addRow(cacheTableRow, validTime))
+					{
+						addCount++;
+					}
+					else
+					{
+						ICacheTableRow rejectedCacheTableRow = cacheTableRow;
+						cacheTableRow = null;
+						if (loadedRows != null)
+						{// 主键已存在时取得缓存表中已有的行
+							Object primaryKeyFieldValue = rejectedCacheTableRow.getFieldData(primaryKeyFieldName);
+							cacheTableRow = cacheDataTable.getRowByPrimaryKey(primaryKeyFieldValue);
+						}
+						rejectedCacheTableRow.dispose();// 未加入缓存表的行不再使用，释放其字段
+					}
+					if (loadedRows != null && cacheTableRow != null)
+					{
+						loadedRows.add(cacheTableRow);
+					}
+				}
+			}
+			finally
+			{
+				tableLock.writeLock().unlock();
+			}
+			readCount.addAndGet(rows.size());
+			long oldRowCount = rowCount.getAndAdd(addCount);
+			if (cacheDataTableFillListener != null && (oldRowCount + addCount) / PROGRESS_ROWS != oldRowCount / PROGRESS_ROWS)
+			{
+				cacheDataTableFillListener.progress(cacheDataTable, oldRowCount + addCount, finishedRanges.get(), rangeCount);
+			}
+			rows.clear();
+		}
+	}
+}
@@ -0,0 +1,379 @@
+package base.data.cache.table;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import base.data.sql.ISqlTypedParameter;
+import base.data.sql.SqlTypedParameter;
+import base.utils.DateUtil;
+
+/**
+ * 数据库缓存表按需读取
+ * 缓存表中按主键或集合键查找不到行时，以一条参数化的SELECT语句从数据库表中读取并加入缓存表，行按指定的有效时间过期，缓存表只保留活跃的行。
+ * 同一个键的并发读取合并为一次查询，其它线程等待该次查询的结果并各自取得结果列表的副本；数据库表中也不存在的键在一段时间内记录为不存在，期间不再查询，
+ * 新行加入缓存表时清除与该行主键及集合键值相符的不存在记录。
+ * @author Devin
+ *
+ */
+public class CacheDataTableReadThrough
+{
+	/**
+	 * 不存在的键的最大记录数，超出时先清除已过期的记录，仍超出时全部清除
+	 */
+	private final static int MAX_ABSENT_KEYS = 100000;
+
+	/**
+	 * 从数据库表逐行填充缓存表
+	 */
+	private final CacheDataTableLoader loader;
+
+	/**
+	 * 主键字段名
+	 */
+	private String primaryKeyFieldName;
+
+	/**
+	 * 是否开启按需读取
+	 */
+	private volatile boolean isEnabled = false;
+
+	/**
+	 * 读取的行的有效时间(毫秒)，值为-1时则表示不过期
+	 */
+	private volatile long validTime = -1;
+
+	/**
+	 * 不存在的键的记录时间(毫秒)，小于等于0时不记录
+	 */
+	private volatile long absentTime = 0;
+
+	/**
+	 * 正在读取的键
+	 */
+	private final ConcurrentHashMap<String, Loading> loadings = new ConcurrentHashMap<String, Loading>();
+
+	/**
+	 * 数据库表中不存在的键及记录的过期时间
+	 */
+	private final ConcurrentHashMap<String, Long> absentKeys = new ConcurrentHashMap<String, Long>();
+
+	/**
+	 * 记录过不存在的键的集合键字段名列表，key为字段名列表的字符串形式，用于新行加入时按行的字段值清除对应的记录
+	 */
+	private final ConcurrentHashMap<String, String[]> absentKeyFieldNameGroups = new ConcurrentHashMap<String, String[]>();
+
+	/**
+	 * 查询数据库的次数
+	 */
+	private final AtomicLong loadCount = new AtomicLong();
+
+	/**
+	 * 合并至其它线程查询的次数
+	 */
+	private final AtomicLong coalesceCount = new AtomicLong();
+
+	/**
+	 * 命中不存在的键记录的次数
+	 */
+	private final AtomicLong absentHitCount = new AtomicLong();
+
+	/**
+	 * 数据库缓存表按需读取
+	 * @param loader 从数据库表逐行填充缓存表
+	 */
+	public CacheDataTableReadThrough(CacheDataTableLoader loader)
+	{
+		this.loader = loader;
+	}
+
+	/**
+	 * 初始化
+	 * @param primaryKeyFieldName 主键字段名
+	 */
+	public void init(String primaryKeyFieldName)
+	{
+		this.primaryKeyFieldName = primaryKeyFieldName;
+	}
+
+	/**
+	 * 是否开启按需读取
+	 * @return isEnabled
+	 */
+	public boolean getIsEnabled()
+	{
+		return isEnabled;
+	}
+
+	/**
+	 * 开启按需读取
+	 * @param validTime 读取的行的有效时间(毫秒)，值为-1时则表示不过期
+	 * @param absentTime 数据库表中不存在的键的记录时间(毫秒)，小于等于0时不记录
+	 */
+	public void start(long validTime, long absentTime)
+	{
+		this.validTime = validTime;
+		this.absentTime = absentTime;
+		absentKeys.clear();
+		absentKeyFieldNameGroups.clear();
+		isEnabled = true;
+	}
+
+	/**
+	 * 关闭按需读取
+	 */
+	public void stop()
+	{
+		isEnabled = false;
+		absentKeys.clear();
+		absentKeyFieldNameGroups.clear();
+	}
+
+	/**
+	 * 按主键从数据库表读取行
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 取得的行数据，数据库表中不存在时返回null
+	 */
+	public ICacheTableRow loadByPrimaryKey(Object primaryKeyFieldValue)
+	{
+		if (primaryKeyFieldValue == null)
+			return null;
+		ISqlTypedParameter sqlTypedParameter = new SqlTypedParameter(1);
+		if (primaryKeyFieldValue instanceof Long || primaryKeyFieldValue instanceof Integer || primaryKeyFieldValue instanceof Short || primaryKeyFieldValue instanceof Byte)
+		{
+			sqlTypedParameter.setLong(1, ((Number) primaryKeyFieldValue).longValue());
+		}
+		else
+		{
+			sqlTypedParameter.setString(1, primaryKeyFieldValue.toString());
+		}
+		Vector<ICacheTableRow> cacheTableRows = load("P\u0001" + primaryKeyFieldValue, null, primaryKeyFieldName + "=?", sqlTypedParameter);
+		return cacheTableRows != null && cacheTableRows.size() > 0 ? cacheTableRows.get(0) : null;
+	}
+
+	/**
+	 * 按集合键从数据库表读取行
+	 * @param keyFieldNames 集合键字段名列表
+	 * @param keyFieldValues 集合键值列表
+	 * @return 取得的行数据列表，数据库表中不存在时返回空列表
+	 */
+	public Vector<ICacheTableRow> loadByKeyFields(String[] keyFieldNames, String[] keyFieldValues)
+	{
+		if (keyFieldNames == null || keyFieldValues == null || keyFieldNames.length == 0 || keyFieldNames.length != keyFieldValues.length)
+			return new Vector<ICacheTableRow>();
+		StringBuilder whereCondition = new StringBuilder();
+		ISqlTypedParameter sqlTypedParameter = new SqlTypedParameter(keyFieldNames.length);
+		for (int i = 0; i < keyFieldNames.length; i++)
+		{
+			whereCondition.append(i != 0 ? " AND " : "").append(keyFieldNames[i]).append("=?");
+			sqlTypedParameter.setString(i + 1, keyFieldValues[i]);
+		}
+		Vector<ICacheTableRow> cacheTableRows = load(getKeyFieldKey(keyFieldNames, keyFieldValues), keyFieldNames, whereCondition.toString(), sqlTypedParameter);
+		return cacheTableRows != null ? cacheTableRows : new Vector<ICacheTableRow>();
+	}
+
+	/**
+	 * 集合键对应的键
+	 * @param keyFieldNames 集合键字段名列表
+	 * @param keyFieldValues 集合键值列表
+	 * @return 键
+	 */
+	private static String getKeyFieldKey(String[] keyFieldNames, String[] keyFieldValues)
+	{
+		StringBuilder key = new StringBuilder("K");
+		for (int i = 0; i < keyFieldNames.length; i++)
+		{
+			key.append('\u0001').append(keyFieldNames[i]).append('=').append(keyFieldValues[i]);
+		}
+		return key.toString();
+	}
+
+	/**
+	 * 读取行，同一个键的并发读取合并为一次查询
+	 * @param key 键
+	 * @param keyFieldNames 按集合键读取时的集合键字段名列表，按主键读取时为null
+	 * @param whereCondition WHERE条件
+	 * @param sqlTypedParameter 参数值集
+	 * @return 取得的行数据列表，查询出错时返回null
+	 */
+	private Vector<ICacheTableRow> load(String key, String[] keyFieldNames, String whereCondition, ISqlTypedParameter sqlTypedParameter)
+	{
+		Long absentExpiresTime = absentKeys.get(key);
+		if (absentExpiresTime != null)
+		{
+			if (DateUtil.getCurrentTimeMillis() <= absentExpiresTime)
+			{
+				absentHitCount.incrementAndGet();
+				return new Vector<ICacheTableRow>();
+			}
+			absentKeys.remove(key, absentExpiresTime);
+		}
+
+		Loading loading = new Loading();
+		Loading oldLoading = loadings.putIfAbsent(key, loading);
+		if (oldLoading != null)
+		{// 已有线程正在读取，等待其结果
+			coalesceCount.incrementAndGet();
+			try
+			{
+				oldLoading.latch.await();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				return null;
+			}
+			Vector<ICacheTableRow> cacheTableRows = oldLoading.cacheTableRows;
+			return cacheTableRows != null ? new Vector<ICacheTableRow>(cacheTableRows) : null;// 各等待线程取得各自的副本，修改列表不影响其它线程
+		}
+
+		try
+		{
+			loadCount.incrementAndGet();
+			loading.cacheTableRows = loader.load(whereCondition, sqlTypedParameter, validTime);
+			if (loading.cacheTableRows != null && loading.cacheTableRows.size() == 0)
+			{
+				putAbsentKey(key, keyFieldNames);
+			}
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheDataTableReadThrough.class.getName()).log(Level.SEVERE, null, e);
+		}
+		finally
+		{
+			loadings.remove(key, loading);
+			loading.latch.countDown();
+		}
+		return loading.cacheTableRows;
+	}
+
+	/**
+	 * 记录数据库表中不存在的键
+	 * @param key 键
+	 * @param keyFieldNames 集合键字段名列表，主键时为null
+	 */
+	private void putAbsentKey(String key, String[] keyFieldNames)
+	{
+		long absentTime = this.absentTime;
+		if (absentTime <= 0)
+			return;
+		if (keyFieldNames != null)
+		{
+			absentKeyFieldNameGroups.putIfAbsent(Arrays.toString(keyFieldNames), keyFieldNames.clone());
+		}
+		long currentTime = DateUtil.getCurrentTimeMillis();
+		if (absentKeys.size() >= MAX_ABSENT_KEYS)
+		{
+			Iterator<Entry<String, Long>> iterator = absentKeys.entrySet().iterator();
+			while (iterator.hasNext())
+			{
+				if (currentTime > iterator.next().getValue())
+				{
+					iterator.remove();
+				}
+			}
+			if (absentKeys.size() >= MAX_ABSENT_KEYS)
+			{
+				absentKeys.clear();
+			}
+		}
+		absentKeys.put(key, currentTime + absentTime);
+	}
+
+	/**
+	 * 清除与行的主键值及各组集合键值相符的不存在记录，新行加入缓存表时调用
+	 * @param cacheTableRow 行数据
+	 */
+	public void removeAbsentKeys(ICacheTableRow cacheTableRow)
+	{
+		if (cacheTableRow == null || absentKeys.isEmpty())
+			return;
+		Object primaryKeyFieldValue = cacheTableRow.getFieldData(primaryKeyFieldName);
+		if (primaryKeyFieldValue != null)
+		{
+			absentKeys.remove("P\u0001" + primaryKeyFieldValue);
+		}
+		for (String[] keyFieldNames : absentKeyFieldNameGroups.values())
+		{
+			String[] keyFieldValues = new String[keyFieldNames.length];
+			boolean isContains = true;
+			for (int i = 0; i < keyFieldNames.length && isContains; i++)
+			{
+				isContains = cacheTableRow.containsField(keyFieldNames[i]);
+				if (isContains)
+				{
+					Object keyFieldValue = cacheTableRow.getFieldData(keyFieldNames[i]);
+					keyFieldValues[i] = String.valueOf(keyFieldValue);
+				}
+			}
+			if (isContains)
+			{
+				absentKeys.remove(getKeyFieldKey(keyFieldNames, keyFieldValues));
+			}
+		}
+	}
+
+	/**
+	 * 查询数据库的次数
+	 * @return loadCount
+	 */
+	public long getLoadCount()
+	{
+		return loadCount.get();
+	}
+
+	/**
+	 * 合并至其它线程查询的次数
+	 * @return coalesceCount
+	 */
+	public long getCoalesceCount()
+	{
+		return coalesceCount.get();
+	}
+
+	/**
+	 * 命中不存在的键记录的次数
+	 * @return absentHitCount
+	 */
+	public long getAbsentHitCount()
+	{
+		return absentHitCount.get();
+	}
+
+	/**
+	 * 释放，关闭按需读取并清除记录
+	 */
+	public synchronized void dispose()
+	{
+		stop();
+		loadings.clear();
+	}
+
+	public String toString()
+	{
+		return "isEnabled=" + isEnabled + ", loadCount=" + loadCount.get() + ", coalesceCount=" + coalesceCount.get() + ", absentHitCount=" + absentHitCount.get() + ", absentKeys=" + absentKeys.size();
+	}
+
+	/**
+	 * 正在进行的读取
+	 */
+	private static class Loading
+	{
+		/**
+		 * 读取完成时释放
+		 */
+		final CountDownLatch latch = new CountDownLatch(1);
+
+		/**
+		 * 读取的结果
+		 */
+		volatile Vector<ICacheTableRow> cacheTableRows;
+	}
+}
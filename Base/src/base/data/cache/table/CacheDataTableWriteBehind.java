@@ -0,0 +1,878 @@
+package base.data.cache.table;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import base.data.DataFactory;
+import base.timer.TimerController;
+import base.timer.TimerTask;
+
+/**
+ * 数据库缓存表延迟写入
+ * 已更改的行以行的待写入标记原子去重后加入无锁队列，两次写入之间同一行的多次更改只写入一次，字段更改时不需要获取表锁；
+ * 行按表结构槽位记录已更改字段的位图，写入更新时只访问位图中的字段并原子地取出清除位图；写入时按插入或更新及更改的字段组合分组，每组生成一条以“?”为参数占位符的SQL语句，以PreparedStatement批处理在同一事务中执行。
+ * 新创建的行可按多行插入方式写入，字段组合相同的新行合并为“INSERT ... VALUES (?, ?),(?, ?) ON DUPLICATE KEY UPDATE ...”语句，按行数及估算的数据包大小分段。
+ * 待写入行数达到批量大小时安排一次异步写入，定时写入由数据库缓存表的自动更新计时器执行。
+ * 写入失败时恢复行及字段的更改状态并重新加入待写入列表，待下次写入时重试；设置了写前日志时，待写入的行全部写入成功后截断日志。
+ * @author Devin
+ *
+ */
+public class CacheDataTableWriteBehind
+{
+	/**
+	 * 达到批量大小时执行异步写入的计时器名称
+	 */
+	private final static String TIMER_NAME = "CacheDataTableWriteBehind";
+
+	/**
+	 * 默认的多行插入每条语句参数数据的估算最大字节数
+	 */
+	private final static int DEFAULT_INSERT_CHUNK_BYTES = 1024 * 1024;
+
+	/**
+	 * 每条语句的最大参数个数(MySQL预编译语句的限制)
+	 */
+	private final static int MAX_STATEMENT_PARAMETERS = 65535;
+
+	/**
+	 * 字段按字段名排序，使字段组合相同的行生成相同的SQL语句
+	 */
+	private final static Comparator<ICacheTableField> FIELD_NAME_COMPARATOR = new Comparator<ICacheTableField>()
+	{
+		public int compare(ICacheTableField field1, ICacheTableField field2)
+		{
+			return field1.getFieldName().compareTo(field2.getFieldName());
+		}
+	};
+
+	/**
+	 * 数据库缓存表
+	 */
+	private ICacheDataTable cacheDataTable;
+
+	/**
+	 * 数据库缓存表的读写锁，收集行数据及恢复更改状态时持有写锁，执行SQL时不持有
+	 */
+	private final ReadWriteLock tableLock;
+
+	/**
+	 * 数据库连接池名称
+	 */
+	private String sqlConnectionPoolName;
+
+	/**
+	 * 数据库表名
+	 */
+	private String sqlTableName;
+
+	/**
+	 * 主键字段名
+	 */
+	private String primaryKeyFieldName;
+
+	/**
+	 * 待写入的行，行的待写入标记由false设置为true的线程将行加入队列，同一行在队列中只出现一次
+	 */
+	private final ConcurrentLinkedQueue<ICacheTableRow> pendingRows = new ConcurrentLinkedQueue<ICacheTableRow>();
+
+	/**
+	 * 待写入的行数
+	 */
+	private final AtomicInteger pendingCount = new AtomicInteger();
+
+	/**
+	 * 写入锁，保证同一表的写入按顺序执行
+	 */
+	private final Object flushLock = new Object();
+
+	/**
+	 * 触发异步写入的待写入行数，小于等于0时不按行数触发
+	 */
+	private volatile int batchSize = 0;
+
+	/**
+	 * 多行插入时每条语句的最大行数，小于等于1时新行以单行REPLACE语句批量写入
+	 */
+	private volatile int insertChunkRows = 0;
+
+	/**
+	 * 多行插入时每条语句参数数据的估算最大字节数，应小于数据库的max_allowed_packet
+	 */
+	private volatile int insertChunkBytes = DEFAULT_INSERT_CHUNK_BYTES;
+
+	/**
+	 * 写前日志
+	 */
+	private volatile CacheDataTableJournal journal;
+
+	/**
+	 * 是否已安排异步写入
+	 */
+	private final AtomicBoolean isFlushScheduled = new AtomicBoolean(false);
+
+	/**
+	 * 成功写入次数
+	 */
+	private final AtomicLong flushCount = new AtomicLong();
+
+	/**
+	 * 成功写入的行数
+	 */
+	private final AtomicLong flushRowCount = new AtomicLong();
+
+	/**
+	 * 成功写入的SQL语句数(不同的字段组合数)
+	 */
+	private final AtomicLong flushSqlCount = new AtomicLong();
+
+	/**
+	 * 执行SQL的累计时间(纳秒)
+	 */
+	private final AtomicLong flushTime = new AtomicLong();
+
+	/**
+	 * 数据库缓存表延迟写入
+	 * @param cacheDataTable 数据库缓存表
+	 * @param tableLock 数据库缓存表的读写锁
+	 */
+	public CacheDataTableWriteBehind(ICacheDataTable cacheDataTable, ReadWriteLock tableLock)
+	{
+		this.cacheDataTable = cacheDataTable;
+		this.tableLock = tableLock;
+	}
+
+	/**
+	 * 初始化
+	 * @param sqlConnectionPoolName 数据库连接池名称
+	 * @param sqlTableName 数据库表名
+	 * @param primaryKeyFieldName 主键字段名
+	 */
+	public void init(String sqlConnectionPoolName, String sqlTableName, String primaryKeyFieldName)
+	{
+		this.sqlConnectionPoolName = sqlConnectionPoolName;
+		this.sqlTableName = sqlTableName;
+		this.primaryKeyFieldName = primaryKeyFieldName;
+	}
+
+	/**
+	 * 写前日志，全部写入成功后截断已写入的日志记录
+	 * @return journal
+	 */
+	public CacheDataTableJournal getJournal()
+	{
+		return journal;
+	}
+
+	/**
+	 * 写前日志，全部写入成功后截断已写入的日志记录
+	 * @param journal 为null时不使用写前日志
+	 */
+	public void setJournal(CacheDataTableJournal journal)
+	{
+		this.journal = journal;
+	}
+
+	/**
+	 * 触发异步写入的待写入行数
+	 * @return batchSize
+	 */
+	public int getBatchSize()
+	{
+		return batchSize;
+	}
+
+	/**
+	 * 触发异步写入的待写入行数
+	 * @param batchSize 小于等于0时不按行数触发
+	 */
+	public void setBatchSize(int batchSize)
+	{
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * 多行插入时每条语句的最大行数
+	 * @return insertChunkRows
+	 */
+	public int getInsertChunkRows()
+	{
+		return insertChunkRows;
+	}
+
+	/**
+	 * 多行插入时每条语句参数数据的估算最大字节数
+	 * @return insertChunkBytes
+	 */
+	public int getInsertChunkBytes()
+	{
+		return insertChunkBytes;
+	}
+
+	/**
+	 * 设置新行的多行插入方式
+	 * @param insertChunkRows 每条语句的最大行数，小于等于1时新行以单行REPLACE语句批量写入
+	 * @param insertChunkBytes 每条语句参数数据的估算最大字节数，应小于数据库的max_allowed_packet，小于等于0时使用默认值1MB
+	 */
+	public void setMultiRowInsert(int insertChunkRows, int insertChunkBytes)
+	{
+		this.insertChunkBytes = insertChunkBytes > 0 ? insertChunkBytes : DEFAULT_INSERT_CHUNK_BYTES;
+		this.insertChunkRows = insertChunkRows;
+	}
+
+	/**
+	 * 加入已更改的行，行已在待写入列表中时不重复加入
+	 * @param cacheTableRow 行数据
+	 */
+	public void add(ICacheTableRow cacheTableRow)
+	{
+		if (cacheTableRow == null || !cacheTableRow.compareAndSetIsDirty(false, true))
+			return;
+		pendingRows.offer(cacheTableRow);
+		int size = pendingCount.incrementAndGet();
+		int batchSize = this.batchSize;
+		ICacheDataTable cacheDataTable = this.cacheDataTable;
+		if (batchSize > 0 && size >= batchSize && cacheDataTable != null && isFlushScheduled.compareAndSet(false, true))
+		{
+			TimerController.timer(TIMER_NAME, new CacheDataTableUpdateTask(cacheDataTable), 0);
+		}
+	}
+
+	/**
+	 * 在延迟写入的计时器线程中执行任务，用于不能在调用线程中等待数据库写入的操作
+	 * @param timerTask 任务
+	 */
+	public void schedule(TimerTask timerTask)
+	{
+		TimerController.timer(TIMER_NAME, timerTask, 0);
+	}
+
+	/**
+	 * 待写入的行数
+	 * @return 行数
+	 */
+	public int size()
+	{
+		return pendingCount.get();
+	}
+
+	/**
+	 * 写入所有待写入的行
+	 * @param saveChangeSaveFlag 仅保存字段“isChangeSaveFlag”为true的字段
+	 * @return 如果全部执成功，返回true,否则返回false，没有需要写入的数据时返回false
+	 */
+	public boolean flush(boolean saveChangeSaveFlag)
+	{
+		isFlushScheduled.set(false);
+		synchronized (flushLock)
+		{
+			CacheDataTableJournal journal = this.journal;
+			long journalPosition = journal != null ? journal.getPosition() : -1;// 此位置之前的日志记录对应的行均已在待写入列表中或已写入
+			ArrayList<ICacheTableRow> rows = drain();
+			int result = rows.size() > 0 ? write(rows, saveChangeSaveFlag, true) : 0;
+			if (result >= 0 && journal != null)
+			{
+				journal.truncate(journalPosition);
+			}
+			return result > 0;
+		}
+	}
+
+	/**
+	 * 取出当前所有待写入的行，并在读取行数据前清除行的待写入标记，之后再发生的更改会将行重新加入待写入列表
+	 * @return 行数据列表
+	 */
+	private ArrayList<ICacheTableRow> drain()
+	{
+		int count = pendingCount.get();
+		ArrayList<ICacheTableRow> rows = new ArrayList<ICacheTableRow>(count);
+		ICacheTableRow cacheTableRow;
+		while (count-- > 0 && (cacheTableRow = pendingRows.poll()) != null)
+		{
+			pendingCount.decrementAndGet();
+			cacheTableRow.compareAndSetIsDirty(true, false);
+			rows.add(cacheTableRow);
+		}
+		return rows;
+	}
+
+	/**
+	 * 只写入指定的行，其它待写入的行不执行任何操作
+	 * @param cacheTableRow 行数据
+	 * @param saveChangeSaveFlag 仅保存字段“isChangeSaveFlag”为true的字段
+	 * @return 如果全部执成功，返回true,否则返回false，没有需要写入的数据时返回false
+	 */
+	public boolean flush(ICacheTableRow cacheTableRow, boolean saveChangeSaveFlag)
+	{
+		if (cacheTableRow == null)
+			return false;
+		ArrayList<ICacheTableRow> rows = new ArrayList<ICacheTableRow>(1);
+		rows.add(cacheTableRow);
+		return write(rows, saveChangeSaveFlag, true) > 0;
+	}
+
+	/**
+	 * 只写入指定的行，其它待写入的行不执行任何操作
+	 * @param cacheTableRows 行数据列表，没有更改的行不写入
+	 * @param saveChangeSaveFlag 仅保存字段“isChangeSaveFlag”为true的字段
+	 * @return 如果全部执成功，返回true,否则返回false，没有需要写入的数据时返回false
+	 */
+	public boolean flush(List<ICacheTableRow> cacheTableRows, boolean saveChangeSaveFlag)
+	{
+		if (cacheTableRows == null || cacheTableRows.size() <= 0)
+			return false;
+		return write(cacheTableRows, saveChangeSaveFlag, true) > 0;
+	}
+
+	/**
+	 * 写入不在缓存表中的行(如由写前日志重放创建的行)，写入失败时只恢复更改状态，不重新加入待写入列表
+	 * @param cacheTableRows 行数据列表
+	 * @return 如果全部执成功或没有需要写入的数据，返回true,否则返回false
+	 */
+	public boolean writeDetached(List<ICacheTableRow> cacheTableRows)
+	{
+		if (cacheTableRows == null || cacheTableRows.size() <= 0)
+			return true;
+		return write(cacheTableRows, false, false) >= 0;
+	}
+
+	/**
+	 * 行是否有尚未写入的更改
+	 * @param cacheTableRow 行数据
+	 * @return 为新创建的行或存在已更改的需要存储的字段时返回true
+	 */
+	public boolean isChanged(ICacheTableRow cacheTableRow)
+	{
+		ConcurrentHashMap<String, ICacheTableField> fields = cacheTableRow.getFields();
+		if (fields == null)
+			return false;
+		if (cacheTableRow.getIsNewRow())
+			return true;
+		for (ICacheTableField cacheTableField : fields.values())
+		{
+			if (cacheTableField.getIsSqlSave() && cacheTableField.getIsChange())
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 写入行
+	 * @param rows 行数据列表
+	 * @param saveChangeSaveFlag 仅保存字段“isChangeSaveFlag”为true的字段
+	 * @param isRequeue 写入失败时是否将行重新加入待写入列表
+	 * @return 成功写入的行数，没有需要写入的数据时返回0，写入失败时返回-1
+	 */
+	private int write(List<ICacheTableRow> rows, boolean saveChangeSaveFlag, boolean isRequeue)
+	{
+		synchronized (flushLock)
+		{
+			LinkedHashMap<String, List<Object[]>> sqlBatches = new LinkedHashMap<String, List<Object[]>>();
+			LinkedHashMap<String, InsertGroup> insertGroups = insertChunkRows > 1 ? new LinkedHashMap<String, InsertGroup>() : null;
+			ArrayList<WriteEntry> writeEntries = new ArrayList<WriteEntry>(rows.size());
+			tableLock.writeLock().lock();
+			try
+			{
+				for (ICacheTableRow cacheTableRow : rows)
+				{
+					WriteEntry writeEntry = collect(cacheTableRow, saveChangeSaveFlag, sqlBatches, insertGroups);
+					if (writeEntry != null)
+					{
+						writeEntries.add(writeEntry);
+					}
+				}
+			}
+			finally
+			{
+				tableLock.writeLock().unlock();
+			}
+			if (writeEntries.size() <= 0)
+				return 0;
+			if (insertGroups != null)
+			{
+				for (InsertGroup insertGroup : insertGroups.values())
+				{
+					appendMultiRowInsert(insertGroup, sqlBatches);
+				}
+			}
+
+			long startTime = System.nanoTime();
+			boolean result = DataFactory.sqlController().executeBatch(sqlConnectionPoolName, sqlBatches);
+			flushTime.addAndGet(System.nanoTime() - startTime);
+			if (result)
+			{
+				flushCount.incrementAndGet();
+				flushRowCount.addAndGet(writeEntries.size());
+				flushSqlCount.addAndGet(sqlBatches.size());
+				return writeEntries.size();
+			}
+			restore(writeEntries, isRequeue);
+			return -1;
+		}
+	}
+
+	/**
+	 * 收集行需要写入的字段，加入对应字段组合的SQL语句参数值集，并清除行及字段的更改状态
+	 * @param cacheTableRow 行数据
+	 * @param saveChangeSaveFlag 仅保存字段“isChangeSaveFlag”为true的字段
+	 * @param sqlBatches SQL语句及其参数值集列表
+	 * @param insertGroups 按字段组合分组的新行，为null时新行以单行REPLACE语句加入sqlBatches
+	 * @return 写入项，行不需要写入时返回null
+	 */
+	private WriteEntry collect(ICacheTableRow cacheTableRow, boolean saveChangeSaveFlag, LinkedHashMap<String, List<Object[]>> sqlBatches, LinkedHashMap<String, InsertGroup> insertGroups)
+	{
+		ConcurrentHashMap<String, ICacheTableField> fields = cacheTableRow.getFields();
+		if (fields == null || fields.size() <= 0)
+			return null;// 行已被移除释放
+
+		boolean isNewRow = cacheTableRow.getIsNewRow();
+		long[] dirtyFields = cacheTableRow.takeDirtyFields();
+		ArrayList<ICacheTableField> saveFields;
+		if (dirtyFields != null && !isNewRow)
+		{// 只访问位图中已更改的字段，按槽位顺序排列，字段组合相同的行生成相同的SQL语句
+			saveFields = new ArrayList<ICacheTableField>();
+			long[] unsavedFields = null;
+			for (int index = 0; index < dirtyFields.length; index++)
+			{
+				long value = dirtyFields[index];
+				while (value != 0)
+				{
+					long bit = value & -value;
+					value ^= bit;
+					ICacheTableField cacheTableField = cacheTableRow.getField((index << 6) + Long.numberOfTrailingZeros(bit));
+					if (cacheTableField == null || !cacheTableField.getIsSqlSave())
+					{
+						dirtyFields[index] &= ~bit;
+					}
+					else if (saveChangeSaveFlag && !cacheTableField.getIsChangeSaveFlag())
+					{// 本次不写入的字段保留更改标记
+						dirtyFields[index] &= ~bit;
+						if (unsavedFields == null)
+						{
+							unsavedFields = new long[dirtyFields.length];
+						}
+						unsavedFields[index] |= bit;
+					}
+					else
+					{
+						saveFields.add(cacheTableField);
+					}
+				}
+			}
+			cacheTableRow.restoreDirtyFields(unsavedFields);
+			if (saveFields.size() <= 0)
+				return null;
+		}
+		else
+		{
+			saveFields = new ArrayList<ICacheTableField>(fields.size());
+			for (ICacheTableField cacheTableField : fields.values())
+			{
+				if (cacheTableField.getIsSqlSave() && (isNewRow || (cacheTableField.getIsChange() && (saveChangeSaveFlag ? cacheTableField.getIsChangeSaveFlag() : true))))
+				{
+					saveFields.add(cacheTableField);
+				}
+			}
+			if (saveFields.size() <= 0)
+				return null;
+			Collections.sort(saveFields, FIELD_NAME_COMPARATOR);
+		}
+
+		int i;
+		Object[] parameters;
+		StringBuilder sqlText = new StringBuilder(64 + saveFields.size() * 16);
+		if (isNewRow && insertGroups != null)
+		{// 多行插入，字段组合相同的新行在全部收集后合并
+			parameters = new Object[saveFields.size()];
+			for (i = 0; i < saveFields.size(); i++)
+			{
+				sqlText.append(i != 0 ? ", " : "").append(saveFields.get(i).getFieldName());
+				parameters[i] = saveFields.get(i).getData();
+			}
+			String fieldNamesText = sqlText.toString();
+			InsertGroup insertGroup = insertGroups.get(fieldNamesText);
+			if (insertGroup == null)
+			{
+				String[] fieldNames = new String[saveFields.size()];
+				for (i = 0; i < saveFields.size(); i++)
+				{
+					fieldNames[i] = saveFields.get(i).getFieldName();
+				}
+				insertGroup = new InsertGroup(fieldNamesText, fieldNames);
+				insertGroups.put(fieldNamesText, insertGroup);
+			}
+			insertGroup.rows.add(parameters);
+			sqlText = null;
+		}
+		else if (isNewRow)
+		{// 如果为新创建的行数据(对应的数据库不存在该条数据)，则需要对数据库进行插入数据操作
+			parameters = new Object[saveFields.size()];
+			sqlText.append("REPLACE INTO ").append(sqlTableName).append(" (");
+			for (i = 0; i < saveFields.size(); i++)
+			{
+				sqlText.append(i != 0 ? ", " : "").append(saveFields.get(i).getFieldName());
+				parameters[i] = saveFields.get(i).getData();
+			}
+			sqlText.append(") values(");
+			for (i = 0; i < saveFields.size(); i++)
+			{
+				sqlText.append(i != 0 ? ", ?" : "?");
+			}
+			sqlText.append(")");
+		}
+		else
+		{// 对数据库进行更新数据操作
+			ICacheTableField primaryKeyField = cacheTableRow.getField(primaryKeyFieldName);
+			if (primaryKeyField == null)
+			{
+				Logger.getLogger(CacheDataTableWriteBehind.class.getName()).log(Level.SEVERE, null, new Exception("数据库缓存表写入数据库表“" + sqlTableName + "”时，行不存在主键字段：" + primaryKeyFieldName));
+				return null;
+			}
+			parameters = new Object[saveFields.size() + 1];
+			sqlText.append("UPDATE ").append(sqlTableName).append(" SET ");
+			for (i = 0; i < saveFields.size(); i++)
+			{
+				sqlText.append(i != 0 ? "," : "").append(saveFields.get(i).getFieldName()).append("=?");
+				parameters[i] = saveFields.get(i).getData();
+			}
+			sqlText.append(" WHERE ").append(primaryKeyFieldName).append("=?");
+			parameters[i] = primaryKeyField.getData();
+		}
+
+		if (sqlText != null)
+		{
+			addSqlBatch(sqlBatches, sqlText.toString(), parameters);
+		}
+
+		WriteEntry writeEntry = new WriteEntry(cacheTableRow, isNewRow, saveFields, dirtyFields);
+		if (isNewRow)
+		{
+			cacheTableRow.setIsNewRow(false);
+		}
+		for (ICacheTableField cacheTableField : saveFields)
+		{
+			cacheTableField.setIsChange(false);
+			cacheTableField.setIsChangeSaveFlag(false);
+		}
+		return writeEntry;
+	}
+
+	/**
+	 * 加入SQL语句的参数值集
+	 * @param sqlBatches SQL语句及其参数值集列表
+	 * @param sql SQL语句
+	 * @param parameters 参数值集
+	 */
+	private void addSqlBatch(LinkedHashMap<String, List<Object[]>> sqlBatches, String sql, Object[] parameters)
+	{
+		List<Object[]> parameterRows = sqlBatches.get(sql);
+		if (parameterRows == null)
+		{
+			parameterRows = new ArrayList<Object[]>();
+			sqlBatches.put(sql, parameterRows);
+		}
+		parameterRows.add(parameters);
+	}
+
+	/**
+	 * 将字段组合相同的新行按行数及估算的数据包大小分段，每段生成一条多行插入语句加入SQL语句列表
+	 * 行数相同的分段SQL语句相同，以同一PreparedStatement批量执行
+	 * @param insertGroup 字段组合相同的新行
+	 * @param sqlBatches SQL语句及其参数值集列表
+	 */
+	private void appendMultiRowInsert(InsertGroup insertGroup, LinkedHashMap<String, List<Object[]>> sqlBatches)
+	{
+		int fieldCount = insertGroup.fieldNames.length;
+		int chunkRows = Math.min(Math.max(insertChunkRows, 1), MAX_STATEMENT_PARAMETERS / fieldCount);
+		int chunkBytes = insertChunkBytes;
+		List<Object[]> rows = insertGroup.rows;
+		int start = 0;
+		while (start < rows.size())
+		{
+			int end = start;
+			long bytes = 0;
+			while (end < rows.size() && end - start < chunkRows)
+			{
+				long rowBytes = estimateBytes(rows.get(end));
+				if (end > start && bytes + rowBytes > chunkBytes)
+					break;
+				bytes += rowBytes;
+				end++;
+			}
+
+			Object[] parameters = new Object[(end - start) * fieldCount];
+			for (int i = start; i < end; i++)
+			{
+				System.arraycopy(rows.get(i), 0, parameters, (i - start) * fieldCount, fieldCount);
+			}
+			addSqlBatch(sqlBatches, insertGroup.getSql(end - start), parameters);
+			start = end;
+		}
+	}
+
+	/**
+	 * 估算一行参数数据发送至数据库的字节数
+	 * @param parameters 参数值集
+	 * @return 字节数
+	 */
+	private long estimateBytes(Object[] parameters)
+	{
+		long bytes = 0;
+		for (Object parameter : parameters)
+		{
+			if (parameter instanceof String)
+			{
+				bytes += ((String) parameter).length() * 3 + 4;// 按UTF-8最大字节数估算
+			}
+			else if (parameter instanceof byte[])
+			{
+				bytes += ((byte[]) parameter).length + 4;
+			}
+			else
+			{
+				bytes += 12;
+			}
+		}
+		return bytes;
+	}
+
+	/**
+	 * 写入失败时恢复行及字段的更改状态，并重新加入待写入列表
+	 * @param writeEntries 写入项列表
+	 * @param isRequeue 是否重新加入待写入列表
+	 */
+	private void restore(List<WriteEntry> writeEntries, boolean isRequeue)
+	{
+		tableLock.writeLock().lock();
+		try
+		{
+			for (WriteEntry writeEntry : writeEntries)
+			{
+				if (writeEntry.cacheTableRow.getFields() == null)
+					continue;
+				if (writeEntry.isNewRow)
+				{
+					writeEntry.cacheTableRow.setIsNewRow(true);
+				}
+				writeEntry.cacheTableRow.restoreDirtyFields(writeEntry.dirtyFields);
+				for (int i = 0; i < writeEntry.fields.size(); i++)
+				{
+					ICacheTableField cacheTableField = writeEntry.fields.get(i);
+					if (writeEntry.isChanges[i])
+					{
+						cacheTableField.setIsChange(true);
+					}
+					if (writeEntry.isChangeSaveFlags[i])
+					{
+						cacheTableField.setIsChangeSaveFlag(true);
+					}
+				}
+			}
+		}
+		finally
+		{
+			tableLock.writeLock().unlock();
+		}
+		if (!isRequeue)
+			return;
+		for (WriteEntry writeEntry : writeEntries)
+		{
+			if (writeEntry.cacheTableRow.compareAndSetIsDirty(false, true))
+			{
+				pendingRows.offer(writeEntry.cacheTableRow);
+				pendingCount.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * 成功写入次数
+	 * @return flushCount
+	 */
+	public long getFlushCount()
+	{
+		return flushCount.get();
+	}
+
+	/**
+	 * 成功写入的行数
+	 * @return flushRowCount
+	 */
+	public long getFlushRowCount()
+	{
+		return flushRowCount.get();
+	}
+
+	/**
+	 * 成功写入的SQL语句数(不同的字段组合数)
+	 * @return flushSqlCount
+	 */
+	public long getFlushSqlCount()
+	{
+		return flushSqlCount.get();
+	}
+
+	/**
+	 * 执行SQL的累计时间(纳秒)
+	 * @return flushTime
+	 */
+	public long getFlushTime()
+	{
+		return flushTime.get();
+	}
+
+	/**
+	 * 释放，清除待写入的行
+	 */
+	public synchronized void dispose()
+	{
+		cacheDataTable = null;
+		ICacheTableRow cacheTableRow;
+		while ((cacheTableRow = pendingRows.poll()) != null)
+		{
+			pendingCount.decrementAndGet();
+			cacheTableRow.compareAndSetIsDirty(true, false);
+		}
+	}
+
+	public String toString()
+	{
+		long time = flushTime.get();
+		return "pending=" + size() + ", flushCount=" + flushCount.get() + ", flushRowCount=" + flushRowCount.get() + ", flushSqlCount=" + flushSqlCount.get() + ", rowsPerSecond=" + (time > 0 ? flushRowCount.get() * 1000000000L / time : 0);
+	}
+
+	/**
+	 * 字段组合相同的新行
+	 */
+	private class InsertGroup
+	{
+		/**
+		 * 以“, ”连接的字段名
+		 */
+		final String fieldNamesText;
+
+		/**
+		 * 字段名
+		 */
+		final String[] fieldNames;
+
+		/**
+		 * 各行的参数值集
+		 */
+		final List<Object[]> rows = new ArrayList<Object[]>();
+
+		/**
+		 * 各行数对应的多行插入语句
+		 */
+		private final HashMap<Integer, String> sqls = new HashMap<Integer, String>();
+
+		InsertGroup(String fieldNamesText, String[] fieldNames)
+		{
+			this.fieldNamesText = fieldNamesText;
+			this.fieldNames = fieldNames;
+		}
+
+		/**
+		 * 取得指定行数的多行插入语句，主键已存在时更新其它字段
+		 * @param rowCount 行数
+		 * @return SQL语句
+		 */
+		String getSql(int rowCount)
+		{
+			String sql = sqls.get(rowCount);
+			if (sql != null)
+				return sql;
+			StringBuilder rowText = new StringBuilder(fieldNames.length * 3 + 2);
+			rowText.append('(');
+			for (int i = 0; i < fieldNames.length; i++)
+			{
+				rowText.append(i != 0 ? ", ?" : "?");
+			}
+			rowText.append(')');
+			StringBuilder sqlText = new StringBuilder(64 + fieldNamesText.length() * 2 + rowText.length() * rowCount);
+			sqlText.append("INSERT INTO ").append(sqlTableName).append(" (").append(fieldNamesText).append(") VALUES ");
+			for (int i = 0; i < rowCount; i++)
+			{
+				sqlText.append(i != 0 ? "," : "").append(rowText);
+			}
+			sqlText.append(" ON DUPLICATE KEY UPDATE ");
+			int updateCount = 0;
+			for (String fieldName : fieldNames)
+			{
+				if (fieldName.equals(primaryKeyFieldName))
+					continue;
+				sqlText.append(updateCount != 0 ? "," : "").append(fieldName).append("=VALUES(").append(fieldName).append(")");
+				updateCount++;
+			}
+			if (updateCount == 0)
+			{
+				sqlText.append(primaryKeyFieldName).append("=").append(primaryKeyFieldName);
+			}
+			sql = sqlText.toString();
+			sqls.put(rowCount, sql);
+			return sql;
+		}
+	}
+
+	/**
+	 * 写入项，记录写入前行及字段的更改状态，写入失败时用于恢复
+	 */
+	private static class WriteEntry
+	{
+		/**
+		 * 行数据
+		 */
+		final ICacheTableRow cacheTableRow;
+
+		/**
+		 * 写入前是否为新创建的行
+		 */
+		final boolean isNewRow;
+
+		/**
+		 * 写入的字段
+		 */
+		final List<ICacheTableField> fields;
+
+		/**
+		 * 写入前字段的更改状态
+		 */
+		final boolean[] isChanges;
+
+		/**
+		 * 写入前字段的“isChangeSaveFlag”状态
+		 */
+		final boolean[] isChangeSaveFlags;
+
+		/**
+		 * 写入时取出的已更改字段的位图，新创建的行或不支持位图时为null
+		 */
+		final long[] dirtyFields;
+
+		WriteEntry(ICacheTableRow cacheTableRow, boolean isNewRow, List<ICacheTableField> fields, long[] dirtyFields)
+		{
+			this.cacheTableRow = cacheTableRow;
+			this.isNewRow = isNewRow;
+			this.fields = fields;
+			this.dirtyFields = isNewRow ? null : dirtyFields;
+			isChanges = new boolean[fields.size()];
+			isChangeSaveFlags = new boolean[fields.size()];
+			for (int i = 0; i < fields.size(); i++)
+			{
+				isChanges[i] = fields.get(i).getIsChange();
+				isChangeSaveFlags[i] = fields.get(i).getIsChangeSaveFlag();
+			}
+		}
+	}
+}
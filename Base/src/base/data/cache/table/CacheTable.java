@@ -1,11 +1,16 @@
 package base.data.cache.table;
 
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Vector;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
@@ -33,6 +38,11 @@ public class CacheTable implements IEventListener, Cloneable, ICacheTable
 	 */
 	protected final ReadWriteLock lock = new ReentrantReadWriteLock();
 
+	/**
+	 * 等待提升的被访问行数上限，超过时丢弃最早记录的行，以免只读不写时无限增长
+	 */
+	private final static int MAX_ACCESS_ROW_COUNT = 4096;
+
 	/**
 	 * 表名
 	 */
@@ -134,24 +144,54 @@ public class CacheTable implements IEventListener, Cloneable, ICacheTable
 	protected ConcurrentHashMap<String, ICacheTableRow> rowPrimarys=null;
 
 	/**
-	 * 已更改过的表行数据列表
+	 * 整数主键值的行数据集，与rowPrimarys同步维护，用于整数主键的快速查找
 	 */
-	protected Vector<ICacheTableRow> changeRows = new Vector<ICacheTableRow>();
+	protected CacheTableLongMap<ICacheTableRow> rowLongPrimarys=null;
 
 	/**
 	 * 当前CacheTable的指定字段的新CacheTable集
 	 */
-	private ConcurrentHashMap<String, ICacheTable> newCacheTables = new ConcurrentHashMap<String, ICacheTable>();
+	private final CacheTableDerivedTables newCacheTables = new CacheTableDerivedTables(this);
+
+	/**
+	 * 被访问的行，读取时只做记录，在持有写锁时再统一移动到头部热端
+	 */
+	private final ConcurrentLinkedQueue<ICacheTableRow> accessCacheTableRows=new ConcurrentLinkedQueue<ICacheTableRow>();
+
+	/**
+	 * 等待提升的被访问行数
+	 */
+	private final AtomicInteger accessCacheTableRowCount=new AtomicInteger();
+
+	/**
+	 * 加入时指定了有效时间的行数，为0时取得所有行及行数不需要检查过期时间，在持有写锁时维护
+	 */
+	private int expiresRowCount;
+
+	/**
+	 * 已过期移除的行数
+	 */
+	private final AtomicLong expiresCount=new AtomicLong();
+
+	/**
+	 * 索引集，集合键字段组及建立的哈希索引、有序索引
+	 */
+	private CacheTableIndexes cacheTableIndexes = new CacheTableIndexes();
+
+	/**
+	 * 行版本号，行增加、移除、排序、清除时递增
+	 */
+	private final AtomicLong epoch = new AtomicLong();
 
 	/**
-	 * 当前已过期的数据
+	 * 最近创建的行快照
 	 */
-	private Vector<ICacheTableRow> expiresCacheTableRows=new Vector<ICacheTableRow>();
+	private volatile CacheTableSnapshot snapshot;
 
 	/**
-	 * 按照集合键字段归类的结构集
+	 * 表结构，字段名对应的槽位
 	 */
-	private ConcurrentHashMap<String, ICacheTableStructure> cacheTableStructures = new ConcurrentHashMap<String, ICacheTableStructure>();
+	protected final CacheTableSchema schema = new CacheTableSchema();
 
 	/**
 	 * 头部热端
@@ -195,20 +235,24 @@ public class CacheTable implements IEventListener, Cloneable, ICacheTable
 		this.keyFieldNameGroups = keyFieldNameGroups;
 		this.capacity = capacity;
 		this.headCacheTableRow = DataUtil.cacheTableRow();
-		this.endCacheTableRow = this.headCacheTableRow;
+		this.endCacheTableRow = DataUtil.cacheTableRow();
+		this.headCacheTableRow.setNext(this.endCacheTableRow);
+		this.endCacheTableRow.setPrevious(this.headCacheTableRow);
 
 		if(primaryKeyFieldName!=null)
 		{
 			rowPrimarys=new ConcurrentHashMap<String, ICacheTableRow>();
+			rowLongPrimarys=new CacheTableLongMap<ICacheTableRow>();
 		}
 
 		if(keyFieldNameGroups!=null && keyFieldNameGroups.length>0)
 		{
 			for(String[] keyFieldNames : keyFieldNameGroups)
 			{
-				String strKey = getKeyFieldNameKey(keyFieldNames);
-				ICacheTableStructure cacheTableStructure = Base.newClass(CacheTableStructure.class);
-				cacheTableStructures.put(strKey, cacheTableStructure);
+				if(keyFieldNames!=null && keyFieldNames.length>0)
+				{
+					cacheTableIndexes.createIndex(keyFieldNames, null);
+				}
 			}
 		}
 	}
@@ -259,44 +303,8 @@ public class CacheTable implements IEventListener, Cloneable, ICacheTable
 				}
 			}
 
-			if(keyFieldNameGroups!=null && keyFieldNameGroups.length>0)
-			{
-				for(String[] keyFieldNames : keyFieldNameGroups)
-				{
-					if(keyFieldNames!=null && keyFieldNames.length>0)
-					{
-						String strKey = getKeyFieldNameKey(keyFieldNames);
-						if(cacheTableStructures.containsKey(strKey))
-						{
-							ICacheTableStructure rootCacheTableStructure = cacheTableStructures.get(strKey);
-							for(String keyFieldName : keyFieldNames)
-							{
-								if(cacheTableRow.containsField(keyFieldName))
-								{
-									String keyFieldValue = cacheTableRow.getFieldData(keyFieldName).toString();
-									if (!rootCacheTableStructure.containsKey(keyFieldValue))
-									{
-										ICacheTableStructure cacheTableStructure = Base.newClass(CacheTableStructure.class);
-										cacheTableStructure.init(rootCacheTableStructure, keyFieldValue);
-										rootCacheTableStructure.put(keyFieldValue, cacheTableStructure);
-									}
-									rootCacheTableStructure = rootCacheTableStructure.get(keyFieldValue);
-									rootCacheTableStructure.put(cacheTableRow);
-								}
-								else
-								{
-									Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, new Exception(this.name +" 缓存表在增加行数据时，遇到行数据未指定表集合键字段 "+keyFieldName+" 及值。"));
-									return false;
-								}
-							}
-						}
-						else
-						{
-							Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, new Exception(this.name +" 缓存表在增加行数据时，遇到不存在的集合键："+strKey));
-						}
-					}
-				}
-			}
+			if(!containsKeyFields(cacheTableRow, "增加"))
+				return false;
 
 			if (validTime < 0)
 			{
@@ -307,22 +315,31 @@ public class CacheTable implements IEventListener, Cloneable, ICacheTable
 				validTime = DateUtil.getCurrentTimeMillis() + validTime;
 			}
 			cacheTableRow.setExpiresTime(validTime);
+			drainAccessRows();
 			if (capacity>-1 && rows.size() >= capacity)
 			{// 如果当前容量已经达到最大，则进行尾部冷端淘汰
 				ICacheTableRow endRow = endCacheTableRow.getPrevious();
-				removeRow(endRow);
+				if (endRow != headCacheTableRow)
+				{
+					removeRow(endRow);
+				}
 			}
 			cacheTableRow.addEventListener(CacheEvent.ROW_FIELD_DATA_CHANGE, this);
 			cacheTableRow.addEventListener(CacheEvent.DATA_TO_SAVE, this);
+			cacheTableRow.addEventListener(CacheEvent.FIELD_DATA_CHANGE, this);
 			rows.add(cacheTableRow);
+			epoch.incrementAndGet();
+			cacheTableIndexes.add(cacheTableRow);
 			if(rowPrimarys!=null)
 			{
 				//				if(cacheTableRow.containsField(primaryKeyFieldName) && cacheTableRow.getField(primaryKeyFieldName).getIsSqlSave())
 				//				{
 				rowPrimarys.put(primaryKeyFieldValue, cacheTableRow);
 				//				}
+				putLongPrimary(cacheTableRow);
 			}
 
+			cacheTableRow.setSchema(schema);
 			// 进行字段名收集
 			ConcurrentHashMap<String, ICacheTableField> cacheTableRowFields = cacheTableRow.getFields();
 			Enumeration<String> cacheTableRowFieldsKeys = cacheTableRowFields.keys();
@@ -336,7 +353,12 @@ public class CacheTable implements IEventListener, Cloneable, ICacheTable
 			}
 
 			insertHead(cacheTableRow);
-			newCacheTableAddRow(cacheTableRow);// 如果存在当前CacheTable的指定字段的新CacheTable，则在增加新的行时，需要往新CacheTable中执行增加，用以同步数据
+			if (validTime != Long.MAX_VALUE)
+			{
+				expiresRowCount++;
+			}
+			scheduleExpires(cacheTableRow);
+			newCacheTables.add(cacheTableRow);// 如果存在当前CacheTable的指定字段的新CacheTable，则在增加新的行时，需要往新CacheTable中执行增加，用以同步数据
 			return true;
 		}
 		catch (Exception e)
@@ -389,28 +411,8 @@ public class CacheTable implements IEventListener, Cloneable, ICacheTable
 				//				}
 			}
 
-			if(keyFieldNameGroups!=null && keyFieldNameGroups.length>0)
-			{
-				for(String[] keyFieldNames : keyFieldNameGroups)
-				{
-					if(keyFieldNames!=null && keyFieldNames.length>0)
-					{
-						ICacheTableStructure rootCacheTableStructure = cacheTableStructures.get(getKeyFieldNameKey(keyFieldNames));
-						for(String keyFieldName : keyFieldNames)
-						{
-							String keyFieldValue = cacheTableRow.getFieldData(keyFieldName).toString();
-							if (!rootCacheTableStructure.containsKey(keyFieldValue))
-							{
-								ICacheTableStructure cacheTableStructure = Base.newClass(CacheTableStructure.class);
-								cacheTableStructure.init(rootCacheTableStructure, keyFieldValue);
-								rootCacheTableStructure.put(keyFieldValue, cacheTableStructure);
-							}
-							rootCacheTableStructure = rootCacheTableStructure.get(keyFieldValue);
-							rootCacheTableStructure.insert(cacheTableRow, index);
-						}
-					}
-				}
-			}
+			if(!containsKeyFields(cacheTableRow, "插入"))
+				return false;
 
 			if (validTime < 0)
 			{
@@ -421,22 +423,32 @@ public class CacheTable implements IEventListener, Cloneable, ICacheTable
 				validTime = DateUtil.getCurrentTimeMillis() + validTime;
 			}
 			cacheTableRow.setExpiresTime(validTime);
+			drainAccessRows();
 			if (capacity>-1 && rows.size() >= capacity)
 			{// 如果当前容量已经达到最大，则进行尾部冷端淘汰
 				ICacheTableRow endRow = endCacheTableRow.getPrevious();
-				removeRow(endRow);
+				if (endRow != headCacheTableRow)
+				{
+					removeRow(endRow);
+					index = Math.min(index, rows.size());// 淘汰后行数减少，插入位置不能超出末尾
+				}
 			}
 			cacheTableRow.addEventListener(CacheEvent.ROW_FIELD_DATA_CHANGE, this);
 			cacheTableRow.addEventListener(CacheEvent.DATA_TO_SAVE, this);
+			cacheTableRow.addEventListener(CacheEvent.FIELD_DATA_CHANGE, this);
 			rows.insertElementAt(cacheTableRow, index);
+			epoch.incrementAndGet();
+			cacheTableIndexes.insert(cacheTableRow, index);
 			if(rowPrimarys!=null)
 			{
 				//				if(cacheTableRow.containsField(primaryKeyFieldName) && cacheTableRow.getField(primaryKeyFieldName).getIsSqlSave())
 				//				{
 				rowPrimarys.put(primaryKeyFieldValue, cacheTableRow);
 				//				}
+				putLongPrimary(cacheTableRow);
 			}
 
+			cacheTableRow.setSchema(schema);
 			// 进行字段名收集
 			ConcurrentHashMap<String, ICacheTableField> cacheTableRowFields = cacheTableRow.getFields();
 			Enumeration<String> cacheTableRowFieldsKeys = cacheTableRowFields.keys();
@@ -450,7 +462,12 @@ public class CacheTable implements IEventListener, Cloneable, ICacheTable
 			}
 
 			insertHead(cacheTableRow);
-			newCacheTableInsertRow(cacheTableRow, index);// 如果存在当前CacheTable的指定字段的新CacheTable，则在增加新的行时，需要往新CacheTable中执行插入，用以同步数据
+			if (validTime != Long.MAX_VALUE)
+			{
+				expiresRowCount++;
+			}
+			scheduleExpires(cacheTableRow);
+			newCacheTables.insert(cacheTableRow, index);// 如果存在当前CacheTable的指定字段的新CacheTable，则在增加新的行时，需要往新CacheTable中执行插入，用以同步数据
 			return true;
 		}
 		catch (Exception e)
@@ -478,19 +495,9 @@ public class CacheTable implements IEventListener, Cloneable, ICacheTable
 			Vector<ICacheTableRow> cacheTableRows =getRows(keyFieldNames, keyFieldValues);
 			if (cacheTableRows != null && cacheTableRows.size()>0)
 			{
-				for(ICacheTableRow cacheTableRow : cacheTableRows)
-				{
-					if (DateUtil.getCurrentTimeMillis() > cacheTableRow.getExpiresTime())
-					{// 如果当前行数据已过期
-						expiresCacheTableRows.add(cacheTableRow);
-					}
-					else
-					{
-						moveToHead(cacheTableRow);
-						removeAllExpiresRows();
-						return cacheTableRow;
-					}
-				}
+				ICacheTableRow cacheTableRow = cacheTableRows.get(0);
+				recordAccess(cacheTableRow);
+				return cacheTableRow;
 			}
 		}
 		catch (Exception e)
@@ -609,7 +616,7 @@ public class CacheTable implements IEventListener, Cloneable, ICacheTable
 	}
 
 	/**
-	 * 取得所有行数据
+	 * 取得所有行数据，表中没有指定了有效时间的行时返回行列表本身，否则返回不含已过期行的副本
 	 * @return 取得的行数据
 	 */
 	public Vector<ICacheTableRow> getRows()
@@ -617,7 +624,18 @@ public class CacheTable implements IEventListener, Cloneable, ICacheTable
 		lock.readLock().lock();
 		try
 		{
-			return rows;
+			if (expiresRowCount <= 0)
+				return rows;
+			long currentTime = DateUtil.getCurrentTimeMillis();
+			Vector<ICacheTableRow> cacheTableRows = new Vector<ICacheTableRow>(rows.size());
+			for (ICacheTableRow cacheTableRow : rows)
+			{
+				if (currentTime <= cacheTableRow.getExpiresTime())
+				{// 已过期的行由过期服务移除
+					cacheTableRows.add(cacheTableRow);
+				}
+			}
+			return cacheTableRows;
 		}
 		catch (Exception e)
 		{
@@ -630,6 +648,66 @@ public class CacheTable implements IEventListener, Cloneable, ICacheTable
 		return null;
 	}
 
+	/**
+	 * 取得行快照，遍历时不需要加锁，表的行自上次快照后没有变化时直接返回上次的快照
+	 * @return 行快照
+	 */
+	public CacheTableSnapshot snapshot()
+	{
+		CacheTableSnapshot cacheTableSnapshot = snapshot;
+		if (cacheTableSnapshot != null && cacheTableSnapshot.getEpoch() == epoch.get())
+			return cacheTableSnapshot;
+		lock.readLock().lock();
+		try
+		{
+			long currentEpoch = epoch.get();
+			cacheTableSnapshot = snapshot;
+			if (cacheTableSnapshot == null || cacheTableSnapshot.getEpoch() != currentEpoch)
+			{
+				cacheTableSnapshot = rows == null ? CacheTableSnapshot.EMPTY : new CacheTableSnapshot(rows.toArray(new ICacheTableRow[rows.size()]), currentEpoch);
+				snapshot = cacheTableSnapshot;
+			}
+			return cacheTableSnapshot;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+		return CacheTableSnapshot.EMPTY;
+	}
+
+	/**
+	 * 行版本号，行增加、移除、排序、清除时递增
+	 * @return 版本号
+	 */
+	public long getEpoch()
+	{
+		return epoch.get();
+	}
+
+	/**
+	 * 表结构，行加入表时绑定
+	 * @return 表结构
+	 */
+	public CacheTableSchema getSchema()
+	{
+		return schema;
+	}
+
+	/**
+	 * 取得字段句柄，用于按槽位读取本表各行的字段
+	 * @param fieldName 字段名
+	 * @return 字段句柄
+	 */
+	public CacheTableFieldHandle getFieldHandle(String fieldName)
+	{
+		return schema.getFieldHandle(fieldName);
+	}
+
 	/**
 	 * 取得符合键值列表的数据列表
 	 * @param keyFieldNames 集合键字段名列表
@@ -638,116 +716,71 @@ public class CacheTable implements IEventListener, Cloneable, ICacheTable
 	 */
 	public Vector<ICacheTableRow> getRows(String[] keyFieldNames, String[] keyFieldValues)
 	{
-		return getRows(getKeyFieldNameKey(keyFieldNames), keyFieldValues);
+		return getRowsByIndex(keyFieldNames, keyFieldValues);
 	}
 
 	/**
-	 * 取得符合键值列表的数据列表
-	 * @param keyFieldNameKey 集合键字段名组合key
-	 * @param keyFieldValues 集合键值列表
-	 * @return 取得的行数据列表
+	 * 建立哈希索引，建立后可按索引字段的值直接查找行，索引随行的增加、移除及字段数据的改变自动维护
+	 * @param fieldNames 索引字段名列表，可以为多个字段组成的复合索引
+	 * @return 建立成功或已存在返回true，否则返回false
 	 */
-	private Vector<ICacheTableRow> getRows(String keyFieldNameKey, String[] keyFieldValues)
+	public boolean createIndex(String[] fieldNames)
 	{
 		lock.readLock().lock();
 		try
 		{
-			if(keyFieldNameKey==null || keyFieldValues==null || keyFieldValues.length<=0)return null;
-			ICacheTableStructure rootCacheTableStructure = cacheTableStructures.get(keyFieldNameKey);
-			if(rootCacheTableStructure==null)return null;
-
-			for (int i = 0; i < keyFieldValues.length; i++)
-			{
-				rootCacheTableStructure = rootCacheTableStructure.get(keyFieldValues[i]);
-				if(rootCacheTableStructure==null)
-				{
-					return null;
-				}
-			}
-			Vector<ICacheTableRow> cacheTableRows = rootCacheTableStructure.getRows();
-			if (cacheTableRows != null && cacheTableRows.size()>0)
-			{
-				for(ICacheTableRow cacheTableRow : cacheTableRows)
-				{
-					if (DateUtil.getCurrentTimeMillis() > cacheTableRow.getExpiresTime())
-					{// 如果当前行数据已过期
-						expiresCacheTableRows.add(cacheTableRow);
-					}
-				}
-			}
-			removeAllExpiresRows();
-			return cacheTableRows;
+			return cacheTableIndexes.createIndex(fieldNames, rows) != null;
 		}
 		catch (Exception e)
 		{
 			Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return false;
 		}
 		finally
 		{
 			lock.readLock().unlock();
 		}
-		return null;
 	}
 
 	/**
-	 * 取得行
-	 * @param rowIndex 行索引
-	 * @return 取得的行数据，如果提供的索引超出范围，则返回null
+	 * 建立有序索引，除相等查找外还可按索引字段的值进行范围查找
+	 * @param fieldNames 索引字段名列表，可以为多个字段组成的复合索引
+	 * @return 建立成功或已存在返回true，否则返回false
 	 */
-	public ICacheTableRow getRow(int rowIndex)
+	public boolean createSortedIndex(String[] fieldNames)
 	{
 		lock.readLock().lock();
 		try
 		{
-			if (rows.size() < rowIndex + 1)
-			{
-				return null;
-			}
-			ICacheTableRow cacheTableRow = rows.get(rowIndex);
-			if (DateUtil.getCurrentTimeMillis() > cacheTableRow.getExpiresTime())
-			{// 如果当前行数据已过期
-				expiresCacheTableRows.add(cacheTableRow);
-			}
-			else
-			{
-				moveToHead(cacheTableRow);
-				removeAllExpiresRows();
-				return cacheTableRow;
-			}
+			return cacheTableIndexes.createSortedIndex(fieldNames, rows) != null;
 		}
 		catch (Exception e)
 		{
 			Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, e);
-			return null;
+			return false;
 		}
 		finally
 		{
 			lock.readLock().unlock();
 		}
-		return null;
 	}
 
 	/**
-	 * 移除表行
-	 * @param rowIndex 行索引
-	 * @return 移除成功或者指定的索引不存于列表返回true,否则返回false
+	 * 移除索引，集合键字段组的索引不能移除
+	 * @param fieldNames 索引字段名列表
+	 * @return 存在并移除返回true，否则返回false
 	 */
-	public boolean removeRow(int rowIndex)
+	public boolean removeIndex(String[] fieldNames)
 	{
-		lock.writeLock().lock();
-		try
+		if(isKeyFieldNames(fieldNames))
 		{
-			if (rows.size() < rowIndex + 1)
-			{
-				return true;
-			}
-			removeRow(rows.get(rowIndex));
-			return true;
+			Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, new Exception(this.name +" 缓存表不能移除集合键字段组的索引："+CacheTableIndex.getIndexName(fieldNames)));
+			return false;
 		}
-		catch (Exception e)
+		lock.writeLock().lock();
+		try
 		{
-			Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, e);
-			return false;
+			return cacheTableIndexes.removeIndex(fieldNames);
 		}
 		finally
 		{
@@ -756,87 +789,42 @@ public class CacheTable implements IEventListener, Cloneable, ICacheTable
 	}
 
 	/**
-	 * 移除行数据
-	 * @param cacheTableRow 行数据
-	 * @return 移除成功或者指定的行数据为空返回true,否则返回false
+	 * 建立排序视图，视图随行的增加、移除及排序字段数据的改变逐行调整，取得前N行时不需要对整表排序，频繁取得排行时应使用排序视图代替sortOn
+	 * @param fieldNames 排序字段名列表，如：new String[]{"score", "level"}
+	 * @param sortTypes 各排序字段的排序类型方式，如：new SortType[]{SortType.DESC, SortType.ASC}，未指定的字段升序
+	 * @param limit 视图默认取得的行数量(前N行)，值小于等于0时取得所有行
+	 * @return 排序视图，已存在相同排序的视图时返回该视图，失败时返回null
 	 */
-	public boolean removeRow(ICacheTableRow cacheTableRow)
+	public ICacheTableSortedView createSortedView(String[] fieldNames, SortType[] sortTypes, int limit)
 	{
-		lock.writeLock().lock();
+		lock.readLock().lock();
 		try
 		{
-			if (cacheTableRow == null)
-				return true;
-			if(rowPrimarys!=null)
-			{
-				//				if(cacheTableRow.containsField(primaryKeyFieldName) && cacheTableRow.getField(primaryKeyFieldName).getIsSqlSave())
-				//				{
-				String primaryKeyFieldValue = cacheTableRow.getFieldData(primaryKeyFieldName).toString();
-				rowPrimarys.remove(primaryKeyFieldValue);
-				//				}
-			}
-			cacheTableRow.removeEventListener(CacheEvent.ROW_FIELD_DATA_CHANGE, this);
-			cacheTableRow.removeEventListener(CacheEvent.DATA_TO_SAVE, this);
-			rows.remove(cacheTableRow);
-			changeRows.remove(cacheTableRow);
-			expiresCacheTableRows.remove(cacheTableRow);
-
-			newCacheTableRemoveRow(cacheTableRow);// 向当前CacheTable的指定字段的新CacheTable中移除行数据
-			if(cacheTableStructures!=null && cacheTableStructures.size()>0)
-			{
-				for(ICacheTableStructure cacheTableStructure : cacheTableStructures.values())
-				{
-					if (cacheTableStructure != null)
-					{
-						cacheTableStructure.remove(cacheTableRow);
-						cacheTableStructureClear(cacheTableStructure);
-					}
-				}
-			}
-
-			if (cacheTableRow.getPrevious() != null)
-				cacheTableRow.getPrevious().setNext(cacheTableRow.getNext());
-			if (cacheTableRow.getNext() != null)
-				cacheTableRow.getNext().setPrevious(cacheTableRow.getPrevious());
-			cacheTableRow.dispose();
-			cacheTableRow = null;
-			return true;
+			return cacheTableIndexes.createSortedView(fieldNames, sortTypes, limit, rows);
 		}
 		catch (Exception e)
 		{
 			Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, e);
-			return false;
+			return null;
 		}
 		finally
 		{
-			lock.writeLock().unlock();
+			lock.readLock().unlock();
 		}
 	}
 
 	/**
-	 * 移除表所有行数据并释放行数据
-	 * @return 移除成功返回true,否则返回false
+	 * 移除排序视图
+	 * @param fieldNames 排序字段名列表
+	 * @param sortTypes 各排序字段的排序类型方式
+	 * @return 存在并移除返回true，否则返回false
 	 */
-	public boolean removeAll()
+	public boolean removeSortedView(String[] fieldNames, SortType[] sortTypes)
 	{
 		lock.writeLock().lock();
 		try
 		{
-			if(rows!=null && rows.size()>0)
-			{
-				while(rows.size()>0)
-				{
-					ICacheTableRow cacheTableRow = rows.remove(0);
-					removeRow(cacheTableRow);
-					cacheTableRow=null;
-				}
-			}
-			return true;
-		}
-		catch (Exception e)
-		{
-			Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, e);
-			return false;
+			return cacheTableIndexes.removeSortedView(fieldNames, sortTypes);
 		}
 		finally
 		{
@@ -844,84 +832,669 @@ public class CacheTable implements IEventListener, Cloneable, ICacheTable
 		}
 	}
 
-	private void cacheTableStructureClear(ICacheTableStructure cacheTableStructure)
+	/**
+	 * 按索引取得字段值相等的行列表
+	 * @param fieldNames 索引字段名列表，需已建立对应的哈希索引或有序索引(集合键字段组已建立哈希索引)
+	 * @param fieldValues 字段值列表，可以只指定前面部分字段的值，值为字符串时将转换为字段值的类型
+	 * @return 行列表副本，不含已过期的行，未建立索引或不存在时返回null
+	 */
+	public Vector<ICacheTableRow> getRowsByIndex(String[] fieldNames, Object[] fieldValues)
 	{
-		if (cacheTableStructure == null)
-			return;
-		if (cacheTableStructure.size() <= 0)
+		lock.readLock().lock();
+		try
 		{
-			ICacheTableStructure parentCacheTableStructure = cacheTableStructure.getParent();
-			if (parentCacheTableStructure != null)
-			{
-				parentCacheTableStructure.remove(cacheTableStructure.getKey());
-				cacheTableStructure.dispose();
-				cacheTableStructure = null;
-				cacheTableStructureClear(parentCacheTableStructure);
-			}
+			ICacheTableIndex cacheTableIndex = cacheTableIndexes.getIndex(fieldNames);
+			if(cacheTableIndex==null)return null;
+			return removeExpires(cacheTableIndex.getRows(fieldValues));
 		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+		return null;
 	}
 
-	// private void removeRow(ConcurrentHashMap rowMap, CacheTableRow cacheTableRow)
-	// {
-	// rowMap.
-	// Enumeration<String> keys = rowMap.keys();
-	// while(keys.hasMoreElements())
-	// {
-	// String key = keys.nextElement();
-	// Object obj = rowMap.get(key);
-	// if(obj!=null)
-	// {
-	// if(obj.getClass().isAssignableFrom(ConcurrentHashMap.class))
-	// {
-	//
-	// }
-	// }
-	// }
-	// }
+	/**
+	 * 按有序索引取得字段值在指定范围内的行列表(包含边界值)，如：level BETWEEN 10 AND 20
+	 * @param fieldNames 索引字段名列表，需已建立对应的有序索引
+	 * @param fromValues 起始字段值列表，可以只指定前面部分字段的值，为null时则不限下界
+	 * @param toValues 结束字段值列表，可以只指定前面部分字段的值，为null时则不限上界
+	 * @return 按字段值从小到大排列的行列表副本，不含已过期的行，未建立有序索引时返回null
+	 */
+	public Vector<ICacheTableRow> getRowsByRange(String[] fieldNames, Object[] fromValues, Object[] toValues)
+	{
+		return getRowsByRange(fieldNames, fromValues, true, toValues, true);
+	}
 
 	/**
-	 * 取得列表中首次出现的行索引
-	 * @param keyFieldNames 集合键字段列表
-	 * @param keyFieldValues 集合键值列表
-	 * @return 行索引，如果指定的主键Key不存于列表中，则返回-1
+	 * 按有序索引取得字段值在指定范围内的行列表
+	 * @param fieldNames 索引字段名列表，需已建立对应的有序索引
+	 * @param fromValues 起始字段值列表，可以只指定前面部分字段的值，为null时则不限下界
+	 * @param fromInclusive 是否包含等于起始字段值的行
+	 * @param toValues 结束字段值列表，可以只指定前面部分字段的值，为null时则不限上界
+	 * @param toInclusive 是否包含等于结束字段值的行
+	 * @return 按字段值从小到大排列的行列表副本，不含已过期的行，未建立有序索引时返回null
 	 */
-	public int rowIndexOf(String[] keyFieldNames, String[] keyFieldValues)
+	public Vector<ICacheTableRow> getRowsByRange(String[] fieldNames, Object[] fromValues, boolean fromInclusive, Object[] toValues, boolean toInclusive)
 	{
 		lock.readLock().lock();
 		try
 		{
-			Vector<ICacheTableRow> cacheTableRows =getRows(keyFieldNames, keyFieldValues);
-			if (cacheTableRows != null && cacheTableRows.size()>0)
+			ICacheTableIndex cacheTableSortedIndex = cacheTableIndexes.getSortedIndex(fieldNames);
+			if(cacheTableSortedIndex==null)
 			{
-				for(ICacheTableRow cacheTableRow : cacheTableRows)
-				{
-					if (DateUtil.getCurrentTimeMillis() > cacheTableRow.getExpiresTime())
-					{// 如果当前行数据已过期
-						expiresCacheTableRows.add(cacheTableRow);
-					}
-					else
-					{
-						moveToHead(cacheTableRow);
-						removeAllExpiresRows();
-						return rows.indexOf(cacheTableRow);
-					}
-				}
+				Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, new Exception(this.name +" 缓存表未建立有序索引："+CacheTableIndex.getIndexName(fieldNames)));
+				return null;
 			}
-			return -1;
+			return removeExpires(cacheTableSortedIndex.getRows(fromValues, fromInclusive, toValues, toInclusive));
 		}
 		catch (Exception e)
 		{
 			Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, e);
-			return -1;
 		}
 		finally
 		{
 			lock.readLock().unlock();
 		}
+		return null;
 	}
 
 	/**
-	 * 取得列表中最后一次出现的行索引
+	 * 取得已建立的所有索引(包括集合键字段组的索引)，哈希索引在前
+	 * @return 索引列表副本
+	 */
+	public ArrayList<ICacheTableIndex> getIndexes()
+	{
+		lock.readLock().lock();
+		try
+		{
+			if(cacheTableIndexes==null)return new ArrayList<ICacheTableIndex>();
+			return cacheTableIndexes.getIndexes();
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * 建立查询，如：query().where("level", QueryOperator.GREATER_EQUAL, 10).and("guildId", QueryOperator.EQUAL, 1).orderBy("level", SortType.DESC).limit(10).toRows()
+	 * 查询执行时优先使用已建立的索引，没有可用的索引时遍历全表
+	 * @return 查询
+	 */
+	public ICacheTableQuery query()
+	{
+		return new CacheTableQuery(this);
+	}
+
+	/**
+	 * 遍历所有未过期的行
+	 * @param cacheTableRowHandler 行处理函数
+	 */
+	public void forEachRow(ICacheTableRowHandler cacheTableRowHandler)
+	{
+		forEachRow(cacheTableRowHandler, false);
+	}
+
+	/**
+	 * 遍历所有未过期的行，遍历开始时的行快照，遍历过程中增加或移除的行不影响遍历
+	 * @param cacheTableRowHandler 行处理函数
+	 * @param isParallel 是否允许并行遍历，行数量达到并行阈值(CacheTableParallel)时行处理函数会在多个线程中同时调用，需线程安全
+	 */
+	public void forEachRow(ICacheTableRowHandler cacheTableRowHandler, boolean isParallel)
+	{
+		try
+		{
+			CacheTableParallel.forEach(toRowArray(), cacheTableRowHandler, isParallel);
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+	}
+
+	/**
+	 * 统计所有未过期行的字段数据，行数量达到并行阈值(CacheTableParallel)时并行统计
+	 * @param fieldName 统计字段名
+	 * @return 统计结果，包括数量、合计、平均值、最小值及最大值
+	 */
+	public CacheTableAggregate aggregate(String fieldName)
+	{
+		try
+		{
+			return CacheTableParallel.aggregate(toRowArray(), schema.getFieldHandle(fieldName));
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		return new CacheTableAggregate();
+	}
+
+	/**
+	 * 按分组字段分组统计所有未过期行的字段数据，行数量达到并行阈值(CacheTableParallel)时并行统计
+	 * @param fieldName 统计字段名
+	 * @param groupByFieldName 分组字段名
+	 * @return 分组字段数据(整数类型统一为Long，浮点类型统一为Double)与统计结果的映射
+	 */
+	public HashMap<Object, CacheTableAggregate> aggregate(String fieldName, String groupByFieldName)
+	{
+		try
+		{
+			return CacheTableParallel.aggregate(toRowArray(), schema.getFieldHandle(fieldName), schema.getFieldHandle(groupByFieldName));
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		return new HashMap<Object, CacheTableAggregate>();
+	}
+
+	/**
+	 * 取得行快照
+	 * @return 行数组
+	 */
+	private Object[] toRowArray()
+	{
+		lock.readLock().lock();
+		try
+		{
+			return rows.toArray();
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * 移除行列表中已过期的行，过期行由过期服务从表中移除
+	 * @param cacheTableRows 行列表副本
+	 * @return 不含过期行的行列表，没有行时返回null
+	 */
+	private Vector<ICacheTableRow> removeExpires(Vector<ICacheTableRow> cacheTableRows)
+	{
+		if (cacheTableRows == null || cacheTableRows.size() <= 0)
+			return null;
+		long currentTime = DateUtil.getCurrentTimeMillis();
+		for(int i = cacheTableRows.size() - 1; i >= 0; i--)
+		{
+			if (currentTime > cacheTableRows.get(i).getExpiresTime())
+			{
+				cacheTableRows.remove(i);
+			}
+		}
+		return cacheTableRows.size() > 0 ? cacheTableRows : null;
+	}
+
+	/**
+	 * 检查行是否包含所有集合键字段
+	 * @param cacheTableRow 行数据
+	 * @param operation 操作名，用于错误信息
+	 * @return 包含返回true，否则返回false
+	 */
+	private boolean containsKeyFields(ICacheTableRow cacheTableRow, String operation)
+	{
+		if(keyFieldNameGroups!=null && keyFieldNameGroups.length>0)
+		{
+			for(String[] keyFieldNames : keyFieldNameGroups)
+			{
+				if(keyFieldNames==null)continue;
+				for(String keyFieldName : keyFieldNames)
+				{
+					if(!cacheTableRow.containsField(keyFieldName))
+					{
+						Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, new Exception(this.name +" 缓存表在"+operation+"行数据时，遇到行数据未指定表集合键字段 "+keyFieldName+" 及值。"));
+						return false;
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 是否为集合键字段组
+	 * @param fieldNames 字段名列表
+	 * @return 是返回true，否则返回false
+	 */
+	private boolean isKeyFieldNames(String[] fieldNames)
+	{
+		String indexName = CacheTableIndex.getIndexName(fieldNames);
+		if(indexName==null || keyFieldNameGroups==null)return false;
+		for(String[] keyFieldNames : keyFieldNameGroups)
+		{
+			if(indexName.equals(CacheTableIndex.getIndexName(keyFieldNames)))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 取得行
+	 * @param rowIndex 行索引
+	 * @return 取得的行数据，如果提供的索引超出范围，则返回null
+	 */
+	public ICacheTableRow getRow(int rowIndex)
+	{
+		lock.readLock().lock();
+		try
+		{
+			if (rows.size() < rowIndex + 1)
+			{
+				return null;
+			}
+			ICacheTableRow cacheTableRow = rows.get(rowIndex);
+			if (DateUtil.getCurrentTimeMillis() <= cacheTableRow.getExpiresTime())
+			{// 已过期的行由过期服务移除
+				recordAccess(cacheTableRow);
+				return cacheTableRow;
+			}
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return null;
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+		return null;
+	}
+
+	/**
+	 * 按主键值取得行，直接由主键表查找，不遍历集合键结构
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 取得的行数据，不存在或已过期时返回null
+	 */
+	public ICacheTableRow getRowByPrimaryKey(Object primaryKeyFieldValue)
+	{
+		if(isLongPrimaryKey(primaryKeyFieldValue))
+		{
+			return getRowByPrimaryKey(((Number)primaryKeyFieldValue).longValue());
+		}
+		if(primaryKeyFieldValue==null)
+			return null;
+		ICacheTableRow cacheTableRow=null;
+		lock.readLock().lock();
+		try
+		{
+			if(rowPrimarys==null)
+				return null;
+			cacheTableRow=rowPrimarys.get(primaryKeyFieldValue.toString());
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return null;
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+		return accessRow(cacheTableRow);
+	}
+
+	/**
+	 * 按整数主键值取得行
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 取得的行数据，不存在或已过期时返回null
+	 */
+	public ICacheTableRow getRowByPrimaryKey(long primaryKeyFieldValue)
+	{
+		return accessRow(findRowByPrimaryKey(primaryKeyFieldValue));
+	}
+
+	/**
+	 * 按整数主键值取得行
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 取得的行数据，不存在或已过期时返回null
+	 */
+	public ICacheTableRow getRowByPrimaryKey(int primaryKeyFieldValue)
+	{
+		return getRowByPrimaryKey((long)primaryKeyFieldValue);
+	}
+
+	/**
+	 * 检测是否包含指定主键值的行
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 如果存在且未过期返回true, 否则返回false
+	 */
+	public boolean containsPrimaryKey(Object primaryKeyFieldValue)
+	{
+		if(isLongPrimaryKey(primaryKeyFieldValue))
+		{
+			return containsPrimaryKey(((Number)primaryKeyFieldValue).longValue());
+		}
+		if(primaryKeyFieldValue==null)
+			return false;
+		lock.readLock().lock();
+		try
+		{
+			if(rowPrimarys==null)
+				return false;
+			ICacheTableRow cacheTableRow=rowPrimarys.get(primaryKeyFieldValue.toString());
+			return cacheTableRow!=null && DateUtil.getCurrentTimeMillis() <= cacheTableRow.getExpiresTime();
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return false;
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * 检测是否包含指定整数主键值的行
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 如果存在且未过期返回true, 否则返回false
+	 */
+	public boolean containsPrimaryKey(long primaryKeyFieldValue)
+	{
+		ICacheTableRow cacheTableRow=findRowByPrimaryKey(primaryKeyFieldValue);
+		return cacheTableRow!=null && DateUtil.getCurrentTimeMillis() <= cacheTableRow.getExpiresTime();
+	}
+
+	/**
+	 * 按主键值移除行数据
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 移除成功或者指定主键值的行不存在返回true,否则返回false
+	 */
+	public boolean removeByPrimaryKey(Object primaryKeyFieldValue)
+	{
+		if(isLongPrimaryKey(primaryKeyFieldValue))
+		{
+			return removeByPrimaryKey(((Number)primaryKeyFieldValue).longValue());
+		}
+		if(primaryKeyFieldValue==null)
+			return true;
+		lock.writeLock().lock();
+		try
+		{
+			if(rowPrimarys==null)
+				return true;
+			return removeRow(rowPrimarys.get(primaryKeyFieldValue.toString()));
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return false;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 按整数主键值移除行数据
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 移除成功或者指定主键值的行不存在返回true,否则返回false
+	 */
+	public boolean removeByPrimaryKey(long primaryKeyFieldValue)
+	{
+		lock.writeLock().lock();
+		try
+		{
+			return removeRow(findRowByPrimaryKey(primaryKeyFieldValue));
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return false;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 按整数主键值查找行，不做过期检查及LRU处理
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 行数据，不存在时返回null
+	 */
+	private ICacheTableRow findRowByPrimaryKey(long primaryKeyFieldValue)
+	{
+		lock.readLock().lock();
+		try
+		{
+			if(rowLongPrimarys==null)
+				return null;
+			ICacheTableRow cacheTableRow=rowLongPrimarys.get(primaryKeyFieldValue);
+			if(cacheTableRow==null && rowLongPrimarys.size()<rowPrimarys.size())
+			{// 主键值中存在非整数类型的值(如字符串形式的数字)时，才回退到字符串主键表查找
+				cacheTableRow=rowPrimarys.get(Long.toString(primaryKeyFieldValue));
+			}
+			return cacheTableRow;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return null;
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * 访问按主键取得的行，已过期时返回null，否则记录访问以便移动到头部热端
+	 * @param cacheTableRow 行数据
+	 * @return 有效的行数据，已过期或为空时返回null
+	 */
+	private ICacheTableRow accessRow(ICacheTableRow cacheTableRow)
+	{
+		if(cacheTableRow==null)
+			return null;
+		if (DateUtil.getCurrentTimeMillis() > cacheTableRow.getExpiresTime())
+		{// 已过期的行由过期服务移除
+			return null;
+		}
+		recordAccess(cacheTableRow);
+		return cacheTableRow;
+	}
+
+	/**
+	 * 整数主键值加入整数主键表
+	 * @param cacheTableRow 行数据
+	 */
+	private void putLongPrimary(ICacheTableRow cacheTableRow)
+	{
+		Object primaryKeyFieldData = cacheTableRow.getFieldData(primaryKeyFieldName);
+		if(isLongPrimaryKey(primaryKeyFieldData))
+		{
+			rowLongPrimarys.put(((Number)primaryKeyFieldData).longValue(), cacheTableRow);
+		}
+	}
+
+	/**
+	 * 是否为可按long查找的整数主键值
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 是返回true，否则返回false
+	 */
+	private static boolean isLongPrimaryKey(Object primaryKeyFieldValue)
+	{
+		return primaryKeyFieldValue instanceof Long || primaryKeyFieldValue instanceof Integer || primaryKeyFieldValue instanceof Short || primaryKeyFieldValue instanceof Byte;
+	}
+
+	/**
+	 * 移除表行
+	 * @param rowIndex 行索引
+	 * @return 移除成功或者指定的索引不存于列表返回true,否则返回false
+	 */
+	public boolean removeRow(int rowIndex)
+	{
+		lock.writeLock().lock();
+		try
+		{
+			if (rows.size() < rowIndex + 1)
+			{
+				return true;
+			}
+			removeRow(rows.get(rowIndex));
+			return true;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return false;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 移除行数据
+	 * @param cacheTableRow 行数据
+	 * @return 移除成功或者指定的行数据为空返回true,否则返回false
+	 */
+	public boolean removeRow(ICacheTableRow cacheTableRow)
+	{
+		lock.writeLock().lock();
+		try
+		{
+			if (cacheTableRow == null)
+				return true;
+			if(rowPrimarys!=null)
+			{
+				//				if(cacheTableRow.containsField(primaryKeyFieldName) && cacheTableRow.getField(primaryKeyFieldName).getIsSqlSave())
+				//				{
+				String primaryKeyFieldValue = cacheTableRow.getFieldData(primaryKeyFieldName).toString();
+				rowPrimarys.remove(primaryKeyFieldValue);
+				//				}
+				Object primaryKeyFieldData = cacheTableRow.getFieldData(primaryKeyFieldName);
+				if(isLongPrimaryKey(primaryKeyFieldData))
+				{
+					rowLongPrimarys.remove(((Number)primaryKeyFieldData).longValue());
+				}
+			}
+			cacheTableRow.removeEventListener(CacheEvent.ROW_FIELD_DATA_CHANGE, this);
+			cacheTableRow.removeEventListener(CacheEvent.DATA_TO_SAVE, this);
+			cacheTableRow.removeEventListener(CacheEvent.FIELD_DATA_CHANGE, this);
+			if (rows.remove(cacheTableRow) && cacheTableRow.getExpiresTime() != Long.MAX_VALUE)
+			{
+				expiresRowCount--;
+			}
+			epoch.incrementAndGet();
+
+			newCacheTables.remove(cacheTableRow);// 向当前CacheTable的指定字段的新CacheTable中移除行数据
+			cacheTableIndexes.remove(cacheTableRow);
+
+			if (cacheTableRow.getPrevious() != null)
+				cacheTableRow.getPrevious().setNext(cacheTableRow.getNext());
+			if (cacheTableRow.getNext() != null)
+				cacheTableRow.getNext().setPrevious(cacheTableRow.getPrevious());
+			cacheTableRow.dispose();
+			cacheTableRow = null;
+			return true;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return false;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 移除表所有行数据并释放行数据
+	 * @return 移除成功返回true,否则返回false
+	 */
+	public boolean removeAll()
+	{
+		lock.writeLock().lock();
+		try
+		{
+			if(rows!=null && rows.size()>0)
+			{
+				while(rows.size()>0)
+				{
+					ICacheTableRow cacheTableRow = rows.lastElement();
+					if (!removeRow(cacheTableRow))
+					{// 由removeRow移出行列表以维护有效时间的行数，移除出错时直接移出，避免重复处理同一行
+						rows.remove(cacheTableRow);
+					}
+				}
+			}
+			return true;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return false;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	// private void removeRow(ConcurrentHashMap rowMap, CacheTableRow cacheTableRow)
+	// {
+	// rowMap.
+	// Enumeration<String> keys = rowMap.keys();
+	// while(keys.hasMoreElements())
+	// {
+	// String key = keys.nextElement();
+	// Object obj = rowMap.get(key);
+	// if(obj!=null)
+	// {
+	// if(obj.getClass().isAssignableFrom(ConcurrentHashMap.class))
+	// {
+	//
+	// }
+	// }
+	// }
+	// }
+
+	/**
+	 * 取得列表中首次出现的行索引
+	 * @param keyFieldNames 集合键字段列表
+	 * @param keyFieldValues 集合键值列表
+	 * @return 行索引，如果指定的主键Key不存于列表中，则返回-1
+	 */
+	public int rowIndexOf(String[] keyFieldNames, String[] keyFieldValues)
+	{
+		lock.readLock().lock();
+		try
+		{
+			Vector<ICacheTableRow> cacheTableRows =getRows(keyFieldNames, keyFieldValues);
+			if (cacheTableRows != null && cacheTableRows.size()>0)
+			{
+				ICacheTableRow cacheTableRow = cacheTableRows.get(0);
+				recordAccess(cacheTableRow);
+				return rows.indexOf(cacheTableRow);
+			}
+			return -1;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return -1;
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * 取得列表中最后一次出现的行索引
 	 * @param keyFieldNames 集合键字段列表
 	 * @param keyFieldValues 集合键值列表
 	 * @return 行索引，如果指定的主键Key不存于列表中，则返回-1
@@ -934,19 +1507,9 @@ public class CacheTable implements IEventListener, Cloneable, ICacheTable
 			Vector<ICacheTableRow> cacheTableRows =getRows(keyFieldNames, keyFieldValues);
 			if (cacheTableRows != null && cacheTableRows.size()>0)
 			{
-				for(ICacheTableRow cacheTableRow : cacheTableRows)
-				{
-					if (DateUtil.getCurrentTimeMillis() > cacheTableRow.getExpiresTime())
-					{// 如果当前行数据已过期
-						expiresCacheTableRows.add(cacheTableRow);
-					}
-					else
-					{
-						moveToHead(cacheTableRow);
-						removeAllExpiresRows();
-						return rows.lastIndexOf(cacheTableRow);
-					}
-				}
+				ICacheTableRow cacheTableRow = cacheTableRows.get(0);
+				recordAccess(cacheTableRow);
+				return rows.lastIndexOf(cacheTableRow);
 			}
 			return -1;
 		}
@@ -1004,31 +1567,120 @@ public class CacheTable implements IEventListener, Cloneable, ICacheTable
 	 */
 	private void moveToHead(ICacheTableRow cacheTableRow)
 	{
-		if (cacheTableRow.getPrevious() != null)
-			cacheTableRow.getPrevious().setNext(cacheTableRow.getNext());
+		if (cacheTableRow.getPrevious() == null || cacheTableRow.getPrevious() == headCacheTableRow)
+			return;// 已不在表中或已在头部热端
+		cacheTableRow.getPrevious().setNext(cacheTableRow.getNext());
 		if (cacheTableRow.getNext() != null)
 			cacheTableRow.getNext().setPrevious(cacheTableRow.getPrevious());
-		cacheTableRow.setNext(headCacheTableRow);
-		cacheTableRow.setPrevious(null);
+		insertHead(cacheTableRow);
 	}
 
 	/**
-	 * 移除所有已过期的数据行
+	 * 记录被访问的行，只在限定容量时才需要维护LRU顺序
+	 * @param cacheTableRow CacheTableRow
 	 */
-	private void removeAllExpiresRows()
+	private void recordAccess(ICacheTableRow cacheTableRow)
 	{
-		lock.readLock().lock();
+		if (capacity <= -1)
+			return;
+		cacheTableRow.setAccessTime(System.nanoTime());
+		if (!cacheTableRow.compareAndSetIsAccessQueued(false, true))
+			return;// 已在待提升列表中，只更新访问时间
+		if (accessCacheTableRowCount.incrementAndGet() > MAX_ACCESS_ROW_COUNT)
+		{// 读取时持有读锁，不能获取写锁提升，丢弃最早记录的行以保留最近的访问
+			ICacheTableRow oldestCacheTableRow = accessCacheTableRows.poll();
+			if (oldestCacheTableRow != null)
+			{
+				accessCacheTableRowCount.decrementAndGet();
+				oldestCacheTableRow.compareAndSetIsAccessQueued(true, false);
+			}
+		}
+		accessCacheTableRows.offer(cacheTableRow);
+	}
+
+	/**
+	 * 将记录的被访问行按访问先后移动到头部热端，调用时需持有写锁
+	 */
+	private void drainAccessRows()
+	{
+		if (accessCacheTableRowCount.get() <= 0)
+			return;
+		ArrayList<ICacheTableRow> cacheTableRows = new ArrayList<ICacheTableRow>();
+		ICacheTableRow cacheTableRow;
+		while ((cacheTableRow = accessCacheTableRows.poll()) != null)
+		{
+			accessCacheTableRowCount.decrementAndGet();
+			cacheTableRow.compareAndSetIsAccessQueued(true, false);
+			cacheTableRows.add(cacheTableRow);
+		}
+		Collections.sort(cacheTableRows, CacheTableAccessTimeComparator.INSTANCE);
+		for (ICacheTableRow accessCacheTableRow : cacheTableRows)
+		{
+			moveToHead(accessCacheTableRow);
+		}
+	}
+
+	/**
+	 * 清除记录的被访问行
+	 */
+	private void clearAccessRows()
+	{
+		ICacheTableRow cacheTableRow;
+		while ((cacheTableRow = accessCacheTableRows.poll()) != null)
+		{
+			accessCacheTableRowCount.decrementAndGet();
+			cacheTableRow.compareAndSetIsAccessQueued(true, false);
+		}
+	}
+
+	/**
+	 * 安排行的过期移除
+	 * @param cacheTableRow CacheTableRow
+	 */
+	private void scheduleExpires(ICacheTableRow cacheTableRow)
+	{
+		if (cacheTableRow.getExpiresTime() != Long.MAX_VALUE)
+		{
+			DataFactory.cacheController().cacheTableExpiryService().schedule(this, cacheTableRow);
+		}
+	}
+
+	/**
+	 * 批量移除已过期的行，由过期服务调用，行已不在表中时忽略，有效时间已被延长时按新的到期时间重新安排
+	 * @param cacheTableRows 到期的行列表
+	 * @return 实际移除的行数
+	 */
+	public int removeExpiresRows(List<ICacheTableRow> cacheTableRows)
+	{
+		int count = 0;
+		lock.writeLock().lock();
 		try
 		{
-			if(expiresCacheTableRows!=null && expiresCacheTableRows.size()>0)
+			drainAccessRows();
+			long currentTime = DateUtil.getCurrentTimeMillis();
+			for (ICacheTableRow cacheTableRow : cacheTableRows)
 			{
-				while(expiresCacheTableRows.size()>0)
+				if (cacheTableRow.getFields() == null)
+					continue;
+				if (rowPrimarys != null)
 				{
-					lock.readLock().unlock();
-					removeRow(expiresCacheTableRows.remove(0));
-					lock.readLock().lock();
+					Object primaryKeyFieldData = cacheTableRow.getFieldData(primaryKeyFieldName);
+					if (primaryKeyFieldData == null || rowPrimarys.get(primaryKeyFieldData.toString()) != cacheTableRow)
+						continue;
+				}
+				else if (!rows.contains(cacheTableRow))
+				{
+					continue;
+				}
+				if (currentTime <= cacheTableRow.getExpiresTime())
+				{// 有效时间已被延长
+					scheduleExpires(cacheTableRow);
+					continue;
 				}
+				removeRow(cacheTableRow);
+				count++;
 			}
+			expiresCount.addAndGet(count);
 		}
 		catch (Exception e)
 		{
@@ -1036,8 +1688,18 @@ public class CacheTable implements IEventListener, Cloneable, ICacheTable
 		}
 		finally
 		{
-			lock.readLock().unlock();
+			lock.writeLock().unlock();
 		}
+		return count;
+	}
+
+	/**
+	 * 已过期移除的行数
+	 * @return 行数
+	 */
+	public long getExpiresCount()
+	{
+		return expiresCount.get();
 	}
 
 	/**
@@ -1056,8 +1718,8 @@ public class CacheTable implements IEventListener, Cloneable, ICacheTable
 		lock.writeLock().lock();
 		try
 		{
-			CacheTableComparator sortOnComparator = new CacheTableComparator(name, fieldNames, options);
-			Collections.sort(rows, sortOnComparator);
+			CacheTableComparator.getComparator(name, fieldNames, options).sort(rows);
+			epoch.incrementAndGet();
 		}
 		catch (Exception e)
 		{
@@ -1071,14 +1733,22 @@ public class CacheTable implements IEventListener, Cloneable, ICacheTable
 
 	/**
 	 * 排序表行数据
-	 * @param comparator 排序比较函数
+	 * @param comparator 排序比较函数，行数量达到并行阈值(CacheTableParallel)时会在多个线程中同时调用，需线程安全
 	 */
 	public void sort(Comparator<? super ICacheTableRow> comparator)
 	{
 		lock.writeLock().lock();
 		try
 		{
-			Collections.sort(rows, comparator);
+			if(comparator instanceof CacheTableComparator)
+			{
+				((CacheTableComparator) comparator).sort(rows);
+			}
+			else
+			{
+				CacheTableParallel.sort(rows, comparator);
+			}
+			epoch.incrementAndGet();
 		}
 		catch (Exception e)
 		{
@@ -1091,7 +1761,7 @@ public class CacheTable implements IEventListener, Cloneable, ICacheTable
 	}
 
 	/**
-	 * 表行大小
+	 * 表行大小，不含已过期但尚未被过期服务移除的行
 	 * @return 表行大小
 	 */
 	public int getRowSize()
@@ -1099,7 +1769,18 @@ public class CacheTable implements IEventListener, Cloneable, ICacheTable
 		lock.readLock().lock();
 		try
 		{
-			return rows.size();
+			if (expiresRowCount <= 0)
+				return rows.size();
+			long currentTime = DateUtil.getCurrentTimeMillis();
+			int rowSize = 0;
+			for (ICacheTableRow cacheTableRow : rows)
+			{
+				if (currentTime <= cacheTableRow.getExpiresTime())
+				{
+					rowSize++;
+				}
+			}
+			return rowSize;
 		}
 		catch (Exception e)
 		{
@@ -1122,159 +1803,47 @@ public class CacheTable implements IEventListener, Cloneable, ICacheTable
 	 */
 	public ICacheTable newCacheTable(String name, String primaryKeyFieldName, String[][] keyFieldNameGroups, String[] fieldNames)
 	{
-		lock.writeLock().lock();
-		ICacheTable newCacheTable = null;
-		try
-		{
-			if (newCacheTables.containsKey(name))
-			{
-				Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, new Exception("在已有的CacheTable新创建指定字段的CacheTable时出现已有相同名称错误，错误CacheTable：" + this.name + "，新建CacheTable：" + name));
-				return null;
-			}
-
-			newCacheTable = DataFactory.cacheController().createCacheTable(name, primaryKeyFieldName, keyFieldNameGroups);
-			for (ICacheTableRow cacheTableRow : rows)
-			{
-				ICacheTableRow newCacheTableRow = DataUtil.cacheTableRow();
-				for (String fieldName : fieldNames)
-				{
-					if (cacheTableRow.containsField(fieldName))
-					{
-						newCacheTableRow.addField(fieldName, cacheTableRow.getField(fieldName));
-					}
-					else
-					{
-						Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, new Exception("在已有的CacheTable新创建指定字段的CacheTable时出现行不存在相应字段名的错误，错误CacheTable：" + this.name + "，新建CacheTable：" + name + "，字段名：" + fieldName));
-						return null;
-					}
-				}
-				newCacheTable.addRow(newCacheTableRow);
-			}
-			newCacheTables.put(name, newCacheTable);
-		}
-		catch (Exception e)
-		{
-			Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, e);
-			newCacheTable = null;
-		}
-		finally
-		{
-			lock.writeLock().unlock();
-		}
-		return newCacheTable;
+		return newCacheTable(name, primaryKeyFieldName, keyFieldNameGroups, fieldNames, 0);
 	}
 
 	/**
-	 * 向当前CacheTable的指定字段的新CacheTable中加入行数据
-	 * @param cacheTableRow
+	 * 创建当前CacheTable的指定字段的新CacheTable，maxStaleness大于0时新CacheTable异步更新：当前CacheTable增加、移除行时只写入变更日志，由计时器批量应用，新CacheTable最多落后maxStaleness毫秒
+	 * @param name CacheTable表名
+	 * @param primaryKeyFieldName 表主键字段名
+	 * @param keyFieldNameGroups 集合键字段名列表组，此值将做为行数据key，如果指定多个字段，中间以“_”连接，最终数据为：[0]字段值_[1]字段值_…，值不允许为空
+	 * @param fieldNames 指定字段名列表，字段需存在于当前的CacheTable中，如：new String[]{"ID", "Name", ...}
+	 * @param maxStaleness 最大延迟时间(毫秒)，小于等于0时同步更新
+	 * @return 创建成功返回新创建的CacheTable，否则返回null
 	 */
-	private void newCacheTableAddRow(ICacheTableRow cacheTableRow)
+	public ICacheTable newCacheTable(String name, String primaryKeyFieldName, String[][] keyFieldNameGroups, String[] fieldNames, long maxStaleness)
 	{
+		ICacheTable newCacheTable = null;
+		lock.writeLock().lock();
 		try
 		{
-			if (newCacheTables.size() > 0)
-			{// 如果存在当前CacheTable的指定字段的新CacheTable，则在增加新的行时，需要往新CacheTable中执行增加，用以同步数据
-				Collection<ICacheTable> cacheTables = newCacheTables.values();
-				for (ICacheTable cacheTable : cacheTables)
-				{
-					ICacheTableRow newCacheTableRow = DataUtil.cacheTableRow();
-					for (String fieldName : cacheTable.fieldNames())
-					{
-						if (cacheTableRow.containsField(fieldName))
-						{
-							newCacheTableRow.addField(fieldName, cacheTableRow.getField(fieldName));
-						}
-						else
-						{
-							Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, new Exception("在已有的CacheTable新创建指定字段的CacheTable中，加入新行时出现行不存在相应字段名的错误，错误CacheTable：" + this.name + "，新建CacheTable：" + cacheTable.getName() + "，字段名：" + fieldName));
-						}
-					}
-					cacheTable.addRow(newCacheTableRow);
-				}
-			}
+			newCacheTable = newCacheTables.create(name, primaryKeyFieldName, keyFieldNameGroups, fieldNames, maxStaleness, rows);
 		}
 		catch (Exception e)
 		{
 			Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, e);
+			newCacheTable = null;
 		}
-	}
-
-	/**
-	 * 向当前CacheTable的指定字段的新CacheTable中插入行数据
-	 * @param cacheTableRow
-	 * @param index 插入的索引
-	 */
-	private void newCacheTableInsertRow(ICacheTableRow cacheTableRow, int index)
-	{
-		try
-		{
-			if (newCacheTables.size() > 0)
-			{// 如果存在当前CacheTable的指定字段的新CacheTable，则在增加新的行时，需要往新CacheTable中执行增加，用以同步数据
-				Collection<ICacheTable> cacheTables = newCacheTables.values();
-				for (ICacheTable cacheTable : cacheTables)
-				{
-					ICacheTableRow newCacheTableRow = DataUtil.cacheTableRow();
-					for (String fieldName : cacheTable.fieldNames())
-					{
-						if (cacheTableRow.containsField(fieldName))
-						{
-							newCacheTableRow.addField(fieldName, cacheTableRow.getField(fieldName));
-						}
-						else
-						{
-							Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, new Exception("在已有的CacheTable新创建指定字段的CacheTable中，加入新行时出现行不存在相应字段名的错误，错误CacheTable：" + this.name + "，新建CacheTable：" + cacheTable.getName() + "，字段名：" + fieldName));
-						}
-					}
-					cacheTable.insertRow(newCacheTableRow, index);
-				}
-			}
-		}
-		catch (Exception e)
+		finally
 		{
-			Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, e);
+			lock.writeLock().unlock();
 		}
+		return newCacheTable;
 	}
 
 	/**
-	 * 向当前CacheTable的指定字段的新CacheTable中移除行数据
-	 * @param cacheTableRow
+	 * 等待异步更新的指定字段的新CacheTable应用完当前所有变更
+	 * @param name 新CacheTable表名
+	 * @param timeout 最长等待时间(毫秒)
+	 * @return 在等待时间内应用完成返回true，新CacheTable不存在或超时返回false
 	 */
-	private void newCacheTableRemoveRow(ICacheTableRow cacheTableRow)
-	{
-		try
-		{
-			if (newCacheTables.size() > 0)
-			{// 如果存在当前CacheTable的指定字段的新CacheTable，则在移除行时，需要往新CacheTable中执行移除，用以同步数据
-				Collection<ICacheTable> cacheTables = newCacheTables.values();
-				for (ICacheTable cacheTable : cacheTables)
-				{
-					cacheTable.removeRow(cacheTableRow);
-				}
-			}
-		}
-		catch (Exception e)
-		{
-			Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, e);
-		}
-	}
-
-	private String getKeyFieldNameKey(String[] keyFieldNames)
+	public boolean awaitNewCacheTable(String name, long timeout)
 	{
-		try
-		{
-			if(keyFieldNames==null || keyFieldNames.length<=0)return null;
-			String key="";
-			for(String keyFieldName : keyFieldNames)
-			{
-				key+="_"+keyFieldName;
-			}
-			return key;
-		}
-		catch (Exception e)
-		{
-			Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, e);
-		}
-		return null;
+		return newCacheTables.await(name, timeout);
 	}
 
 	/**
@@ -1287,6 +1856,15 @@ public class CacheTable implements IEventListener, Cloneable, ICacheTable
 
 	public void handleEvent(Event event)
 	{
+		if (CacheEvent.FIELD_DATA_CHANGE.equals(event.getType()))
+		{// 索引自身加锁维护，不在此获取表锁，避免在持有表读锁的线程中修改字段数据时死锁
+			CacheTableIndexes cacheTableIndexes = this.cacheTableIndexes;
+			if (cacheTableIndexes != null)
+			{
+				cacheTableIndexes.fieldDataChange((ICacheTableRow) event.getCurrentTarget(), (String) event.getData());
+			}
+			newCacheTables.fieldDataChange((ICacheTableRow) event.getCurrentTarget(), (String) event.getData());
+		}
 	}
 
 	/*
@@ -1331,36 +1909,34 @@ public class CacheTable implements IEventListener, Cloneable, ICacheTable
 
 	public synchronized void dispose(boolean isDispose)
 	{
-		if(cacheTableStructures!=null)
+		if(cacheTableIndexes!=null)
 		{
-			for(ICacheTableStructure cacheTableStructure : cacheTableStructures.values())
+			if(isDispose)
 			{
-				cacheTableStructure.dispose();
-				if(isDispose)
-				{
-					cacheTableStructure = null;
-				}
+				cacheTableIndexes.dispose();
+				cacheTableIndexes=null;
 			}
-			cacheTableStructures.clear();
-			if(isDispose)
+			else
 			{
-				cacheTableStructures=null;
+				cacheTableIndexes.clear();
 			}
 		}
-		if (changeRows != null)
+		if(rowPrimarys!=null)
 		{
-			changeRows.clear();
+			rowPrimarys.clear();
 			if(isDispose)
 			{
-				changeRows = null;
+				rowPrimarys=null;
 			}
 		}
-		if(rowPrimarys!=null)
+		clearAccessRows();
+		expiresRowCount = 0;
+		if(rowLongPrimarys!=null)
 		{
-			rowPrimarys.clear();
+			rowLongPrimarys.clear();
 			if(isDispose)
 			{
-				rowPrimarys=null;
+				rowLongPrimarys=null;
 			}
 		}
 		if (rows != null)
@@ -1370,10 +1946,16 @@ public class CacheTable implements IEventListener, Cloneable, ICacheTable
 				ICacheTableRow cacheTableRow = rows.remove(0);
 				cacheTableRow.removeEventListener(CacheEvent.ROW_FIELD_DATA_CHANGE, this);
 				cacheTableRow.removeEventListener(CacheEvent.DATA_TO_SAVE, this);
+				cacheTableRow.removeEventListener(CacheEvent.FIELD_DATA_CHANGE, this);
 				if(isDispose)
 				{
 					cacheTableRow.dispose();
 				}
+				else
+				{
+					cacheTableRow.setPrevious(null);
+					cacheTableRow.setNext(null);
+				}
 				cacheTableRow = null;
 			}
 			rows.clear();
@@ -1382,8 +1964,16 @@ public class CacheTable implements IEventListener, Cloneable, ICacheTable
 				rows = null;
 			}
 		}
+		if(headCacheTableRow!=null)
+		{
+			headCacheTableRow.setNext(endCacheTableRow);
+			endCacheTableRow.setPrevious(headCacheTableRow);
+		}
+		epoch.incrementAndGet();
+		snapshot = null;
 		if(isDispose)
 		{
+			newCacheTables.dispose();
 			keyFieldNameGroups=null;
 		}
 	}
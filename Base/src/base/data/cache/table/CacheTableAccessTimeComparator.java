@@ -0,0 +1,30 @@
+package base.data.cache.table;
+
+import java.util.Comparator;
+
+/**
+ * 缓存表行访问时间比较
+ * 按最近一次被访问的时间从早到晚排列，限定容量的缓存表提升被访问行时使用，使后访问的行最后移动到头部热端。
+ * 缓存表可能由独立的类加载器载入，不能使用内部类，比较对象不可变，可在多个线程间共用。
+ * @author Devin
+ *
+ */
+public final class CacheTableAccessTimeComparator implements Comparator<ICacheTableRow>
+{
+	/**
+	 * 共用的比较对象
+	 */
+	public static final CacheTableAccessTimeComparator INSTANCE = new CacheTableAccessTimeComparator();
+
+	private CacheTableAccessTimeComparator()
+	{
+
+	}
+
+	public int compare(ICacheTableRow cacheTableRow1, ICacheTableRow cacheTableRow2)
+	{
+		long accessTime1 = cacheTableRow1.getAccessTime();
+		long accessTime2 = cacheTableRow2.getAccessTime();
+		return accessTime1 < accessTime2 ? -1 : (accessTime1 == accessTime2 ? 0 : 1);
+	}
+}
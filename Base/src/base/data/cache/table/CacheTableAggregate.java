@@ -0,0 +1,156 @@
+package base.data.cache.table;
+
+/**
+ * 缓存表字段统计结果
+ * 统计字段数据不为null的行数量、最小值、最大值，数值字段还统计合计及平均值；整数字段的合计为Long，存在浮点数时为Double。
+ * 统计过程中不是线程安全的，并行统计时每个任务使用各自的统计结果，最后合并。
+ * @author Devin
+ *
+ */
+public class CacheTableAggregate
+{
+	/**
+	 * 字段数据不为null的行数量
+	 */
+	private long count;
+
+	/**
+	 * 数值字段数据的数量
+	 */
+	private long numberCount;
+
+	/**
+	 * 整数合计
+	 */
+	private long longSum;
+
+	/**
+	 * 浮点数合计
+	 */
+	private double doubleSum;
+
+	/**
+	 * 是否存在浮点数
+	 */
+	private boolean isDouble;
+
+	/**
+	 * 最小值
+	 */
+	private Object min;
+
+	/**
+	 * 最大值
+	 */
+	private Object max;
+
+	public CacheTableAggregate()
+	{
+	}
+
+	/**
+	 * 加入字段数据
+	 * @param value 字段数据，为null时忽略
+	 */
+	public void add(Object value)
+	{
+		value = CacheTableIndexKey.normalize(value);
+		if (value == null)
+			return;
+		count++;
+		if (value instanceof Long)
+		{
+			longSum += (Long) value;
+			numberCount++;
+		}
+		else if (value instanceof Number)
+		{
+			doubleSum += ((Number) value).doubleValue();
+			isDouble = true;
+			numberCount++;
+		}
+		if (min == null || CacheTableIndexKey.compareValue(value, min) < 0)
+		{
+			min = value;
+		}
+		if (max == null || CacheTableIndexKey.compareValue(value, max) > 0)
+		{
+			max = value;
+		}
+	}
+
+	/**
+	 * 合并另一个统计结果
+	 * @param cacheTableAggregate 统计结果
+	 */
+	public void merge(CacheTableAggregate cacheTableAggregate)
+	{
+		count += cacheTableAggregate.count;
+		numberCount += cacheTableAggregate.numberCount;
+		longSum += cacheTableAggregate.longSum;
+		doubleSum += cacheTableAggregate.doubleSum;
+		isDouble = isDouble || cacheTableAggregate.isDouble;
+		if (cacheTableAggregate.min != null && (min == null || CacheTableIndexKey.compareValue(cacheTableAggregate.min, min) < 0))
+		{
+			min = cacheTableAggregate.min;
+		}
+		if (cacheTableAggregate.max != null && (max == null || CacheTableIndexKey.compareValue(cacheTableAggregate.max, max) > 0))
+		{
+			max = cacheTableAggregate.max;
+		}
+	}
+
+	/**
+	 * 字段数据不为null的行数量
+	 * @return count
+	 */
+	public long getCount()
+	{
+		return count;
+	}
+
+	/**
+	 * 数值字段数据的合计
+	 * @return 只有整数时返回Long，存在浮点数时返回Double
+	 */
+	public Number getSum()
+	{
+		if (isDouble)
+			return doubleSum + longSum;
+		return longSum;
+	}
+
+	/**
+	 * 数值字段数据的平均值
+	 * @return 平均值，没有数值字段数据时返回0
+	 */
+	public double getAverage()
+	{
+		return numberCount > 0 ? getSum().doubleValue() / numberCount : 0;
+	}
+
+	/**
+	 * 最小值，整数类型统一为Long，浮点类型统一为Double
+	 * @return 最小值，没有字段数据时返回null
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T getMin()
+	{
+		return (T) min;
+	}
+
+	/**
+	 * 最大值，整数类型统一为Long，浮点类型统一为Double
+	 * @return 最大值，没有字段数据时返回null
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T getMax()
+	{
+		return (T) max;
+	}
+
+	public String toString()
+	{
+		return "count=" + count + ", sum=" + getSum() + ", min=" + min + ", max=" + max;
+	}
+}
@@ -0,0 +1,140 @@
+package base.data.cache.table;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 缓存表行变更日志
+ * 固定容量的环形缓冲区，写入时只递增序号并写入对应的槽位(O(1)，不加锁)，可由多个线程同时写入；
+ * 读取方按各自的序号读取，读取落后超过容量时旧的变更已被覆盖，读取方需重新同步。
+ * @author Devin
+ *
+ */
+public class CacheTableChangeLog
+{
+	/**
+	 * 增加行
+	 */
+	public final static int ADD = 1;
+
+	/**
+	 * 插入行
+	 */
+	public final static int INSERT = 2;
+
+	/**
+	 * 移除行
+	 */
+	public final static int REMOVE = 3;
+
+	/**
+	 * 行的字段数据改变
+	 */
+	public final static int FIELD_DATA_CHANGE = 4;
+
+	/**
+	 * 变更槽位
+	 */
+	private final AtomicReferenceArray<CacheTableChange> changes;
+
+	/**
+	 * 序号对应槽位的掩码
+	 */
+	private final int mask;
+
+	/**
+	 * 下一个变更的序号
+	 */
+	private final AtomicLong sequence = new AtomicLong();
+
+	/**
+	 * 缓存表行变更日志
+	 * @param capacity 容量，将调整为不小于该值的2的幂
+	 */
+	public CacheTableChangeLog(int capacity)
+	{
+		int size = 1;
+		while (size < capacity)
+		{
+			size <<= 1;
+		}
+		this.changes = new AtomicReferenceArray<CacheTableChange>(size);
+		this.mask = size - 1;
+	}
+
+	/**
+	 * 容量
+	 * @return 容量
+	 */
+	public int getCapacity()
+	{
+		return mask + 1;
+	}
+
+	/**
+	 * 写入变更
+	 * @param type 变更类型：ADD、INSERT、REMOVE
+	 * @param cacheTableRow 变更的行
+	 * @param index 插入位置，只用于INSERT
+	 */
+	public void append(int type, ICacheTableRow cacheTableRow, int index)
+	{
+		append(type, cacheTableRow, index, null);
+	}
+
+	/**
+	 * 写入变更
+	 * @param type 变更类型：ADD、INSERT、REMOVE、FIELD_DATA_CHANGE
+	 * @param cacheTableRow 变更的行
+	 * @param index 插入位置，只用于INSERT
+	 * @param fieldName 改变的字段名，只用于FIELD_DATA_CHANGE
+	 */
+	public void append(int type, ICacheTableRow cacheTableRow, int index, String fieldName)
+	{
+		long changeSequence = sequence.getAndIncrement();
+		changes.set((int) (changeSequence & mask), new CacheTableChange(changeSequence, type, cacheTableRow, index, fieldName));
+	}
+
+	/**
+	 * 下一个变更的序号，即已写入(包括正在写入)的变更数量
+	 * @return 序号
+	 */
+	public long getSequence()
+	{
+		return sequence.get();
+	}
+
+	/**
+	 * 读取变更
+	 * @param changeSequence 变更序号
+	 * @return 变更，尚未写入完成时返回null；返回的变更序号大于要读取的序号时，表示该变更已被覆盖
+	 */
+	public CacheTableChange get(long changeSequence)
+	{
+		CacheTableChange cacheTableChange = changes.get((int) (changeSequence & mask));
+		if (cacheTableChange == null || cacheTableChange.sequence < changeSequence)
+			return null;
+		return cacheTableChange;
+	}
+
+	/**
+	 * 行变更
+	 */
+	protected final static class CacheTableChange
+	{
+		final long sequence;
+		final int type;
+		final ICacheTableRow cacheTableRow;
+		final int index;
+		final String fieldName;
+
+		CacheTableChange(long sequence, int type, ICacheTableRow cacheTableRow, int index, String fieldName)
+		{
+			this.sequence = sequence;
+			this.type = type;
+			this.cacheTableRow = cacheTableRow;
+			this.index = index;
+			this.fieldName = fieldName;
+		}
+	}
+}
@@ -1,352 +1,246 @@
 package base.data.cache.table;
 
+import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import base.types.JavaType;
 import base.types.SortType;
 
+/**
+ * 缓存表行排序比较
+ * 排序规则在创建时解析为字段名、数据值类型及排序方向数组，比较时不再逐次解析规则，比较对象不可变，可在多个线程间共用。
+ * 对行列表排序时使用sort方法，每行的排序字段数据只读取一次(行已绑定表结构时按字段句柄读取)，排序过程中只比较已读取的值，行数量达到并行阈值时并行排序。
+ * 排序字段数据为null或行不存在排序字段时，升序排在最前。
+ * @author Devin
+ *
+ */
 public class CacheTableComparator implements Comparator<ICacheTableRow>
 {
-	private int fieldNamesIndex = 0;
-	private int optionsIndex = 0;
-	private int sortResult = 0;
-	private JavaType javaType;
-	private SortType sortType;
-	private String fieldName;
-	private Object fieldValue1;
-	private Object fieldValue2;
-	private Object[] fieldNames;
-	private SortType[] options;
-	private String tableName;
+	/**
+	 * 缓存的排序比较对象最大数量，超出时清除
+	 */
+	private static final int MAX_CACHE_SIZE = 1024;
+
+	/**
+	 * 按表名及排序规则缓存的排序比较对象
+	 */
+	private static final ConcurrentHashMap<String, CacheTableComparator> comparators = new ConcurrentHashMap<String, CacheTableComparator>();
+
+	/**
+	 * 表名
+	 */
+	private final String tableName;
+
+	/**
+	 * 排序字段名列表
+	 */
+	private final String[] fieldNames;
+
+	/**
+	 * 各排序字段的数据值类型
+	 */
+	private final JavaType[] javaTypes;
+
+	/**
+	 * 各排序字段的排序方向，升序为1，降序为-1
+	 */
+	private final int[] directions;
 
+	/**
+	 * 缓存表行排序比较
+	 * @param tableName 表名
+	 * @param fieldNames 排序字段，格式：new Object[]{数据值类型(JavaType.xxx),字段名,数据值类型(JavaType.xxx),字段名,...}
+	 * @param options 排序规则，长度不足的部分默认为SortType.ASC
+	 */
 	public CacheTableComparator(String tableName, Object[] fieldNames, SortType[] options)
 	{
-		this.tableName=tableName;
-		this.fieldNames=fieldNames;
-		this.options=options;
+		this.tableName = tableName;
+		int length = fieldNames == null ? 0 : fieldNames.length / 2;
+		this.fieldNames = new String[length];
+		this.javaTypes = new JavaType[length];
+		this.directions = new int[length];
+		for (int i = 0; i < length; i++)
+		{
+			Object javaType = fieldNames[i * 2];
+			Object fieldName = fieldNames[i * 2 + 1];
+			if (!(javaType instanceof JavaType) || !(fieldName instanceof String))
+			{
+				Logger.getLogger(CacheTableComparator.class.getName()).log(Level.SEVERE, null, new Exception("缓存表 " + tableName + " 的排序规则格式错误，应为[数据值类型(JavaType.xxx),字段名,...]：" + Arrays.toString(fieldNames)));
+				javaType = null;
+			}
+			this.javaTypes[i] = (JavaType) javaType;
+			this.fieldNames[i] = String.valueOf(fieldName);
+			this.directions[i] = options != null && i < options.length && options[i] == SortType.DESC ? -1 : 1;
+		}
 	}
-	
+
 	/**
-	 * 排序比较值大于时处理
-	 * @param sortType 排序类型方式
-	 * @return
+	 * 取得缓存的排序比较对象，相同表名及排序规则只解析一次
+	 * @param tableName 表名
+	 * @param fieldNames 排序字段，格式：new Object[]{数据值类型(JavaType.xxx),字段名,数据值类型(JavaType.xxx),字段名,...}
+	 * @param options 排序规则，长度不足的部分默认为SortType.ASC
+	 * @return 排序比较对象
 	 */
-	private int greaterHandle(SortType sortType)
+	public static CacheTableComparator getComparator(String tableName, Object[] fieldNames, SortType[] options)
 	{
-		int sortRst = 0;
-		if (sortType == null)
-			sortType = SortType.ASC;
-		switch (sortType)
+		String key = tableName + Arrays.toString(fieldNames) + Arrays.toString(options);
+		CacheTableComparator cacheTableComparator = comparators.get(key);
+		if (cacheTableComparator == null)
 		{
-			case ASC:
-				sortRst = 1;
-				break;
-			case DESC:
-				sortRst = -1;
-				break;
-			default:
-				sortRst = 0;
-				break;
+			if (comparators.size() >= MAX_CACHE_SIZE)
+			{
+				comparators.clear();
+			}
+			cacheTableComparator = new CacheTableComparator(tableName, fieldNames, options);
+			comparators.put(key, cacheTableComparator);
 		}
-		return sortRst;
+		return cacheTableComparator;
 	}
 
 	/**
-	 * 排序比较值小于时处理
-	 * @param sortType 排序类型方式
-	 * @return
+	 * 排序比较方法
+	 * @param cacheTableRow1 比较字段1
+	 * @param cacheTableRow2 比较字段2
+	 * @return 排序比较值
 	 */
-	private int lessHandle(SortType sortType)
+	public int compare(ICacheTableRow cacheTableRow1, ICacheTableRow cacheTableRow2)
 	{
-		int sortRst = 0;
-		if (sortType == null)
-			sortType = SortType.ASC;
-		switch (sortType)
+		for (int i = 0; i < fieldNames.length; i++)
 		{
-			case ASC:
-				sortRst = -1;
-				break;
-			case DESC:
-				sortRst = 1;
-				break;
+			int result = compareValue(i, extract(i, cacheTableRow1), extract(i, cacheTableRow2));
+			if (result != 0)
+				return result * directions[i];
 		}
-		return sortRst;
+		return 0;
 	}
 
 	/**
-	 * 取得排序比较值
-	 * @param cacheTableRow1 比较字段1
-	 * @param cacheTableRow2 比较字段2
-	 * @return
+	 * 对行列表排序，先读取每行的排序字段数据，再按读取的值排序，排序过程中字段数据被修改不影响结果(稳定排序)
+	 * @param cacheTableRows 行列表
 	 */
-	private int getSort(ICacheTableRow cacheTableRow1, ICacheTableRow cacheTableRow2)
+	public void sort(List<ICacheTableRow> cacheTableRows)
 	{
-		sortResult = 0;
-		if (fieldNames.length - 1 >= fieldNamesIndex)
+		Object[][] sortRows = new Object[cacheTableRows.size()][];
+		CacheTableFieldHandle[] fieldHandles = getFieldHandles(cacheTableRows);
+		boolean isMissingField = false;
+		int index = 0;
+		for (ICacheTableRow cacheTableRow : cacheTableRows)
 		{
-			javaType = (JavaType) fieldNames[fieldNamesIndex++];
-			fieldName = (String) fieldNames[fieldNamesIndex++];
-			if(!cacheTableRow1.containsField(fieldName) || !cacheTableRow2.containsField(fieldName))
+			Object[] sortRow = new Object[fieldNames.length + 1];
+			sortRow[0] = cacheTableRow;
+			for (int i = 0; i < fieldNames.length; i++)
 			{
-				Logger.getLogger(CacheTable.class.getName()).log(Level.SEVERE, null, new Exception("缓存表 "+ tableName +" 在执行排序时，遇到不存在的字段 "+fieldName));
-				return sortResult;
+				Object value = fieldHandles[i] != null ? fieldHandles[i].getData(cacheTableRow) : extract(i, cacheTableRow);
+				if (value == null && !isMissingField && !cacheTableRow.containsField(fieldNames[i]))
+				{
+					Logger.getLogger(CacheTableComparator.class.getName()).log(Level.SEVERE, null, new Exception("缓存表 " + tableName + " 在执行排序时，遇到不存在的字段 " + fieldNames[i]));
+					isMissingField = true;
+				}
+				sortRow[i + 1] = value;
 			}
+			sortRows[index++] = sortRow;
+		}
+		CacheTableParallel.sort(sortRows, new Comparator<Object[]>()
+		{
+			public int compare(Object[] sortRow1, Object[] sortRow2)
+			{
+				for (int i = 0; i < fieldNames.length; i++)
+				{
+					int result = compareValue(i, sortRow1[i + 1], sortRow2[i + 1]);
+					if (result != 0)
+						return result * directions[i];
+				}
+				return 0;
+			}
+		});
+		ListIterator<ICacheTableRow> listIterator = cacheTableRows.listIterator();
+		for (Object[] sortRow : sortRows)
+		{
+			listIterator.next();
+			listIterator.set((ICacheTableRow) sortRow[0]);
+		}
+	}
 
-			fieldValue1 = cacheTableRow1.getFieldData(fieldName);
-			fieldValue2 = cacheTableRow2.getFieldData(fieldName);
-			sortType = options[optionsIndex++];
-
-			switch (javaType)
+	/**
+	 * 按首行绑定的表结构取得各排序字段的字段句柄，表结构中不存在的字段不取句柄
+	 * @param cacheTableRows 行列表
+	 * @return 字段句柄数组，无法取得句柄的字段为null
+	 */
+	private CacheTableFieldHandle[] getFieldHandles(List<ICacheTableRow> cacheTableRows)
+	{
+		CacheTableFieldHandle[] fieldHandles = new CacheTableFieldHandle[fieldNames.length];
+		CacheTableSchema schema = cacheTableRows.isEmpty() ? null : cacheTableRows.get(0).getSchema();
+		if (schema != null)
+		{
+			for (int i = 0; i < fieldNames.length; i++)
 			{
-				case INTEGER:
-				default:
-					int iValue1 = (int) fieldValue1;
-					int iValue2 = (int) fieldValue2;
-					if (iValue1 < iValue2)
-					{
-						sortResult = lessHandle(sortType);
-					}
-					else if (iValue1 > iValue2)
-					{
-						sortResult = greaterHandle(sortType);
-					}
-					else
-					{
-						if (fieldNames.length - 1 >= fieldNamesIndex)
-						{
-							getSort(cacheTableRow1, cacheTableRow2);
-						}
-						else
-						{
-							sortResult = 0;
-						}
-					}
-					break;
-				case BOOLEAN:
-					int bValue1 = (boolean) fieldValue1 ? 1 : 0;
-					int bValue2 = (boolean) fieldValue2 ? 1 : 0;
-					if (bValue1 < bValue2)
-					{
-						sortResult = lessHandle(sortType);
-					}
-					else if (bValue1 > bValue2)
-					{
-						sortResult = greaterHandle(sortType);
-					}
-					else
-					{
-						if (fieldNames.length - 1 >= fieldNamesIndex)
-						{
-							getSort(cacheTableRow1, cacheTableRow2);
-						}
-						else
-						{
-							sortResult = 0;
-						}
-					}
-					break;
-				case BYTE:
-					byte btValue1 = (byte) fieldValue1;
-					byte btValue2 = (byte) fieldValue2;
-					if (btValue1 < btValue2)
-					{
-						sortResult = lessHandle(sortType);
-					}
-					else if (btValue1 > btValue2)
-					{
-						sortResult = greaterHandle(sortType);
-					}
-					else
-					{
-						if (fieldNames.length - 1 >= fieldNamesIndex)
-						{
-							getSort(cacheTableRow1, cacheTableRow2);
-						}
-						else
-						{
-							sortResult = 0;
-						}
-					}
-					break;
-				case SHORT:
-					short sValue1 = (short) fieldValue1;
-					short sValue2 = (short) fieldValue2;
-					if (sValue1 < sValue2)
-					{
-						sortResult = lessHandle(sortType);
-					}
-					else if (sValue1 > sValue2)
-					{
-						sortResult = greaterHandle(sortType);
-					}
-					else
-					{
-						if (fieldNames.length - 1 >= fieldNamesIndex)
-						{
-							getSort(cacheTableRow1, cacheTableRow2);
-						}
-						else
-						{
-							sortResult = 0;
-						}
-					}
-					break;
-				case LONG:
-					long lValue1 = (long) fieldValue1;
-					long lValue2 = (long) fieldValue2;
-					if (lValue1 < lValue2)
-					{
-						sortResult = lessHandle(sortType);
-					}
-					else if (lValue1 > lValue2)
-					{
-						sortResult = greaterHandle(sortType);
-					}
-					else
-					{
-						if (fieldNames.length - 1 >= fieldNamesIndex)
-						{
-							getSort(cacheTableRow1, cacheTableRow2);
-						}
-						else
-						{
-							sortResult = 0;
-						}
-					}
-					break;
-				case DOUBLE:
-					double dValue1 = (double) fieldValue1;
-					double dValue2 = (double) fieldValue2;
-					if (dValue1 < dValue2)
-					{
-						sortResult = lessHandle(sortType);
-					}
-					else if (dValue1 > dValue2)
-					{
-						sortResult = greaterHandle(sortType);
-					}
-					else
-					{
-						if (fieldNames.length - 1 >= fieldNamesIndex)
-						{
-							getSort(cacheTableRow1, cacheTableRow2);
-						}
-						else
-						{
-							sortResult = 0;
-						}
-					}
-					break;
-				case FLOAT:
-					float fValue1 = (float) fieldValue1;
-					float fValue2 = (float) fieldValue2;
-					if (fValue1 < fValue2)
-					{
-						sortResult = lessHandle(sortType);
-					}
-					else if (fValue1 > fValue2)
-					{
-						sortResult = greaterHandle(sortType);
-					}
-					else
-					{
-						if (fieldNames.length - 1 >= fieldNamesIndex)
-						{
-							getSort(cacheTableRow1, cacheTableRow2);
-						}
-						else
-						{
-							sortResult = 0;
-						}
-					}
-					break;
-				case CHAR:
-					char cValue1 = (char) fieldValue1;
-					char cValue2 = (char) fieldValue2;
-					if (cValue1 < cValue2)
-					{
-						sortResult = lessHandle(sortType);
-					}
-					else if (cValue1 > cValue2)
-					{
-						sortResult = greaterHandle(sortType);
-					}
-					else
-					{
-						if (fieldNames.length - 1 >= fieldNamesIndex)
-						{
-							getSort(cacheTableRow1, cacheTableRow2);
-						}
-						else
-						{
-							sortResult = 0;
-						}
-					}
-					break;
-				case STRING:
-					String strValue1 = (String) fieldValue1;
-					String strValue2 = (String) fieldValue2;
-					if (strValue1.compareTo(strValue2) < 0)
-					{
-						sortResult = lessHandle(sortType);
-					}
-					else if (strValue1.compareTo(strValue2) > 0)
-					{
-						sortResult = greaterHandle(sortType);
-					}
-					else
-					{
-						if (fieldNames.length - 1 >= fieldNamesIndex)
-						{
-							getSort(cacheTableRow1, cacheTableRow2);
-						}
-						else
-						{
-							sortResult = 0;
-						}
-					}
-					break;
-				case DATE:
-					long dateValue1 = ((Date) fieldValue1).getTime();
-					long dateValue2 = ((Date) fieldValue2).getTime();
-					if (dateValue1 < dateValue2)
-					{
-						sortResult = lessHandle(sortType);
-					}
-					else if (dateValue1 > dateValue2)
-					{
-						sortResult = greaterHandle(sortType);
-					}
-					else
-					{
-						if (fieldNames.length - 1 >= fieldNamesIndex)
-						{
-							getSort(cacheTableRow1, cacheTableRow2);
-						}
-						else
-						{
-							sortResult = 0;
-						}
-					}
-					break;
+				if (schema.getSlot(fieldNames[i]) >= 0)
+				{
+					fieldHandles[i] = schema.getFieldHandle(fieldNames[i]);
+				}
 			}
 		}
-		return sortResult;
+		return fieldHandles;
 	}
 
 	/**
-	 * 排序比较方法
-	 * @param cacheTableRow1 比较字段1
-	 * @param cacheTableRow2 比较字段2
-	 * @return 排序比较值
+	 * 读取行的排序字段数据
+	 * @param fieldIndex 排序字段索引
+	 * @param cacheTableRow 行数据
+	 * @return 字段数据，行不存在该字段时返回null
 	 */
-	public int compare(ICacheTableRow cacheTableRow1, ICacheTableRow cacheTableRow2)
+	private Object extract(int fieldIndex, ICacheTableRow cacheTableRow)
+	{
+		return cacheTableRow.getFieldData(fieldNames[fieldIndex]);
+	}
+
+	/**
+	 * 按排序字段的数据值类型比较(升序)
+	 * @param fieldIndex 排序字段索引
+	 * @param value1 字段数据1
+	 * @param value2 字段数据2
+	 * @return 小于返回负数，相等返回0，大于返回正数
+	 */
+	private int compareValue(int fieldIndex, Object value1, Object value2)
 	{
-		fieldNamesIndex = 0;
-		optionsIndex = 0;
-		return getSort(cacheTableRow1, cacheTableRow2);
+		if (value1 == value2)
+			return 0;
+		if (value1 == null)
+			return -1;
+		if (value2 == null)
+			return 1;
+		JavaType javaType = javaTypes[fieldIndex];
+		if (javaType == null)
+			return CacheTableIndexKey.compareValue(value1, value2);
+		switch (javaType)
+		{
+			case BOOLEAN:
+				return Boolean.compare((Boolean) value1, (Boolean) value2);
+			case BYTE:
+			case SHORT:
+			case INTEGER:
+			case LONG:
+				return Long.compare(((Number) value1).longValue(), ((Number) value2).longValue());
+			case FLOAT:
+			case DOUBLE:
+				return Double.compare(((Number) value1).doubleValue(), ((Number) value2).doubleValue());
+			case CHAR:
+				return Character.compare((Character) value1, (Character) value2);
+			case STRING:
+				return ((String) value1).compareTo((String) value2);
+			case DATE:
+				return Long.compare(((Date) value1).getTime(), ((Date) value2).getTime());
+			case BIGDECIMAL:
+				return ((BigDecimal) value1).compareTo((BigDecimal) value2);
+			default:
+				return CacheTableIndexKey.compareValue(value1, value2);
+		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,487 @@
+package base.data.cache.table;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import base.data.DataFactory;
+import base.timer.TimerController;
+import base.utils.DataUtil;
+
+/**
+ * 缓存表的指定字段新CacheTable(派生表)集合
+ * 同步派生表在父表增加、插入、移除行时直接更新；异步派生表(最大延迟时间大于0)只在父表写入一次变更日志，
+ * 由计时器按最大延迟时间批量应用到各异步派生表，父表写入的开销与异步派生表的数量无关。
+ * 派生行持有父表行字段数据的副本，父表行字段数据的修改同样按同步或变更日志应用到派生行。
+ * 异步派生表落后超过变更日志容量时，按父表当前的行重新同步。
+ * @author Devin
+ *
+ */
+public class CacheTableDerivedTables
+{
+	/**
+	 * 变更日志默认容量
+	 */
+	public final static int DEFAULT_CHANGE_LOG_CAPACITY = 65536;
+
+	/**
+	 * 每批应用的最大变更数量
+	 */
+	private final static int APPLY_BATCH_SIZE = 4096;
+
+	/**
+	 * 计时器名称
+	 */
+	private final static String TIMER_NAME = "CacheTableDerivedTables";
+
+	/**
+	 * 父表
+	 */
+	private final ICacheTable cacheTable;
+
+	/**
+	 * 派生表集合，key为派生表名
+	 */
+	private final ConcurrentHashMap<String, DerivedTable> derivedTables = new ConcurrentHashMap<String, DerivedTable>();
+
+	/**
+	 * 异步派生表的变更日志，存在异步派生表时才创建
+	 */
+	private volatile CacheTableChangeLog changeLog;
+
+	/**
+	 * 异步派生表数量
+	 */
+	private volatile int asyncCount;
+
+	/**
+	 * 应用变更锁，同一时间只有一个线程应用变更
+	 */
+	private final ReentrantLock applyLock = new ReentrantLock();
+
+	/**
+	 * 应用变更的计时器任务
+	 */
+	private CacheTableDerivedTablesTask cacheTableDerivedTablesTask;
+
+	/**
+	 * 当前计时器任务的执行间隔
+	 */
+	private long period;
+
+	/**
+	 * 缓存表的派生表集合
+	 * @param cacheTable 父表
+	 */
+	public CacheTableDerivedTables(ICacheTable cacheTable)
+	{
+		this.cacheTable = cacheTable;
+	}
+
+	/**
+	 * 创建派生表，需在父表写锁内调用，以保证复制的行与之后的变更不重叠
+	 * @param name 派生表名
+	 * @param primaryKeyFieldName 表主键字段名
+	 * @param keyFieldNameGroups 集合键字段名列表组
+	 * @param fieldNames 指定字段名列表，字段需存在于父表中
+	 * @param maxStaleness 最大延迟时间(毫秒)，小于等于0时同步更新
+	 * @param rows 父表当前的行
+	 * @return 创建成功返回派生表，否则返回null
+	 */
+	public synchronized ICacheTable create(String name, String primaryKeyFieldName, String[][] keyFieldNameGroups, String[] fieldNames, long maxStaleness, Collection<ICacheTableRow> rows)
+	{
+		if (derivedTables.containsKey(name))
+		{
+			Logger.getLogger(CacheTableDerivedTables.class.getName()).log(Level.SEVERE, null, new Exception("在已有的CacheTable新创建指定字段的CacheTable时出现已有相同名称错误，错误CacheTable：" + cacheTable.getName() + "，新建CacheTable：" + name));
+			return null;
+		}
+
+		for (ICacheTableRow cacheTableRow : rows)
+		{
+			for (String fieldName : fieldNames)
+			{
+				if (!cacheTableRow.containsField(fieldName))
+				{
+					Logger.getLogger(CacheTableDerivedTables.class.getName()).log(Level.SEVERE, null, new Exception("在已有的CacheTable新创建指定字段的CacheTable时出现行不存在相应字段名的错误，错误CacheTable：" + cacheTable.getName() + "，新建CacheTable：" + name + "，字段名：" + fieldName));
+					return null;
+				}
+			}
+		}
+
+		DerivedTable derivedTable = new DerivedTable(DataFactory.cacheController().createCacheTable(name, primaryKeyFieldName, keyFieldNameGroups), fieldNames, maxStaleness);
+		for (ICacheTableRow cacheTableRow : rows)
+		{
+			derivedTable.add(cacheTableRow, -1);
+		}
+		if (derivedTable.maxStaleness > 0)
+		{
+			if (changeLog == null)
+			{
+				changeLog = new CacheTableChangeLog(DEFAULT_CHANGE_LOG_CAPACITY);
+			}
+			derivedTable.appliedSequence = changeLog.getSequence();
+			schedule(derivedTable.maxStaleness);
+			asyncCount++;
+		}
+		derivedTables.put(name, derivedTable);
+		return derivedTable.cacheTable;
+	}
+
+	/**
+	 * 按最小的最大延迟时间安排应用变更的计时器任务
+	 * @param maxStaleness 最大延迟时间(毫秒)
+	 */
+	private void schedule(long maxStaleness)
+	{
+		long newPeriod = Math.max(1, maxStaleness / 2);
+		if (cacheTableDerivedTablesTask != null && period <= newPeriod)
+			return;
+		if (cacheTableDerivedTablesTask != null)
+		{
+			cacheTableDerivedTablesTask.dispose();
+		}
+		period = newPeriod;
+		cacheTableDerivedTablesTask = new CacheTableDerivedTablesTask(this);
+		TimerController.timer(TIMER_NAME, cacheTableDerivedTablesTask, period, period);
+	}
+
+	/**
+	 * 父表增加行
+	 * @param cacheTableRow 行数据
+	 */
+	public void add(ICacheTableRow cacheTableRow)
+	{
+		insert(cacheTableRow, -1);
+	}
+
+	/**
+	 * 父表插入行
+	 * @param cacheTableRow 行数据
+	 * @param index 插入的索引，为-1时表示增加到末尾
+	 */
+	public void insert(ICacheTableRow cacheTableRow, int index)
+	{
+		if (derivedTables.isEmpty())
+			return;
+		if (asyncCount > 0)
+		{
+			changeLog.append(index < 0 ? CacheTableChangeLog.ADD : CacheTableChangeLog.INSERT, cacheTableRow, index);
+		}
+		if (asyncCount < derivedTables.size())
+		{
+			for (DerivedTable derivedTable : derivedTables.values())
+			{
+				if (derivedTable.maxStaleness <= 0)
+				{
+					derivedTable.add(cacheTableRow, index);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 父表移除行
+	 * @param cacheTableRow 行数据
+	 */
+	public void remove(ICacheTableRow cacheTableRow)
+	{
+		if (derivedTables.isEmpty())
+			return;
+		if (asyncCount > 0)
+		{
+			changeLog.append(CacheTableChangeLog.REMOVE, cacheTableRow, -1);
+		}
+		if (asyncCount < derivedTables.size())
+		{
+			for (DerivedTable derivedTable : derivedTables.values())
+			{
+				if (derivedTable.maxStaleness <= 0)
+				{
+					derivedTable.remove(cacheTableRow);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 父表行的字段数据改变
+	 * @param cacheTableRow 行数据
+	 * @param fieldName 改变的字段名
+	 */
+	public void fieldDataChange(ICacheTableRow cacheTableRow, String fieldName)
+	{
+		if (derivedTables.isEmpty())
+			return;
+		if (asyncCount > 0)
+		{
+			changeLog.append(CacheTableChangeLog.FIELD_DATA_CHANGE, cacheTableRow, -1, fieldName);
+		}
+		if (asyncCount < derivedTables.size())
+		{
+			for (DerivedTable derivedTable : derivedTables.values())
+			{
+				if (derivedTable.maxStaleness <= 0)
+				{
+					derivedTable.fieldDataChange(cacheTableRow, fieldName);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 将变更日志中未应用的变更批量应用到各异步派生表
+	 */
+	public void apply()
+	{
+		CacheTableChangeLog changeLog = this.changeLog;
+		if (changeLog == null)
+			return;
+		applyLock.lock();
+		try
+		{
+			for (DerivedTable derivedTable : derivedTables.values())
+			{
+				if (derivedTable.maxStaleness > 0)
+				{
+					apply(changeLog, derivedTable);
+				}
+			}
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheTableDerivedTables.class.getName()).log(Level.SEVERE, null, e);
+		}
+		finally
+		{
+			applyLock.unlock();
+		}
+	}
+
+	/**
+	 * 将变更日志中未应用的变更批量应用到指定派生表，遇到尚未写入完成的变更时停止，落后超过日志容量时重新同步
+	 * @param changeLog 变更日志
+	 * @param derivedTable 派生表
+	 */
+	private void apply(CacheTableChangeLog changeLog, DerivedTable derivedTable)
+	{
+		long sequence = changeLog.getSequence();
+		while (derivedTable.appliedSequence < sequence)
+		{
+			if (sequence - derivedTable.appliedSequence > changeLog.getCapacity())
+			{
+				rebuild(changeLog, derivedTable);
+				return;
+			}
+			long batchEnd = Math.min(sequence, derivedTable.appliedSequence + APPLY_BATCH_SIZE);
+			for (long i = derivedTable.appliedSequence; i < batchEnd; i++)
+			{
+				CacheTableChangeLog.CacheTableChange cacheTableChange = changeLog.get(i);
+				if (cacheTableChange == null)
+					return;// 该变更尚未写入完成，下次再应用
+				if (cacheTableChange.sequence != i)
+				{
+					rebuild(changeLog, derivedTable);
+					return;
+				}
+				switch (cacheTableChange.type)
+				{
+					case CacheTableChangeLog.ADD:
+						derivedTable.add(cacheTableChange.cacheTableRow, -1);
+						break;
+					case CacheTableChangeLog.INSERT:
+						derivedTable.add(cacheTableChange.cacheTableRow, cacheTableChange.index);
+						break;
+					case CacheTableChangeLog.REMOVE:
+						derivedTable.remove(cacheTableChange.cacheTableRow);
+						break;
+					case CacheTableChangeLog.FIELD_DATA_CHANGE:
+						derivedTable.fieldDataChange(cacheTableChange.cacheTableRow, cacheTableChange.fieldName);
+						break;
+				}
+				derivedTable.appliedSequence = i + 1;
+			}
+		}
+	}
+
+	/**
+	 * 按父表当前的行重新同步派生表
+	 * 先记录变更日志序号再复制父表的行，之后重复应用的增加、移除变更会按派生行映射忽略
+	 * @param changeLog 变更日志
+	 * @param derivedTable 派生表
+	 */
+	private void rebuild(CacheTableChangeLog changeLog, final DerivedTable derivedTable)
+	{
+		Logger.getLogger(CacheTableDerivedTables.class.getName()).log(Level.WARNING, "CacheTable：" + cacheTable.getName() + " 的派生表：" + derivedTable.cacheTable.getName() + " 落后超过变更日志容量，重新同步");
+		derivedTable.appliedSequence = changeLog.getSequence();
+		derivedTable.clear();
+		cacheTable.forEachRow(new ICacheTableRowHandler()
+		{
+			public void handle(ICacheTableRow cacheTableRow)
+			{
+				derivedTable.add(cacheTableRow, -1);
+			}
+		}, false);
+	}
+
+	/**
+	 * 等待指定派生表应用完当前所有变更
+	 * @param name 派生表名
+	 * @param timeout 最长等待时间(毫秒)
+	 * @return 在等待时间内应用完成返回true，派生表不存在或超时返回false
+	 */
+	public boolean await(String name, long timeout)
+	{
+		DerivedTable derivedTable = derivedTables.get(name);
+		if (derivedTable == null)
+			return false;
+		if (derivedTable.maxStaleness <= 0)
+			return true;
+		long sequence = changeLog.getSequence();
+		long deadline = System.currentTimeMillis() + timeout;
+		while (true)
+		{
+			apply();
+			if (derivedTable.appliedSequence >= sequence)
+				return true;
+			if (System.currentTimeMillis() >= deadline)
+				return false;
+			Thread.yield();
+		}
+	}
+
+	/**
+	 * 派生表数量
+	 * @return 数量
+	 */
+	public int size()
+	{
+		return derivedTables.size();
+	}
+
+	/**
+	 * 释放，取消计时器任务并清除派生表集合(不释放派生表)
+	 */
+	public synchronized void dispose()
+	{
+		if (cacheTableDerivedTablesTask != null)
+		{
+			cacheTableDerivedTablesTask.dispose();
+			cacheTableDerivedTablesTask = null;
+		}
+		derivedTables.clear();
+		asyncCount = 0;
+		changeLog = null;
+	}
+
+	/**
+	 * 派生表
+	 */
+	private static class DerivedTable
+	{
+		/**
+		 * 派生表
+		 */
+		final ICacheTable cacheTable;
+
+		/**
+		 * 指定字段名列表
+		 */
+		final String[] fieldNames;
+
+		/**
+		 * 最大延迟时间(毫秒)，小于等于0时同步更新
+		 */
+		final long maxStaleness;
+
+		/**
+		 * 父表行对应的派生行，用于移除及忽略重复应用的变更
+		 */
+		final ConcurrentHashMap<ICacheTableRow, ICacheTableRow> rows = new ConcurrentHashMap<ICacheTableRow, ICacheTableRow>();
+
+		/**
+		 * 已应用的变更日志序号
+		 */
+		volatile long appliedSequence;
+
+		DerivedTable(ICacheTable cacheTable, String[] fieldNames, long maxStaleness)
+		{
+			this.cacheTable = cacheTable;
+			this.fieldNames = fieldNames;
+			this.maxStaleness = maxStaleness;
+		}
+
+		/**
+		 * 增加(或插入)父表行对应的派生行，已存在时忽略
+		 * @param cacheTableRow 父表行
+		 * @param index 插入的索引，为-1时表示增加到末尾
+		 */
+		void add(ICacheTableRow cacheTableRow, int index)
+		{
+			if (rows.containsKey(cacheTableRow) || cacheTableRow.getFields() == null)
+				return;// 已存在或父表行已移除并释放
+			ICacheTableRow newCacheTableRow = DataUtil.cacheTableRow();
+			for (String fieldName : fieldNames)
+			{
+				ICacheTableField cacheTableField = cacheTableRow.getField(fieldName);
+				if (cacheTableField != null)
+				{
+					newCacheTableRow.addField(fieldName, DataUtil.cacheTableField(cacheTableField.getData(), cacheTableField.getJavaType()));
+				}
+				else
+				{
+					Logger.getLogger(CacheTableDerivedTables.class.getName()).log(Level.SEVERE, null, new Exception("在已有的CacheTable新创建指定字段的CacheTable中，加入新行时出现行不存在相应字段名的错误，新建CacheTable：" + cacheTable.getName() + "，字段名：" + fieldName));
+				}
+			}
+			rows.put(cacheTableRow, newCacheTableRow);
+			if (index < 0)
+			{
+				cacheTable.addRow(newCacheTableRow);
+			}
+			else
+			{
+				cacheTable.insertRow(newCacheTableRow, Math.min(index, cacheTable.getRowSize()));
+			}
+		}
+
+		/**
+		 * 移除父表行对应的派生行
+		 * @param cacheTableRow 父表行
+		 */
+		void remove(ICacheTableRow cacheTableRow)
+		{
+			ICacheTableRow newCacheTableRow = rows.remove(cacheTableRow);
+			if (newCacheTableRow != null)
+			{
+				cacheTable.removeRow(newCacheTableRow);
+			}
+		}
+
+		/**
+		 * 将父表行改变后的字段数据写入对应的派生行，父表行已移除或不属于指定字段时忽略
+		 * @param cacheTableRow 父表行
+		 * @param fieldName 改变的字段名
+		 */
+		void fieldDataChange(ICacheTableRow cacheTableRow, String fieldName)
+		{
+			ICacheTableRow newCacheTableRow = rows.get(cacheTableRow);
+			if (newCacheTableRow == null || cacheTableRow.getFields() == null)
+				return;// 派生行不存在或父表行已移除并释放
+			ICacheTableField newCacheTableField = newCacheTableRow.getField(fieldName);
+			ICacheTableField cacheTableField = cacheTableRow.getField(fieldName);
+			if (newCacheTableField == null || cacheTableField == null)
+				return;
+			newCacheTableField.setData(cacheTableField.getData());
+		}
+
+		/**
+		 * 清除派生表的所有行
+		 */
+		void clear()
+		{
+			rows.clear();
+			cacheTable.clear();
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package base.data.cache.table;
+
+import base.timer.TimerTask;
+
+public class CacheTableDerivedTablesTask extends TimerTask
+{
+	private CacheTableDerivedTables cacheTableDerivedTables;
+
+	public CacheTableDerivedTablesTask(CacheTableDerivedTables cacheTableDerivedTables)
+	{
+		this.cacheTableDerivedTables = cacheTableDerivedTables;
+	}
+
+	@Override
+	public void run()
+	{
+		CacheTableDerivedTables cacheTableDerivedTables = this.cacheTableDerivedTables;
+		if (cacheTableDerivedTables != null)
+		{
+			cacheTableDerivedTables.apply();
+		}
+	}
+
+	public synchronized void dispose()
+	{
+		cancel();
+		cacheTableDerivedTables = null;
+	}
+}
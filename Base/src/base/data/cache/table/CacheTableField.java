@@ -164,6 +164,15 @@ public class CacheTableField implements ICacheTableField
 	 */
 	public void setIsChange(boolean isChange)
 	{
+		if (isChange)
+		{// 无论原状态如何都标记行的已更改字段位图，写入数据库时可能已取出位图但尚未清除字段的更改状态
+			ICacheTableRow cacheTableRow = this.cacheTableRow;
+			CacheTableSchema schema = cacheTableRow != null ? cacheTableRow.getSchema() : null;
+			if (schema != null)
+			{
+				cacheTableRow.setFieldDirty(schema.getSlot(fieldName));
+			}
+		}
 		lock.writeLock().lock();
 		try
 		{
@@ -294,6 +303,7 @@ public class CacheTableField implements ICacheTableField
 	 */
 	public <T> void setData(T data, boolean isChangeSaveFlag)
 	{
+		ICacheTableRow changeCacheTableRow = null;
 		lock.writeLock().lock();
 		try
 		{
@@ -358,6 +368,7 @@ public class CacheTableField implements ICacheTableField
 			this.data = data;
 			this.isChangeSaveFlag=isChangeSaveFlag;
 			this.setIsChange(true);
+			changeCacheTableRow = cacheTableRow;
 		}
 		catch (Exception e)
 		{
@@ -367,6 +378,10 @@ public class CacheTableField implements ICacheTableField
 		{
 			lock.writeLock().unlock();
 		}
+		if (changeCacheTableRow != null)
+		{// 在字段锁之外通知行，由行所在的表维护索引
+			changeCacheTableRow.fieldDataChange(fieldName);
+		}
 	}
 	
 	/**
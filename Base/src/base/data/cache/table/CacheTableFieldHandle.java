@@ -0,0 +1,105 @@
+package base.data.cache.table;
+
+/**
+ * 缓存表字段句柄
+ * 字段名在创建时解析为表结构中的槽位，读取行绑定的表结构与句柄相同时按槽位读取，否则按字段名读取。
+ * 句柄不可变，可在多个线程间共用。
+ * @author Devin
+ *
+ */
+public final class CacheTableFieldHandle
+{
+	/**
+	 * 表结构
+	 */
+	private final CacheTableSchema schema;
+
+	/**
+	 * 字段槽位
+	 */
+	private final int slot;
+
+	/**
+	 * 字段名
+	 */
+	private final String fieldName;
+
+	/**
+	 * 缓存表字段句柄
+	 * @param schema 表结构
+	 * @param slot 字段槽位
+	 * @param fieldName 字段名
+	 */
+	public CacheTableFieldHandle(CacheTableSchema schema, int slot, String fieldName)
+	{
+		this.schema = schema;
+		this.slot = slot;
+		this.fieldName = fieldName;
+	}
+
+	/**
+	 * 表结构
+	 * @return schema
+	 */
+	public CacheTableSchema getSchema()
+	{
+		return schema;
+	}
+
+	/**
+	 * 字段槽位
+	 * @return slot
+	 */
+	public int getSlot()
+	{
+		return slot;
+	}
+
+	/**
+	 * 字段名
+	 * @return fieldName
+	 */
+	public String getFieldName()
+	{
+		return fieldName;
+	}
+
+	/**
+	 * 取得行的字段单元
+	 * @param cacheTableRow 行数据
+	 * @return 字段单元，行不存在该字段时返回null
+	 */
+	public ICacheTableField getField(ICacheTableRow cacheTableRow)
+	{
+		if (cacheTableRow.getSchema() == schema)
+			return cacheTableRow.getField(slot);
+		return cacheTableRow.getField(fieldName);
+	}
+
+	/**
+	 * 取得行的字段单元数据
+	 * @param cacheTableRow 行数据
+	 * @return 字段单元数据，行不存在该字段时返回null
+	 */
+	public <T> T getData(ICacheTableRow cacheTableRow)
+	{
+		if (cacheTableRow.getSchema() == schema)
+			return cacheTableRow.getFieldData(slot);
+		return cacheTableRow.getFieldData(fieldName);
+	}
+
+	/**
+	 * 行是否存在该字段
+	 * @param cacheTableRow 行数据
+	 * @return 存在返回true
+	 */
+	public boolean contains(ICacheTableRow cacheTableRow)
+	{
+		return getField(cacheTableRow) != null;
+	}
+
+	public String toString()
+	{
+		return fieldName + "#" + slot;
+	}
+}
@@ -0,0 +1,107 @@
+package base.data.cache.table;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Vector;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 缓存表哈希索引
+ * 以类型化的复合键做为哈希表的键，为索引字段的每一级前缀各建立一个哈希表，
+ * 可按全部字段或前面部分字段的值直接查找，查找代价与表行数量无关。
+ * @author Devin
+ *
+ */
+public class CacheTableHashIndex extends CacheTableIndex
+{
+	/**
+	 * 各级前缀的哈希表，第i级的键由前i+1个字段值组成
+	 */
+	private final ArrayList<HashMap<CacheTableIndexKey, Vector<ICacheTableRow>>> levels = new ArrayList<HashMap<CacheTableIndexKey, Vector<ICacheTableRow>>>();
+
+	public CacheTableHashIndex()
+	{
+	}
+
+	/**
+	 * 缓存表哈希索引
+	 * @param fieldNames 索引字段名列表，值不能为空
+	 */
+	public void init(String[] fieldNames)
+	{
+		super.init(fieldNames);
+		levels.clear();
+		for (int i = 0; i < fieldNames.length; i++)
+		{
+			levels.add(new HashMap<CacheTableIndexKey, Vector<ICacheTableRow>>());
+		}
+	}
+
+	/**
+	 * 哈希索引不是有序索引
+	 * @return false
+	 */
+	public boolean isSorted()
+	{
+		return false;
+	}
+
+	/**
+	 * 哈希索引不支持范围查找
+	 * @return null
+	 */
+	public Vector<ICacheTableRow> getRows(Object[] fromValues, boolean fromInclusive, Object[] toValues, boolean toInclusive)
+	{
+		Logger.getLogger(CacheTableHashIndex.class.getName()).log(Level.SEVERE, null, new Exception(name + " 哈希索引不支持范围查找，请建立有序索引。"));
+		return null;
+	}
+
+	protected void link(ICacheTableRow cacheTableRow, CacheTableIndexKey cacheTableIndexKey, int index)
+	{
+		for (int i = 0; i < levels.size(); i++)
+		{
+			HashMap<CacheTableIndexKey, Vector<ICacheTableRow>> level = levels.get(i);
+			CacheTableIndexKey levelKey = cacheTableIndexKey.prefix(i + 1);
+			Vector<ICacheTableRow> cacheTableRows = level.get(levelKey);
+			if (cacheTableRows == null)
+			{
+				cacheTableRows = new Vector<ICacheTableRow>(4);
+				level.put(levelKey, cacheTableRows);
+			}
+			addToRows(cacheTableRows, cacheTableRow, index);
+		}
+	}
+
+	protected void unlink(ICacheTableRow cacheTableRow, CacheTableIndexKey cacheTableIndexKey)
+	{
+		for (int i = 0; i < levels.size(); i++)
+		{
+			HashMap<CacheTableIndexKey, Vector<ICacheTableRow>> level = levels.get(i);
+			CacheTableIndexKey levelKey = cacheTableIndexKey.prefix(i + 1);
+			Vector<ICacheTableRow> cacheTableRows = level.get(levelKey);
+			if (cacheTableRows != null)
+			{
+				cacheTableRows.remove(cacheTableRow);
+				if (cacheTableRows.isEmpty())
+				{// 没有行的键直接移除，不保留空结构
+					level.remove(levelKey);
+				}
+			}
+		}
+	}
+
+	protected Vector<ICacheTableRow> find(CacheTableIndexKey cacheTableIndexKey)
+	{
+		Vector<ICacheTableRow> cacheTableRows = levels.get(cacheTableIndexKey.size() - 1).get(cacheTableIndexKey);
+		return cacheTableRows == null ? null : new Vector<ICacheTableRow>(cacheTableRows);
+	}
+
+	protected void clearEntries()
+	{
+		for (HashMap<CacheTableIndexKey, Vector<ICacheTableRow>> level : levels)
+		{
+			level.clear();
+		}
+	}
+}
@@ -0,0 +1,456 @@
+package base.data.cache.table;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Vector;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 缓存表索引基类
+ * 负责由行读取索引键、记录行当前所在的索引键，以及将字符串等查找值转换为字段值的类型，
+ * 键与行的具体组织方式由子类实现。
+ * 加入、插入及更新行时在索引写锁内读取行字段数据(加锁顺序为索引锁、字段锁)，使并发的更新按加锁顺序应用最新的字段数据；
+ * 字段数据在字段锁释放后才通知改变，持有字段锁时不会再请求索引锁，因此不会反向加锁。
+ * @author Devin
+ *
+ */
+public abstract class CacheTableIndex implements ICacheTableIndex
+{
+	/**
+	 * 线程读写锁
+	 */
+	protected final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * 索引名
+	 */
+	protected String name;
+
+	/**
+	 * 索引字段名列表
+	 */
+	protected String[] fieldNames;
+
+	/**
+	 * 各索引字段值规范化后的类型，由加入的行确定
+	 */
+	private volatile Class<?>[] fieldTypes;
+
+	/**
+	 * 行当前所在的索引键
+	 */
+	protected HashMap<ICacheTableRow, CacheTableIndexKey> rowKeys = new HashMap<ICacheTableRow, CacheTableIndexKey>();
+
+	/**
+	 * 缓存表索引
+	 * @param fieldNames 索引字段名列表，值不能为空
+	 */
+	public void init(String[] fieldNames)
+	{
+		this.fieldNames = fieldNames.clone();
+		this.name = getIndexName(fieldNames);
+		this.fieldTypes = new Class<?>[fieldNames.length];
+	}
+
+	/**
+	 * 索引名
+	 * @return name
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * 索引字段名列表
+	 * @return fieldNames
+	 */
+	public String[] getFieldNames()
+	{
+		return fieldNames.clone();
+	}
+
+	/**
+	 * 索引是否包含指定的字段
+	 * @param fieldName 字段名
+	 * @return 包含返回true，否则返回false
+	 */
+	public boolean containsField(String fieldName)
+	{
+		for (String indexFieldName : fieldNames)
+		{
+			if (indexFieldName.equals(fieldName))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 行是否已加入索引
+	 * @param cacheTableRow 行数据
+	 * @return 已加入返回true，否则返回false
+	 */
+	public boolean containsRow(ICacheTableRow cacheTableRow)
+	{
+		lock.readLock().lock();
+		try
+		{
+			return rowKeys.containsKey(cacheTableRow);
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * 将行加入索引
+	 * @param cacheTableRow 行数据
+	 * @return 加入成功返回true，行未包含所有索引字段时返回false
+	 */
+	public boolean add(ICacheTableRow cacheTableRow)
+	{
+		return insert(cacheTableRow, -1);
+	}
+
+	/**
+	 * 将行插入索引，相同键值的行按插入位置排列
+	 * @param cacheTableRow 行数据
+	 * @param index 插入位置，值小于0或超出相同键值行的数量时加入到最后
+	 * @return 插入成功返回true，行未包含所有索引字段时返回false
+	 */
+	public boolean insert(ICacheTableRow cacheTableRow, int index)
+	{
+		lock.writeLock().lock();
+		try
+		{// 在索引锁内读取索引键，字段数据在加入索引后才改变时，其更新通知会等待此锁后重新读取
+			CacheTableIndexKey cacheTableIndexKey = readKey(cacheTableRow);
+			if (cacheTableIndexKey == null)
+				return false;
+			if (rowKeys.containsKey(cacheTableRow))
+				return true;
+			rowKeys.put(cacheTableRow, cacheTableIndexKey);
+			link(cacheTableRow, cacheTableIndexKey, index);
+			return true;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheTableIndex.class.getName()).log(Level.SEVERE, null, e);
+			return false;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 从索引中移除行
+	 * @param cacheTableRow 行数据
+	 * @return 行存在于索引中并移除返回true，否则返回false
+	 */
+	public boolean remove(ICacheTableRow cacheTableRow)
+	{
+		lock.writeLock().lock();
+		try
+		{
+			CacheTableIndexKey cacheTableIndexKey = rowKeys.remove(cacheTableRow);
+			if (cacheTableIndexKey == null)
+				return false;
+			unlink(cacheTableRow, cacheTableIndexKey);
+			return true;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheTableIndex.class.getName()).log(Level.SEVERE, null, e);
+			return false;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 行的索引字段数据改变后，按新的字段数据重新建立行的索引，行不再包含所有索引字段时从索引中移除
+	 * @param cacheTableRow 行数据
+	 * @return 行存在于索引中返回true，否则返回false
+	 */
+	public boolean update(ICacheTableRow cacheTableRow)
+	{
+		lock.writeLock().lock();
+		try
+		{// 在索引锁内读取索引键，并发的更新按加锁顺序应用，最后应用的必定为最新的字段数据；字段数据在字段锁释放后才通知，不会反向加锁
+			CacheTableIndexKey cacheTableIndexKey = readKey(cacheTableRow);
+			CacheTableIndexKey oldCacheTableIndexKey = rowKeys.get(cacheTableRow);
+			if (oldCacheTableIndexKey == null)
+				return false;
+			if (oldCacheTableIndexKey.equals(cacheTableIndexKey))
+				return true;
+			unlink(cacheTableRow, oldCacheTableIndexKey);
+			if (cacheTableIndexKey == null)
+			{
+				rowKeys.remove(cacheTableRow);
+			}
+			else
+			{
+				rowKeys.put(cacheTableRow, cacheTableIndexKey);
+				link(cacheTableRow, cacheTableIndexKey, -1);
+			}
+			return true;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheTableIndex.class.getName()).log(Level.SEVERE, null, e);
+			return false;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 取得与键值列表相等的行列表
+	 * @param values 键值列表，可以只指定前面部分字段的值，值的类型与字段不同时(如字符串)将转换为字段值的类型，
+	 * 字符串无法转换为字段值的类型时(如Date)与字段值的字符串表示比较
+	 * @return 行列表副本，不存在时返回null
+	 */
+	public Vector<ICacheTableRow> getRows(Object[] values)
+	{
+		Object[] keyValues = toKeyValues(values);
+		if (keyValues == null)
+			return null;
+		boolean isTyped = isTyped(keyValues);
+		CacheTableIndexKey cacheTableIndexKey = new CacheTableIndexKey(keyValues);
+		lock.readLock().lock();
+		try
+		{
+			if (isTyped)
+				return find(cacheTableIndexKey);
+			return findByString(cacheTableIndexKey);
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheTableIndex.class.getName()).log(Level.SEVERE, null, e);
+			return null;
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * 已加入索引的行数量
+	 * @return 行数量
+	 */
+	public int size()
+	{
+		lock.readLock().lock();
+		try
+		{
+			return rowKeys.size();
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * 清除索引数据
+	 */
+	public void clear()
+	{
+		lock.writeLock().lock();
+		try
+		{
+			rowKeys.clear();
+			clearEntries();
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void dispose()
+	{
+		clear();
+	}
+
+	/**
+	 * 将行按索引键加入索引结构，在写锁内调用
+	 * @param cacheTableRow 行数据
+	 * @param cacheTableIndexKey 索引键
+	 * @param index 插入位置，值小于0时加入到最后
+	 */
+	protected abstract void link(ICacheTableRow cacheTableRow, CacheTableIndexKey cacheTableIndexKey, int index);
+
+	/**
+	 * 将行从索引键对应的索引结构中移除，在写锁内调用
+	 * @param cacheTableRow 行数据
+	 * @param cacheTableIndexKey 索引键
+	 */
+	protected abstract void unlink(ICacheTableRow cacheTableRow, CacheTableIndexKey cacheTableIndexKey);
+
+	/**
+	 * 查找与键相等的行，在读锁内调用
+	 * @param cacheTableIndexKey 索引键，长度可以小于索引字段数量
+	 * @return 行列表副本，不存在时返回null
+	 */
+	protected abstract Vector<ICacheTableRow> find(CacheTableIndexKey cacheTableIndexKey);
+
+	/**
+	 * 清除索引结构，在写锁内调用
+	 */
+	protected abstract void clearEntries();
+
+	/**
+	 * 由行读取索引键
+	 * @param cacheTableRow 行数据
+	 * @return 索引键，行未包含所有索引字段或已释放时返回null
+	 */
+	protected CacheTableIndexKey readKey(ICacheTableRow cacheTableRow)
+	{
+		try
+		{
+			Object[] values = new Object[fieldNames.length];
+			Class<?>[] fieldTypes = this.fieldTypes;
+			for (int i = 0; i < fieldNames.length; i++)
+			{
+				if (!cacheTableRow.containsField(fieldNames[i]))
+					return null;
+				Object value = CacheTableIndexKey.normalize(cacheTableRow.getFieldData(fieldNames[i]));
+				if (value != null && fieldTypes[i] == null)
+				{
+					fieldTypes[i] = value.getClass();
+				}
+				values[i] = value;
+			}
+			return new CacheTableIndexKey(values);
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheTableIndex.class.getName()).log(Level.SEVERE, null, e);
+			return null;
+		}
+	}
+
+	/**
+	 * 将查找值转换为索引键
+	 * @param values 键值列表，可以只指定前面部分字段的值
+	 * @return 索引键，值列表为空、超出索引字段数量或无法转换为字段值的类型时返回null
+	 */
+	protected CacheTableIndexKey toKey(Object[] values)
+	{
+		Object[] keyValues = toKeyValues(values);
+		if (keyValues == null || !isTyped(keyValues))
+			return null;
+		return new CacheTableIndexKey(keyValues);
+	}
+
+	/**
+	 * 将查找值转换为字段值的类型
+	 * @param values 键值列表，可以只指定前面部分字段的值
+	 * @return 转换后的键值列表，无法转换为字段值类型的字符串原样保留，值列表为空、超出索引字段数量或无法转换时返回null
+	 */
+	private Object[] toKeyValues(Object[] values)
+	{
+		if (values == null || values.length <= 0 || values.length > fieldNames.length)
+			return null;
+		Object[] keyValues = new Object[values.length];
+		Class<?>[] fieldTypes = this.fieldTypes;
+		for (int i = 0; i < values.length; i++)
+		{
+			if (values[i] == null)
+				continue;
+			keyValues[i] = CacheTableIndexKey.convert(values[i], fieldTypes[i]);
+			if (keyValues[i] == null)
+				return null;
+		}
+		return keyValues;
+	}
+
+	/**
+	 * 键值是否均为字段值的类型，可直接按索引键查找
+	 * @param keyValues 转换后的键值列表
+	 * @return 均为字段值的类型(或字段类型未确定)返回true，否则返回false
+	 */
+	private boolean isTyped(Object[] keyValues)
+	{
+		Class<?>[] fieldTypes = this.fieldTypes;
+		for (int i = 0; i < keyValues.length; i++)
+		{
+			if (keyValues[i] != null && fieldTypes[i] != null && !fieldTypes[i].isInstance(keyValues[i]))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * 逐个比较行当前所在的索引键，取得与键相等的行列表，类型不同的键值按字符串比较，在读锁内调用
+	 * @param cacheTableIndexKey 含未转换字符串的索引键，长度可以小于索引字段数量
+	 * @return 行列表副本，不存在时返回null
+	 */
+	private Vector<ICacheTableRow> findByString(CacheTableIndexKey cacheTableIndexKey)
+	{
+		LinkedHashSet<CacheTableIndexKey> cacheTableIndexKeys = new LinkedHashSet<CacheTableIndexKey>();
+		for (CacheTableIndexKey rowKey : rowKeys.values())
+		{
+			if (rowKey.comparePrefix(cacheTableIndexKey, cacheTableIndexKey.size()) == 0)
+			{
+				cacheTableIndexKeys.add(rowKey.prefix(cacheTableIndexKey.size()));
+			}
+		}
+		Vector<ICacheTableRow> cacheTableRows = new Vector<ICacheTableRow>();
+		for (CacheTableIndexKey matchCacheTableIndexKey : cacheTableIndexKeys)
+		{
+			Vector<ICacheTableRow> matchCacheTableRows = find(matchCacheTableIndexKey);
+			if (matchCacheTableRows != null)
+			{
+				cacheTableRows.addAll(matchCacheTableRows);
+			}
+		}
+		return cacheTableRows.isEmpty() ? null : cacheTableRows;
+	}
+
+	/**
+	 * 将行加入相同键值的行列表
+	 * @param cacheTableRows 相同键值的行列表
+	 * @param cacheTableRow 行数据
+	 * @param index 插入位置，值小于0或超出行列表数量时加入到最后
+	 */
+	protected static void addToRows(Vector<ICacheTableRow> cacheTableRows, ICacheTableRow cacheTableRow, int index)
+	{
+		if (index < 0 || index >= cacheTableRows.size())
+		{
+			cacheTableRows.add(cacheTableRow);
+		}
+		else
+		{
+			cacheTableRows.insertElementAt(cacheTableRow, index);
+		}
+	}
+
+	/**
+	 * 取得索引名
+	 * @param fieldNames 索引字段名列表
+	 * @return 索引名：_[0]字段名_[1]字段名_...，字段名列表为空时返回null
+	 */
+	public static String getIndexName(String[] fieldNames)
+	{
+		if (fieldNames == null || fieldNames.length <= 0)
+			return null;
+		StringBuilder name = new StringBuilder();
+		for (String fieldName : fieldNames)
+		{
+			name.append('_').append(fieldName);
+		}
+		return name.toString();
+	}
+}
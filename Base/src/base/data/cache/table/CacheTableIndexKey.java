@@ -0,0 +1,217 @@
+package base.data.cache.table;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * 缓存表索引键
+ * 由一个或多个字段值组成的不可变复合键，字段值保持原有类型(整数类型统一为Long，浮点类型统一为Double，Float按其十进制表示转换)，不再转换为字符串拼接，
+ * 哈希值在创建时计算，可直接做为哈希表的键，并按字段顺序逐个比较大小，用于有序索引。
+ * @author Devin
+ *
+ */
+public final class CacheTableIndexKey implements Comparable<CacheTableIndexKey>
+{
+	/**
+	 * 键值列表
+	 */
+	private final Object[] values;
+
+	/**
+	 * 哈希值
+	 */
+	private final int hash;
+
+	/**
+	 * 缓存表索引键
+	 * @param values 键值列表，值将被规范化后保存
+	 */
+	public CacheTableIndexKey(Object[] values)
+	{
+		this.values = new Object[values.length];
+		for (int i = 0; i < values.length; i++)
+		{
+			this.values[i] = normalize(values[i]);
+		}
+		this.hash = Arrays.hashCode(this.values);
+	}
+
+	/**
+	 * 已规范化的键值列表，不复制
+	 * @param values 键值列表
+	 * @param hash 哈希值
+	 */
+	private CacheTableIndexKey(Object[] values, int hash)
+	{
+		this.values = values;
+		this.hash = hash;
+	}
+
+	/**
+	 * 键值数量
+	 * @return 键值数量
+	 */
+	public int size()
+	{
+		return values.length;
+	}
+
+	/**
+	 * 取得键值
+	 * @param index 键值索引
+	 * @return 键值
+	 */
+	public Object get(int index)
+	{
+		return values[index];
+	}
+
+	/**
+	 * 取得前缀键
+	 * @param length 前缀长度
+	 * @return 由前length个键值组成的键，长度与当前键相同时返回当前键
+	 */
+	public CacheTableIndexKey prefix(int length)
+	{
+		if (length >= values.length)
+			return this;
+		Object[] prefixValues = Arrays.copyOf(values, length);
+		return new CacheTableIndexKey(prefixValues, Arrays.hashCode(prefixValues));
+	}
+
+	/**
+	 * 按键值顺序逐个比较，前缀相同时较短的键较小
+	 */
+	public int compareTo(CacheTableIndexKey cacheTableIndexKey)
+	{
+		int length = Math.min(values.length, cacheTableIndexKey.values.length);
+		int result = comparePrefix(cacheTableIndexKey, length);
+		if (result != 0)
+			return result;
+		return values.length - cacheTableIndexKey.values.length;
+	}
+
+	/**
+	 * 只比较前length个键值
+	 * @param cacheTableIndexKey 要比较的键
+	 * @param length 比较的键值数量，不能大于两个键的长度
+	 * @return 小于返回负数，相等返回0，大于返回正数
+	 */
+	public int comparePrefix(CacheTableIndexKey cacheTableIndexKey, int length)
+	{
+		for (int i = 0; i < length; i++)
+		{
+			int result = compareValue(values[i], cacheTableIndexKey.values[i]);
+			if (result != 0)
+				return result;
+		}
+		return 0;
+	}
+
+	public boolean equals(Object obj)
+	{
+		if (this == obj)
+			return true;
+		if (!(obj instanceof CacheTableIndexKey))
+			return false;
+		CacheTableIndexKey cacheTableIndexKey = (CacheTableIndexKey) obj;
+		return hash == cacheTableIndexKey.hash && Arrays.equals(values, cacheTableIndexKey.values);
+	}
+
+	public int hashCode()
+	{
+		return hash;
+	}
+
+	public String toString()
+	{
+		return Arrays.toString(values);
+	}
+
+	/**
+	 * 规范化键值，整数类型统一为Long，浮点类型统一为Double，其它类型保持不变
+	 * Float按其十进制表示转换为Double(1.1f转换为1.1)，使其与按字符串或Double指定的相同值相等
+	 * @param value 键值
+	 * @return 规范化后的键值
+	 */
+	public static Object normalize(Object value)
+	{
+		if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)
+			return ((Number) value).longValue();
+		if (value instanceof Double)
+			return value;
+		if (value instanceof Float)
+			return Double.valueOf(value.toString());
+		return value;
+	}
+
+	/**
+	 * 将键值转换为字段值的类型，用于以字符串等其它类型的值查找索引
+	 * 字符串可转换为Long、Double、Boolean及BigDecimal，其它类型(如Date)的字段原样返回字符串，比较时与字段值的字符串表示比较
+	 * @param value 键值
+	 * @param type 字段值规范化后的类型，为null时不做转换
+	 * @return 转换后的键值，无法转换时返回null
+	 */
+	public static Object convert(Object value, Class<?> type)
+	{
+		value = normalize(value);
+		if (value == null || type == null || type.isInstance(value))
+			return value;
+		try
+		{
+			if (value instanceof String)
+			{
+				String strValue = ((String) value).trim();
+				if (type == Long.class)
+					return Long.valueOf(strValue);
+				if (type == Double.class)
+					return Double.valueOf(strValue);
+				if (type == Boolean.class)
+					return "true".equalsIgnoreCase(strValue) ? Boolean.TRUE : ("false".equalsIgnoreCase(strValue) ? Boolean.FALSE : null);
+				if (type == BigDecimal.class)
+					return new BigDecimal(strValue);
+				return value;
+			}
+			if (type == String.class)
+				return value.toString();
+			if (type == Double.class && value instanceof Long)
+				return ((Long) value).doubleValue();
+			if (type == Long.class && value instanceof Double)
+			{
+				double doubleValue = (Double) value;
+				return doubleValue == Math.rint(doubleValue) ? Long.valueOf((long) doubleValue) : null;
+			}
+		}
+		catch (NumberFormatException e)
+		{
+		}
+		return null;
+	}
+
+	/**
+	 * 比较两个键值，null最小，同类型按自然顺序，数值按大小，其它按字符串比较
+	 * @param value1 键值1
+	 * @param value2 键值2
+	 * @return 小于返回负数，相等返回0，大于返回正数
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public static int compareValue(Object value1, Object value2)
+	{
+		if (value1 == value2)
+			return 0;
+		if (value1 == null)
+			return -1;
+		if (value2 == null)
+			return 1;
+		if (value1 instanceof Long && value2 instanceof Long)
+			return Long.compare((Long) value1, (Long) value2);
+		if (value1 instanceof Number && value2 instanceof Number)
+			return Double.compare(((Number) value1).doubleValue(), ((Number) value2).doubleValue());
+		if (value1 instanceof Date && value2 instanceof Date)
+			return ((Date) value1).compareTo((Date) value2);
+		if (value1.getClass() == value2.getClass() && value1 instanceof Comparable)
+			return ((Comparable) value1).compareTo(value2);
+		return value1.toString().compareTo(value2.toString());
+	}
+}
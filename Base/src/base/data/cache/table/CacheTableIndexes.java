@@ -0,0 +1,344 @@
+package base.data.cache.table;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import base.Base;
+import base.types.SortType;
+
+/**
+ * 缓存表索引集
+ * 管理一个缓存表的所有哈希索引、有序索引及排序视图，由缓存表在增加、插入、移除行及行字段数据改变时调用进行维护。
+ * @author Devin
+ *
+ */
+public class CacheTableIndexes
+{
+	/**
+	 * 哈希索引列表
+	 */
+	private final ConcurrentHashMap<String, ICacheTableIndex> hashIndexes = new ConcurrentHashMap<String, ICacheTableIndex>();
+
+	/**
+	 * 有序索引列表
+	 */
+	private final ConcurrentHashMap<String, ICacheTableIndex> sortedIndexes = new ConcurrentHashMap<String, ICacheTableIndex>();
+
+	/**
+	 * 排序视图列表
+	 */
+	private final ConcurrentHashMap<String, ICacheTableSortedView> sortedViews = new ConcurrentHashMap<String, ICacheTableSortedView>();
+
+	public CacheTableIndexes()
+	{
+	}
+
+	/**
+	 * 建立哈希索引，已存在相同字段的哈希索引时直接返回该索引
+	 * @param fieldNames 索引字段名列表
+	 * @param cacheTableRows 表中已存在的行，将加入新建的索引，值可以为空
+	 * @return 哈希索引，字段名列表为空时返回null
+	 */
+	public synchronized ICacheTableIndex createIndex(String[] fieldNames, Collection<ICacheTableRow> cacheTableRows)
+	{
+		String name = CacheTableIndex.getIndexName(fieldNames);
+		if (name == null)
+		{
+			Logger.getLogger(CacheTableIndexes.class.getName()).log(Level.SEVERE, null, new Exception("建立缓存表索引时，未指定索引字段。"));
+			return null;
+		}
+		ICacheTableIndex cacheTableHashIndex = hashIndexes.get(name);
+		if (cacheTableHashIndex == null)
+		{
+			cacheTableHashIndex = Base.newClass(CacheTableHashIndex.class);
+			cacheTableHashIndex.init(fieldNames);
+			addRows(cacheTableHashIndex, cacheTableRows);
+			hashIndexes.put(name, cacheTableHashIndex);
+		}
+		return cacheTableHashIndex;
+	}
+
+	/**
+	 * 建立有序索引，已存在相同字段的有序索引时直接返回该索引
+	 * @param fieldNames 索引字段名列表
+	 * @param cacheTableRows 表中已存在的行，将加入新建的索引，值可以为空
+	 * @return 有序索引，字段名列表为空时返回null
+	 */
+	public synchronized ICacheTableIndex createSortedIndex(String[] fieldNames, Collection<ICacheTableRow> cacheTableRows)
+	{
+		String name = CacheTableIndex.getIndexName(fieldNames);
+		if (name == null)
+		{
+			Logger.getLogger(CacheTableIndexes.class.getName()).log(Level.SEVERE, null, new Exception("建立缓存表有序索引时，未指定索引字段。"));
+			return null;
+		}
+		ICacheTableIndex cacheTableSortedIndex = sortedIndexes.get(name);
+		if (cacheTableSortedIndex == null)
+		{
+			cacheTableSortedIndex = Base.newClass(CacheTableSortedIndex.class);
+			cacheTableSortedIndex.init(fieldNames);
+			addRows(cacheTableSortedIndex, cacheTableRows);
+			sortedIndexes.put(name, cacheTableSortedIndex);
+		}
+		return cacheTableSortedIndex;
+	}
+
+	/**
+	 * 建立排序视图，已存在相同排序的视图时直接返回该视图
+	 * @param fieldNames 排序字段名列表
+	 * @param sortTypes 各排序字段的排序类型方式，值可以为空
+	 * @param limit 默认取得的行数量，值小于等于0时取得所有行
+	 * @param cacheTableRows 表中已存在的行，将加入新建的视图，值可以为空
+	 * @return 排序视图，字段名列表为空时返回null
+	 */
+	public synchronized ICacheTableSortedView createSortedView(String[] fieldNames, SortType[] sortTypes, int limit, Collection<ICacheTableRow> cacheTableRows)
+	{
+		String name = CacheTableSortedView.getSortedViewName(fieldNames, sortTypes);
+		if (name == null)
+		{
+			Logger.getLogger(CacheTableIndexes.class.getName()).log(Level.SEVERE, null, new Exception("建立缓存表排序视图时，未指定排序字段。"));
+			return null;
+		}
+		ICacheTableSortedView cacheTableSortedView = sortedViews.get(name);
+		if (cacheTableSortedView == null)
+		{
+			cacheTableSortedView = Base.newClass(CacheTableSortedView.class);
+			cacheTableSortedView.init(fieldNames, sortTypes, limit);
+			if (cacheTableRows != null)
+			{
+				for (ICacheTableRow cacheTableRow : cacheTableRows)
+				{
+					cacheTableSortedView.add(cacheTableRow);
+				}
+			}
+			sortedViews.put(name, cacheTableSortedView);
+		}
+		return cacheTableSortedView;
+	}
+
+	/**
+	 * 移除排序视图
+	 * @param fieldNames 排序字段名列表
+	 * @param sortTypes 各排序字段的排序类型方式，值可以为空
+	 * @return 存在并移除返回true，否则返回false
+	 */
+	public synchronized boolean removeSortedView(String[] fieldNames, SortType[] sortTypes)
+	{
+		String name = CacheTableSortedView.getSortedViewName(fieldNames, sortTypes);
+		if (name == null)
+			return false;
+		ICacheTableSortedView cacheTableSortedView = sortedViews.remove(name);
+		if (cacheTableSortedView == null)
+			return false;
+		cacheTableSortedView.dispose();
+		return true;
+	}
+
+	/**
+	 * 移除指定字段的哈希索引及有序索引
+	 * @param fieldNames 索引字段名列表
+	 * @return 存在并移除返回true，否则返回false
+	 */
+	public synchronized boolean removeIndex(String[] fieldNames)
+	{
+		String name = CacheTableIndex.getIndexName(fieldNames);
+		if (name == null)
+			return false;
+		boolean result = false;
+		ICacheTableIndex cacheTableIndex = hashIndexes.remove(name);
+		if (cacheTableIndex != null)
+		{
+			cacheTableIndex.dispose();
+			result = true;
+		}
+		cacheTableIndex = sortedIndexes.remove(name);
+		if (cacheTableIndex != null)
+		{
+			cacheTableIndex.dispose();
+			result = true;
+		}
+		return result;
+	}
+
+	/**
+	 * 取得可用于相等查找的索引，优先使用哈希索引
+	 * @param fieldNames 索引字段名列表
+	 * @return 索引，不存在时返回null
+	 */
+	public ICacheTableIndex getIndex(String[] fieldNames)
+	{
+		String name = CacheTableIndex.getIndexName(fieldNames);
+		if (name == null)
+			return null;
+		ICacheTableIndex cacheTableIndex = hashIndexes.get(name);
+		return cacheTableIndex != null ? cacheTableIndex : sortedIndexes.get(name);
+	}
+
+	/**
+	 * 取得有序索引
+	 * @param fieldNames 索引字段名列表
+	 * @return 有序索引，不存在时返回null
+	 */
+	public ICacheTableIndex getSortedIndex(String[] fieldNames)
+	{
+		String name = CacheTableIndex.getIndexName(fieldNames);
+		return name == null ? null : sortedIndexes.get(name);
+	}
+
+	/**
+	 * 取得所有索引，哈希索引在前
+	 * @return 索引列表副本
+	 */
+	public ArrayList<ICacheTableIndex> getIndexes()
+	{
+		ArrayList<ICacheTableIndex> cacheTableIndexes = new ArrayList<ICacheTableIndex>(hashIndexes.size() + sortedIndexes.size());
+		cacheTableIndexes.addAll(hashIndexes.values());
+		cacheTableIndexes.addAll(sortedIndexes.values());
+		return cacheTableIndexes;
+	}
+
+	/**
+	 * 是否没有任何索引及排序视图
+	 * @return 没有索引返回true，否则返回false
+	 */
+	public boolean isEmpty()
+	{
+		return hashIndexes.isEmpty() && sortedIndexes.isEmpty() && sortedViews.isEmpty();
+	}
+
+	/**
+	 * 将行加入所有索引及排序视图，未包含索引字段的行不加入该索引
+	 * @param cacheTableRow 行数据
+	 */
+	public void add(ICacheTableRow cacheTableRow)
+	{
+		insert(cacheTableRow, -1);
+	}
+
+	/**
+	 * 将行插入所有索引及排序视图，未包含索引字段的行不加入该索引
+	 * @param cacheTableRow 行数据
+	 * @param index 插入位置，值小于0时加入到最后
+	 */
+	public void insert(ICacheTableRow cacheTableRow, int index)
+	{
+		for (ICacheTableIndex cacheTableIndex : hashIndexes.values())
+		{
+			cacheTableIndex.insert(cacheTableRow, index);
+		}
+		for (ICacheTableIndex cacheTableIndex : sortedIndexes.values())
+		{
+			cacheTableIndex.insert(cacheTableRow, index);
+		}
+		for (ICacheTableSortedView cacheTableSortedView : sortedViews.values())
+		{
+			cacheTableSortedView.add(cacheTableRow);
+		}
+	}
+
+	/**
+	 * 将行从所有索引及排序视图中移除
+	 * @param cacheTableRow 行数据
+	 */
+	public void remove(ICacheTableRow cacheTableRow)
+	{
+		for (ICacheTableIndex cacheTableIndex : hashIndexes.values())
+		{
+			cacheTableIndex.remove(cacheTableRow);
+		}
+		for (ICacheTableIndex cacheTableIndex : sortedIndexes.values())
+		{
+			cacheTableIndex.remove(cacheTableRow);
+		}
+		for (ICacheTableSortedView cacheTableSortedView : sortedViews.values())
+		{
+			cacheTableSortedView.remove(cacheTableRow);
+		}
+	}
+
+	/**
+	 * 行字段数据改变，更新包含该字段的索引及排序视图
+	 * @param cacheTableRow 行数据
+	 * @param fieldName 数据改变的字段名
+	 */
+	public void fieldDataChange(ICacheTableRow cacheTableRow, String fieldName)
+	{
+		for (ICacheTableIndex cacheTableIndex : hashIndexes.values())
+		{
+			if (cacheTableIndex.containsField(fieldName))
+			{
+				cacheTableIndex.update(cacheTableRow);
+			}
+		}
+		for (ICacheTableIndex cacheTableIndex : sortedIndexes.values())
+		{
+			if (cacheTableIndex.containsField(fieldName))
+			{
+				cacheTableIndex.update(cacheTableRow);
+			}
+		}
+		for (ICacheTableSortedView cacheTableSortedView : sortedViews.values())
+		{
+			if (cacheTableSortedView.containsField(fieldName))
+			{
+				cacheTableSortedView.update(cacheTableRow);
+			}
+		}
+	}
+
+	/**
+	 * 清除所有索引及排序视图的数据，索引及排序视图本身保留
+	 */
+	public void clear()
+	{
+		for (ICacheTableIndex cacheTableIndex : hashIndexes.values())
+		{
+			cacheTableIndex.clear();
+		}
+		for (ICacheTableIndex cacheTableIndex : sortedIndexes.values())
+		{
+			cacheTableIndex.clear();
+		}
+		for (ICacheTableSortedView cacheTableSortedView : sortedViews.values())
+		{
+			cacheTableSortedView.clear();
+		}
+	}
+
+	public synchronized void dispose()
+	{
+		for (ICacheTableIndex cacheTableIndex : hashIndexes.values())
+		{
+			cacheTableIndex.dispose();
+		}
+		for (ICacheTableIndex cacheTableIndex : sortedIndexes.values())
+		{
+			cacheTableIndex.dispose();
+		}
+		for (ICacheTableSortedView cacheTableSortedView : sortedViews.values())
+		{
+			cacheTableSortedView.dispose();
+		}
+		hashIndexes.clear();
+		sortedIndexes.clear();
+		sortedViews.clear();
+	}
+
+	/**
+	 * 将已存在的行加入新建的索引
+	 * @param cacheTableIndex 索引
+	 * @param cacheTableRows 行列表
+	 */
+	private void addRows(ICacheTableIndex cacheTableIndex, Collection<ICacheTableRow> cacheTableRows)
+	{
+		if (cacheTableRows == null)
+			return;
+		for (ICacheTableRow cacheTableRow : cacheTableRows)
+		{
+			cacheTableIndex.add(cacheTableRow);
+		}
+	}
+}
@@ -0,0 +1,225 @@
+package base.data.cache.table;
+
+import java.util.Arrays;
+
+/**
+ * 以long为键的开放寻址哈希表，用于整数主键的行查找，避免键值装箱及字符串转换
+ * 该类本身不做同步处理，读写需由所属缓存表的锁进行保护
+ * @author Devin
+ *
+ * @param <V> 值类型
+ */
+public class CacheTableLongMap<V>
+{
+	/**
+	 * 最大装载因子
+	 */
+	private final static float LOAD_FACTOR = 0.5f;
+
+	/**
+	 * 键数组
+	 */
+	private long[] keys;
+
+	/**
+	 * 值数组，值为null时表示该位置为空
+	 */
+	private Object[] values;
+
+	/**
+	 * 索引掩码
+	 */
+	private int mask;
+
+	/**
+	 * 元素个数
+	 */
+	private int size;
+
+	/**
+	 * 扩容阈值
+	 */
+	private int threshold;
+
+	/**
+	 * 以long为键的开放寻址哈希表
+	 */
+	public CacheTableLongMap()
+	{
+		this(16);
+	}
+
+	/**
+	 * 以long为键的开放寻址哈希表
+	 * @param initialCapacity 初始容量
+	 */
+	public CacheTableLongMap(int initialCapacity)
+	{
+		int capacity = 2;
+		while (capacity * LOAD_FACTOR < initialCapacity)
+		{
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+
+	/**
+	 * 取得值
+	 * @param key 键
+	 * @return 值，不存在时返回null
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key)
+	{
+		int index = indexOf(key);
+		return index < 0 ? null : (V) values[index];
+	}
+
+	/**
+	 * 是否包含指定的键
+	 * @param key 键
+	 * @return 包含返回true，否则返回false
+	 */
+	public boolean containsKey(long key)
+	{
+		return indexOf(key) >= 0;
+	}
+
+	/**
+	 * 放入值
+	 * @param key 键
+	 * @param value 值，不允许为空
+	 * @return 原有的值，不存在时返回null
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(long key, V value)
+	{
+		if (value == null)
+			throw new NullPointerException();
+		int index = hash(key) & mask;
+		while (values[index] != null)
+		{
+			if (keys[index] == key)
+			{
+				V oldValue = (V) values[index];
+				values[index] = value;
+				return oldValue;
+			}
+			index = (index + 1) & mask;
+		}
+		keys[index] = key;
+		values[index] = value;
+		if (++size >= threshold)
+		{
+			rehash(keys.length << 1);
+		}
+		return null;
+	}
+
+	/**
+	 * 移除值
+	 * @param key 键
+	 * @return 被移除的值，不存在时返回null
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(long key)
+	{
+		int index = indexOf(key);
+		if (index < 0)
+			return null;
+		V oldValue = (V) values[index];
+		values[index] = null;
+		size--;
+		// 将后续同簇的元素向前回填，保证线性探测不被断开
+		int gap = index;
+		int next = (gap + 1) & mask;
+		while (values[next] != null)
+		{
+			int home = hash(keys[next]) & mask;
+			if (((next - home) & mask) >= ((next - gap) & mask))
+			{
+				keys[gap] = keys[next];
+				values[gap] = values[next];
+				values[next] = null;
+				gap = next;
+			}
+			next = (next + 1) & mask;
+		}
+		return oldValue;
+	}
+
+	/**
+	 * 元素个数
+	 * @return 元素个数
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * 清除所有元素
+	 */
+	public void clear()
+	{
+		Arrays.fill(values, null);
+		size = 0;
+	}
+
+	/**
+	 * 取得键所在的位置
+	 * @param key 键
+	 * @return 位置，不存在时返回-1
+	 */
+	private int indexOf(long key)
+	{
+		int index = hash(key) & mask;
+		while (values[index] != null)
+		{
+			if (keys[index] == key)
+			{
+				return index;
+			}
+			index = (index + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * 扩容并重新分布元素
+	 * @param capacity 新容量
+	 */
+	private void rehash(int capacity)
+	{
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		allocate(capacity);
+		for (int i = 0; i < oldValues.length; i++)
+		{
+			if (oldValues[i] != null)
+			{
+				int index = hash(oldKeys[i]) & mask;
+				while (values[index] != null)
+				{
+					index = (index + 1) & mask;
+				}
+				keys[index] = oldKeys[i];
+				values[index] = oldValues[i];
+			}
+		}
+	}
+
+	private void allocate(int capacity)
+	{
+		keys = new long[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+		threshold = (int) (capacity * LOAD_FACTOR);
+	}
+
+	private static int hash(long key)
+	{
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
@@ -0,0 +1,442 @@
+package base.data.cache.table;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import base.utils.DateUtil;
+
+/**
+ * 缓存表并行处理
+ * 缓存表的排序、遍历、统计及查询在行数量达到并行阈值时，将行数组分段后在共用的ForkJoin线程池中并行处理，
+ * 未达到阈值时在调用线程中顺序处理。并行阈值、分段大小及线程池并行数可在启动时配置。
+ * @author Devin
+ *
+ */
+public class CacheTableParallel
+{
+	/**
+	 * 行数量达到此值时并行处理
+	 */
+	private static volatile int parallelThreshold = 8192;
+
+	/**
+	 * 并行处理时每个任务处理的行数量
+	 */
+	private static volatile int batchSize = 2048;
+
+	/**
+	 * 线程池并行数，值小于等于0时为CPU核心数
+	 */
+	private static volatile int parallelism = 0;
+
+	/**
+	 * 缓存表共用的线程池
+	 */
+	private static volatile ForkJoinPool forkJoinPool;
+
+	/**
+	 * 行数量达到此值时并行处理
+	 * @return parallelThreshold
+	 */
+	public static int getParallelThreshold()
+	{
+		return parallelThreshold;
+	}
+
+	/**
+	 * 设置并行阈值，行数量达到此值时并行处理
+	 * @param parallelThreshold 并行阈值，值为Integer.MAX_VALUE时不并行处理
+	 */
+	public static void setParallelThreshold(int parallelThreshold)
+	{
+		CacheTableParallel.parallelThreshold = Math.max(2, parallelThreshold);
+	}
+
+	/**
+	 * 并行处理时每个任务处理的行数量
+	 * @return batchSize
+	 */
+	public static int getBatchSize()
+	{
+		return batchSize;
+	}
+
+	/**
+	 * 设置并行处理时每个任务处理的行数量
+	 * @param batchSize 行数量
+	 */
+	public static void setBatchSize(int batchSize)
+	{
+		CacheTableParallel.batchSize = Math.max(1, batchSize);
+	}
+
+	/**
+	 * 设置线程池并行数，已创建的线程池将在当前任务完成后关闭
+	 * @param parallelism 并行数，值小于等于0时为CPU核心数
+	 */
+	public static synchronized void setParallelism(int parallelism)
+	{
+		CacheTableParallel.parallelism = parallelism;
+		ForkJoinPool oldForkJoinPool = forkJoinPool;
+		forkJoinPool = null;
+		if (oldForkJoinPool != null)
+		{
+			oldForkJoinPool.shutdown();
+		}
+	}
+
+	/**
+	 * 取得缓存表共用的线程池
+	 * @return 线程池
+	 */
+	public static ForkJoinPool getForkJoinPool()
+	{
+		ForkJoinPool forkJoinPool = CacheTableParallel.forkJoinPool;
+		if (forkJoinPool == null)
+		{
+			synchronized (CacheTableParallel.class)
+			{
+				forkJoinPool = CacheTableParallel.forkJoinPool;
+				if (forkJoinPool == null)
+				{
+					forkJoinPool = parallelism > 0 ? new ForkJoinPool(parallelism) : new ForkJoinPool();
+					CacheTableParallel.forkJoinPool = forkJoinPool;
+				}
+			}
+		}
+		return forkJoinPool;
+	}
+
+	/**
+	 * 行数量是否达到并行阈值
+	 * @param size 行数量
+	 * @return 达到返回true，否则返回false
+	 */
+	public static boolean isParallel(int size)
+	{
+		return size >= parallelThreshold;
+	}
+
+	/**
+	 * 稳定排序，数量达到并行阈值时使用并行归并排序，比较函数会在多个线程中同时调用，需线程安全
+	 * @param array 要排序的数组
+	 * @param comparator 排序比较函数
+	 */
+	public static <T> void sort(T[] array, Comparator<? super T> comparator)
+	{
+		if (!isParallel(array.length))
+		{
+			Arrays.sort(array, comparator);
+			return;
+		}
+		getForkJoinPool().invoke(new SortTask<T>(array, array.clone(), 0, array.length, comparator, batchSize));
+	}
+
+	/**
+	 * 稳定排序列表，数量达到并行阈值时使用并行归并排序，比较函数会在多个线程中同时调用，需线程安全
+	 * @param list 要排序的列表
+	 * @param comparator 排序比较函数
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> void sort(List<T> list, Comparator<? super T> comparator)
+	{
+		Object[] array = list.toArray();
+		sort(array, (Comparator<Object>) comparator);
+		ListIterator<T> listIterator = list.listIterator();
+		for (Object element : array)
+		{
+			listIterator.next();
+			listIterator.set((T) element);
+		}
+	}
+
+	/**
+	 * 遍历未过期的行
+	 * @param cacheTableRows 行数组
+	 * @param cacheTableRowHandler 行处理函数
+	 * @param isParallel 是否允许并行遍历，行数量未达到并行阈值时仍在调用线程中顺序遍历
+	 */
+	public static void forEach(Object[] cacheTableRows, ICacheTableRowHandler cacheTableRowHandler, boolean isParallel)
+	{
+		long currentTime = DateUtil.getCurrentTimeMillis();
+		if (isParallel && isParallel(cacheTableRows.length))
+		{
+			getForkJoinPool().invoke(new ForEachTask(cacheTableRows, 0, cacheTableRows.length, cacheTableRowHandler, currentTime, batchSize));
+			return;
+		}
+		forEach(cacheTableRows, 0, cacheTableRows.length, cacheTableRowHandler, currentTime);
+	}
+
+	/**
+	 * 统计未过期行的字段数据，行数量达到并行阈值时并行统计
+	 * @param cacheTableRows 行数组
+	 * @param fieldHandle 统计字段句柄
+	 * @return 统计结果
+	 */
+	public static CacheTableAggregate aggregate(Object[] cacheTableRows, CacheTableFieldHandle fieldHandle)
+	{
+		long currentTime = DateUtil.getCurrentTimeMillis();
+		if (isParallel(cacheTableRows.length))
+			return getForkJoinPool().invoke(new AggregateTask(cacheTableRows, 0, cacheTableRows.length, fieldHandle, currentTime, batchSize));
+		return aggregate(cacheTableRows, 0, cacheTableRows.length, fieldHandle, currentTime);
+	}
+
+	/**
+	 * 按分组字段分组统计未过期行的字段数据，行数量达到并行阈值时并行统计
+	 * @param cacheTableRows 行数组
+	 * @param fieldHandle 统计字段句柄
+	 * @param groupByFieldHandle 分组字段句柄
+	 * @return 分组字段数据(整数类型统一为Long，浮点类型统一为Double)与统计结果的映射，未包含分组字段的行分组字段数据为null
+	 */
+	public static HashMap<Object, CacheTableAggregate> aggregate(Object[] cacheTableRows, CacheTableFieldHandle fieldHandle, CacheTableFieldHandle groupByFieldHandle)
+	{
+		long currentTime = DateUtil.getCurrentTimeMillis();
+		if (isParallel(cacheTableRows.length))
+			return getForkJoinPool().invoke(new GroupAggregateTask(cacheTableRows, 0, cacheTableRows.length, fieldHandle, groupByFieldHandle, currentTime, batchSize));
+		return aggregate(cacheTableRows, 0, cacheTableRows.length, fieldHandle, groupByFieldHandle, currentTime);
+	}
+
+	/**
+	 * 顺序遍历指定范围内未过期的行
+	 */
+	private static void forEach(Object[] cacheTableRows, int from, int to, ICacheTableRowHandler cacheTableRowHandler, long currentTime)
+	{
+		for (int i = from; i < to; i++)
+		{
+			ICacheTableRow cacheTableRow = (ICacheTableRow) cacheTableRows[i];
+			if (cacheTableRow == null || currentTime > cacheTableRow.getExpiresTime())
+				continue;
+			try
+			{
+				cacheTableRowHandler.handle(cacheTableRow);
+			}
+			catch (Exception e)
+			{
+				Logger.getLogger(CacheTableParallel.class.getName()).log(Level.SEVERE, null, e);
+			}
+		}
+	}
+
+	/**
+	 * 顺序统计指定范围内未过期的行
+	 */
+	private static CacheTableAggregate aggregate(Object[] cacheTableRows, int from, int to, CacheTableFieldHandle fieldHandle, long currentTime)
+	{
+		CacheTableAggregate cacheTableAggregate = new CacheTableAggregate();
+		for (int i = from; i < to; i++)
+		{
+			ICacheTableRow cacheTableRow = (ICacheTableRow) cacheTableRows[i];
+			if (cacheTableRow == null || currentTime > cacheTableRow.getExpiresTime())
+				continue;
+			cacheTableAggregate.add(fieldHandle.getData(cacheTableRow));
+		}
+		return cacheTableAggregate;
+	}
+
+	/**
+	 * 顺序分组统计指定范围内未过期的行
+	 */
+	private static HashMap<Object, CacheTableAggregate> aggregate(Object[] cacheTableRows, int from, int to, CacheTableFieldHandle fieldHandle, CacheTableFieldHandle groupByFieldHandle, long currentTime)
+	{
+		HashMap<Object, CacheTableAggregate> cacheTableAggregates = new HashMap<Object, CacheTableAggregate>();
+		for (int i = from; i < to; i++)
+		{
+			ICacheTableRow cacheTableRow = (ICacheTableRow) cacheTableRows[i];
+			if (cacheTableRow == null || currentTime > cacheTableRow.getExpiresTime())
+				continue;
+			Object groupValue = CacheTableIndexKey.normalize(groupByFieldHandle.getData(cacheTableRow));
+			CacheTableAggregate cacheTableAggregate = cacheTableAggregates.get(groupValue);
+			if (cacheTableAggregate == null)
+			{
+				cacheTableAggregate = new CacheTableAggregate();
+				cacheTableAggregates.put(groupValue, cacheTableAggregate);
+			}
+			cacheTableAggregate.add(fieldHandle.getData(cacheTableRow));
+		}
+		return cacheTableAggregates;
+	}
+
+	/**
+	 * 并行归并排序任务，分段小于等于batchSize时直接排序，合并时相等元素保持原有顺序
+	 */
+	private static class SortTask<T> extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final T[] array;
+		private final T[] buffer;
+		private final int from;
+		private final int to;
+		private final Comparator<? super T> comparator;
+		private final int batchSize;
+
+		private SortTask(T[] array, T[] buffer, int from, int to, Comparator<? super T> comparator, int batchSize)
+		{
+			this.array = array;
+			this.buffer = buffer;
+			this.from = from;
+			this.to = to;
+			this.comparator = comparator;
+			this.batchSize = batchSize;
+		}
+
+		protected void compute()
+		{
+			if (to - from <= batchSize)
+			{
+				Arrays.sort(array, from, to, comparator);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new SortTask<T>(array, buffer, from, middle, comparator, batchSize), new SortTask<T>(array, buffer, middle, to, comparator, batchSize));
+			if (comparator.compare(array[middle - 1], array[middle]) <= 0)
+				return;
+			System.arraycopy(array, from, buffer, from, to - from);
+			int left = from;
+			int right = middle;
+			for (int i = from; i < to; i++)
+			{
+				if (right >= to || (left < middle && comparator.compare(buffer[left], buffer[right]) <= 0))
+				{
+					array[i] = buffer[left++];
+				}
+				else
+				{
+					array[i] = buffer[right++];
+				}
+			}
+		}
+	}
+
+	/**
+	 * 并行遍历任务
+	 */
+	private static class ForEachTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final Object[] cacheTableRows;
+		private final int from;
+		private final int to;
+		private final ICacheTableRowHandler cacheTableRowHandler;
+		private final long currentTime;
+		private final int batchSize;
+
+		private ForEachTask(Object[] cacheTableRows, int from, int to, ICacheTableRowHandler cacheTableRowHandler, long currentTime, int batchSize)
+		{
+			this.cacheTableRows = cacheTableRows;
+			this.from = from;
+			this.to = to;
+			this.cacheTableRowHandler = cacheTableRowHandler;
+			this.currentTime = currentTime;
+			this.batchSize = batchSize;
+		}
+
+		protected void compute()
+		{
+			if (to - from <= batchSize)
+			{
+				forEach(cacheTableRows, from, to, cacheTableRowHandler, currentTime);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new ForEachTask(cacheTableRows, from, middle, cacheTableRowHandler, currentTime, batchSize), new ForEachTask(cacheTableRows, middle, to, cacheTableRowHandler, currentTime, batchSize));
+		}
+	}
+
+	/**
+	 * 并行统计任务
+	 */
+	private static class AggregateTask extends RecursiveTask<CacheTableAggregate>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final Object[] cacheTableRows;
+		private final int from;
+		private final int to;
+		private final CacheTableFieldHandle fieldHandle;
+		private final long currentTime;
+		private final int batchSize;
+
+		private AggregateTask(Object[] cacheTableRows, int from, int to, CacheTableFieldHandle fieldHandle, long currentTime, int batchSize)
+		{
+			this.cacheTableRows = cacheTableRows;
+			this.from = from;
+			this.to = to;
+			this.fieldHandle = fieldHandle;
+			this.currentTime = currentTime;
+			this.batchSize = batchSize;
+		}
+
+		protected CacheTableAggregate compute()
+		{
+			if (to - from <= batchSize)
+				return aggregate(cacheTableRows, from, to, fieldHandle, currentTime);
+			int middle = (from + to) >>> 1;
+			AggregateTask leftTask = new AggregateTask(cacheTableRows, from, middle, fieldHandle, currentTime, batchSize);
+			leftTask.fork();
+			CacheTableAggregate cacheTableAggregate = new AggregateTask(cacheTableRows, middle, to, fieldHandle, currentTime, batchSize).compute();
+			cacheTableAggregate.merge(leftTask.join());
+			return cacheTableAggregate;
+		}
+	}
+
+	/**
+	 * 并行分组统计任务
+	 */
+	private static class GroupAggregateTask extends RecursiveTask<HashMap<Object, CacheTableAggregate>>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final Object[] cacheTableRows;
+		private final int from;
+		private final int to;
+		private final CacheTableFieldHandle fieldHandle;
+		private final CacheTableFieldHandle groupByFieldHandle;
+		private final long currentTime;
+		private final int batchSize;
+
+		private GroupAggregateTask(Object[] cacheTableRows, int from, int to, CacheTableFieldHandle fieldHandle, CacheTableFieldHandle groupByFieldHandle, long currentTime, int batchSize)
+		{
+			this.cacheTableRows = cacheTableRows;
+			this.from = from;
+			this.to = to;
+			this.fieldHandle = fieldHandle;
+			this.groupByFieldHandle = groupByFieldHandle;
+			this.currentTime = currentTime;
+			this.batchSize = batchSize;
+		}
+
+		protected HashMap<Object, CacheTableAggregate> compute()
+		{
+			if (to - from <= batchSize)
+				return aggregate(cacheTableRows, from, to, fieldHandle, groupByFieldHandle, currentTime);
+			int middle = (from + to) >>> 1;
+			GroupAggregateTask leftTask = new GroupAggregateTask(cacheTableRows, from, middle, fieldHandle, groupByFieldHandle, currentTime, batchSize);
+			leftTask.fork();
+			HashMap<Object, CacheTableAggregate> cacheTableAggregates = new GroupAggregateTask(cacheTableRows, middle, to, fieldHandle, groupByFieldHandle, currentTime, batchSize).compute();
+			for (Map.Entry<Object, CacheTableAggregate> entry : leftTask.join().entrySet())
+			{
+				CacheTableAggregate cacheTableAggregate = cacheTableAggregates.get(entry.getKey());
+				if (cacheTableAggregate == null)
+				{
+					cacheTableAggregates.put(entry.getKey(), entry.getValue());
+				}
+				else
+				{
+					cacheTableAggregate.merge(entry.getValue());
+				}
+			}
+			return cacheTableAggregates;
+		}
+	}
+}
@@ -0,0 +1,640 @@
+package base.data.cache.table;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Vector;
+import java.util.concurrent.RecursiveTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import base.types.QueryOperator;
+import base.types.SortType;
+import base.utils.DateUtil;
+
+/**
+ * 缓存表查询
+ * 执行时按以下顺序选择查找方式：
+ * 1.索引(或集合键)的前面部分字段均有相等条件时，按相等字段最多的索引查找；
+ * 2.有序索引的第一个字段有范围条件时，按有序索引范围查找；
+ * 3.遍历全表，候选行数量达到并行阈值(CacheTableParallel)且不需要在取得部分结果后立即停止时，在ForkJoin线程池中分段并行检查。
+ * 索引只用于缩小候选行的范围，所有候选行都会再次检查全部条件。查询对象不是线程安全的，不能在多个线程间共用。
+ * @author Devin
+ *
+ */
+public class CacheTableQuery implements ICacheTableQuery
+{
+	/**
+	 * 查询的缓存表
+	 */
+	private final ICacheTable cacheTable;
+
+	/**
+	 * 查询条件列表
+	 */
+	private final ArrayList<CacheTableQueryCondition> conditions = new ArrayList<CacheTableQueryCondition>();
+
+	/**
+	 * 排序字段名列表
+	 */
+	private final ArrayList<String> orderFieldNames = new ArrayList<String>();
+
+	/**
+	 * 排序类型方式列表
+	 */
+	private final ArrayList<SortType> orderSortTypes = new ArrayList<SortType>();
+
+	/**
+	 * 最大行数量，值小于0时不限制
+	 */
+	private int limit = -1;
+
+	/**
+	 * 查询条件是否有效，存在无效条件时查询不返回任何行
+	 */
+	private boolean isValid = true;
+
+	/**
+	 * 缓存表查询
+	 * @param cacheTable 查询的缓存表
+	 */
+	public CacheTableQuery(ICacheTable cacheTable)
+	{
+		this.cacheTable = cacheTable;
+	}
+
+	/**
+	 * 增加查询条件
+	 * @param fieldName 字段名
+	 * @param operator 运算符
+	 * @param value 条件值，BETWEEN时为两个元素的数组：[起始值, 结束值]，IN时为数组或集合
+	 * @return 当前查询
+	 */
+	public ICacheTableQuery where(String fieldName, QueryOperator operator, Object value)
+	{
+		CacheTableQueryCondition cacheTableQueryCondition = new CacheTableQueryCondition(fieldName, operator, value, cacheTable.getFieldHandle(fieldName));
+		if (!cacheTableQueryCondition.isValid())
+		{
+			Logger.getLogger(CacheTableQuery.class.getName()).log(Level.SEVERE, null, new Exception(cacheTable.getName() + " 缓存表查询条件无效：" + cacheTableQueryCondition));
+			isValid = false;
+		}
+		else
+		{
+			conditions.add(cacheTableQueryCondition);
+		}
+		return this;
+	}
+
+	/**
+	 * 增加查询条件，与where相同，所有条件均需满足
+	 * @param fieldName 字段名
+	 * @param operator 运算符
+	 * @param value 条件值，BETWEEN时为两个元素的数组：[起始值, 结束值]，IN时为数组或集合
+	 * @return 当前查询
+	 */
+	public ICacheTableQuery and(String fieldName, QueryOperator operator, Object value)
+	{
+		return where(fieldName, operator, value);
+	}
+
+	/**
+	 * 增加排序字段，多次调用时按调用顺序依次排序
+	 * @param fieldName 字段名
+	 * @param sortType 排序类型方式，为null时升序
+	 * @return 当前查询
+	 */
+	public ICacheTableQuery orderBy(String fieldName, SortType sortType)
+	{
+		if (fieldName == null)
+		{
+			Logger.getLogger(CacheTableQuery.class.getName()).log(Level.SEVERE, null, new Exception(cacheTable.getName() + " 缓存表查询未指定排序字段名。"));
+			return this;
+		}
+		orderFieldNames.add(fieldName);
+		orderSortTypes.add(sortType == null ? SortType.ASC : sortType);
+		return this;
+	}
+
+	/**
+	 * 限制返回的行数量
+	 * @param limit 最大行数量，值小于0时不限制
+	 * @return 当前查询
+	 */
+	public ICacheTableQuery limit(int limit)
+	{
+		this.limit = limit;
+		return this;
+	}
+
+	/**
+	 * 执行查询
+	 * @return 满足所有条件的行列表快照，不含已过期的行，没有满足条件的行时返回空列表
+	 */
+	public Vector<ICacheTableRow> toRows()
+	{
+		return execute(limit, true);
+	}
+
+	/**
+	 * 执行查询，以游标方式逐行返回结果
+	 * 未指定排序时在遍历过程中逐行检查条件，不复制结果行，适合只处理前面部分结果或结果较多的查询。
+	 * @return 结果行游标，不支持移除操作
+	 */
+	public Iterator<ICacheTableRow> cursor()
+	{
+		if (!orderFieldNames.isEmpty() || !isValid || limit == 0)
+			return Collections.unmodifiableList(execute(limit, true)).iterator();
+		try
+		{
+			return new CacheTableQueryCursor(plan(null), limit);
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheTableQuery.class.getName()).log(Level.SEVERE, null, e);
+		}
+		return Collections.<ICacheTableRow> emptyList().iterator();
+	}
+
+	/**
+	 * 执行查询，取得第一个满足条件的行
+	 * @return 行数据，没有满足条件的行时返回null
+	 */
+	public ICacheTableRow first()
+	{
+		Vector<ICacheTableRow> cacheTableRows = execute(limit == 0 ? 0 : 1, true);
+		return cacheTableRows.size() > 0 ? cacheTableRows.get(0) : null;
+	}
+
+	/**
+	 * 执行查询，取得满足条件的行数量
+	 * @return 行数量
+	 */
+	public int count()
+	{
+		return execute(limit, false).size();
+	}
+
+	/**
+	 * 取得查询计划说明，用于检查查询是否使用了索引
+	 * @return 查询计划说明
+	 */
+	public String explain()
+	{
+		StringBuilder explain = new StringBuilder();
+		explain.append(cacheTable.getName()).append(" 缓存表查询 ").append(conditions);
+		if (!isValid)
+			return explain.append("：存在无效的查询条件，不返回任何行").toString();
+		explain.append("：");
+		try
+		{
+			Object[] candidates = plan(explain);
+			explain.append("，候选行 ").append(candidates.length);
+			if (CacheTableParallel.isParallel(candidates.length) && isParallel(limit, true))
+			{
+				explain.append("，并行检查");
+			}
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheTableQuery.class.getName()).log(Level.SEVERE, null, e);
+		}
+		if (!orderFieldNames.isEmpty())
+		{
+			explain.append("，排序 ").append(orderFieldNames);
+		}
+		if (limit >= 0)
+		{
+			explain.append("，最多 ").append(limit).append(" 行");
+		}
+		return explain.toString();
+	}
+
+	/**
+	 * 执行查询
+	 * @param limit 最大行数量，值小于0时不限制
+	 * @param isSort 是否需要排序
+	 * @return 行列表
+	 */
+	private Vector<ICacheTableRow> execute(int limit, boolean isSort)
+	{
+		Vector<ICacheTableRow> result = new Vector<ICacheTableRow>();
+		if (!isValid || limit == 0)
+			return result;
+		try
+		{
+			Object[] candidates = plan(null);
+			if (candidates.length <= 0)
+				return result;
+			isSort = isSort && !orderFieldNames.isEmpty();
+			if (!isSort && limit > 0)
+			{// 不需要排序时，取得足够的行后立即停止
+				long currentTime = DateUtil.getCurrentTimeMillis();
+				for (int i = 0; i < candidates.length && result.size() < limit; i++)
+				{
+					ICacheTableRow cacheTableRow = (ICacheTableRow) candidates[i];
+					if (accept(cacheTableRow, currentTime))
+					{
+						result.add(cacheTableRow);
+					}
+				}
+				return result;
+			}
+			List<ICacheTableRow> cacheTableRows = filter(candidates, isParallel(limit, isSort));
+			if (isSort)
+			{
+				cacheTableRows = sort(cacheTableRows, limit);
+			}
+			else if (limit > 0 && cacheTableRows.size() > limit)
+			{
+				cacheTableRows = cacheTableRows.subList(0, limit);
+			}
+			result.addAll(cacheTableRows);
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheTableQuery.class.getName()).log(Level.SEVERE, null, e);
+		}
+		return result;
+	}
+
+	/**
+	 * 是否可以并行检查条件，限制行数量且不需要排序时逐行检查，以便在取得足够的行后立即停止
+	 * @param limit 最大行数量，值小于0时不限制
+	 * @param isSort 是否需要排序
+	 * @return 可以并行返回true，否则返回false
+	 */
+	private boolean isParallel(int limit, boolean isSort)
+	{
+		return limit < 0 || (isSort && !orderFieldNames.isEmpty());
+	}
+
+	/**
+	 * 选择查找方式并取得候选行
+	 * @param explain 查询计划说明，值可以为空
+	 * @return 候选行数组
+	 */
+	private Object[] plan(StringBuilder explain)
+	{
+		ArrayList<ICacheTableIndex> cacheTableIndexes = cacheTable.getIndexes();
+		// 按相等字段最多的索引或集合键查找
+		ICacheTableIndex equalIndex = null;
+		String[] equalKeyFieldNames = null;
+		Object[] equalValues = null;
+		for (ICacheTableIndex cacheTableIndex : cacheTableIndexes)
+		{
+			Object[] values = getEqualValues(cacheTableIndex.getFieldNames());
+			if (values != null && (equalValues == null || values.length > equalValues.length))
+			{
+				equalIndex = cacheTableIndex;
+				equalValues = values;
+			}
+		}
+		String[][] keyFieldNameGroups = cacheTable.getKeyFieldNameGroups();
+		if (keyFieldNameGroups != null)
+		{
+			for (String[] keyFieldNames : keyFieldNameGroups)
+			{
+				if (keyFieldNames == null)
+					continue;
+				Object[] values = getEqualValues(keyFieldNames);
+				if (values != null && isKeyFieldValues(values) && (equalValues == null || values.length > equalValues.length))
+				{
+					equalIndex = null;
+					equalKeyFieldNames = keyFieldNames;
+					equalValues = values;
+				}
+			}
+		}
+		if (equalIndex != null)
+		{
+			if (explain != null)
+			{
+				explain.append(equalIndex.isSorted() ? "有序索引 " : "哈希索引 ").append(equalIndex.getName()).append(" 相等查找(").append(equalValues.length).append("个字段)");
+			}
+			return toArray(cacheTable.getRowsByIndex(equalIndex.getFieldNames(), equalValues));
+		}
+		if (equalKeyFieldNames != null)
+		{
+			String[] keyFieldValues = new String[equalValues.length];
+			for (int i = 0; i < equalValues.length; i++)
+			{
+				keyFieldValues[i] = String.valueOf(equalValues[i]);
+			}
+			if (explain != null)
+			{
+				explain.append("集合键 ").append(CacheTableIndex.getIndexName(equalKeyFieldNames)).append(" 相等查找(").append(equalValues.length).append("个字段)");
+			}
+			return toArray(cacheTable.getRows(equalKeyFieldNames, keyFieldValues));
+		}
+		// 按有序索引范围查找
+		for (ICacheTableIndex cacheTableIndex : cacheTableIndexes)
+		{
+			if (!cacheTableIndex.isSorted())
+				continue;
+			String[] fieldNames = cacheTableIndex.getFieldNames();
+			Object fromValue = null;
+			Object toValue = null;
+			boolean fromInclusive = true;
+			boolean toInclusive = true;
+			for (CacheTableQueryCondition cacheTableQueryCondition : conditions)
+			{
+				if (!fieldNames[0].equals(cacheTableQueryCondition.getFieldName()) || cacheTableQueryCondition.getValue() == null)
+					continue;
+				// 同一字段有多个范围条件时只使用第一个下界及第一个上界，其余条件在检查候选行时处理
+				QueryOperator operator = cacheTableQueryCondition.getOperator();
+				if (fromValue == null && (operator == QueryOperator.GREATER || operator == QueryOperator.GREATER_EQUAL || operator == QueryOperator.EQUAL || operator == QueryOperator.BETWEEN))
+				{
+					fromValue = cacheTableQueryCondition.getValue();
+					fromInclusive = operator != QueryOperator.GREATER;
+				}
+				if (toValue == null && cacheTableQueryCondition.getToValue() != null && (operator == QueryOperator.LESS || operator == QueryOperator.LESS_EQUAL || operator == QueryOperator.EQUAL || operator == QueryOperator.BETWEEN))
+				{
+					toValue = cacheTableQueryCondition.getToValue();
+					toInclusive = operator != QueryOperator.LESS;
+				}
+			}
+			if (fromValue != null || toValue != null)
+			{
+				if (explain != null)
+				{
+					explain.append("有序索引 ").append(cacheTableIndex.getName()).append(" 范围查找 ").append(fromInclusive ? "[" : "(").append(fromValue).append(", ").append(toValue).append(toInclusive ? "]" : ")");
+				}
+				return toArray(cacheTable.getRowsByRange(fieldNames, fromValue == null ? null : new Object[] { fromValue }, fromInclusive, toValue == null ? null : new Object[] { toValue }, toInclusive));
+			}
+		}
+		if (explain != null)
+		{
+			explain.append("遍历全表");
+		}
+		return toArray(cacheTable.snapshot().asList());
+	}
+
+	/**
+	 * 取得字段名列表前面部分字段的相等条件值
+	 * @param fieldNames 索引字段名列表
+	 * @return 从第一个字段开始连续有相等条件的字段值列表，第一个字段没有相等条件时返回null
+	 */
+	private Object[] getEqualValues(String[] fieldNames)
+	{
+		ArrayList<Object> values = new ArrayList<Object>(fieldNames.length);
+		for (String fieldName : fieldNames)
+		{
+			Object value = null;
+			for (CacheTableQueryCondition cacheTableQueryCondition : conditions)
+			{
+				if (cacheTableQueryCondition.getOperator() == QueryOperator.EQUAL && fieldName.equals(cacheTableQueryCondition.getFieldName()) && cacheTableQueryCondition.getValue() != null)
+				{
+					value = cacheTableQueryCondition.getValue();
+					break;
+				}
+			}
+			if (value == null)
+				break;
+			values.add(value);
+		}
+		return values.size() > 0 ? values.toArray() : null;
+	}
+
+	/**
+	 * 集合键按字段数据的字符串形式保存，只有字符串、整数及布尔值的字符串形式与字段数据一致，可用于集合键查找
+	 * @param values 条件值列表
+	 * @return 可以用于集合键查找返回true，否则返回false
+	 */
+	private static boolean isKeyFieldValues(Object[] values)
+	{
+		for (Object value : values)
+		{
+			if (!(value instanceof String || value instanceof Long || value instanceof Boolean))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * 取得行列表的快照
+	 * @param cacheTableRows 行列表，值可以为空
+	 * @return 行数组
+	 */
+	private static Object[] toArray(Collection<ICacheTableRow> cacheTableRows)
+	{
+		return cacheTableRows == null ? new Object[0] : cacheTableRows.toArray();
+	}
+
+	/**
+	 * 检查行是否未过期且满足所有条件
+	 * @param cacheTableRow 行数据
+	 * @param currentTime 当前时间
+	 * @return 满足返回true，否则返回false
+	 */
+	private boolean accept(ICacheTableRow cacheTableRow, long currentTime)
+	{
+		if (cacheTableRow == null || currentTime > cacheTableRow.getExpiresTime())
+			return false;
+		for (int i = 0; i < conditions.size(); i++)
+		{
+			if (!conditions.get(i).match(cacheTableRow))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * 检查候选行，保持候选行原有的顺序
+	 * @param candidates 候选行数组
+	 * @param isParallel 是否可以并行检查
+	 * @return 满足条件的行列表
+	 */
+	private List<ICacheTableRow> filter(Object[] candidates, boolean isParallel)
+	{
+		long currentTime = DateUtil.getCurrentTimeMillis();
+		if (isParallel && CacheTableParallel.isParallel(candidates.length))
+			return CacheTableParallel.getForkJoinPool().invoke(new CacheTableQueryTask(candidates, 0, candidates.length, currentTime, CacheTableParallel.getBatchSize()));
+		return filter(candidates, 0, candidates.length, currentTime);
+	}
+
+	/**
+	 * 检查指定范围内的候选行
+	 * @param candidates 候选行数组
+	 * @param from 起始位置(包含)
+	 * @param to 结束位置(不包含)
+	 * @param currentTime 当前时间
+	 * @return 满足条件的行列表
+	 */
+	private ArrayList<ICacheTableRow> filter(Object[] candidates, int from, int to, long currentTime)
+	{
+		ArrayList<ICacheTableRow> cacheTableRows = new ArrayList<ICacheTableRow>();
+		for (int i = from; i < to; i++)
+		{
+			ICacheTableRow cacheTableRow = (ICacheTableRow) candidates[i];
+			if (accept(cacheTableRow, currentTime))
+			{
+				cacheTableRows.add(cacheTableRow);
+			}
+		}
+		return cacheTableRows;
+	}
+
+	/**
+	 * 排序，排序字段数据在排序前读取一次，排序过程中字段数据被修改不影响结果；限制行数量时只保留排在最前面的行，不对所有行排序
+	 * @param cacheTableRows 行列表
+	 * @param limit 最大行数量，值小于0时不限制
+	 * @return 排序后的行列表
+	 */
+	private List<ICacheTableRow> sort(List<ICacheTableRow> cacheTableRows, int limit)
+	{
+		ArrayList<Object[]> sortRows = new ArrayList<Object[]>(cacheTableRows.size());
+		CacheTableFieldHandle[] orderFieldHandles = new CacheTableFieldHandle[orderFieldNames.size()];
+		for (int i = 0; i < orderFieldHandles.length; i++)
+		{
+			orderFieldHandles[i] = cacheTable.getFieldHandle(orderFieldNames.get(i));
+		}
+		for (ICacheTableRow cacheTableRow : cacheTableRows)
+		{
+			Object[] sortRow = new Object[orderFieldHandles.length + 1];
+			sortRow[0] = cacheTableRow;
+			for (int i = 0; i < orderFieldHandles.length; i++)
+			{
+				sortRow[i + 1] = CacheTableIndexKey.normalize(orderFieldHandles[i].getData(cacheTableRow));
+			}
+			sortRows.add(sortRow);
+		}
+		Comparator<Object[]> comparator = new CacheTableQueryComparator(orderSortTypes.toArray(new SortType[orderSortTypes.size()]));
+		if (limit >= 0 && limit < sortRows.size())
+		{// 保留排在最前面的limit行，堆顶为其中排在最后的行
+			PriorityQueue<Object[]> topRows = new PriorityQueue<Object[]>(limit + 1, Collections.reverseOrder(comparator));
+			for (Object[] sortRow : sortRows)
+			{
+				topRows.add(sortRow);
+				if (topRows.size() > limit)
+				{
+					topRows.poll();
+				}
+			}
+			sortRows = new ArrayList<Object[]>(topRows);
+		}
+		CacheTableParallel.sort(sortRows, comparator);
+		ArrayList<ICacheTableRow> sortedRows = new ArrayList<ICacheTableRow>(sortRows.size());
+		for (Object[] sortRow : sortRows)
+		{
+			sortedRows.add((ICacheTableRow) sortRow[0]);
+		}
+		return sortedRows;
+	}
+
+	/**
+	 * 排序比较，比较[行, 排序字段1数据, 排序字段2数据, ...]，字段数据为null时排在最前(升序)
+	 */
+	private static class CacheTableQueryComparator implements Comparator<Object[]>
+	{
+		private final SortType[] sortTypes;
+
+		private CacheTableQueryComparator(SortType[] sortTypes)
+		{
+			this.sortTypes = sortTypes;
+		}
+
+		public int compare(Object[] sortRow1, Object[] sortRow2)
+		{
+			for (int i = 0; i < sortTypes.length; i++)
+			{
+				int result = CacheTableIndexKey.compareValue(sortRow1[i + 1], sortRow2[i + 1]);
+				if (result != 0)
+					return sortTypes[i] == SortType.DESC ? -result : result;
+			}
+			return 0;
+		}
+	}
+
+	/**
+	 * 并行检查候选行的任务，按位置二分，合并时保持候选行原有的顺序
+	 */
+	private class CacheTableQueryTask extends RecursiveTask<ArrayList<ICacheTableRow>>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final Object[] candidates;
+		private final int from;
+		private final int to;
+		private final long currentTime;
+		private final int batchSize;
+
+		private CacheTableQueryTask(Object[] candidates, int from, int to, long currentTime, int batchSize)
+		{
+			this.candidates = candidates;
+			this.from = from;
+			this.to = to;
+			this.currentTime = currentTime;
+			this.batchSize = batchSize;
+		}
+
+		protected ArrayList<ICacheTableRow> compute()
+		{
+			if (to - from <= batchSize)
+				return filter(candidates, from, to, currentTime);
+			int middle = (from + to) >>> 1;
+			CacheTableQueryTask leftTask = new CacheTableQueryTask(candidates, from, middle, currentTime, batchSize);
+			leftTask.fork();
+			ArrayList<ICacheTableRow> rightRows = new CacheTableQueryTask(candidates, middle, to, currentTime, batchSize).compute();
+			ArrayList<ICacheTableRow> leftRows = leftTask.join();
+			leftRows.addAll(rightRows);
+			return leftRows;
+		}
+	}
+
+	/**
+	 * 查询结果游标，遍历候选行快照时逐行检查条件
+	 */
+	private class CacheTableQueryCursor implements Iterator<ICacheTableRow>
+	{
+		private final Object[] candidates;
+		private final int limit;
+		private final long currentTime = DateUtil.getCurrentTimeMillis();
+		private int index = 0;
+		private int count = 0;
+		private ICacheTableRow nextRow;
+
+		private CacheTableQueryCursor(Object[] candidates, int limit)
+		{
+			this.candidates = candidates;
+			this.limit = limit;
+		}
+
+		public boolean hasNext()
+		{
+			if (nextRow != null)
+				return true;
+			if (limit >= 0 && count >= limit)
+				return false;
+			while (index < candidates.length)
+			{
+				ICacheTableRow cacheTableRow = (ICacheTableRow) candidates[index++];
+				if (accept(cacheTableRow, currentTime))
+				{
+					nextRow = cacheTableRow;
+					return true;
+				}
+			}
+			return false;
+		}
+
+		public ICacheTableRow next()
+		{
+			if (!hasNext())
+				throw new NoSuchElementException();
+			ICacheTableRow cacheTableRow = nextRow;
+			nextRow = null;
+			count++;
+			return cacheTableRow;
+		}
+
+		public void remove()
+		{
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,238 @@
+package base.data.cache.table;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import base.types.QueryOperator;
+
+/**
+ * 缓存表查询条件
+ * 条件值在创建时规范化，与字段值类型不同时(如以字符串查询整数字段)按字段值的类型转换后比较，转换结果按类型缓存。
+ * @author Devin
+ *
+ */
+public class CacheTableQueryCondition
+{
+	/**
+	 * 字段名
+	 */
+	private final String fieldName;
+
+	/**
+	 * 运算符
+	 */
+	private final QueryOperator operator;
+
+	/**
+	 * 条件值列表，BETWEEN为[起始值, 结束值]，IN为所有候选值，其它运算符只有一个值
+	 */
+	private final Object[] values;
+
+	/**
+	 * 字段句柄，为null时按字段名读取
+	 */
+	private final CacheTableFieldHandle fieldHandle;
+
+	/**
+	 * 最近一次按字段值类型转换的条件值：[类型, 转换后的条件值列表]
+	 */
+	private volatile Object[] convertedValues;
+
+	/**
+	 * 缓存表查询条件
+	 * @param fieldName 字段名
+	 * @param operator 运算符
+	 * @param value 条件值，BETWEEN时为两个元素的数组，IN时为数组或集合
+	 */
+	public CacheTableQueryCondition(String fieldName, QueryOperator operator, Object value)
+	{
+		this(fieldName, operator, value, null);
+	}
+
+	/**
+	 * 缓存表查询条件
+	 * @param fieldName 字段名
+	 * @param operator 运算符
+	 * @param value 条件值，BETWEEN时为两个元素的数组，IN时为数组或集合
+	 * @param fieldHandle 字段句柄，检查行时按槽位读取字段，为null时按字段名读取
+	 */
+	public CacheTableQueryCondition(String fieldName, QueryOperator operator, Object value, CacheTableFieldHandle fieldHandle)
+	{
+		this.fieldName = fieldName;
+		this.operator = operator;
+		this.values = toValues(operator, value);
+		this.fieldHandle = fieldHandle;
+	}
+
+	/**
+	 * 字段名
+	 * @return fieldName
+	 */
+	public String getFieldName()
+	{
+		return fieldName;
+	}
+
+	/**
+	 * 运算符
+	 * @return operator
+	 */
+	public QueryOperator getOperator()
+	{
+		return operator;
+	}
+
+	/**
+	 * 条件值，BETWEEN时为起始值
+	 * @return 条件值
+	 */
+	public Object getValue()
+	{
+		return values.length > 0 ? values[0] : null;
+	}
+
+	/**
+	 * BETWEEN的结束值，其它运算符时与getValue相同
+	 * @return 条件值
+	 */
+	public Object getToValue()
+	{
+		return values.length > 0 ? values[values.length - 1] : null;
+	}
+
+	/**
+	 * 条件是否有效，BETWEEN需要两个值，其它运算符至少需要一个值
+	 * @return 有效返回true，否则返回false
+	 */
+	public boolean isValid()
+	{
+		if (fieldName == null || operator == null)
+			return false;
+		if (operator == QueryOperator.BETWEEN)
+			return values.length == 2;
+		return values.length > 0;
+	}
+
+	/**
+	 * 检查行是否满足条件，行未包含该字段或字段值为null时不满足
+	 * @param cacheTableRow 行数据
+	 * @return 满足返回true，否则返回false
+	 */
+	public boolean match(ICacheTableRow cacheTableRow)
+	{
+		Object fieldValue = CacheTableIndexKey.normalize(fieldHandle != null ? fieldHandle.getData(cacheTableRow) : cacheTableRow.getFieldData(fieldName));
+		if (fieldValue == null)
+			return false;
+		Object[] values = convert(fieldValue.getClass());
+		if (values == null)
+			return operator == QueryOperator.NOT_EQUAL;
+		switch (operator)
+		{
+			case EQUAL:
+				return CacheTableIndexKey.compareValue(fieldValue, values[0]) == 0;
+			case NOT_EQUAL:
+				return CacheTableIndexKey.compareValue(fieldValue, values[0]) != 0;
+			case GREATER:
+				return CacheTableIndexKey.compareValue(fieldValue, values[0]) > 0;
+			case GREATER_EQUAL:
+				return CacheTableIndexKey.compareValue(fieldValue, values[0]) >= 0;
+			case LESS:
+				return CacheTableIndexKey.compareValue(fieldValue, values[0]) < 0;
+			case LESS_EQUAL:
+				return CacheTableIndexKey.compareValue(fieldValue, values[0]) <= 0;
+			case BETWEEN:
+				return CacheTableIndexKey.compareValue(fieldValue, values[0]) >= 0 && CacheTableIndexKey.compareValue(fieldValue, values[1]) <= 0;
+			case IN:
+				for (Object value : values)
+				{
+					if (value != null && CacheTableIndexKey.compareValue(fieldValue, value) == 0)
+						return true;
+				}
+				return false;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * 按字段值的类型转换条件值
+	 * @param type 字段值规范化后的类型
+	 * @return 转换后的条件值列表，无法转换时返回null(IN时忽略无法转换的值)
+	 */
+	private Object[] convert(Class<?> type)
+	{
+		Object[] convertedValues = this.convertedValues;
+		if (convertedValues != null && convertedValues[0] == type)
+			return (Object[]) convertedValues[1];
+		Object[] typeValues = new Object[values.length];
+		boolean isConverted = false;
+		for (int i = 0; i < values.length; i++)
+		{
+			typeValues[i] = CacheTableIndexKey.convert(values[i], type);
+			if (typeValues[i] == null && values[i] != null && operator != QueryOperator.IN)
+			{
+				typeValues = null;
+				break;
+			}
+			isConverted = isConverted || typeValues[i] != null;
+		}
+		if (typeValues != null && !isConverted)
+		{
+			typeValues = null;
+		}
+		this.convertedValues = new Object[] { type, typeValues };
+		return typeValues;
+	}
+
+	/**
+	 * 将条件值转换为规范化的值列表
+	 * @param operator 运算符
+	 * @param value 条件值
+	 * @return 值列表
+	 */
+	private static Object[] toValues(QueryOperator operator, Object value)
+	{
+		try
+		{
+			if (operator == QueryOperator.BETWEEN || operator == QueryOperator.IN)
+			{
+				Object[] values;
+				if (value instanceof Collection)
+				{
+					values = ((Collection<?>) value).toArray();
+				}
+				else if (value != null && value.getClass().isArray())
+				{
+					values = new Object[Array.getLength(value)];
+					for (int i = 0; i < values.length; i++)
+					{
+						values[i] = Array.get(value, i);
+					}
+				}
+				else
+				{
+					values = new Object[] { value };
+				}
+				for (int i = 0; i < values.length; i++)
+				{
+					values[i] = CacheTableIndexKey.normalize(values[i]);
+				}
+				return values;
+			}
+			return new Object[] { CacheTableIndexKey.normalize(value) };
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheTableQueryCondition.class.getName()).log(Level.SEVERE, null, e);
+			return new Object[0];
+		}
+	}
+
+	public String toString()
+	{
+		return fieldName + " " + operator + " " + Arrays.toString(values);
+	}
+}
@@ -0,0 +1,217 @@
+package base.data.cache.table;
+
+import java.util.Random;
+
+/**
+ * 缓存表名次树
+ * 以树堆(Treap)按键的顺序保存唯一的键，每个节点记录子树键数，加入、移除及取得键的名次均为O(log n)。
+ * 该类本身不做同步处理，读写需由所属视图的锁进行保护
+ * @author Devin
+ *
+ * @param <K> 键类型，键之间不能相等
+ */
+public class CacheTableRankTree<K extends Comparable<K>>
+{
+	/**
+	 * 根节点
+	 */
+	private Node<K> root;
+
+	/**
+	 * 节点优先级随机数
+	 */
+	private final Random random = new Random();
+
+	/**
+	 * 加入键
+	 * @param key 键，值不能为空且不能已存在
+	 */
+	public void add(K key)
+	{
+		Node<K> node = new Node<K>(key, random.nextInt());
+		Node<K>[] parts = split(root, key);
+		root = merge(merge(parts[0], node), parts[1]);
+	}
+
+	/**
+	 * 移除键
+	 * @param key 键
+	 */
+	public void remove(K key)
+	{
+		root = remove(root, key);
+	}
+
+	/**
+	 * 取得键的名次
+	 * @param key 键
+	 * @return 名次，从0开始，即小于该键的键数，键不存在时返回-1
+	 */
+	public int rank(K key)
+	{
+		int rank = 0;
+		Node<K> node = root;
+		while (node != null)
+		{
+			int result = key.compareTo(node.key);
+			if (result < 0)
+			{
+				node = node.left;
+			}
+			else if (result == 0)
+			{
+				return rank + size(node.left);
+			}
+			else
+			{
+				rank += size(node.left) + 1;
+				node = node.right;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * 键数
+	 * @return 键数
+	 */
+	public int size()
+	{
+		return size(root);
+	}
+
+	/**
+	 * 清除所有键
+	 */
+	public void clear()
+	{
+		root = null;
+	}
+
+	/**
+	 * 将子树拆分为小于指定键及不小于指定键的两棵子树
+	 * @param node 子树根节点
+	 * @param key 键
+	 * @return [0]小于键的子树，[1]不小于键的子树
+	 */
+	@SuppressWarnings("unchecked")
+	private static <K extends Comparable<K>> Node<K>[] split(Node<K> node, K key)
+	{
+		if (node == null)
+			return (Node<K>[]) new Node<?>[2];
+		Node<K>[] parts;
+		if (node.key.compareTo(key) < 0)
+		{
+			parts = split(node.right, key);
+			node.right = parts[0];
+			update(node);
+			parts[0] = node;
+		}
+		else
+		{
+			parts = split(node.left, key);
+			node.left = parts[1];
+			update(node);
+			parts[1] = node;
+		}
+		return parts;
+	}
+
+	/**
+	 * 合并两棵子树，左侧子树的键都小于右侧子树的键
+	 * @param left 左侧子树
+	 * @param right 右侧子树
+	 * @return 合并后的子树
+	 */
+	private static <K extends Comparable<K>> Node<K> merge(Node<K> left, Node<K> right)
+	{
+		if (left == null)
+			return right;
+		if (right == null)
+			return left;
+		if (left.priority > right.priority)
+		{
+			left.right = merge(left.right, right);
+			update(left);
+			return left;
+		}
+		right.left = merge(left, right.left);
+		update(right);
+		return right;
+	}
+
+	/**
+	 * 从子树中移除键
+	 * @param node 子树根节点
+	 * @param key 键
+	 * @return 移除后的子树
+	 */
+	private static <K extends Comparable<K>> Node<K> remove(Node<K> node, K key)
+	{
+		if (node == null)
+			return null;
+		int result = key.compareTo(node.key);
+		if (result == 0)
+			return merge(node.left, node.right);
+		if (result < 0)
+		{
+			node.left = remove(node.left, key);
+		}
+		else
+		{
+			node.right = remove(node.right, key);
+		}
+		update(node);
+		return node;
+	}
+
+	/**
+	 * 更新节点的子树键数
+	 * @param node 节点
+	 */
+	private static <K extends Comparable<K>> void update(Node<K> node)
+	{
+		node.size = 1 + size(node.left) + size(node.right);
+	}
+
+	/**
+	 * 子树键数
+	 * @param node 子树根节点
+	 * @return 键数
+	 */
+	private static <K extends Comparable<K>> int size(Node<K> node)
+	{
+		return node == null ? 0 : node.size;
+	}
+
+	/**
+	 * 树堆节点
+	 */
+	private final static class Node<K>
+	{
+		/**
+		 * 键
+		 */
+		final K key;
+
+		/**
+		 * 优先级，父节点不小于子节点
+		 */
+		final int priority;
+
+		/**
+		 * 子树键数
+		 */
+		int size = 1;
+
+		Node<K> left;
+
+		Node<K> right;
+
+		Node(K key, int priority)
+		{
+			this.key = key;
+			this.priority = priority;
+		}
+	}
+}
@@ -1,7 +1,11 @@
 package base.data.cache.table;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
@@ -31,6 +35,16 @@ public class CacheTableRow extends EventDispatcher implements ICacheTableRow
 	 */
 	private ConcurrentHashMap<String, ICacheTableField> fields = new ConcurrentHashMap<String, ICacheTableField>();
 
+	/**
+	 * 绑定的表结构
+	 */
+	private volatile CacheTableSchema schema;
+
+	/**
+	 * 按表结构槽位排列的字段，与fields同步维护
+	 */
+	private volatile ICacheTableField[] slotFields = new ICacheTableField[0];
+
 //	/**
 //	 * 隶属于的最后一级的CacheTableStructure的key
 //	 */
@@ -309,6 +323,166 @@ public class CacheTableRow extends EventDispatcher implements ICacheTableRow
 		}
 	}
 	
+	/**
+	 * 是否已加入数据库缓存表的待写入列表，以原子操作设置，不使用行锁
+	 */
+	private final AtomicBoolean isDirty = new AtomicBoolean(false);
+	
+	/**
+	 * 是否已加入数据库缓存表的待写入列表
+	 * @return
+	 */
+	public boolean getIsDirty()
+	{
+		return isDirty.get();
+	}
+	
+	/**
+	 * 原子地比较并设置是否已加入待写入列表，只有设置成功的线程将行加入待写入列表
+	 * @param expect 期望的当前值
+	 * @param update 要设置的值
+	 * @return 当前值与期望值相等并设置成功时返回true
+	 */
+	public boolean compareAndSetIsDirty(boolean expect, boolean update)
+	{
+		return isDirty.compareAndSet(expect, update);
+	}
+
+	/**
+	 * 最近一次被访问的时间(纳秒)
+	 */
+	private volatile long accessTime;
+
+	/**
+	 * 最近一次被访问的时间(纳秒)
+	 * @return accessTime
+	 */
+	public long getAccessTime()
+	{
+		return accessTime;
+	}
+
+	/**
+	 * 最近一次被访问的时间(纳秒)
+	 * @param accessTime 要设置的 accessTime
+	 */
+	public void setAccessTime(long accessTime)
+	{
+		this.accessTime = accessTime;
+	}
+
+	/**
+	 * 是否已加入缓存表的待提升列表，以原子操作设置，不使用行锁
+	 */
+	private final AtomicBoolean isAccessQueued = new AtomicBoolean(false);
+
+	/**
+	 * 原子地比较并设置是否已加入缓存表的待提升列表，只有设置成功的线程将行加入待提升列表
+	 * @param expect 期望的当前值
+	 * @param update 要设置的值
+	 * @return 当前值与期望值相等并设置成功时返回true
+	 */
+	public boolean compareAndSetIsAccessQueued(boolean expect, boolean update)
+	{
+		return isAccessQueued.compareAndSet(expect, update);
+	}
+	
+	/**
+	 * 已更改字段的位图，按表结构槽位每个字段占一位，以原子操作设置及取出，不使用行锁和字段锁
+	 */
+	private volatile AtomicLongArray dirtyFields = new AtomicLongArray(1);
+	
+	/**
+	 * 标记槽位对应的字段已更改
+	 * @param slot 字段槽位
+	 */
+	public void setFieldDirty(int slot)
+	{
+		if (slot < 0)
+			return;
+		int index = slot >>> 6;
+		long bit = 1L << slot;
+		while (true)
+		{
+			AtomicLongArray dirtyFields = this.dirtyFields;
+			if (index >= dirtyFields.length())
+			{
+				growDirtyFields(index + 1);
+				continue;
+			}
+			long value;
+			do
+			{
+				value = dirtyFields.get(index);
+			}
+			while ((value & bit) == 0 && !dirtyFields.compareAndSet(index, value, value | bit));
+			if (dirtyFields == this.dirtyFields)
+				return;// 设置期间位图被扩展替换时在新位图上重新设置
+		}
+	}
+	
+	/**
+	 * 原子地取出并清除已更改字段的位图
+	 * @return 位图，第slot位为1表示槽位slot对应的字段已更改，行未绑定表结构时返回null
+	 */
+	public long[] takeDirtyFields()
+	{
+		if (schema == null)
+			return null;
+		AtomicLongArray dirtyFields = this.dirtyFields;
+		long[] values = new long[dirtyFields.length()];
+		for (int i = 0; i < values.length; i++)
+		{
+			values[i] = dirtyFields.getAndSet(i, 0);
+		}
+		return values;
+	}
+	
+	/**
+	 * 将取出的位图重新标记为已更改，用于未写入或写入失败的字段
+	 * @param dirtyFields 位图
+	 */
+	public void restoreDirtyFields(long[] dirtyFields)
+	{
+		if (dirtyFields == null)
+			return;
+		for (int i = 0; i < dirtyFields.length; i++)
+		{
+			long value = dirtyFields[i];
+			while (value != 0)
+			{
+				setFieldDirty((i << 6) + Long.numberOfTrailingZeros(value));
+				value &= value - 1;
+			}
+		}
+	}
+	
+	/**
+	 * 扩展已更改字段的位图
+	 * @param length 位图的最小长度
+	 */
+	private synchronized void growDirtyFields(int length)
+	{
+		AtomicLongArray dirtyFields = this.dirtyFields;
+		if (length <= dirtyFields.length())
+			return;
+		AtomicLongArray newDirtyFields = new AtomicLongArray(length);
+		this.dirtyFields = newDirtyFields;// 先替换再复制，复制期间旧位图上的设置由设置方检测到替换后重新设置
+		for (int i = 0; i < dirtyFields.length(); i++)
+		{
+			long value = dirtyFields.getAndSet(i, 0);
+			if (value != 0)
+			{
+				long oldValue;
+				do
+				{
+					oldValue = newDirtyFields.get(i);
+				}
+				while (!newDirtyFields.compareAndSet(i, oldValue, oldValue | value));
+			}
+		}
+	}
+	
 	/**
 	 * 行数据发生改变
 	 * @return
@@ -403,7 +577,16 @@ public class CacheTableRow extends EventDispatcher implements ICacheTableRow
 		{
 			cacheTableField.setCacheTableRow(this);
 			cacheTableField.setFieldName(fieldName);
-			fields.put(fieldName, cacheTableField);
+			ICacheTableField oldCacheTableField = fields.put(fieldName, cacheTableField);
+			CacheTableSchema schema = this.schema;
+			if (schema != null)
+			{
+				setSlotField(schema.addField(fieldName), cacheTableField);
+			}
+			if (oldCacheTableField != null && oldCacheTableField != cacheTableField)
+			{// 替换已存在的字段时，字段数据可能已改变
+				fieldDataChange(fieldName);
+			}
 			return true;
 		}
 		catch (Exception e)
@@ -527,6 +710,103 @@ public class CacheTableRow extends EventDispatcher implements ICacheTableRow
 		return fields.get(fieldName);
 	}
 
+	/**
+	 * 按表结构槽位取得字段单元，不加锁，只读取槽位数组
+	 * @param slot 字段槽位
+	 * @return 字段单元，如果字段单元为null，则返回null
+	 */
+	public ICacheTableField getField(int slot)
+	{
+		ICacheTableField[] slotFields = this.slotFields;
+		if (slot >= 0 && slot < slotFields.length && slotFields[slot] != null)
+			return slotFields[slot];
+		CacheTableSchema schema = this.schema;
+		ConcurrentHashMap<String, ICacheTableField> fields = this.fields;
+		if (schema == null || fields == null)
+			return null;
+		String fieldName = schema.getFieldName(slot);
+		return fieldName == null ? null : fields.get(fieldName);
+	}
+
+	/**
+	 * 按表结构槽位取得字段单元数据，不加锁，只读取槽位数组
+	 * @param slot 字段槽位
+	 * @return 字段单元数据，如果对应的字段单元为null，则返回null
+	 */
+	public <T> T getFieldData(int slot)
+	{
+		ICacheTableField cacheTableField = getField(slot);
+		return cacheTableField == null ? null : cacheTableField.<T> getData();
+	}
+
+	/**
+	 * 行绑定的表结构
+	 * @return 表结构，未加入表时返回null
+	 */
+	public CacheTableSchema getSchema()
+	{
+		return schema;
+	}
+
+	/**
+	 * 绑定表结构，行的字段名将加入表结构，并按槽位重建字段数组
+	 * @param schema 表结构
+	 */
+	public void setSchema(CacheTableSchema schema)
+	{
+		lock.writeLock().lock();
+		try
+		{
+			if (this.schema == schema)
+				return;
+			ICacheTableField[] slotFields = new ICacheTableField[schema == null ? 0 : schema.size()];
+			if (schema != null && fields != null)
+			{
+				for (Map.Entry<String, ICacheTableField> entry : fields.entrySet())
+				{
+					int slot = schema.addField(entry.getKey());
+					if (slot >= slotFields.length)
+					{
+						slotFields = Arrays.copyOf(slotFields, Math.max(slot + 1, schema.size()));
+					}
+					slotFields[slot] = entry.getValue();
+					if (entry.getValue().getIsChange())
+					{// 绑定表结构前已更改的字段
+						setFieldDirty(slot);
+					}
+				}
+			}
+			this.slotFields = slotFields;
+			this.schema = schema;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 设置槽位对应的字段，槽位超出数组长度时扩展数组，调用时需持有写锁
+	 * @param slot 字段槽位
+	 * @param cacheTableField 字段
+	 */
+	private void setSlotField(int slot, ICacheTableField cacheTableField)
+	{
+		if (slot < 0)
+			return;
+		ICacheTableField[] slotFields = this.slotFields;
+		if (slot >= slotFields.length)
+		{
+			slotFields = Arrays.copyOf(slotFields, Math.max(slot + 1, schema.size()));
+		}
+		else
+		{
+			slotFields = slotFields.clone();
+		}
+		slotFields[slot] = cacheTableField;
+		this.slotFields = slotFields;
+	}
+
 	/**
 	 * 取得字段单元数据
 	 * @param fieldName 字段名
@@ -608,6 +888,15 @@ public class CacheTableRow extends EventDispatcher implements ICacheTableRow
 	{
 		dispatchEvent(new CacheEvent(CacheEvent.DATA_TO_SAVE));
 	}
+
+	/**
+	 * 字段数据发生改变，通知行所在的表维护索引
+	 * @param fieldName 数据改变的字段名
+	 */
+	public void fieldDataChange(String fieldName)
+	{
+		dispatchEventWith(CacheEvent.FIELD_DATA_CHANGE, fieldName);
+	}
 	
 	/*
 	 * 克隆，深度复制一份全新的数据,数据内容仅为行字段数据集，其它行属性则为默认值
@@ -672,6 +961,8 @@ public class CacheTableRow extends EventDispatcher implements ICacheTableRow
 			fields.clear();
 			fields = null;
 		}
+		slotFields = new ICacheTableField[0];
+		schema = null;
 		previous = null;
 		next = null;
 //		parent = null;
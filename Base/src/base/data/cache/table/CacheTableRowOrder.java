@@ -0,0 +1,392 @@
+package base.data.cache.table;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * 缓存表行排列顺序
+ * 以按位置隐式排序的树堆(Treap)保存行顺序，每个节点记录子树行数，按位置插入、移除、按位置取得行及取得行位置均为O(log n)，
+ * 按指定的行列表重建顺序为O(n)，遍历按排列顺序进行。
+ * 该类本身不做同步处理，读写需由所属缓存表的锁进行保护
+ * @author Devin
+ *
+ */
+public class CacheTableRowOrder extends AbstractCollection<ICacheTableRow>
+{
+	/**
+	 * 行对应的节点
+	 */
+	private HashMap<ICacheTableRow, Node> nodes = new HashMap<ICacheTableRow, Node>();
+
+	/**
+	 * 根节点
+	 */
+	private Node root;
+
+	/**
+	 * 节点优先级随机数
+	 */
+	private final Random random = new Random();
+
+	/**
+	 * 增加行至末尾
+	 * @param cacheTableRow 行数据
+	 * @return 行已存在时返回false
+	 */
+	public boolean add(ICacheTableRow cacheTableRow)
+	{
+		return insert(size(), cacheTableRow);
+	}
+
+	/**
+	 * 插入行
+	 * @param index 排列位置，超出范围时增加至末尾
+	 * @param cacheTableRow 行数据
+	 * @return 行已存在时返回false
+	 */
+	public boolean insert(int index, ICacheTableRow cacheTableRow)
+	{
+		if (cacheTableRow == null || nodes.containsKey(cacheTableRow))
+			return false;
+		if (index < 0 || index > size())
+		{
+			index = size();
+		}
+		Node node = new Node(cacheTableRow, random.nextInt());
+		nodes.put(cacheTableRow, node);
+		Node[] parts = split(root, index);
+		setRoot(merge(merge(parts[0], node), parts[1]));
+		return true;
+	}
+
+	/**
+	 * 移除行
+	 * @param cacheTableRow 行数据
+	 * @return 行不存在时返回false
+	 */
+	public boolean remove(Object cacheTableRow)
+	{
+		Node node = nodes.remove(cacheTableRow);
+		if (node == null)
+			return false;
+		Node[] leftParts = split(root, indexOf(node));
+		Node[] rightParts = split(leftParts[1], 1);
+		setRoot(merge(leftParts[0], rightParts[1]));
+		return true;
+	}
+
+	/**
+	 * 取得指定排列位置的行
+	 * @param index 排列位置
+	 * @return 行数据，索引超出范围返回null
+	 */
+	public ICacheTableRow get(int index)
+	{
+		if (index < 0 || index >= size())
+			return null;
+		Node node = root;
+		while (true)
+		{
+			int leftSize = size(node.left);
+			if (index < leftSize)
+			{
+				node = node.left;
+			}
+			else if (index == leftSize)
+			{
+				return node.row;
+			}
+			else
+			{
+				index -= leftSize + 1;
+				node = node.right;
+			}
+		}
+	}
+
+	/**
+	 * 取得行的排列位置
+	 * @param cacheTableRow 行数据
+	 * @return 排列位置，行不存在时返回-1
+	 */
+	public int indexOf(ICacheTableRow cacheTableRow)
+	{
+		Node node = nodes.get(cacheTableRow);
+		return node == null ? -1 : indexOf(node);
+	}
+
+	/**
+	 * 按指定的行列表重建排列顺序
+	 * @param cacheTableRows 行列表，不能包含重复的行
+	 */
+	public void reset(List<ICacheTableRow> cacheTableRows)
+	{
+		HashMap<ICacheTableRow, Node> newNodes = new HashMap<ICacheTableRow, Node>(Math.max(16, cacheTableRows.size() * 4 / 3 + 1));
+		ArrayList<Node> rightSpine = new ArrayList<Node>();
+		for (ICacheTableRow cacheTableRow : cacheTableRows)
+		{// 以右侧链线性构建树堆，优先级较小的节点成为新节点的左子树
+			Node node = new Node(cacheTableRow, random.nextInt());
+			newNodes.put(cacheTableRow, node);
+			Node lastPopped = null;
+			while (!rightSpine.isEmpty() && rightSpine.get(rightSpine.size() - 1).priority < node.priority)
+			{
+				lastPopped = rightSpine.remove(rightSpine.size() - 1);
+			}
+			node.left = lastPopped;
+			if (lastPopped != null)
+			{
+				lastPopped.parent = node;
+			}
+			if (!rightSpine.isEmpty())
+			{
+				Node parent = rightSpine.get(rightSpine.size() - 1);
+				parent.right = node;
+				node.parent = parent;
+			}
+			rightSpine.add(node);
+		}
+		nodes = newNodes;
+		root = rightSpine.isEmpty() ? null : rightSpine.get(0);
+		if (root != null)
+		{
+			root.parent = null;
+			computeSize(root);
+		}
+	}
+
+	public boolean contains(Object cacheTableRow)
+	{
+		return nodes.containsKey(cacheTableRow);
+	}
+
+	public int size()
+	{
+		return size(root);
+	}
+
+	public void clear()
+	{
+		nodes.clear();
+		root = null;
+	}
+
+	public Iterator<ICacheTableRow> iterator()
+	{
+		return new Iterator<ICacheTableRow>()
+		{
+			private Node next = first(root);
+
+			public boolean hasNext()
+			{
+				return next != null;
+			}
+
+			public ICacheTableRow next()
+			{
+				if (next == null)
+					throw new NoSuchElementException();
+				Node node = next;
+				next = successor(node);
+				return node.row;
+			}
+
+			public void remove()
+			{
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * 设置根节点
+	 * @param node 节点
+	 */
+	private void setRoot(Node node)
+	{
+		root = node;
+		if (root != null)
+		{
+			root.parent = null;
+		}
+	}
+
+	/**
+	 * 取得节点的排列位置
+	 * @param node 节点
+	 * @return 排列位置
+	 */
+	private static int indexOf(Node node)
+	{
+		int index = size(node.left);
+		while (node.parent != null)
+		{
+			if (node == node.parent.right)
+			{
+				index += size(node.parent.left) + 1;
+			}
+			node = node.parent;
+		}
+		return index;
+	}
+
+	/**
+	 * 将子树按排列位置拆分为两棵子树，返回的子树根节点的parent需由调用方重新设置
+	 * @param node 子树根节点
+	 * @param count 左侧子树的行数
+	 * @return [0]左侧子树，[1]右侧子树
+	 */
+	private static Node[] split(Node node, int count)
+	{
+		if (node == null)
+			return new Node[2];
+		Node[] parts;
+		if (size(node.left) < count)
+		{
+			parts = split(node.right, count - size(node.left) - 1);
+			node.right = parts[0];
+			update(node);
+			parts[0] = node;
+		}
+		else
+		{
+			parts = split(node.left, count);
+			node.left = parts[1];
+			update(node);
+			parts[1] = node;
+		}
+		return parts;
+	}
+
+	/**
+	 * 按排列顺序合并两棵子树，返回的子树根节点的parent需由调用方重新设置
+	 * @param left 左侧子树
+	 * @param right 右侧子树
+	 * @return 合并后的子树
+	 */
+	private static Node merge(Node left, Node right)
+	{
+		if (left == null)
+			return right;
+		if (right == null)
+			return left;
+		if (left.priority > right.priority)
+		{
+			left.right = merge(left.right, right);
+			update(left);
+			return left;
+		}
+		right.left = merge(left, right.left);
+		update(right);
+		return right;
+	}
+
+	/**
+	 * 更新节点的子树行数及子节点的parent
+	 * @param node 节点
+	 */
+	private static void update(Node node)
+	{
+		node.size = 1 + size(node.left) + size(node.right);
+		if (node.left != null)
+		{
+			node.left.parent = node;
+		}
+		if (node.right != null)
+		{
+			node.right.parent = node;
+		}
+	}
+
+	/**
+	 * 计算子树中各节点的行数
+	 * @param node 子树根节点
+	 * @return 子树行数
+	 */
+	private static int computeSize(Node node)
+	{
+		if (node == null)
+			return 0;
+		node.size = 1 + computeSize(node.left) + computeSize(node.right);
+		return node.size;
+	}
+
+	/**
+	 * 子树行数
+	 * @param node 子树根节点
+	 * @return 行数
+	 */
+	private static int size(Node node)
+	{
+		return node == null ? 0 : node.size;
+	}
+
+	/**
+	 * 子树中排列第一的节点
+	 * @param node 子树根节点
+	 * @return 节点，子树为空时返回null
+	 */
+	private static Node first(Node node)
+	{
+		if (node == null)
+			return null;
+		while (node.left != null)
+		{
+			node = node.left;
+		}
+		return node;
+	}
+
+	/**
+	 * 排列中的下一个节点
+	 * @param node 节点
+	 * @return 下一个节点，不存在时返回null
+	 */
+	private static Node successor(Node node)
+	{
+		if (node.right != null)
+			return first(node.right);
+		while (node.parent != null && node == node.parent.right)
+		{
+			node = node.parent;
+		}
+		return node.parent;
+	}
+
+	/**
+	 * 树堆节点
+	 */
+	private final static class Node
+	{
+		/**
+		 * 行数据
+		 */
+		final ICacheTableRow row;
+
+		/**
+		 * 优先级，父节点不小于子节点
+		 */
+		final int priority;
+
+		/**
+		 * 子树行数
+		 */
+		int size = 1;
+
+		Node left;
+
+		Node right;
+
+		Node parent;
+
+		Node(ICacheTableRow row, int priority)
+		{
+			this.row = row;
+			this.priority = priority;
+		}
+	}
+}
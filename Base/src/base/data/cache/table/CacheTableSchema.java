@@ -0,0 +1,143 @@
+package base.data.cache.table;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 缓存表结构
+ * 为表的每个字段名分配一次整数槽位，槽位分配后不再改变，新字段只追加在末尾。
+ * 行加入表时绑定表结构，之后可按槽位以数组下标读取字段，不需要再对字段名计算哈希；
+ * 热点代码可先通过getFieldHandle取得字段句柄，再用句柄读取各行的字段。
+ * @author Devin
+ *
+ */
+public class CacheTableSchema
+{
+	/**
+	 * 字段名对应的槽位
+	 */
+	private final ConcurrentHashMap<String, Integer> slots = new ConcurrentHashMap<String, Integer>();
+
+	/**
+	 * 槽位对应的字段名，追加字段时整体替换
+	 */
+	private volatile String[] fieldNames = new String[0];
+
+	/**
+	 * 已创建的字段句柄
+	 */
+	private final ConcurrentHashMap<String, CacheTableFieldHandle> fieldHandles = new ConcurrentHashMap<String, CacheTableFieldHandle>();
+
+	public CacheTableSchema()
+	{
+	}
+
+	/**
+	 * 缓存表结构
+	 * @param fieldNames 字段名列表，槽位按列表顺序分配
+	 */
+	public CacheTableSchema(String[] fieldNames)
+	{
+		if (fieldNames != null)
+		{
+			for (String fieldName : fieldNames)
+			{
+				addField(fieldName);
+			}
+		}
+	}
+
+	/**
+	 * 加入字段，已存在时返回已分配的槽位
+	 * @param fieldName 字段名
+	 * @return 字段槽位，字段名为空时返回-1
+	 */
+	public int addField(String fieldName)
+	{
+		if (fieldName == null)
+			return -1;
+		Integer slot = slots.get(fieldName);
+		if (slot != null)
+			return slot;
+		synchronized (this)
+		{
+			slot = slots.get(fieldName);
+			if (slot != null)
+				return slot;
+			String[] newFieldNames = Arrays.copyOf(fieldNames, fieldNames.length + 1);
+			newFieldNames[fieldNames.length] = fieldName;
+			fieldNames = newFieldNames;
+			slots.put(fieldName, fieldNames.length - 1);
+			return fieldNames.length - 1;
+		}
+	}
+
+	/**
+	 * 取得字段槽位
+	 * @param fieldName 字段名
+	 * @return 字段槽位，字段不存在时返回-1
+	 */
+	public int getSlot(String fieldName)
+	{
+		if (fieldName == null)
+			return -1;
+		Integer slot = slots.get(fieldName);
+		return slot == null ? -1 : slot;
+	}
+
+	/**
+	 * 取得槽位对应的字段名
+	 * @param slot 字段槽位
+	 * @return 字段名，槽位不存在时返回null
+	 */
+	public String getFieldName(int slot)
+	{
+		String[] fieldNames = this.fieldNames;
+		return slot >= 0 && slot < fieldNames.length ? fieldNames[slot] : null;
+	}
+
+	/**
+	 * 按槽位排列的字段名列表
+	 * @return 字段名列表
+	 */
+	public String[] getFieldNames()
+	{
+		return fieldNames.clone();
+	}
+
+	/**
+	 * 字段数量
+	 * @return 字段数量
+	 */
+	public int size()
+	{
+		return fieldNames.length;
+	}
+
+	/**
+	 * 取得字段句柄，字段不存在时先加入字段
+	 * @param fieldName 字段名
+	 * @return 字段句柄，字段名为空时返回null
+	 */
+	public CacheTableFieldHandle getFieldHandle(String fieldName)
+	{
+		if (fieldName == null)
+			return null;
+		CacheTableFieldHandle cacheTableFieldHandle = fieldHandles.get(fieldName);
+		if (cacheTableFieldHandle == null)
+		{
+			cacheTableFieldHandle = new CacheTableFieldHandle(this, addField(fieldName), fieldName);
+			CacheTableFieldHandle oldCacheTableFieldHandle = fieldHandles.putIfAbsent(fieldName, cacheTableFieldHandle);
+			if (oldCacheTableFieldHandle != null)
+			{
+				cacheTableFieldHandle = oldCacheTableFieldHandle;
+			}
+		}
+		return cacheTableFieldHandle;
+	}
+
+	public String toString()
+	{
+		return Arrays.toString(fieldNames);
+	}
+}
@@ -0,0 +1,128 @@
+package base.data.cache.table;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 缓存表行快照
+ * 创建后不可修改，遍历时不需要加锁，也不会因表的增加、移除、排序出现ConcurrentModificationException。
+ * 快照只保存行的引用，行字段数据的修改对快照可见；版本号在表的行增加、移除、排序、清除时递增，版本号相同的快照其行及顺序相同。
+ * @author Devin
+ *
+ */
+public final class CacheTableSnapshot implements Iterable<ICacheTableRow>
+{
+	/**
+	 * 空快照
+	 */
+	public final static CacheTableSnapshot EMPTY = new CacheTableSnapshot(new ICacheTableRow[0], -1);
+
+	/**
+	 * 行数据
+	 */
+	private final ICacheTableRow[] rows;
+
+	/**
+	 * 创建快照时表的版本号
+	 */
+	private final long epoch;
+
+	/**
+	 * 缓存表行快照
+	 * @param rows 行数据，不再被修改的数组
+	 * @param epoch 创建快照时表的版本号
+	 */
+	public CacheTableSnapshot(ICacheTableRow[] rows, long epoch)
+	{
+		this.rows = rows;
+		this.epoch = epoch;
+	}
+
+	/**
+	 * 创建快照时表的版本号
+	 * @return 版本号
+	 */
+	public long getEpoch()
+	{
+		return epoch;
+	}
+
+	/**
+	 * 行数量
+	 * @return 行数量
+	 */
+	public int size()
+	{
+		return rows.length;
+	}
+
+	/**
+	 * 是否没有行
+	 * @return 没有行返回true
+	 */
+	public boolean isEmpty()
+	{
+		return rows.length == 0;
+	}
+
+	/**
+	 * 取得指定位置的行
+	 * @param index 位置
+	 * @return 行数据
+	 */
+	public ICacheTableRow get(int index)
+	{
+		return rows[index];
+	}
+
+	/**
+	 * 以只读列表访问快照
+	 * @return 只读列表，不复制行数据
+	 */
+	public List<ICacheTableRow> asList()
+	{
+		return Collections.unmodifiableList(Arrays.asList(rows));
+	}
+
+	/**
+	 * 复制快照的行数据
+	 * @return 行数据数组
+	 */
+	public ICacheTableRow[] toArray()
+	{
+		return rows.clone();
+	}
+
+	public Iterator<ICacheTableRow> iterator()
+	{
+		return new Iterator<ICacheTableRow>()
+		{
+			private int index;
+
+			public boolean hasNext()
+			{
+				return index < rows.length;
+			}
+
+			public ICacheTableRow next()
+			{
+				if (index >= rows.length)
+					throw new NoSuchElementException();
+				return rows[index++];
+			}
+
+			public void remove()
+			{
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	public String toString()
+	{
+		return "epoch=" + epoch + ", size=" + rows.length;
+	}
+}
@@ -0,0 +1,145 @@
+package base.data.cache.table;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 缓存表有序索引
+ * 以类型化的复合键做为跳表的键，按字段值大小排列，除相等查找外还支持范围查找，
+ * 如：level BETWEEN 10 AND 20，复合键时可只指定前面部分字段的范围。
+ * @author Devin
+ *
+ */
+public class CacheTableSortedIndex extends CacheTableIndex
+{
+	/**
+	 * 按键排列的行列表
+	 */
+	private final ConcurrentSkipListMap<CacheTableIndexKey, Vector<ICacheTableRow>> entries = new ConcurrentSkipListMap<CacheTableIndexKey, Vector<ICacheTableRow>>();
+
+	public CacheTableSortedIndex()
+	{
+	}
+
+	/**
+	 * 有序索引
+	 * @return true
+	 */
+	public boolean isSorted()
+	{
+		return true;
+	}
+
+	/**
+	 * 取得键值在指定范围内的行列表，按键值从小到大排列
+	 * @param fromValues 起始键值列表，可以只指定前面部分字段的值，为null时则不限下界
+	 * @param fromInclusive 是否包含等于起始键值的行
+	 * @param toValues 结束键值列表，可以只指定前面部分字段的值，为null时则不限上界
+	 * @param toInclusive 是否包含等于结束键值的行
+	 * @return 行列表副本，键值无法转换为字段值的类型时返回null
+	 */
+	public Vector<ICacheTableRow> getRows(Object[] fromValues, boolean fromInclusive, Object[] toValues, boolean toInclusive)
+	{
+		CacheTableIndexKey fromCacheTableIndexKey = null;
+		CacheTableIndexKey toCacheTableIndexKey = null;
+		if (fromValues != null)
+		{
+			fromCacheTableIndexKey = toKey(fromValues);
+			if (fromCacheTableIndexKey == null)
+				return null;
+		}
+		if (toValues != null)
+		{
+			toCacheTableIndexKey = toKey(toValues);
+			if (toCacheTableIndexKey == null)
+				return null;
+		}
+		lock.readLock().lock();
+		try
+		{
+			return range(fromCacheTableIndexKey, fromInclusive, toCacheTableIndexKey, toInclusive);
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheTableSortedIndex.class.getName()).log(Level.SEVERE, null, e);
+			return null;
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	protected void link(ICacheTableRow cacheTableRow, CacheTableIndexKey cacheTableIndexKey, int index)
+	{
+		Vector<ICacheTableRow> cacheTableRows = entries.get(cacheTableIndexKey);
+		if (cacheTableRows == null)
+		{
+			cacheTableRows = new Vector<ICacheTableRow>(4);
+			entries.put(cacheTableIndexKey, cacheTableRows);
+		}
+		addToRows(cacheTableRows, cacheTableRow, index);
+	}
+
+	protected void unlink(ICacheTableRow cacheTableRow, CacheTableIndexKey cacheTableIndexKey)
+	{
+		Vector<ICacheTableRow> cacheTableRows = entries.get(cacheTableIndexKey);
+		if (cacheTableRows != null)
+		{
+			cacheTableRows.remove(cacheTableRow);
+			if (cacheTableRows.isEmpty())
+			{
+				entries.remove(cacheTableIndexKey);
+			}
+		}
+	}
+
+	protected Vector<ICacheTableRow> find(CacheTableIndexKey cacheTableIndexKey)
+	{
+		if (cacheTableIndexKey.size() == fieldNames.length)
+		{
+			Vector<ICacheTableRow> cacheTableRows = entries.get(cacheTableIndexKey);
+			return cacheTableRows == null ? null : new Vector<ICacheTableRow>(cacheTableRows);
+		}
+		Vector<ICacheTableRow> cacheTableRows = range(cacheTableIndexKey, true, cacheTableIndexKey, true);
+		return cacheTableRows.isEmpty() ? null : cacheTableRows;
+	}
+
+	protected void clearEntries()
+	{
+		entries.clear();
+	}
+
+	/**
+	 * 取得键在指定范围内的行列表，在读锁内调用
+	 * @param fromCacheTableIndexKey 起始键，为null时则不限下界
+	 * @param fromInclusive 是否包含前缀等于起始键的行
+	 * @param toCacheTableIndexKey 结束键，为null时则不限上界
+	 * @param toInclusive 是否包含前缀等于结束键的行
+	 * @return 行列表副本
+	 */
+	private Vector<ICacheTableRow> range(CacheTableIndexKey fromCacheTableIndexKey, boolean fromInclusive, CacheTableIndexKey toCacheTableIndexKey, boolean toInclusive)
+	{
+		Vector<ICacheTableRow> cacheTableRows = new Vector<ICacheTableRow>();
+		// 完整的键总是大于等于其前缀键，从起始键开始向后遍历即可
+		NavigableMap<CacheTableIndexKey, Vector<ICacheTableRow>> rangeEntries = fromCacheTableIndexKey == null ? entries : entries.tailMap(fromCacheTableIndexKey, true);
+		for (Map.Entry<CacheTableIndexKey, Vector<ICacheTableRow>> entry : rangeEntries.entrySet())
+		{
+			CacheTableIndexKey cacheTableIndexKey = entry.getKey();
+			if (fromCacheTableIndexKey != null && !fromInclusive && cacheTableIndexKey.comparePrefix(fromCacheTableIndexKey, fromCacheTableIndexKey.size()) == 0)
+				continue;
+			if (toCacheTableIndexKey != null)
+			{
+				int result = cacheTableIndexKey.comparePrefix(toCacheTableIndexKey, toCacheTableIndexKey.size());
+				if (result > 0 || (result == 0 && !toInclusive))
+					break;
+			}
+			cacheTableRows.addAll(entry.getValue());
+		}
+		return cacheTableRows;
+	}
+}
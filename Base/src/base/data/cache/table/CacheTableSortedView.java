@@ -0,0 +1,391 @@
+package base.data.cache.table;
+
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import base.types.SortType;
+import base.utils.DateUtil;
+
+/**
+ * 缓存表排序视图
+ * 按排序字段值将表中所有行保存在跳表中，行增加、移除及排序字段数据改变时由缓存表调用逐行调整位置(O(log n))，不需要对整表重新排序；
+ * 取得前N行只需从跳表头部遍历N行，读取不加锁，不会阻塞写入，结果为弱一致的快照；名次由带子树行数的名次树取得(O(log n))。
+ * 修改视图时在视图自身的锁内读取排序字段值，并发的更新按加锁顺序应用；字段数据在字段锁释放后才通知，不会反向加锁。
+ * @author Devin
+ *
+ */
+public class CacheTableSortedView implements ICacheTableSortedView
+{
+	/**
+	 * 修改视图时使用的锁，读取不加锁
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * 视图名
+	 */
+	private String name;
+
+	/**
+	 * 排序字段名列表
+	 */
+	private String[] fieldNames;
+
+	/**
+	 * 各排序字段的排序类型方式
+	 */
+	private SortType[] sortTypes;
+
+	/**
+	 * 默认取得的行数量
+	 */
+	private int limit;
+
+	/**
+	 * 按排序顺序排列的行
+	 */
+	private final ConcurrentSkipListMap<CacheTableSortedViewKey, ICacheTableRow> entries = new ConcurrentSkipListMap<CacheTableSortedViewKey, ICacheTableRow>();
+
+	/**
+	 * 行当前的视图键
+	 */
+	private final ConcurrentHashMap<ICacheTableRow, CacheTableSortedViewKey> rowKeys = new ConcurrentHashMap<ICacheTableRow, CacheTableSortedViewKey>();
+
+	/**
+	 * 按排序顺序保存的视图键及子树行数，用于取得名次，由修改视图时使用的锁保护
+	 */
+	private final CacheTableRankTree<CacheTableSortedViewKey> ranks = new CacheTableRankTree<CacheTableSortedViewKey>();
+
+	/**
+	 * 行加入视图的序号
+	 */
+	private final AtomicLong sequence = new AtomicLong();
+
+	public CacheTableSortedView()
+	{
+	}
+
+	/**
+	 * 缓存表排序视图
+	 * @param fieldNames 排序字段名列表，值不能为空
+	 * @param sortTypes 各排序字段的排序类型方式，数量少于字段数量或值为null时升序
+	 * @param limit 默认取得的行数量(前N行)，值小于等于0时取得所有行
+	 */
+	public void init(String[] fieldNames, SortType[] sortTypes, int limit)
+	{
+		this.fieldNames = fieldNames.clone();
+		this.sortTypes = toSortTypes(fieldNames, sortTypes);
+		this.limit = limit;
+		this.name = getSortedViewName(fieldNames, sortTypes);
+	}
+
+	/**
+	 * 视图名
+	 * @return name
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * 排序字段名列表
+	 * @return fieldNames
+	 */
+	public String[] getFieldNames()
+	{
+		return fieldNames.clone();
+	}
+
+	/**
+	 * 各排序字段的排序类型方式
+	 * @return sortTypes
+	 */
+	public SortType[] getSortTypes()
+	{
+		return sortTypes.clone();
+	}
+
+	/**
+	 * 默认取得的行数量
+	 * @return limit
+	 */
+	public int getLimit()
+	{
+		return limit;
+	}
+
+	/**
+	 * 视图是否包含指定的排序字段
+	 * @param fieldName 字段名
+	 * @return 包含返回true，否则返回false
+	 */
+	public boolean containsField(String fieldName)
+	{
+		for (String viewFieldName : fieldNames)
+		{
+			if (viewFieldName.equals(fieldName))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 将行加入视图
+	 * @param cacheTableRow 行数据
+	 * @return 加入成功返回true，行未包含所有排序字段时返回false
+	 */
+	public boolean add(ICacheTableRow cacheTableRow)
+	{
+		lock.lock();
+		try
+		{
+			Object[] values = readValues(cacheTableRow);
+			if (values == null)
+				return false;
+			if (rowKeys.containsKey(cacheTableRow))
+				return true;
+			CacheTableSortedViewKey cacheTableSortedViewKey = new CacheTableSortedViewKey(values, sortTypes, sequence.incrementAndGet());
+			rowKeys.put(cacheTableRow, cacheTableSortedViewKey);
+			entries.put(cacheTableSortedViewKey, cacheTableRow);
+			ranks.add(cacheTableSortedViewKey);
+			return true;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheTableSortedView.class.getName()).log(Level.SEVERE, null, e);
+			return false;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 从视图中移除行
+	 * @param cacheTableRow 行数据
+	 * @return 行存在于视图中并移除返回true，否则返回false
+	 */
+	public boolean remove(ICacheTableRow cacheTableRow)
+	{
+		lock.lock();
+		try
+		{
+			CacheTableSortedViewKey cacheTableSortedViewKey = rowKeys.remove(cacheTableRow);
+			if (cacheTableSortedViewKey == null)
+				return false;
+			entries.remove(cacheTableSortedViewKey);
+			ranks.remove(cacheTableSortedViewKey);
+			return true;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 行的排序字段数据改变后，调整行在视图中的位置，行不再包含所有排序字段时从视图中移除
+	 * @param cacheTableRow 行数据
+	 * @return 行存在于视图中返回true，否则返回false
+	 */
+	public boolean update(ICacheTableRow cacheTableRow)
+	{
+		lock.lock();
+		try
+		{
+			Object[] values = readValues(cacheTableRow);
+			CacheTableSortedViewKey oldCacheTableSortedViewKey = rowKeys.get(cacheTableRow);
+			if (oldCacheTableSortedViewKey == null)
+				return false;
+			if (values == null)
+			{
+				rowKeys.remove(cacheTableRow);
+				entries.remove(oldCacheTableSortedViewKey);
+				ranks.remove(oldCacheTableSortedViewKey);
+				return true;
+			}
+			// 保留原序号，字段值相同的行之间的先后顺序不变
+			CacheTableSortedViewKey cacheTableSortedViewKey = new CacheTableSortedViewKey(values, sortTypes, oldCacheTableSortedViewKey.getSequence());
+			if (oldCacheTableSortedViewKey.equalsValues(cacheTableSortedViewKey))
+				return true;
+			entries.remove(oldCacheTableSortedViewKey);
+			ranks.remove(oldCacheTableSortedViewKey);
+			rowKeys.put(cacheTableRow, cacheTableSortedViewKey);
+			entries.put(cacheTableSortedViewKey, cacheTableRow);
+			ranks.add(cacheTableSortedViewKey);
+			return true;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheTableSortedView.class.getName()).log(Level.SEVERE, null, e);
+			return false;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 取得排在最前面的limit行
+	 * @return 按排序顺序排列的行列表副本，不含已过期的行
+	 */
+	public Vector<ICacheTableRow> getRows()
+	{
+		return getRows(0, limit);
+	}
+
+	/**
+	 * 取得从指定名次开始的行
+	 * @param offset 起始名次，从0开始
+	 * @param count 行数量，值小于等于0时取得之后的所有行
+	 * @return 按排序顺序排列的行列表副本，不含已过期的行
+	 */
+	public Vector<ICacheTableRow> getRows(int offset, int count)
+	{
+		Vector<ICacheTableRow> cacheTableRows = new Vector<ICacheTableRow>(count > 0 ? count : 10);
+		long currentTime = DateUtil.getCurrentTimeMillis();
+		int index = 0;
+		for (ICacheTableRow cacheTableRow : entries.values())
+		{
+			if (currentTime > cacheTableRow.getExpiresTime())
+				continue;
+			if (index++ < offset)
+				continue;
+			cacheTableRows.add(cacheTableRow);
+			if (count > 0 && cacheTableRows.size() >= count)
+				break;
+		}
+		return cacheTableRows;
+	}
+
+	/**
+	 * 取得排在最前面的行
+	 * @return 行数据，视图为空时返回null
+	 */
+	public ICacheTableRow first()
+	{
+		Vector<ICacheTableRow> cacheTableRows = getRows(0, 1);
+		return cacheTableRows.size() > 0 ? cacheTableRows.get(0) : null;
+	}
+
+	/**
+	 * 取得行的名次(O(log n))，排在该行之前的行包括已过期但尚未移除的行
+	 * @param cacheTableRow 行数据
+	 * @return 名次，从0开始，行不在视图中时返回-1
+	 */
+	public int getRank(ICacheTableRow cacheTableRow)
+	{
+		lock.lock();
+		try
+		{
+			CacheTableSortedViewKey cacheTableSortedViewKey = rowKeys.get(cacheTableRow);
+			if (cacheTableSortedViewKey == null)
+				return -1;
+			return ranks.rank(cacheTableSortedViewKey);
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 视图中的行数量
+	 * @return 行数量
+	 */
+	public int size()
+	{
+		return rowKeys.size();
+	}
+
+	/**
+	 * 清除视图数据
+	 */
+	public void clear()
+	{
+		lock.lock();
+		try
+		{
+			rowKeys.clear();
+			entries.clear();
+			ranks.clear();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	public void dispose()
+	{
+		clear();
+	}
+
+	/**
+	 * 由行读取排序字段值
+	 * @param cacheTableRow 行数据
+	 * @return 排序字段值列表，行未包含所有排序字段时返回null
+	 */
+	private Object[] readValues(ICacheTableRow cacheTableRow)
+	{
+		try
+		{
+			Object[] values = new Object[fieldNames.length];
+			for (int i = 0; i < fieldNames.length; i++)
+			{
+				if (!cacheTableRow.containsField(fieldNames[i]))
+					return null;
+				values[i] = cacheTableRow.getFieldData(fieldNames[i]);
+			}
+			return values;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(CacheTableSortedView.class.getName()).log(Level.SEVERE, null, e);
+			return null;
+		}
+	}
+
+	/**
+	 * 补齐各排序字段的排序类型方式
+	 * @param fieldNames 排序字段名列表
+	 * @param sortTypes 排序类型方式列表，值可以为空
+	 * @return 与字段数量相同的排序类型方式列表，未指定的为升序
+	 */
+	private static SortType[] toSortTypes(String[] fieldNames, SortType[] sortTypes)
+	{
+		SortType[] fieldSortTypes = new SortType[fieldNames.length];
+		for (int i = 0; i < fieldNames.length; i++)
+		{
+			fieldSortTypes[i] = sortTypes != null && i < sortTypes.length && sortTypes[i] != null ? sortTypes[i] : SortType.ASC;
+		}
+		return fieldSortTypes;
+	}
+
+	/**
+	 * 取得视图名
+	 * @param fieldNames 排序字段名列表
+	 * @param sortTypes 各排序字段的排序类型方式，值可以为空
+	 * @return 视图名：_[0]字段名_[0]排序类型方式_...，字段名列表为空时返回null
+	 */
+	public static String getSortedViewName(String[] fieldNames, SortType[] sortTypes)
+	{
+		if (fieldNames == null || fieldNames.length <= 0)
+			return null;
+		SortType[] fieldSortTypes = toSortTypes(fieldNames, sortTypes);
+		StringBuilder name = new StringBuilder();
+		for (int i = 0; i < fieldNames.length; i++)
+		{
+			name.append('_').append(fieldNames[i]).append('_').append(fieldSortTypes[i]);
+		}
+		return name.toString();
+	}
+}
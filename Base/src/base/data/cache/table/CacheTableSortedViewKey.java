@@ -0,0 +1,97 @@
+package base.data.cache.table;
+
+import java.util.Arrays;
+
+import base.types.SortType;
+
+/**
+ * 缓存表排序视图键
+ * 由排序字段值及行加入视图的序号组成，按各字段的排序类型方式逐个比较，字段值都相等时按序号(先加入的在前)排列，
+ * 因此每行的键都是唯一的，可直接做为跳表的键。
+ * @author Devin
+ *
+ */
+public final class CacheTableSortedViewKey implements Comparable<CacheTableSortedViewKey>
+{
+	/**
+	 * 排序字段值列表，已规范化
+	 */
+	private final Object[] values;
+
+	/**
+	 * 各排序字段的排序类型方式，同一视图的所有键共用
+	 */
+	private final SortType[] sortTypes;
+
+	/**
+	 * 行加入视图的序号
+	 */
+	private final long sequence;
+
+	/**
+	 * 缓存表排序视图键
+	 * @param values 排序字段值列表，值将被规范化后保存
+	 * @param sortTypes 各排序字段的排序类型方式
+	 * @param sequence 行加入视图的序号
+	 */
+	public CacheTableSortedViewKey(Object[] values, SortType[] sortTypes, long sequence)
+	{
+		this.values = new Object[values.length];
+		for (int i = 0; i < values.length; i++)
+		{
+			this.values[i] = CacheTableIndexKey.normalize(values[i]);
+		}
+		this.sortTypes = sortTypes;
+		this.sequence = sequence;
+	}
+
+	/**
+	 * 行加入视图的序号
+	 * @return sequence
+	 */
+	public long getSequence()
+	{
+		return sequence;
+	}
+
+	/**
+	 * 排序字段值是否与另一个键相同
+	 * @param cacheTableSortedViewKey 要比较的键
+	 * @return 相同返回true，否则返回false
+	 */
+	public boolean equalsValues(CacheTableSortedViewKey cacheTableSortedViewKey)
+	{
+		return cacheTableSortedViewKey != null && Arrays.equals(values, cacheTableSortedViewKey.values);
+	}
+
+	public int compareTo(CacheTableSortedViewKey cacheTableSortedViewKey)
+	{
+		for (int i = 0; i < values.length; i++)
+		{
+			int result = CacheTableIndexKey.compareValue(values[i], cacheTableSortedViewKey.values[i]);
+			if (result != 0)
+				return sortTypes[i] == SortType.DESC ? -result : result;
+		}
+		return sequence < cacheTableSortedViewKey.sequence ? -1 : (sequence == cacheTableSortedViewKey.sequence ? 0 : 1);
+	}
+
+	public boolean equals(Object obj)
+	{
+		if (this == obj)
+			return true;
+		if (!(obj instanceof CacheTableSortedViewKey))
+			return false;
+		CacheTableSortedViewKey cacheTableSortedViewKey = (CacheTableSortedViewKey) obj;
+		return sequence == cacheTableSortedViewKey.sequence && Arrays.equals(values, cacheTableSortedViewKey.values);
+	}
+
+	public int hashCode()
+	{
+		return 31 * Arrays.hashCode(values) + (int) (sequence ^ (sequence >>> 32));
+	}
+
+	public String toString()
+	{
+		return Arrays.toString(values) + "#" + sequence;
+	}
+}
@@ -0,0 +1,250 @@
+package base.data.cache.table;
+
+import java.util.ArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import base.types.JavaType;
+
+/**
+ * 列式缓存表
+ * 表结构(字段名及类型)在创建时指定，或由加入的第一行确定，之后所有行数据都存放于ColumnCacheTableStore的基本类型数组中，
+ * 每行只保留一个ColumnCacheTableRow对象，不再为每个字段创建字段对象及锁。
+ * 加入非本表创建的行时，会复制为列式行后再加入，原行不再与表关联，需通过表取得加入后的行。
+ * @author Devin
+ *
+ */
+public class ColumnCacheTable extends CacheTable
+{
+	/**
+	 * 列式存储
+	 */
+	private volatile ColumnCacheTableStore store;
+
+	/**
+	 * 列式缓存表
+	 */
+	public ColumnCacheTable()
+	{
+	}
+
+	/**
+	 * 列式缓存表，表结构由加入的第一行确定
+	 * @param name 表名
+	 * @param primaryKeyFieldName 表主键字段名
+	 * @param keyFieldNameGroups 集合键字段名集列表组，每一组值将做为行数据key，如果指定多个字段，中间以“_”连接，最终数据为：[0]字段值_[1]字段值_...
+	 * @param capacity 数据行记录容量的大小，使用LRU算法淘汰机制，值为-1时则表示不限容量
+	 */
+	public void init(String name, String primaryKeyFieldName, String[][] keyFieldNameGroups, int capacity)
+	{
+		super.init(name, primaryKeyFieldName, keyFieldNameGroups, capacity);
+	}
+
+	/**
+	 * 列式缓存表
+	 * @param name 表名
+	 * @param primaryKeyFieldName 表主键字段名
+	 * @param keyFieldNameGroups 集合键字段名集列表组，每一组值将做为行数据key，如果指定多个字段，中间以“_”连接，最终数据为：[0]字段值_[1]字段值_...
+	 * @param capacity 数据行记录容量的大小，使用LRU算法淘汰机制，值为-1时则表示不限容量
+	 * @param fieldNames 表结构字段名列表
+	 * @param fieldJavaTypes 对应的字段数据类型列表，其长度必须与fieldNames相等且对应
+	 */
+	public void init(String name, String primaryKeyFieldName, String[][] keyFieldNameGroups, int capacity, String[] fieldNames, JavaType[] fieldJavaTypes)
+	{
+		super.init(name, primaryKeyFieldName, keyFieldNameGroups, capacity);
+		if (fieldNames == null || fieldJavaTypes == null || fieldNames.length != fieldJavaTypes.length)
+		{
+			Logger.getLogger(ColumnCacheTable.class.getName()).log(Level.SEVERE, null, new Exception(name + " 列式缓存表的字段名列表与字段数据类型列表不对应。"));
+			return;
+		}
+		store = new ColumnCacheTableStore(fieldNames, fieldJavaTypes, capacity > 0 ? capacity : 16);
+	}
+
+	/**
+	 * 列式存储，表结构未确定时返回null
+	 * @return store
+	 */
+	public ColumnCacheTableStore getStore()
+	{
+		return store;
+	}
+
+	/**
+	 * 创建一个使用本表列式存储的新行，行需加入本表后才会被表管理
+	 * @return 新行，表结构未确定时返回null
+	 */
+	public ColumnCacheTableRow newRow()
+	{
+		ColumnCacheTableStore store = this.store;
+		if (store == null)
+		{
+			Logger.getLogger(ColumnCacheTable.class.getName()).log(Level.SEVERE, null, new Exception(name + " 列式缓存表的表结构尚未确定，不能创建新行。"));
+			return null;
+		}
+		ColumnCacheTableRow cacheTableRow = new ColumnCacheTableRow();
+		cacheTableRow.init(store);
+		return cacheTableRow;
+	}
+
+	/**
+	 * 增加表行，非本表创建的行将复制为列式行后加入
+	 * @param cacheTableRow 行数据，值不允许为空
+	 * @param validTime 数据有效时间(毫秒),值<0时则表示不限
+	 * @return 增加成功返回true，否则返回false
+	 */
+	public boolean addRow(ICacheTableRow cacheTableRow, long validTime)
+	{
+		ColumnCacheTableRow columnCacheTableRow = toColumnRow(cacheTableRow);
+		if (columnCacheTableRow == null)
+			return false;
+		boolean result = super.addRow(columnCacheTableRow, validTime);
+		if (!result && columnCacheTableRow != cacheTableRow)
+		{// 复制出的行加入失败时回收其槽位
+			columnCacheTableRow.dispose();
+		}
+		return result;
+	}
+
+	/**
+	 * 插入表行，非本表创建的行将复制为列式行后插入
+	 * @param cacheTableRow 行数据，值不允许为空
+	 * @param index 表行索引，值不能小于0
+	 * @param validTime 数据有效时间(毫秒),值<0时则表示不限
+	 * @return 增加成功返回true，否则返回false
+	 */
+	public boolean insertRow(ICacheTableRow cacheTableRow, int index, long validTime)
+	{
+		ColumnCacheTableRow columnCacheTableRow = toColumnRow(cacheTableRow);
+		if (columnCacheTableRow == null)
+			return false;
+		boolean result = super.insertRow(columnCacheTableRow, index, validTime);
+		if (!result && columnCacheTableRow != cacheTableRow)
+		{// 复制出的行插入失败时回收其槽位
+			columnCacheTableRow.dispose();
+		}
+		return result;
+	}
+
+	/*
+	 * 克隆，深度复制一份全新的列式缓存表
+	 */
+	public ICacheTable clone()
+	{
+		lock.readLock().lock();
+		try
+		{
+			ColumnCacheTable cloneCacheTable = new ColumnCacheTable();
+			ColumnCacheTableStore store = this.store;
+			if (store != null)
+			{
+				String[] fieldNames = store.getFieldNames();
+				JavaType[] fieldJavaTypes = new JavaType[fieldNames.length];
+				for (int column = 0; column < fieldNames.length; column++)
+				{
+					fieldJavaTypes[column] = store.getJavaType(column);
+				}
+				cloneCacheTable.init(name, primaryKeyFieldName, keyFieldNameGroups, capacity, fieldNames, fieldJavaTypes);
+			}
+			else
+			{
+				cloneCacheTable.init(name, primaryKeyFieldName, keyFieldNameGroups, capacity);
+			}
+			for (ICacheTableRow cacheTableRow : new ArrayList<ICacheTableRow>(rows))
+			{
+				ColumnCacheTableRow cloneCacheTableRow = cloneCacheTable.newRow();
+				for (int column = 0; column < store.getColumnCount(); column++)
+				{
+					Object value = cacheTableRow.getFieldData(store.getFieldName(column));// 先取为Object，避免推断为字段单元的重载
+					cloneCacheTableRow.addField(store.getFieldName(column), value);
+				}
+				cloneCacheTable.addRow(cloneCacheTableRow);
+			}
+			return cloneCacheTable;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(ColumnCacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+		return null;
+	}
+
+	public synchronized void dispose(boolean isDispose)
+	{
+		super.dispose(isDispose);
+		if (isDispose && store != null)
+		{
+			store.clear();
+			store = null;
+		}
+	}
+
+	/**
+	 * 转换为本表的列式行
+	 * @param cacheTableRow 行数据
+	 * @return 列式行，转换失败时返回null
+	 */
+	private ColumnCacheTableRow toColumnRow(ICacheTableRow cacheTableRow)
+	{
+		if (cacheTableRow == null)
+			return null;
+		if (store == null)
+		{
+			captureSchema(cacheTableRow);
+		}
+		if (cacheTableRow instanceof ColumnCacheTableRow && ((ColumnCacheTableRow) cacheTableRow).getStore() == store)
+		{
+			return (ColumnCacheTableRow) cacheTableRow;
+		}
+		ColumnCacheTableRow columnCacheTableRow = newRow();
+		if (columnCacheTableRow == null)
+			return null;
+		for (ICacheTableField cacheTableField : cacheTableRow.getFields().values())
+		{
+			if (!columnCacheTableRow.addField(cacheTableField.getFieldName(), cacheTableField))
+			{
+				columnCacheTableRow.dispose();
+				return null;
+			}
+		}
+		columnCacheTableRow.setIsNewRow(cacheTableRow.getIsNewRow());
+		return columnCacheTableRow;
+	}
+
+	/**
+	 * 由行确定表结构
+	 * @param cacheTableRow 行数据
+	 */
+	private void captureSchema(ICacheTableRow cacheTableRow)
+	{
+		lock.writeLock().lock();
+		try
+		{
+			if (store != null)
+				return;
+			ArrayList<String> fieldNames = new ArrayList<String>();
+			ArrayList<JavaType> fieldJavaTypes = new ArrayList<JavaType>();
+			for (ICacheTableField cacheTableField : cacheTableRow.getFields().values())
+			{
+				fieldNames.add(cacheTableField.getFieldName());
+				fieldJavaTypes.add(cacheTableField.getJavaType());
+			}
+			ColumnCacheTableStore columnCacheTableStore = new ColumnCacheTableStore(fieldNames.toArray(new String[fieldNames.size()]), fieldJavaTypes.toArray(new JavaType[fieldJavaTypes.size()]), capacity > 0 ? capacity : 16);
+			for (ICacheTableField cacheTableField : cacheTableRow.getFields().values())
+			{
+				if (!cacheTableField.getIsSqlSave())
+				{
+					columnCacheTableStore.setIsSqlSave(columnCacheTableStore.columnIndexOf(cacheTableField.getFieldName()), false);
+				}
+			}
+			store = columnCacheTableStore;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+}
@@ -0,0 +1,208 @@
+package base.data.cache.table;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import base.types.JavaType;
+
+/**
+ * 列式缓存表字段
+ * 只是指向列式存储中某一行某一列数据的视图，本身不保存数据，
+ * 其所属行、字段名及数据类型均由列式存储决定，不可更改。
+ * @author Devin
+ *
+ */
+public class ColumnCacheTableField implements ICacheTableField
+{
+	/**
+	 * 隶属于的表行
+	 */
+	private final ColumnCacheTableRow cacheTableRow;
+
+	/**
+	 * 列索引
+	 */
+	private final int column;
+
+	/**
+	 * 列式缓存表字段
+	 * @param cacheTableRow 隶属于的表行
+	 * @param column 列索引
+	 */
+	public ColumnCacheTableField(ColumnCacheTableRow cacheTableRow, int column)
+	{
+		this.cacheTableRow = cacheTableRow;
+		this.column = column;
+	}
+
+	/**
+	 * 隶属于的表行
+	 * @return cacheTableRow 表行
+	 */
+	public ICacheTableRow getCacheTableRow()
+	{
+		return cacheTableRow;
+	}
+
+	/**
+	 * 列式字段始终隶属于创建其的表行，忽略设置
+	 * @param cacheTableRow 表行
+	 */
+	public void setCacheTableRow(ICacheTableRow cacheTableRow)
+	{
+	}
+
+	/**
+	 * 字段名
+	 * @return fieldName 字段名
+	 */
+	public String getFieldName()
+	{
+		return cacheTableRow.getStore().getFieldName(column);
+	}
+
+	/**
+	 * 列式字段的字段名由表结构决定，忽略设置
+	 * @param fieldName 字段名
+	 */
+	public void setFieldName(String fieldName)
+	{
+	}
+
+	/**
+	 * 字段数据类型
+	 * @return javaType
+	 */
+	public JavaType getJavaType()
+	{
+		return cacheTableRow.getStore().getJavaType(column);
+	}
+
+	/**
+	 * 列式字段的数据类型由表结构决定，不允许更改为其它类型
+	 * @param javaType 字段数据类型
+	 */
+	public void setJavaType(JavaType javaType)
+	{
+		if (javaType != null && javaType != getJavaType())
+		{
+			Logger.getLogger(ColumnCacheTableField.class.getName()).log(Level.SEVERE, null, new Exception("列式缓存表字段 " + getFieldName() + " 的数据类型为 " + getJavaType() + "，不能更改为 " + javaType + "。"));
+		}
+	}
+
+	/**
+	 * 字段数据是否被更改
+	 * @return isChange
+	 */
+	public boolean getIsChange()
+	{
+		return cacheTableRow.getStore().getIsChange(cacheTableRow.getSlot(), column);
+	}
+
+	/**
+	 * 字段数据是否被更改
+	 * @param isChange 要设置的 isChange
+	 */
+	public void setIsChange(boolean isChange)
+	{
+		cacheTableRow.getStore().setIsChange(cacheTableRow.getSlot(), column, isChange);
+	}
+
+	/**
+	 * 字段数据改变时是否立即保存
+	 * @return isChangeSaveFlag
+	 */
+	public boolean getIsChangeSaveFlag()
+	{
+		return cacheTableRow.getStore().getIsChangeSaveFlag(cacheTableRow.getSlot(), column);
+	}
+
+	/**
+	 * 字段数据改变时是否立即保存
+	 * @param isChangeSaveFlag 要设置的 isChangeSaveFlag
+	 */
+	public void setIsChangeSaveFlag(boolean isChangeSaveFlag)
+	{
+		cacheTableRow.getStore().setIsChangeSaveFlag(cacheTableRow.getSlot(), column, isChangeSaveFlag);
+	}
+
+	/**
+	 * 字段数据
+	 * @return data
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T getData()
+	{
+		return (T) cacheTableRow.getStore().get(cacheTableRow.getSlot(), column);
+	}
+
+	/**
+	 * 字段数据
+	 * @param data 要设置的 data
+	 */
+	public <T> void setData(T data)
+	{
+		setData(data, false);
+	}
+
+	/**
+	 * 字段数据
+	 * @param data 要设置的 data
+	 * @param isChangeSaveFlag 改变时是否立即保存
+	 */
+	public <T> void setData(T data, boolean isChangeSaveFlag)
+	{
+		try
+		{
+			ColumnCacheTableStore store = cacheTableRow.getStore();
+			int slot = cacheTableRow.getSlot();
+			if (store.set(slot, column, data))
+			{
+				store.setIsChangeSaveFlag(slot, column, isChangeSaveFlag);
+				store.setIsChange(slot, column, true);
+				cacheTableRow.fieldDataChange(store.getFieldName(column));
+			}
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(ColumnCacheTableField.class.getName()).log(Level.SEVERE, null, e);
+		}
+	}
+
+	/**
+	 * 是否需要存储于数据库
+	 * @return isSqlSave
+	 */
+	public boolean getIsSqlSave()
+	{
+		return cacheTableRow.getStore().getIsSqlSave(column);
+	}
+
+	/**
+	 * 是否需要存储于数据库，对整列生效
+	 * @param isSqlSave 要设置的 isSqlSave
+	 */
+	public ICacheTableField setIsSqlSave(boolean isSqlSave)
+	{
+		cacheTableRow.getStore().setIsSqlSave(column, isSqlSave);
+		return this;
+	}
+
+	public <T> void init(T data)
+	{
+		cacheTableRow.getStore().set(cacheTableRow.getSlot(), column, data);
+	}
+
+	public <T> void init(T data, JavaType javaType)
+	{
+		setJavaType(javaType);
+		init(data);
+	}
+
+	/**
+	 * 列式字段不持有资源，数据随行释放
+	 */
+	public void dispose()
+	{
+	}
+}
@@ -0,0 +1,593 @@
+package base.data.cache.table;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import base.Base;
+import base.data.cache.CacheEvent;
+import base.event.EventDispatcher;
+import base.types.JavaType;
+import base.utils.DataUtil;
+
+/**
+ * 列式缓存表行
+ * 行数据存放于所属表的列式存储中，行本身只保存槽位及链表、过期等行属性，
+ * 字段通过ColumnCacheTableField视图访问，字段集合由表结构决定，不能增加表结构以外的字段。
+ * @author Devin
+ *
+ */
+public class ColumnCacheTableRow extends EventDispatcher implements ICacheTableRow
+{
+	/**
+	 * 列式存储
+	 */
+	private volatile ColumnCacheTableStore store;
+
+	/**
+	 * 槽位
+	 */
+	private volatile int slot = -1;
+
+	/**
+	 * 过期时间
+	 */
+	private volatile long expiresTime;
+
+	/**
+	 * 链表上一个对象
+	 */
+	private volatile ICacheTableRow previous;
+
+	/**
+	 * 链表下一个对象
+	 */
+	private volatile ICacheTableRow next;
+
+	/**
+	 * 是否为新创建的行数据(对应的数据库不存在该条数据，或者没有向数据库存储过)
+	 */
+	private volatile boolean isNewRow = true;
+
+	/**
+	 * 绑定的表结构
+	 */
+	private volatile CacheTableSchema schema;
+
+	/**
+	 * 表结构槽位对应的存储列，不存在于存储中的槽位为-1
+	 */
+	private volatile int[] schemaColumns = new int[0];
+
+	public ColumnCacheTableRow()
+	{
+	}
+
+	/**
+	 * 列式缓存表行
+	 * @param store 列式存储
+	 */
+	public void init(ColumnCacheTableStore store)
+	{
+		this.store = store;
+		this.slot = store.allocate();
+	}
+
+	/**
+	 * 列式存储
+	 * @return store
+	 */
+	public ColumnCacheTableStore getStore()
+	{
+		return store;
+	}
+
+	/**
+	 * 槽位
+	 * @return slot
+	 */
+	public int getSlot()
+	{
+		return slot;
+	}
+
+	/**
+	 * 过期时间
+	 * @return expiresTime
+	 */
+	public long getExpiresTime()
+	{
+		return expiresTime;
+	}
+
+	/**
+	 * 过期时间
+	 * @param expiresTime 要设置的 expiresTime
+	 */
+	public void setExpiresTime(long expiresTime)
+	{
+		this.expiresTime = expiresTime;
+	}
+
+	/**
+	 * 链表上一个对象
+	 */
+	public ICacheTableRow getPrevious()
+	{
+		return previous;
+	}
+
+	/**
+	 * 链表上一个对象
+	 */
+	public void setPrevious(ICacheTableRow cacheTableRow)
+	{
+		this.previous = cacheTableRow;
+	}
+
+	/**
+	 * 链表下一个对象
+	 */
+	public ICacheTableRow getNext()
+	{
+		return next;
+	}
+
+	/**
+	 * 链表下一个对象
+	 */
+	public void setNext(ICacheTableRow cacheTableRow)
+	{
+		this.next = cacheTableRow;
+	}
+
+	/**
+	 * 表行字段集，每次调用都会创建新的字段视图集，行已释放时返回null
+	 * @return 表行字段集
+	 */
+	public ConcurrentHashMap<String, ICacheTableField> getFields()
+	{
+		ColumnCacheTableStore store = this.store;
+		if (store == null)
+			return null;
+		ConcurrentHashMap<String, ICacheTableField> fields = new ConcurrentHashMap<String, ICacheTableField>(store.getColumnCount() * 2);
+		for (int column = 0; column < store.getColumnCount(); column++)
+		{
+			fields.put(store.getFieldName(column), new ColumnCacheTableField(this, column));
+		}
+		return fields;
+	}
+
+	/**
+	 * 是否为新创建的行数据(对应的数据库不存在该条数据，或者没有向数据库存储过)
+	 * @return
+	 */
+	public boolean getIsNewRow()
+	{
+		return isNewRow;
+	}
+
+	/**
+	 * 是否为新创建的行数据(对应的数据库不存在该条数据，或者没有向数据库存储过)
+	 * @param value 要设置的值
+	 */
+	public void setIsNewRow(boolean value)
+	{
+		this.isNewRow = value;
+	}
+
+	/**
+	 * 是否已加入数据库缓存表的待写入列表
+	 */
+	private final AtomicBoolean isDirty = new AtomicBoolean(false);
+
+	/**
+	 * 是否已加入数据库缓存表的待写入列表
+	 * @return isDirty
+	 */
+	public boolean getIsDirty()
+	{
+		return isDirty.get();
+	}
+
+	/**
+	 * 原子地比较并设置是否已加入待写入列表，只有设置成功的线程将行加入待写入列表
+	 * @param expect 期望的当前值
+	 * @param update 要设置的值
+	 * @return 当前值与期望值相等并设置成功时返回true
+	 */
+	public boolean compareAndSetIsDirty(boolean expect, boolean update)
+	{
+		return isDirty.compareAndSet(expect, update);
+	}
+
+	/**
+	 * 最近一次被访问的时间(纳秒)
+	 */
+	private volatile long accessTime;
+
+	/**
+	 * 最近一次被访问的时间(纳秒)
+	 * @return accessTime
+	 */
+	public long getAccessTime()
+	{
+		return accessTime;
+	}
+
+	/**
+	 * 最近一次被访问的时间(纳秒)
+	 * @param accessTime 要设置的 accessTime
+	 */
+	public void setAccessTime(long accessTime)
+	{
+		this.accessTime = accessTime;
+	}
+
+	/**
+	 * 是否已加入缓存表的待提升列表，以原子操作设置，不使用行锁
+	 */
+	private final AtomicBoolean isAccessQueued = new AtomicBoolean(false);
+
+	/**
+	 * 原子地比较并设置是否已加入缓存表的待提升列表，只有设置成功的线程将行加入待提升列表
+	 * @param expect 期望的当前值
+	 * @param update 要设置的值
+	 * @return 当前值与期望值相等并设置成功时返回true
+	 */
+	public boolean compareAndSetIsAccessQueued(boolean expect, boolean update)
+	{
+		return isAccessQueued.compareAndSet(expect, update);
+	}
+
+	/**
+	 * 列式存储的更改状态按列保存，不使用已更改字段的位图
+	 * @param slot 字段槽位
+	 */
+	public void setFieldDirty(int slot)
+	{
+	}
+
+	/**
+	 * 列式存储的更改状态按列保存，不使用已更改字段的位图
+	 * @return null，需逐个字段检查更改状态
+	 */
+	public long[] takeDirtyFields()
+	{
+		return null;
+	}
+
+	/**
+	 * 列式存储的更改状态按列保存，不使用已更改字段的位图
+	 * @param dirtyFields 位图
+	 */
+	public void restoreDirtyFields(long[] dirtyFields)
+	{
+	}
+
+	/**
+	 * 行数据发生改变
+	 */
+	public void change()
+	{
+		change(false);
+	}
+
+	/**
+	 * 行数据发生改变
+	 * @param saveChangeSaveFlag 是否立即保存其行字段中“isChangeSaveFlag”为true的字段
+	 */
+	public void change(boolean saveChangeSaveFlag)
+	{
+		dispatchEvent(new CacheEvent(CacheEvent.ROW_FIELD_DATA_CHANGE, saveChangeSaveFlag));
+	}
+
+	/**
+	 * 设置行字段数据，字段需存在于表结构中
+	 * @param fieldName 字段名，值不能为空
+	 * @param fieldData 字段内容数据
+	 * @return 如果设置成功返回true,否则返回false
+	 */
+	public <T> boolean addField(String fieldName, T fieldData)
+	{
+		return addField(fieldName, fieldData, null);
+	}
+
+	/**
+	 * 设置行字段数据，字段需存在于表结构中
+	 * @param fieldName 字段名，值不能为空
+	 * @param fieldData 字段内容数据
+	 * @param fieldJavaType 字段数据类型，需与表结构中的类型一致，为null时则不做检查
+	 * @return 如果设置成功返回true,否则返回false
+	 */
+	public <T> boolean addField(String fieldName, T fieldData, JavaType fieldJavaType)
+	{
+		int column = columnIndexOf(fieldName);
+		if (column < 0)
+			return false;
+		try
+		{
+			if (fieldJavaType != null && fieldJavaType != store.getJavaType(column))
+			{
+				Logger.getLogger(ColumnCacheTableRow.class.getName()).log(Level.SEVERE, null, new Exception("列式缓存表字段 " + fieldName + " 的数据类型为 " + store.getJavaType(column) + "，不能设置为 " + fieldJavaType + " 类型的数据。"));
+				return false;
+			}
+			if (store.set(slot, column, fieldData))
+			{
+				fieldDataChange(fieldName);
+			}
+			return true;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(ColumnCacheTableRow.class.getName()).log(Level.SEVERE, null, e);
+			return false;
+		}
+	}
+
+	/**
+	 * 以字段的数据及状态设置行字段数据，字段需存在于表结构中
+	 * @param fieldName 字段名，值不能为空
+	 * @param cacheTableField 字段，值不能为空
+	 * @return 如果设置成功返回true,否则返回false
+	 */
+	public boolean addField(String fieldName, ICacheTableField cacheTableField)
+	{
+		if (cacheTableField == null)
+			return false;
+		if (!addField(fieldName, cacheTableField.getData(), cacheTableField.getJavaType()))
+			return false;
+		int column = store.columnIndexOf(fieldName);
+		store.setIsChange(slot, column, cacheTableField.getIsChange());
+		store.setIsChangeSaveFlag(slot, column, cacheTableField.getIsChangeSaveFlag());
+		if (!cacheTableField.getIsSqlSave())
+		{
+			store.setIsSqlSave(column, false);
+		}
+		return true;
+	}
+
+	/**
+	 * 更新行字段数据，列式行的字段由表结构决定，与addField相同
+	 */
+	public <T> boolean addOrUpdateField(String fieldName, T fieldData)
+	{
+		return addField(fieldName, fieldData);
+	}
+
+	/**
+	 * 更新行字段数据，列式行的字段由表结构决定，与addField相同
+	 */
+	public <T> boolean addOrUpdateField(String fieldName, T fieldData, JavaType fieldJavaType)
+	{
+		return addField(fieldName, fieldData, fieldJavaType);
+	}
+
+	/**
+	 * 更新行字段数据，列式行的字段由表结构决定，与addField相同
+	 */
+	public boolean addOrUpdateField(String fieldName, ICacheTableField cacheTableField)
+	{
+		if (cacheTableField == null)
+			return false;
+		return addField(fieldName, cacheTableField.getData(), cacheTableField.getJavaType());
+	}
+
+	/**
+	 * 取得字段单元
+	 * @param fieldName 字段名
+	 * @return 字段单元视图，如果字段不存在于表结构中，则返回null
+	 */
+	public ICacheTableField getField(String fieldName)
+	{
+		ColumnCacheTableStore store = this.store;
+		if (store == null)
+			return null;
+		int column = store.columnIndexOf(fieldName);
+		return column < 0 ? null : new ColumnCacheTableField(this, column);
+	}
+
+	/**
+	 * 取得字段单元数据
+	 * @param fieldName 字段名
+	 * @return 字段单元数据，如果字段不存在于表结构中，则返回null
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T getFieldData(String fieldName)
+	{
+		ColumnCacheTableStore store = this.store;
+		if (store == null)
+			return null;
+		int column = store.columnIndexOf(fieldName);
+		return column < 0 ? null : (T) store.get(slot, column);
+	}
+
+	/**
+	 * 按表结构槽位取得字段单元
+	 * @param fieldSlot 字段槽位
+	 * @return 字段单元视图，如果字段不存在于表结构中，则返回null
+	 */
+	public ICacheTableField getField(int fieldSlot)
+	{
+		int column = schemaColumnOf(fieldSlot);
+		return column < 0 ? null : new ColumnCacheTableField(this, column);
+	}
+
+	/**
+	 * 按表结构槽位取得字段单元数据，直接按存储列读取
+	 * @param fieldSlot 字段槽位
+	 * @return 字段单元数据，如果字段不存在于表结构中，则返回null
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T getFieldData(int fieldSlot)
+	{
+		ColumnCacheTableStore store = this.store;
+		int column = schemaColumnOf(fieldSlot);
+		return column < 0 || store == null ? null : (T) store.get(slot, column);
+	}
+
+	/**
+	 * 行绑定的表结构
+	 * @return 表结构，未加入表时返回null
+	 */
+	public CacheTableSchema getSchema()
+	{
+		return schema;
+	}
+
+	/**
+	 * 绑定表结构，存储的列名将加入表结构，并建立槽位到存储列的对应
+	 * @param schema 表结构
+	 */
+	public synchronized void setSchema(CacheTableSchema schema)
+	{
+		if (this.schema == schema)
+			return;
+		int[] schemaColumns = new int[0];
+		ColumnCacheTableStore store = this.store;
+		if (schema != null && store != null)
+		{
+			int[] slots = new int[store.getColumnCount()];
+			for (int column = 0; column < slots.length; column++)
+			{
+				slots[column] = schema.addField(store.getFieldName(column));
+			}
+			schemaColumns = new int[schema.size()];
+			Arrays.fill(schemaColumns, -1);
+			for (int column = 0; column < slots.length; column++)
+			{
+				schemaColumns[slots[column]] = column;
+			}
+		}
+		this.schemaColumns = schemaColumns;
+		this.schema = schema;
+	}
+
+	/**
+	 * 取得表结构槽位对应的存储列
+	 * @param fieldSlot 字段槽位
+	 * @return 存储列，不存在时返回-1
+	 */
+	private int schemaColumnOf(int fieldSlot)
+	{
+		int[] schemaColumns = this.schemaColumns;
+		return fieldSlot >= 0 && fieldSlot < schemaColumns.length ? schemaColumns[fieldSlot] : -1;
+	}
+
+	/**
+	 * 取得行字段数据是否被更改状态
+	 * @return 只要行其中存在一个字段被修改，返回true,行所有字段都未被修改过，则返回false
+	 */
+	public boolean getFieldChangeState()
+	{
+		ColumnCacheTableStore store = this.store;
+		return store != null && store.getRowIsChange(slot);
+	}
+
+	/**
+	 * 检查是否存在指定的字段
+	 * @param fieldName 字段名
+	 * @return 如果存返回true，否则返回false
+	 */
+	public boolean containsField(String fieldName)
+	{
+		ColumnCacheTableStore store = this.store;
+		return store != null && store.columnIndexOf(fieldName) >= 0;
+	}
+
+	/**
+	 * 立即通知表进行数据物理存储
+	 */
+	public void toSave()
+	{
+		dispatchEvent(new CacheEvent(CacheEvent.DATA_TO_SAVE));
+	}
+
+	/**
+	 * 字段数据发生改变，通知行所在的表维护索引
+	 * @param fieldName 数据改变的字段名
+	 */
+	public void fieldDataChange(String fieldName)
+	{
+		dispatchEventWith(CacheEvent.FIELD_DATA_CHANGE, fieldName);
+	}
+
+	/*
+	 * 克隆，复制为一个独立的普通缓存表行，数据内容仅为行字段数据集，其它行属性则为默认值
+	 */
+	public ICacheTableRow clone()
+	{
+		try
+		{
+			ICacheTableRow cloneCacheTableRow = Base.newClass(CacheTableRow.class);
+			for (int column = 0; column < store.getColumnCount(); column++)
+			{
+				Object data = store.get(slot, column);
+				if (data == null)
+					continue;
+				ICacheTableField cloneCacheTableField = DataUtil.cacheTableField(data, store.getJavaType(column));
+				cloneCacheTableField.setIsSqlSave(store.getIsSqlSave(column));
+				cloneCacheTableField.setIsChangeSaveFlag(store.getIsChangeSaveFlag(slot, column));
+				cloneCacheTableRow.addField(store.getFieldName(column), cloneCacheTableField);
+			}
+			return cloneCacheTableRow;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(ColumnCacheTableRow.class.getName()).log(Level.SEVERE, null, e);
+		}
+		return null;
+	}
+
+	/**
+	 * 将相同字段的数据复制至目标行
+	 * @param desCacheTableRow 目标行
+	 */
+	public void copy(ICacheTableRow desCacheTableRow)
+	{
+		ColumnCacheTableStore store = this.store;
+		if (store == null)
+			return;
+		for (int column = 0; column < store.getColumnCount(); column++)
+		{
+			String fieldName = store.getFieldName(column);
+			if (desCacheTableRow.containsField(fieldName))
+			{
+				desCacheTableRow.getField(fieldName).setData(store.get(slot, column));
+			}
+		}
+	}
+
+	/**
+	 * 取得字段的列索引，字段不存在于表结构中时记录错误
+	 * @param fieldName 字段名
+	 * @return 列索引，不存在时返回-1
+	 */
+	private int columnIndexOf(String fieldName)
+	{
+		if (fieldName == null || fieldName.isEmpty() || store == null)
+			return -1;
+		int column = store.columnIndexOf(fieldName);
+		if (column < 0)
+		{
+			Logger.getLogger(ColumnCacheTableRow.class.getName()).log(Level.SEVERE, null, new Exception("列式缓存表行不能增加表结构以外的字段：" + fieldName));
+		}
+		return column;
+	}
+
+	public synchronized void dispose()
+	{
+		if (store != null)
+		{
+			store.free(slot);
+			store = null;
+			slot = -1;
+		}
+		schemaColumns = new int[0];
+		schema = null;
+		previous = null;
+		next = null;
+	}
+}
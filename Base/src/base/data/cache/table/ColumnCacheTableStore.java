@@ -0,0 +1,664 @@
+package base.data.cache.table;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import base.types.JavaType;
+
+/**
+ * 列式缓存表数据存储
+ * 表结构(字段名及类型)在创建时确定，每个字段的数据按行槽位存放于一个基本类型数组中：
+ * BOOLEAN、BYTE使用byte[]，SHORT、INTEGER、CHAR使用int[]，LONG使用long[]，FLOAT、DOUBLE使用double[]，
+ * 其它类型(STRING、BIGDECIMAL、DATE、BYTES)使用Object[]。
+ * 空值、字段更改状态及立即保存标识均以位图记录，行移除后槽位回收复用。
+ * @author Devin
+ *
+ */
+public class ColumnCacheTableStore
+{
+	/**
+	 * 线程读写锁
+	 */
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * 字段名列表
+	 */
+	private final String[] fieldNames;
+
+	/**
+	 * 字段数据类型列表
+	 */
+	private final JavaType[] javaTypes;
+
+	/**
+	 * 字段是否需要存储于数据库
+	 */
+	private final boolean[] isSqlSaves;
+
+	/**
+	 * 字段名所对应的列索引
+	 */
+	private final HashMap<String, Integer> columnIndexes = new HashMap<String, Integer>();
+
+	/**
+	 * 各列数据数组，依字段类型为byte[]、int[]、long[]、double[]或Object[]
+	 */
+	private final Object[] columns;
+
+	/**
+	 * 各列空值位图
+	 */
+	private final long[][] nullBits;
+
+	/**
+	 * 各列更改状态位图
+	 */
+	private final long[][] changeBits;
+
+	/**
+	 * 各列立即保存标识位图
+	 */
+	private final long[][] changeSaveFlagBits;
+
+	/**
+	 * 槽位容量
+	 */
+	private int slotCapacity;
+
+	/**
+	 * 已分配过的最大槽位数
+	 */
+	private int slotCount;
+
+	/**
+	 * 回收的空闲槽位
+	 */
+	private int[] freeSlots = new int[16];
+
+	/**
+	 * 空闲槽位数
+	 */
+	private int freeSlotCount;
+
+	/**
+	 * 列式缓存表数据存储
+	 * @param fieldNames 字段名列表
+	 * @param javaTypes 字段数据类型列表，其长度必须与fieldNames相等且对应
+	 * @param initialCapacity 初始行容量
+	 */
+	public ColumnCacheTableStore(String[] fieldNames, JavaType[] javaTypes, int initialCapacity)
+	{
+		this.fieldNames = fieldNames.clone();
+		this.javaTypes = javaTypes.clone();
+		this.isSqlSaves = new boolean[fieldNames.length];
+		Arrays.fill(isSqlSaves, true);
+		this.slotCapacity = Math.max(16, initialCapacity);
+		this.columns = new Object[fieldNames.length];
+		this.nullBits = new long[fieldNames.length][];
+		this.changeBits = new long[fieldNames.length][];
+		this.changeSaveFlagBits = new long[fieldNames.length][];
+		for (int i = 0; i < fieldNames.length; i++)
+		{
+			columnIndexes.put(fieldNames[i], i);
+			columns[i] = newColumn(javaTypes[i], slotCapacity);
+			nullBits[i] = new long[(slotCapacity + 63) >>> 6];
+			changeBits[i] = new long[(slotCapacity + 63) >>> 6];
+			changeSaveFlagBits[i] = new long[(slotCapacity + 63) >>> 6];
+		}
+	}
+
+	/**
+	 * 字段名列表
+	 * @return 字段名列表
+	 */
+	public String[] getFieldNames()
+	{
+		return fieldNames.clone();
+	}
+
+	/**
+	 * 字段数
+	 * @return 字段数
+	 */
+	public int getColumnCount()
+	{
+		return fieldNames.length;
+	}
+
+	/**
+	 * 取得字段名的列索引
+	 * @param fieldName 字段名
+	 * @return 列索引，字段不存在时返回-1
+	 */
+	public int columnIndexOf(String fieldName)
+	{
+		Integer index = fieldName == null ? null : columnIndexes.get(fieldName);
+		return index == null ? -1 : index.intValue();
+	}
+
+	/**
+	 * 取得列的字段名
+	 * @param column 列索引
+	 * @return 字段名
+	 */
+	public String getFieldName(int column)
+	{
+		return fieldNames[column];
+	}
+
+	/**
+	 * 取得列的数据类型
+	 * @param column 列索引
+	 * @return 数据类型
+	 */
+	public JavaType getJavaType(int column)
+	{
+		return javaTypes[column];
+	}
+
+	/**
+	 * 列是否需要存储于数据库
+	 * @param column 列索引
+	 * @return 需要存储返回true
+	 */
+	public boolean getIsSqlSave(int column)
+	{
+		return isSqlSaves[column];
+	}
+
+	/**
+	 * 设置列是否需要存储于数据库
+	 * @param column 列索引
+	 * @param isSqlSave 是否需要存储
+	 */
+	public void setIsSqlSave(int column, boolean isSqlSave)
+	{
+		isSqlSaves[column] = isSqlSave;
+	}
+
+	/**
+	 * 分配行槽位，新槽位所有字段均为空值
+	 * @return 槽位
+	 */
+	public int allocate()
+	{
+		lock.writeLock().lock();
+		try
+		{
+			int slot;
+			if (freeSlotCount > 0)
+			{
+				slot = freeSlots[--freeSlotCount];
+			}
+			else
+			{
+				if (slotCount >= slotCapacity)
+				{
+					grow(slotCapacity << 1);
+				}
+				slot = slotCount++;
+			}
+			for (int column = 0; column < columns.length; column++)
+			{
+				setBit(nullBits[column], slot, true);
+				setBit(changeBits[column], slot, false);
+				setBit(changeSaveFlagBits[column], slot, false);
+			}
+			return slot;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 回收行槽位
+	 * @param slot 槽位
+	 */
+	public void free(int slot)
+	{
+		lock.writeLock().lock();
+		try
+		{
+			for (int column = 0; column < columns.length; column++)
+			{
+				if (columns[column] instanceof Object[])
+				{// 释放对象引用
+					((Object[]) columns[column])[slot] = null;
+				}
+				setBit(nullBits[column], slot, true);
+			}
+			if (freeSlotCount >= freeSlots.length)
+			{
+				freeSlots = Arrays.copyOf(freeSlots, freeSlots.length << 1);
+			}
+			freeSlots[freeSlotCount++] = slot;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 已使用的槽位数
+	 * @return 槽位数
+	 */
+	public int size()
+	{
+		lock.readLock().lock();
+		try
+		{
+			return slotCount - freeSlotCount;
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * 取得数据
+	 * @param slot 槽位
+	 * @param column 列索引
+	 * @return 数据，为对应数据类型的包装对象，空值时返回null
+	 */
+	public Object get(int slot, int column)
+	{
+		lock.readLock().lock();
+		try
+		{
+			if (getBit(nullBits[column], slot))
+				return null;
+			Object values = columns[column];
+			switch (javaTypes[column])
+			{
+				case BOOLEAN:
+					return ((byte[]) values)[slot] != 0;
+				case BYTE:
+					return ((byte[]) values)[slot];
+				case SHORT:
+					return (short) ((int[]) values)[slot];
+				case INTEGER:
+					return ((int[]) values)[slot];
+				case CHAR:
+					return (char) ((int[]) values)[slot];
+				case LONG:
+					return ((long[]) values)[slot];
+				case FLOAT:
+					return (float) ((double[]) values)[slot];
+				case DOUBLE:
+					return ((double[]) values)[slot];
+				default:
+					return ((Object[]) values)[slot];
+			}
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * 取得long数据，不做装箱
+	 * @param slot 槽位
+	 * @param column 列索引，字段类型需为SHORT、INTEGER、CHAR或LONG
+	 * @return 数据，空值时返回0
+	 */
+	public long getLong(int slot, int column)
+	{
+		lock.readLock().lock();
+		try
+		{
+			Object values = columns[column];
+			if (values instanceof long[])
+				return ((long[]) values)[slot];
+			if (values instanceof int[])
+				return ((int[]) values)[slot];
+			if (values instanceof byte[])
+				return ((byte[]) values)[slot];
+			throw new IllegalArgumentException("字段 " + fieldNames[column] + " 的数据类型 " + javaTypes[column] + " 不能转换为long。");
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * 取得double数据，不做装箱
+	 * @param slot 槽位
+	 * @param column 列索引，字段类型需为数值类型
+	 * @return 数据，空值时返回0
+	 */
+	public double getDouble(int slot, int column)
+	{
+		lock.readLock().lock();
+		try
+		{
+			Object values = columns[column];
+			if (values instanceof double[])
+				return ((double[]) values)[slot];
+			if (values instanceof long[])
+				return ((long[]) values)[slot];
+			if (values instanceof int[])
+				return ((int[]) values)[slot];
+			if (values instanceof byte[])
+				return ((byte[]) values)[slot];
+			throw new IllegalArgumentException("字段 " + fieldNames[column] + " 的数据类型 " + javaTypes[column] + " 不能转换为double。");
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * 设置数据
+	 * @param slot 槽位
+	 * @param column 列索引
+	 * @param data 数据，数值类型会按字段类型转换
+	 * @return 数据发生改变返回true，与原数据相同返回false
+	 */
+	public boolean set(int slot, int column, Object data)
+	{
+		lock.writeLock().lock();
+		try
+		{
+			boolean isNull = getBit(nullBits[column], slot);
+			if (data == null)
+			{
+				if (isNull)
+					return false;
+				setBit(nullBits[column], slot, true);
+				if (columns[column] instanceof Object[])
+				{
+					((Object[]) columns[column])[slot] = null;
+				}
+				return true;
+			}
+			Object values = columns[column];
+			boolean isChange = isNull;
+			switch (javaTypes[column])
+			{
+				case BOOLEAN:
+				{
+					byte value = ((Boolean) data) ? (byte) 1 : (byte) 0;
+					isChange |= ((byte[]) values)[slot] != value;
+					((byte[]) values)[slot] = value;
+					break;
+				}
+				case BYTE:
+				{
+					byte value = ((Number) data).byteValue();
+					isChange |= ((byte[]) values)[slot] != value;
+					((byte[]) values)[slot] = value;
+					break;
+				}
+				case SHORT:
+				case INTEGER:
+				{
+					int value = ((Number) data).intValue();
+					isChange |= ((int[]) values)[slot] != value;
+					((int[]) values)[slot] = value;
+					break;
+				}
+				case CHAR:
+				{
+					int value = data instanceof Character ? ((Character) data).charValue() : ((Number) data).intValue();
+					isChange |= ((int[]) values)[slot] != value;
+					((int[]) values)[slot] = value;
+					break;
+				}
+				case LONG:
+				{
+					long value = ((Number) data).longValue();
+					isChange |= ((long[]) values)[slot] != value;
+					((long[]) values)[slot] = value;
+					break;
+				}
+				case FLOAT:
+				case DOUBLE:
+				{
+					double value = ((Number) data).doubleValue();
+					isChange |= Double.compare(((double[]) values)[slot], value) != 0;
+					((double[]) values)[slot] = value;
+					break;
+				}
+				case DATE:
+				{
+					Object oldValue = ((Object[]) values)[slot];
+					isChange |= oldValue == null || ((Date) oldValue).compareTo((Date) data) != 0;
+					((Object[]) values)[slot] = data;
+					break;
+				}
+				case BIGDECIMAL:
+				{
+					Object oldValue = ((Object[]) values)[slot];
+					isChange |= oldValue == null || ((BigDecimal) oldValue).compareTo((BigDecimal) data) != 0;
+					((Object[]) values)[slot] = data;
+					break;
+				}
+				case BYTES:
+				{
+					Object oldValue = ((Object[]) values)[slot];
+					isChange |= oldValue == null || !Arrays.equals((byte[]) oldValue, (byte[]) data);
+					((Object[]) values)[slot] = data;
+					break;
+				}
+				default:
+				{
+					Object oldValue = ((Object[]) values)[slot];
+					isChange |= !data.equals(oldValue);
+					((Object[]) values)[slot] = data;
+					break;
+				}
+			}
+			setBit(nullBits[column], slot, false);
+			return isChange;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 字段是否被更改
+	 * @param slot 槽位
+	 * @param column 列索引
+	 * @return 被更改返回true
+	 */
+	public boolean getIsChange(int slot, int column)
+	{
+		lock.readLock().lock();
+		try
+		{
+			return getBit(changeBits[column], slot);
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * 设置字段是否被更改
+	 * @param slot 槽位
+	 * @param column 列索引
+	 * @param isChange 是否被更改
+	 */
+	public void setIsChange(int slot, int column, boolean isChange)
+	{
+		lock.writeLock().lock();
+		try
+		{
+			setBit(changeBits[column], slot, isChange);
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 行中是否存在被更改的字段
+	 * @param slot 槽位
+	 * @return 存在返回true
+	 */
+	public boolean getRowIsChange(int slot)
+	{
+		lock.readLock().lock();
+		try
+		{
+			for (int column = 0; column < columns.length; column++)
+			{
+				if (getBit(changeBits[column], slot))
+					return true;
+			}
+			return false;
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * 字段改变时是否立即保存
+	 * @param slot 槽位
+	 * @param column 列索引
+	 * @return 立即保存返回true
+	 */
+	public boolean getIsChangeSaveFlag(int slot, int column)
+	{
+		lock.readLock().lock();
+		try
+		{
+			return getBit(changeSaveFlagBits[column], slot);
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * 设置字段改变时是否立即保存
+	 * @param slot 槽位
+	 * @param column 列索引
+	 * @param isChangeSaveFlag 是否立即保存
+	 */
+	public void setIsChangeSaveFlag(int slot, int column, boolean isChangeSaveFlag)
+	{
+		lock.writeLock().lock();
+		try
+		{
+			setBit(changeSaveFlagBits[column], slot, isChangeSaveFlag);
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 清除所有行数据
+	 */
+	public void clear()
+	{
+		lock.writeLock().lock();
+		try
+		{
+			for (int column = 0; column < columns.length; column++)
+			{
+				if (columns[column] instanceof Object[])
+				{
+					Arrays.fill((Object[]) columns[column], null);
+				}
+				Arrays.fill(nullBits[column], -1L);
+				Arrays.fill(changeBits[column], 0L);
+				Arrays.fill(changeSaveFlagBits[column], 0L);
+			}
+			slotCount = 0;
+			freeSlotCount = 0;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 扩容所有列
+	 * @param capacity 新容量
+	 */
+	private void grow(int capacity)
+	{
+		int bitsLength = (capacity + 63) >>> 6;
+		for (int column = 0; column < columns.length; column++)
+		{
+			Object values = columns[column];
+			if (values instanceof byte[])
+				columns[column] = Arrays.copyOf((byte[]) values, capacity);
+			else if (values instanceof int[])
+				columns[column] = Arrays.copyOf((int[]) values, capacity);
+			else if (values instanceof long[])
+				columns[column] = Arrays.copyOf((long[]) values, capacity);
+			else if (values instanceof double[])
+				columns[column] = Arrays.copyOf((double[]) values, capacity);
+			else
+				columns[column] = Arrays.copyOf((Object[]) values, capacity);
+			nullBits[column] = Arrays.copyOf(nullBits[column], bitsLength);
+			changeBits[column] = Arrays.copyOf(changeBits[column], bitsLength);
+			changeSaveFlagBits[column] = Arrays.copyOf(changeSaveFlagBits[column], bitsLength);
+		}
+		slotCapacity = capacity;
+	}
+
+	/**
+	 * 创建对应数据类型的列数组
+	 * @param javaType 数据类型
+	 * @param capacity 容量
+	 * @return 列数组
+	 */
+	private static Object newColumn(JavaType javaType, int capacity)
+	{
+		switch (javaType)
+		{
+			case BOOLEAN:
+			case BYTE:
+				return new byte[capacity];
+			case SHORT:
+			case INTEGER:
+			case CHAR:
+				return new int[capacity];
+			case LONG:
+				return new long[capacity];
+			case FLOAT:
+			case DOUBLE:
+				return new double[capacity];
+			default:
+				return new Object[capacity];
+		}
+	}
+
+	private static boolean getBit(long[] bits, int index)
+	{
+		return (bits[index >>> 6] & (1L << index)) != 0;
+	}
+
+	private static void setBit(long[] bits, int index, boolean value)
+	{
+		if (value)
+			bits[index >>> 6] |= (1L << index);
+		else
+			bits[index >>> 6] &= ~(1L << index);
+	}
+}
@@ -0,0 +1,2110 @@
+package base.data.cache.table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import base.data.DataFactory;
+import base.data.cache.CacheEvent;
+import base.event.Event;
+import base.event.IEventListener;
+import base.types.SortType;
+import base.utils.DataUtil;
+import base.utils.DateUtil;
+
+/**
+ * 并发缓存表
+ * 按主键值的哈希将行数据分段存放，每个分段拥有独立的锁及LRU链表，不同分段的行查找、增加、移除可并行执行。
+ * 整表操作(排序、插入到指定索引、创建派生表)会依次锁定所有分段。
+ * 设置容量时，容量为整表的行数上限：每个分段的LRU链表按访问时间(System.nanoTime)排列，访问只修改所在分段，
+ * 超出容量时比较各分段尾部冷端的访问时间，只锁定最久未访问的行所在的分段淘汰该行，不同线程的淘汰可并行执行；
+ * 并发增加行时，行数在淘汰完成前可能短暂超出容量，超出的行数不大于同时增加行的线程数。
+ * 行的排列顺序由跳表按行序号保存，不记录位置，按位置取得、移除行及取得行位置需按排列顺序遍历(O(n))，应优先使用主键或集合键访问。
+ * @author Devin
+ *
+ */
+public class ConcurrentCacheTable implements IEventListener, Cloneable, ICacheTable
+{
+	/**
+	 * 默认分段数
+	 */
+	public final static int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+	/**
+	 * 集合键值之间的分隔符
+	 */
+	private final static char KEY_FIELD_VALUE_SEPARATOR = '\u0001';
+
+	/**
+	 * 表名
+	 */
+	protected volatile String name;
+
+	/**
+	 * 主键字段名
+	 */
+	protected volatile String primaryKeyFieldName;
+
+	/**
+	 * 集合键字段名列表组
+	 */
+	protected volatile String[][] keyFieldNameGroups;
+
+	/**
+	 * 数据行记录容量的大小,-1则为不限
+	 */
+	protected volatile int capacity;
+
+	/**
+	 * 字段名称列表，该列表是表中所出现的所有的字段名
+	 */
+	protected Vector<String> fieldNames = new Vector<String>();
+
+	/**
+	 * 行数据分段
+	 */
+	private Segment[] segments;
+
+	/**
+	 * 分段索引掩码
+	 */
+	private int segmentMask;
+
+	/**
+	 * 正在淘汰的行数，超出容量的行数减去该值为还需淘汰的行数，各线程以CAS认领淘汰，不使用整表锁
+	 */
+	private final AtomicInteger evictingCount = new AtomicInteger();
+
+	/**
+	 * 行数据所在的分段项
+	 */
+	private ConcurrentHashMap<ICacheTableRow, SegmentEntry> rowEntries = new ConcurrentHashMap<ICacheTableRow, SegmentEntry>();
+
+	/**
+	 * 行排列顺序，key为行序号
+	 */
+	private volatile ConcurrentSkipListMap<Long, ICacheTableRow> orderRows = new ConcurrentSkipListMap<Long, ICacheTableRow>();
+
+	/**
+	 * 行序号生成器
+	 */
+	private final AtomicLong orderSequence = new AtomicLong();
+
+	/**
+	 * 行版本号，行增加、移除、排序、清除时递增
+	 */
+	private final AtomicLong epoch = new AtomicLong();
+
+	/**
+	 * 最近创建的行快照
+	 */
+	private volatile CacheTableSnapshot snapshot;
+
+	/**
+	 * 表结构，字段名对应的槽位
+	 */
+	private final CacheTableSchema schema = new CacheTableSchema();
+
+	/**
+	 * 表行大小
+	 */
+	private final AtomicInteger rowSize = new AtomicInteger();
+
+	/**
+	 * 加入时指定了有效时间的行数，为0时取得所有行及行数不需要检查过期时间
+	 */
+	private final AtomicInteger expiresRowCount = new AtomicInteger();
+
+	/**
+	 * 已过期移除的行数
+	 */
+	private final AtomicLong expiresCount = new AtomicLong();
+
+	/**
+	 * 按照集合键字段归类的行集，key为集合键字段名组合key
+	 */
+	private ConcurrentHashMap<String, ConcurrentHashMap<String, KeyFieldRows>> keyFieldRows = new ConcurrentHashMap<String, ConcurrentHashMap<String, KeyFieldRows>>();
+
+	/**
+	 * 建立的哈希索引及有序索引
+	 */
+	private final CacheTableIndexes cacheTableIndexes = new CacheTableIndexes();
+
+	/**
+	 * 当前CacheTable的指定字段的新CacheTable集
+	 */
+	private final CacheTableDerivedTables newCacheTables = new CacheTableDerivedTables(this);
+
+	/**
+	 * 并发缓存表
+	 */
+	public ConcurrentCacheTable()
+	{
+	}
+
+	/**
+	 * 缓存表
+	 * @param name 表名
+	 * @param primaryKeyFieldName 表主键字段名
+	 * @param keyFieldNameGroups 集合键字段名集列表组，每一组值将做为行数据key，如果指定多个字段，中间以“_”连接，最终数据为：[0]字段值_[1]字段值_...
+	 */
+	public void init(String name, String primaryKeyFieldName, String[][] keyFieldNameGroups)
+	{
+		init(name, primaryKeyFieldName, keyFieldNameGroups, -1);
+	}
+
+	/**
+	 * 缓存表
+	 * @param name 表名
+	 * @param primaryKeyFieldName 表主键字段名
+	 * @param keyFieldNameGroups 集合键字段名集列表组，每一组值将做为行数据key，如果指定多个字段，中间以“_”连接，最终数据为：[0]字段值_[1]字段值_...
+	 * @param capacity 数据行记录容量的大小，使用LRU算法淘汰机制，值为-1时则表示不限容量
+	 */
+	public void init(String name, String primaryKeyFieldName, String[][] keyFieldNameGroups, int capacity)
+	{
+		init(name, primaryKeyFieldName, keyFieldNameGroups, capacity, DEFAULT_CONCURRENCY_LEVEL);
+	}
+
+	/**
+	 * 缓存表
+	 * @param name 表名
+	 * @param primaryKeyFieldName 表主键字段名
+	 * @param keyFieldNameGroups 集合键字段名集列表组，每一组值将做为行数据key，如果指定多个字段，中间以“_”连接，最终数据为：[0]字段值_[1]字段值_...
+	 * @param capacity 数据行记录容量的大小，使用LRU算法淘汰机制，值为-1时则表示不限容量
+	 * @param concurrencyLevel 分段数，将向上取整为2的幂
+	 */
+	public void init(String name, String primaryKeyFieldName, String[][] keyFieldNameGroups, int capacity, int concurrencyLevel)
+	{
+		this.name = name;
+		this.primaryKeyFieldName = primaryKeyFieldName;
+		this.keyFieldNameGroups = keyFieldNameGroups;
+		this.capacity = capacity;
+
+		int segmentCount = 1;
+		while (segmentCount < concurrencyLevel)
+		{
+			segmentCount <<= 1;
+		}
+		segmentMask = segmentCount - 1;
+		segments = new Segment[segmentCount];
+		for (int i = 0; i < segmentCount; i++)
+		{
+			segments[i] = new Segment();
+		}
+
+		if (keyFieldNameGroups != null && keyFieldNameGroups.length > 0)
+		{
+			for (String[] keyFieldNames : keyFieldNameGroups)
+			{
+				String strKey = getKeyFieldNameKey(keyFieldNames);
+				if (strKey != null)
+				{
+					keyFieldRows.put(strKey, new ConcurrentHashMap<String, KeyFieldRows>());
+				}
+			}
+		}
+	}
+
+	/**
+	 * 表名
+	 * @return name
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * 集合键字段名列表组
+	 * @return keyFieldNames
+	 */
+	public String[][] getKeyFieldNameGroups()
+	{
+		return keyFieldNameGroups;
+	}
+
+	/**
+	 * 字段名称列表，该列表是表中所出现的所有的字段名
+	 */
+	public Vector<String> fieldNames()
+	{
+		return fieldNames;
+	}
+
+	/**
+	 * 增加表行
+	 * @param cacheTableRow 行数据，值不允许为空
+	 * @return 增加成功返回true，否则返回false
+	 */
+	public boolean addRow(ICacheTableRow cacheTableRow)
+	{
+		return addRow(cacheTableRow, -1);
+	}
+
+	/**
+	 * 增加表行
+	 * @param cacheTableRow 行数据，值不允许为空
+	 * @param validTime 数据有效时间(毫秒),值<0时则表示不限
+	 * @return 增加成功返回true，否则返回false
+	 */
+	public boolean addRow(ICacheTableRow cacheTableRow, long validTime)
+	{
+		if (cacheTableRow == null)
+			return false;
+		try
+		{
+			Object primaryKey = getRowPrimaryKey(cacheTableRow);
+			if (primaryKey == null || !checkKeyFields(cacheTableRow))
+				return false;
+
+			cacheTableRow.setExpiresTime(getExpiresTime(validTime));
+			collectFieldNames(cacheTableRow);// 行加入分段后可能立即被其他线程淘汰释放，需在加入前收集字段名
+			Segment segment = segmentFor(primaryKey);
+			SegmentEntry entry = new SegmentEntry(segment, primaryKey, cacheTableRow);
+			segment.lock.lock();
+			try
+			{
+				if (segment.entries.containsKey(primaryKey))
+				{
+					Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, new Exception(this.name + " 缓存表在增加行数据时，遇到相同主键值的行：" + primaryKey));
+					return false;
+				}
+				entry.order = orderSequence.incrementAndGet();
+				linkEntry(segment, entry);
+			}
+			finally
+			{
+				segment.lock.unlock();
+			}
+
+			if (cacheTableRow.getExpiresTime() != Long.MAX_VALUE)
+			{
+				DataFactory.cacheController().cacheTableExpiryService().schedule(this, cacheTableRow);
+			}
+			newCacheTables.add(cacheTableRow);// 如果存在当前CacheTable的指定字段的新CacheTable，则在增加新的行时，需要往新CacheTable中执行增加，用以同步数据
+			if (entry.removed)
+			{// 增加完成前已被其他线程淘汰，淘汰时向新CacheTable的移除可能先于增加执行
+				newCacheTables.remove(cacheTableRow);
+			}
+			return true;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return false;
+		}
+		finally
+		{
+			evictOverCapacity();
+		}
+	}
+
+	/**
+	 * 插入表行
+	 * @param cacheTableRow 行数据，值不允许为空
+	 * @param index 表行索引，值不能小于0
+	 * @return 增加成功返回true，否则返回false
+	 */
+	public boolean insertRow(ICacheTableRow cacheTableRow, int index)
+	{
+		return insertRow(cacheTableRow, index, -1);
+	}
+
+	/**
+	 * 插入表行，该操作需要重排行序号，会锁定所有分段
+	 * @param cacheTableRow 行数据，值不允许为空
+	 * @param index 表行索引，值不能小于0
+	 * @param validTime 数据有效时间(毫秒),值<0时则表示不限
+	 * @return 增加成功返回true，否则返回false
+	 */
+	public boolean insertRow(ICacheTableRow cacheTableRow, int index, long validTime)
+	{
+		if (cacheTableRow == null || index < 0)
+			return false;
+		try
+		{
+			Object primaryKey = getRowPrimaryKey(cacheTableRow);
+			if (primaryKey == null || !checkKeyFields(cacheTableRow))
+				return false;
+
+			cacheTableRow.setExpiresTime(getExpiresTime(validTime));
+			collectFieldNames(cacheTableRow);// 行加入分段后可能立即被其他线程淘汰释放，需在加入前收集字段名
+			Segment segment = segmentFor(primaryKey);
+			SegmentEntry entry = new SegmentEntry(segment, primaryKey, cacheTableRow);
+			lockAll();
+			try
+			{
+				if (segment.entries.containsKey(primaryKey))
+				{
+					Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, new Exception(this.name + " 缓存表在插入行数据时，遇到相同主键值的行：" + primaryKey));
+					return false;
+				}
+				ArrayList<ICacheTableRow> rows = new ArrayList<ICacheTableRow>(orderRows.values());
+				rows.add(Math.min(index, rows.size()), cacheTableRow);
+				linkEntry(segment, entry);
+				reorder(rows);
+			}
+			finally
+			{
+				unlockAll();
+			}
+
+			if (cacheTableRow.getExpiresTime() != Long.MAX_VALUE)
+			{
+				DataFactory.cacheController().cacheTableExpiryService().schedule(this, cacheTableRow);
+			}
+			newCacheTables.insert(cacheTableRow, index);// 如果存在当前CacheTable的指定字段的新CacheTable，则在增加新的行时，需要往新CacheTable中执行插入，用以同步数据
+			if (entry.removed)
+			{// 插入完成前已被其他线程淘汰，淘汰时向新CacheTable的移除可能先于插入执行
+				newCacheTables.remove(cacheTableRow);
+			}
+			return true;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return false;
+		}
+		finally
+		{
+			evictOverCapacity();
+		}
+	}
+
+	/**
+	 * 取得所属对应键值列表行列表中的第一个行数据
+	 * @param keyFieldNames 集合键字段名列表
+	 * @param keyFieldValues 集合键值列表
+	 * @return 取得的行数据
+	 */
+	public ICacheTableRow getRow(String[] keyFieldNames, String[] keyFieldValues)
+	{
+		try
+		{
+			Vector<ICacheTableRow> cacheTableRows = getRows(keyFieldNames, keyFieldValues);
+			if (cacheTableRows != null && cacheTableRows.size() > 0)
+			{
+				for (ICacheTableRow cacheTableRow : cacheTableRows)
+				{
+					if (touchRow(cacheTableRow))
+					{
+						return cacheTableRow;
+					}
+				}
+			}
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		return null;
+	}
+
+	/**
+	 * 行字段数据交换
+	 * @param cacheTableRow1 行1
+	 * @param cacheTableRow2 行2
+	 */
+	public void exchangeRow(ICacheTableRow cacheTableRow1, ICacheTableRow cacheTableRow2)
+	{
+		exchangeRow(cacheTableRow1, cacheTableRow2, null);
+	}
+
+	/**
+	 * 行字段数据交换
+	 * @param cacheTableRow1 行1
+	 * @param cacheTableRow2 行2
+	 * @param excludeFields 要排除的字段
+	 */
+	public void exchangeRow(ICacheTableRow cacheTableRow1, ICacheTableRow cacheTableRow2, String[] excludeFields)
+	{
+		if (cacheTableRow1 == null || cacheTableRow2 == null)
+		{
+			Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, new Exception("缓存表在进行行字段数据交换时，遇到指定的行为空行。"));
+			return;
+		}
+
+		if (cacheTableRow1.getFields().size() != cacheTableRow2.getFields().size())
+		{
+			Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, new Exception("缓存表在进行行字段数据交换时，遇到行字段数量互相不匹配。"));
+			return;
+		}
+
+		for (ICacheTableField cacheTableField1 : cacheTableRow1.getFields().values())
+		{
+			if (excludeFields != null && excludeFields.length > 0)
+			{
+				boolean isExist = false;
+				for (String exFieldName : excludeFields)
+				{
+					if (exFieldName.equals(cacheTableField1.getFieldName()))
+					{// 如果存在于排除字段中
+						isExist = true;
+						break;
+					}
+				}
+				if (isExist)
+				{
+					continue;
+				}
+			}
+
+			if (cacheTableRow2.containsField(cacheTableField1.getFieldName()))
+			{
+				ICacheTableField cacheTableField2 = cacheTableRow2.getField(cacheTableField1.getFieldName());
+				Object data1 = cacheTableField1.getData();
+				Object data2 = cacheTableField2.getData();
+				cacheTableField1.setData(data2);
+				cacheTableField2.setData(data1);
+			}
+			else
+			{
+				Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, new Exception("缓存表在进行行字段数据交换时，遇到行字段互相不匹配。"));
+				break;
+			}
+		}
+	}
+
+	/**
+	 * 取得所有行数据
+	 * @return 取得的行数据，为当前行数据的快照，不含已过期但尚未被过期服务移除的行
+	 */
+	public Vector<ICacheTableRow> getRows()
+	{
+		try
+		{
+			if (expiresRowCount.get() <= 0)
+				return new Vector<ICacheTableRow>(orderRows.values());
+			long currentTime = DateUtil.getCurrentTimeMillis();
+			Vector<ICacheTableRow> cacheTableRows = new Vector<ICacheTableRow>();
+			for (ICacheTableRow cacheTableRow : orderRows.values())
+			{
+				if (currentTime <= cacheTableRow.getExpiresTime())
+				{// 已过期的行由过期时间轮移除
+					cacheTableRows.add(cacheTableRow);
+				}
+			}
+			return cacheTableRows;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		return null;
+	}
+
+	/**
+	 * 取得行快照，遍历时不需要加锁，表的行自上次快照后没有变化时直接返回上次的快照
+	 * 创建快照时不阻塞写入，与创建同时进行的写入可能部分可见，此时快照以写入前的版本号保存，下次取得时重新创建
+	 * @return 行快照
+	 */
+	public CacheTableSnapshot snapshot()
+	{
+		long currentEpoch = epoch.get();
+		CacheTableSnapshot cacheTableSnapshot = snapshot;
+		if (cacheTableSnapshot != null && cacheTableSnapshot.getEpoch() == currentEpoch)
+			return cacheTableSnapshot;
+		try
+		{
+			Collection<ICacheTableRow> rows = orderRows.values();
+			cacheTableSnapshot = new CacheTableSnapshot(rows.toArray(new ICacheTableRow[rows.size()]), currentEpoch);
+			snapshot = cacheTableSnapshot;
+			return cacheTableSnapshot;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		return CacheTableSnapshot.EMPTY;
+	}
+
+	/**
+	 * 行版本号，行增加、移除、排序、清除时递增
+	 * @return 版本号
+	 */
+	public long getEpoch()
+	{
+		return epoch.get();
+	}
+
+	/**
+	 * 表结构，行加入表时绑定
+	 * @return 表结构
+	 */
+	public CacheTableSchema getSchema()
+	{
+		return schema;
+	}
+
+	/**
+	 * 取得字段句柄，用于按槽位读取本表各行的字段
+	 * @param fieldName 字段名
+	 * @return 字段句柄
+	 */
+	public CacheTableFieldHandle getFieldHandle(String fieldName)
+	{
+		return schema.getFieldHandle(fieldName);
+	}
+
+	/**
+	 * 取得符合键值列表的数据列表
+	 * @param keyFieldNames 集合键字段名列表
+	 * @param keyFieldValues 集合键值列表，可只指定前面部分的集合键值
+	 * @return 取得的行数据列表，为当前行数据的快照
+	 */
+	public Vector<ICacheTableRow> getRows(String[] keyFieldNames, String[] keyFieldValues)
+	{
+		try
+		{
+			String keyFieldNameKey = getKeyFieldNameKey(keyFieldNames);
+			if (keyFieldNameKey == null || keyFieldValues == null || keyFieldValues.length <= 0)
+				return null;
+			ConcurrentHashMap<String, KeyFieldRows> groupRows = keyFieldRows.get(keyFieldNameKey);
+			if (groupRows == null)
+				return null;
+			KeyFieldRows rows = groupRows.get(getKeyFieldValueKey(keyFieldValues, keyFieldValues.length));
+			if (rows == null)
+				return null;
+
+			Vector<ICacheTableRow> cacheTableRows = rows.toVector();
+			long currentTime = DateUtil.getCurrentTimeMillis();
+			for (int i = cacheTableRows.size() - 1; i >= 0; i--)
+			{
+				ICacheTableRow cacheTableRow = cacheTableRows.get(i);
+				if (currentTime > cacheTableRow.getExpiresTime())
+				{// 如果当前行数据已过期，只跳过，由过期时间轮移除
+					cacheTableRows.remove(i);
+				}
+			}
+			return cacheTableRows;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		return null;
+	}
+
+	/**
+	 * 建立哈希索引，建立后可按索引字段的值直接查找行，索引随行的增加、移除及字段数据的改变自动维护
+	 * @param fieldNames 索引字段名列表，可以为多个字段组成的复合索引
+	 * @return 建立成功或已存在返回true，否则返回false
+	 */
+	public boolean createIndex(String[] fieldNames)
+	{
+		lockAll();
+		try
+		{
+			return cacheTableIndexes.createIndex(fieldNames, rowEntries.keySet()) != null;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return false;
+		}
+		finally
+		{
+			unlockAll();
+		}
+	}
+
+	/**
+	 * 建立有序索引，除相等查找外还可按索引字段的值进行范围查找
+	 * @param fieldNames 索引字段名列表，可以为多个字段组成的复合索引
+	 * @return 建立成功或已存在返回true，否则返回false
+	 */
+	public boolean createSortedIndex(String[] fieldNames)
+	{
+		lockAll();
+		try
+		{
+			return cacheTableIndexes.createSortedIndex(fieldNames, rowEntries.keySet()) != null;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return false;
+		}
+		finally
+		{
+			unlockAll();
+		}
+	}
+
+	/**
+	 * 移除建立的索引，集合键字段组使用独立的集合键索引，不受影响
+	 * @param fieldNames 索引字段名列表
+	 * @return 存在并移除返回true，否则返回false
+	 */
+	public boolean removeIndex(String[] fieldNames)
+	{
+		return cacheTableIndexes.removeIndex(fieldNames);
+	}
+
+	/**
+	 * 建立排序视图，视图随行的增加、移除及排序字段数据的改变逐行调整，取得前N行时不需要对整表排序，频繁取得排行时应使用排序视图代替sortOn
+	 * @param fieldNames 排序字段名列表，如：new String[]{"score", "level"}
+	 * @param sortTypes 各排序字段的排序类型方式，如：new SortType[]{SortType.DESC, SortType.ASC}，未指定的字段升序
+	 * @param limit 视图默认取得的行数量(前N行)，值小于等于0时取得所有行
+	 * @return 排序视图，已存在相同排序的视图时返回该视图，失败时返回null
+	 */
+	public ICacheTableSortedView createSortedView(String[] fieldNames, SortType[] sortTypes, int limit)
+	{
+		lockAll();
+		try
+		{
+			return cacheTableIndexes.createSortedView(fieldNames, sortTypes, limit, rowEntries.keySet());
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return null;
+		}
+		finally
+		{
+			unlockAll();
+		}
+	}
+
+	/**
+	 * 移除排序视图
+	 * @param fieldNames 排序字段名列表
+	 * @param sortTypes 各排序字段的排序类型方式
+	 * @return 存在并移除返回true，否则返回false
+	 */
+	public boolean removeSortedView(String[] fieldNames, SortType[] sortTypes)
+	{
+		return cacheTableIndexes.removeSortedView(fieldNames, sortTypes);
+	}
+
+	/**
+	 * 按索引取得字段值相等的行列表
+	 * @param fieldNames 索引字段名列表，需已建立对应的哈希索引或有序索引
+	 * @param fieldValues 字段值列表，可以只指定前面部分字段的值，值为字符串时将转换为字段值的类型
+	 * @return 行列表副本，不含已过期的行，未建立索引或不存在时返回null
+	 */
+	public Vector<ICacheTableRow> getRowsByIndex(String[] fieldNames, Object[] fieldValues)
+	{
+		try
+		{
+			ICacheTableIndex cacheTableIndex = cacheTableIndexes.getIndex(fieldNames);
+			if (cacheTableIndex == null)
+				return null;
+			return excludeExpires(cacheTableIndex.getRows(fieldValues));
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		return null;
+	}
+
+	/**
+	 * 按有序索引取得字段值在指定范围内的行列表(包含边界值)，如：level BETWEEN 10 AND 20
+	 * @param fieldNames 索引字段名列表，需已建立对应的有序索引
+	 * @param fromValues 起始字段值列表，为null时则不限下界
+	 * @param toValues 结束字段值列表，为null时则不限上界
+	 * @return 按字段值从小到大排列的行列表副本，不含已过期的行，未建立有序索引时返回null
+	 */
+	public Vector<ICacheTableRow> getRowsByRange(String[] fieldNames, Object[] fromValues, Object[] toValues)
+	{
+		return getRowsByRange(fieldNames, fromValues, true, toValues, true);
+	}
+
+	/**
+	 * 按有序索引取得字段值在指定范围内的行列表
+	 * @param fieldNames 索引字段名列表，需已建立对应的有序索引
+	 * @param fromValues 起始字段值列表，为null时则不限下界
+	 * @param fromInclusive 是否包含等于起始字段值的行
+	 * @param toValues 结束字段值列表，为null时则不限上界
+	 * @param toInclusive 是否包含等于结束字段值的行
+	 * @return 按字段值从小到大排列的行列表副本，不含已过期的行，未建立有序索引时返回null
+	 */
+	public Vector<ICacheTableRow> getRowsByRange(String[] fieldNames, Object[] fromValues, boolean fromInclusive, Object[] toValues, boolean toInclusive)
+	{
+		try
+		{
+			ICacheTableIndex cacheTableSortedIndex = cacheTableIndexes.getSortedIndex(fieldNames);
+			if (cacheTableSortedIndex == null)
+			{
+				Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, new Exception(this.name + " 缓存表未建立有序索引：" + CacheTableIndex.getIndexName(fieldNames)));
+				return null;
+			}
+			return excludeExpires(cacheTableSortedIndex.getRows(fromValues, fromInclusive, toValues, toInclusive));
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		return null;
+	}
+
+	/**
+	 * 取得已建立的所有索引，哈希索引在前
+	 * @return 索引列表副本
+	 */
+	public ArrayList<ICacheTableIndex> getIndexes()
+	{
+		return cacheTableIndexes.getIndexes();
+	}
+
+	/**
+	 * 建立查询，如：query().where("level", QueryOperator.GREATER_EQUAL, 10).and("guildId", QueryOperator.EQUAL, 1).orderBy("level", SortType.DESC).limit(10).toRows()
+	 * 查询执行时优先使用已建立的索引及集合键，没有可用的索引时遍历全表
+	 * @return 查询
+	 */
+	public ICacheTableQuery query()
+	{
+		return new CacheTableQuery(this);
+	}
+
+	/**
+	 * 遍历所有未过期的行
+	 * @param cacheTableRowHandler 行处理函数
+	 */
+	public void forEachRow(ICacheTableRowHandler cacheTableRowHandler)
+	{
+		forEachRow(cacheTableRowHandler, false);
+	}
+
+	/**
+	 * 遍历所有未过期的行，遍历开始时的行快照，遍历过程中增加或移除的行不影响遍历
+	 * @param cacheTableRowHandler 行处理函数
+	 * @param isParallel 是否允许并行遍历，行数量达到并行阈值(CacheTableParallel)时行处理函数会在多个线程中同时调用，需线程安全
+	 */
+	public void forEachRow(ICacheTableRowHandler cacheTableRowHandler, boolean isParallel)
+	{
+		try
+		{
+			CacheTableParallel.forEach(orderRows.values().toArray(), cacheTableRowHandler, isParallel);
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+	}
+
+	/**
+	 * 统计所有未过期行的字段数据，行数量达到并行阈值(CacheTableParallel)时并行统计
+	 * @param fieldName 统计字段名
+	 * @return 统计结果，包括数量、合计、平均值、最小值及最大值
+	 */
+	public CacheTableAggregate aggregate(String fieldName)
+	{
+		try
+		{
+			return CacheTableParallel.aggregate(orderRows.values().toArray(), schema.getFieldHandle(fieldName));
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		return new CacheTableAggregate();
+	}
+
+	/**
+	 * 按分组字段分组统计所有未过期行的字段数据，行数量达到并行阈值(CacheTableParallel)时并行统计
+	 * @param fieldName 统计字段名
+	 * @param groupByFieldName 分组字段名
+	 * @return 分组字段数据(整数类型统一为Long，浮点类型统一为Double)与统计结果的映射
+	 */
+	public HashMap<Object, CacheTableAggregate> aggregate(String fieldName, String groupByFieldName)
+	{
+		try
+		{
+			return CacheTableParallel.aggregate(orderRows.values().toArray(), schema.getFieldHandle(fieldName), schema.getFieldHandle(groupByFieldName));
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		return new HashMap<Object, CacheTableAggregate>();
+	}
+
+	/**
+	 * 跳过行列表中已过期的行，已过期的行由过期时间轮从表中移除，读取时不移除
+	 * @param cacheTableRows 行列表副本
+	 * @return 不含过期行的行列表，没有行时返回null
+	 */
+	private Vector<ICacheTableRow> excludeExpires(Vector<ICacheTableRow> cacheTableRows)
+	{
+		if (cacheTableRows == null || cacheTableRows.size() <= 0)
+			return null;
+		long currentTime = DateUtil.getCurrentTimeMillis();
+		for (int i = cacheTableRows.size() - 1; i >= 0; i--)
+		{
+			ICacheTableRow cacheTableRow = cacheTableRows.get(i);
+			if (currentTime > cacheTableRow.getExpiresTime())
+			{// 如果当前行数据已过期
+				cacheTableRows.remove(i);
+			}
+		}
+		return cacheTableRows.size() > 0 ? cacheTableRows : null;
+	}
+
+	/**
+	 * 取得行，需按排列顺序遍历至指定位置(O(n))
+	 * @param rowIndex 行索引
+	 * @return 取得的行数据，如果提供的索引超出范围，则返回null
+	 */
+	public ICacheTableRow getRow(int rowIndex)
+	{
+		try
+		{
+			ICacheTableRow cacheTableRow = rowAt(rowIndex);
+			if (cacheTableRow != null && touchRow(cacheTableRow))
+			{
+				return cacheTableRow;
+			}
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		return null;
+	}
+
+	/**
+	 * 按主键值取得行，直接由所在分段查找，不遍历集合键索引
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 取得的行数据，不存在或已过期时返回null
+	 */
+	public ICacheTableRow getRowByPrimaryKey(Object primaryKeyFieldValue)
+	{
+		ICacheTableRow cacheTableRow = findRowByPrimaryKey(primaryKeyFieldValue);
+		if (cacheTableRow != null && touchRow(cacheTableRow))
+		{
+			return cacheTableRow;
+		}
+		return null;
+	}
+
+	/**
+	 * 按整数主键值取得行
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 取得的行数据，不存在或已过期时返回null
+	 */
+	public ICacheTableRow getRowByPrimaryKey(long primaryKeyFieldValue)
+	{
+		return getRowByPrimaryKey(Long.valueOf(primaryKeyFieldValue));
+	}
+
+	/**
+	 * 按整数主键值取得行
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 取得的行数据，不存在或已过期时返回null
+	 */
+	public ICacheTableRow getRowByPrimaryKey(int primaryKeyFieldValue)
+	{
+		return getRowByPrimaryKey(Long.valueOf(primaryKeyFieldValue));
+	}
+
+	/**
+	 * 检测是否包含指定主键值的行
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 如果存在且未过期返回true, 否则返回false
+	 */
+	public boolean containsPrimaryKey(Object primaryKeyFieldValue)
+	{
+		ICacheTableRow cacheTableRow = findRowByPrimaryKey(primaryKeyFieldValue);
+		return cacheTableRow != null && DateUtil.getCurrentTimeMillis() <= cacheTableRow.getExpiresTime();
+	}
+
+	/**
+	 * 检测是否包含指定整数主键值的行
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 如果存在且未过期返回true, 否则返回false
+	 */
+	public boolean containsPrimaryKey(long primaryKeyFieldValue)
+	{
+		return containsPrimaryKey(Long.valueOf(primaryKeyFieldValue));
+	}
+
+	/**
+	 * 按主键值移除行数据
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 移除成功或者指定主键值的行不存在返回true,否则返回false
+	 */
+	public boolean removeByPrimaryKey(Object primaryKeyFieldValue)
+	{
+		return removeRow(findRowByPrimaryKey(primaryKeyFieldValue));
+	}
+
+	/**
+	 * 按整数主键值移除行数据
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 移除成功或者指定主键值的行不存在返回true,否则返回false
+	 */
+	public boolean removeByPrimaryKey(long primaryKeyFieldValue)
+	{
+		return removeByPrimaryKey(Long.valueOf(primaryKeyFieldValue));
+	}
+
+	/**
+	 * 按主键值查找行，不做过期检查及LRU处理
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 行数据，不存在时返回null
+	 */
+	private ICacheTableRow findRowByPrimaryKey(Object primaryKeyFieldValue)
+	{
+		if (primaryKeyFieldName == null || primaryKeyFieldValue == null)
+			return null;
+		try
+		{
+			return findRow(primaryKey(primaryKeyFieldValue));
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return null;
+		}
+	}
+
+	/**
+	 * 由所在分段查找主键key对应的行
+	 * @param primaryKey 主键key
+	 * @return 行数据，不存在时返回null
+	 */
+	private ICacheTableRow findRow(Object primaryKey)
+	{
+		Segment segment = segmentFor(primaryKey);
+		segment.lock.lock();
+		try
+		{
+			SegmentEntry entry = segment.entries.get(primaryKey);
+			return entry == null ? null : entry.row;
+		}
+		finally
+		{
+			segment.lock.unlock();
+		}
+	}
+
+	/**
+	 * 移除表行，需按排列顺序遍历至指定位置(O(n))
+	 * @param rowIndex 行索引
+	 * @return 移除成功或者指定的索引不存于列表返回true,否则返回false
+	 */
+	public boolean removeRow(int rowIndex)
+	{
+		try
+		{
+			ICacheTableRow cacheTableRow = rowAt(rowIndex);
+			if (cacheTableRow == null)
+			{
+				return true;
+			}
+			return removeRow(cacheTableRow);
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return false;
+		}
+	}
+
+	/**
+	 * 移除行数据
+	 * @param cacheTableRow 行数据
+	 * @return 移除成功或者指定的行数据为空返回true,否则返回false
+	 */
+	public boolean removeRow(ICacheTableRow cacheTableRow)
+	{
+		if (cacheTableRow == null)
+			return true;
+		try
+		{
+			SegmentEntry entry = rowEntries.get(cacheTableRow);
+			if (entry == null)
+				return true;
+			Segment segment = entry.segment;
+			segment.lock.lock();
+			try
+			{
+				if (entry.removed)
+					return true;
+				unlinkEntry(segment, entry);
+			}
+			finally
+			{
+				segment.lock.unlock();
+			}
+			releaseRow(cacheTableRow);
+			return true;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return false;
+		}
+	}
+
+	/**
+	 * 移除表所有行数据并释放行数据
+	 * @return 移除成功返回true,否则返回false
+	 */
+	public boolean removeAll()
+	{
+		try
+		{
+			for (ICacheTableRow cacheTableRow : orderRows.values())
+			{
+				removeRow(cacheTableRow);
+			}
+			return true;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return false;
+		}
+	}
+
+	/**
+	 * 取得列表中首次出现的行索引，需按排列顺序遍历(O(n))
+	 * @param keyFieldNames 集合键字段列表
+	 * @param keyFieldValues 集合键值列表
+	 * @return 行索引，如果指定的主键Key不存于列表中，则返回-1
+	 */
+	public int rowIndexOf(String[] keyFieldNames, String[] keyFieldValues)
+	{
+		try
+		{
+			ICacheTableRow cacheTableRow = getRow(keyFieldNames, keyFieldValues);
+			if (cacheTableRow != null)
+			{
+				int index = 0;
+				for (ICacheTableRow orderRow : orderRows.values())
+				{
+					if (orderRow == cacheTableRow)
+					{
+						return index;
+					}
+					index++;
+				}
+			}
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		return -1;
+	}
+
+	/**
+	 * 取得列表中最后一次出现的行索引，需按排列顺序遍历(O(n))
+	 * @param keyFieldNames 集合键字段列表
+	 * @param keyFieldValues 集合键值列表
+	 * @return 行索引，如果指定的主键Key不存于列表中，则返回-1
+	 */
+	public int rowLastIndexOf(String[] keyFieldNames, String[] keyFieldValues)
+	{
+		try
+		{
+			ICacheTableRow cacheTableRow = getRow(keyFieldNames, keyFieldValues);
+			if (cacheTableRow != null)
+			{
+				int index = 0;
+				int lastIndex = -1;
+				for (ICacheTableRow orderRow : orderRows.values())
+				{
+					if (orderRow == cacheTableRow)
+					{
+						lastIndex = index;
+					}
+					index++;
+				}
+				return lastIndex;
+			}
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		return -1;
+	}
+
+	/**
+	 * 检测是否包含有指定集合键值的行
+	 * @param keyFieldNames 集合键字段列表
+	 * @param keyFieldValues 集合键值列表
+	 * @return 如果存在返回true, 否则返回false
+	 */
+	public boolean containsKeyField(String[] keyFieldNames, String[] keyFieldValues)
+	{
+		Vector<ICacheTableRow> cacheTableRows = getRows(keyFieldNames, keyFieldValues);
+		return cacheTableRows != null && cacheTableRows.size() > 0;
+	}
+
+	/**
+	 * 排序表行数据
+	 * @param fieldNames 排序字段，
+	 * 格式：new Object[]{数据值类型(JavaType.xxx),字段名,数据值类型(JavaType.xxx),字段名,...}，需其数组长度应与options长度相等
+	 * 说明：fieldName长度其[数据值类型(JavaType.xxx),字段名]计算为1个长度
+	 * @param options 排序规则，
+	 * 格式：new SortType[]{SortType.asc,SortType.desc,SortType.asc,SortType.desc,...}，需其数组长度应与fieldName长度相等，如不相等，其不相等部分将默认为SortType.asc。
+	 * 说明：fieldName长度其[数据值类型(JavaType.xxx),字段名]计算为1个长度
+	 */
+	public void sortOn(final Object[] fieldNames, final SortType[] options)
+	{
+		sort(CacheTableComparator.getComparator(name, fieldNames, options));
+	}
+
+	/**
+	 * 排序表行数据，该操作需要重排行序号，会锁定所有分段
+	 * @param comparator 排序比较函数，行数量达到并行阈值(CacheTableParallel)时会在多个线程中同时调用，需线程安全
+	 */
+	public void sort(Comparator<? super ICacheTableRow> comparator)
+	{
+		lockAll();
+		try
+		{
+			ArrayList<ICacheTableRow> rows = new ArrayList<ICacheTableRow>(orderRows.values());
+			if (comparator instanceof CacheTableComparator)
+			{
+				((CacheTableComparator) comparator).sort(rows);
+			}
+			else
+			{
+				CacheTableParallel.sort(rows, comparator);
+			}
+			reorder(rows);
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		finally
+		{
+			unlockAll();
+		}
+	}
+
+	/**
+	 * 批量移除已过期的行，由过期服务调用，行已不在表中时忽略，有效时间已被延长时按新的到期时间重新安排
+	 * @param cacheTableRows 到期的行列表
+	 * @return 实际移除的行数
+	 */
+	public int removeExpiresRows(List<ICacheTableRow> cacheTableRows)
+	{
+		int count = 0;
+		try
+		{
+			long currentTime = DateUtil.getCurrentTimeMillis();
+			for (ICacheTableRow cacheTableRow : cacheTableRows)
+			{
+				if (!rowEntries.containsKey(cacheTableRow))
+					continue;
+				if (currentTime <= cacheTableRow.getExpiresTime())
+				{// 有效时间已被延长
+					DataFactory.cacheController().cacheTableExpiryService().schedule(this, cacheTableRow);
+					continue;
+				}
+				removeRow(cacheTableRow);
+				count++;
+			}
+			expiresCount.addAndGet(count);
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		return count;
+	}
+
+	/**
+	 * 已过期移除的行数
+	 * @return 行数
+	 */
+	public long getExpiresCount()
+	{
+		return expiresCount.get();
+	}
+
+	/**
+	 * 表行大小，不含已过期但尚未被过期时间轮移除的行，存在指定了有效时间的行时需按排列顺序遍历(O(n))
+	 * @return 表行大小
+	 */
+	public int getRowSize()
+	{
+		if (expiresRowCount.get() <= 0)
+			return rowSize.get();
+		long currentTime = DateUtil.getCurrentTimeMillis();
+		int size = 0;
+		for (ICacheTableRow cacheTableRow : orderRows.values())
+		{
+			if (currentTime <= cacheTableRow.getExpiresTime())
+			{
+				size++;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * 创建当前CacheTable的指定字段的新CacheTable，新CacheTable的数据将会自动同步更新于当前CacheTable，其同步项为当前CacheTable增加新行、移除行以及行字段的内容数据。
+	 * @param name CacheTable表名
+	 * @param primaryKeyFieldName 表主键字段名
+	 * @param keyFieldNameGroups 集合键字段名列表组，此值将做为行数据key，如果指定多个字段，中间以“_”连接，最终数据为：[0]字段值_[1]字段值_…，值不允许为空
+	 * @param fieldNames 指定字段名列表，字段需存在于当前的CacheTable中，如：new String[]{"ID", "Name", ...}
+	 * @return 创建成功返回新创建的CacheTable，否则返回null
+	 */
+	public ICacheTable newCacheTable(String name, String primaryKeyFieldName, String[][] keyFieldNameGroups, String[] fieldNames)
+	{
+		return newCacheTable(name, primaryKeyFieldName, keyFieldNameGroups, fieldNames, 0);
+	}
+
+	/**
+	 * 创建当前CacheTable的指定字段的新CacheTable，maxStaleness大于0时新CacheTable异步更新：当前CacheTable增加、移除行时只写入变更日志，由计时器批量应用，新CacheTable最多落后maxStaleness毫秒
+	 * @param name CacheTable表名
+	 * @param primaryKeyFieldName 表主键字段名
+	 * @param keyFieldNameGroups 集合键字段名列表组，此值将做为行数据key，如果指定多个字段，中间以“_”连接，最终数据为：[0]字段值_[1]字段值_…，值不允许为空
+	 * @param fieldNames 指定字段名列表，字段需存在于当前的CacheTable中，如：new String[]{"ID", "Name", ...}
+	 * @param maxStaleness 最大延迟时间(毫秒)，小于等于0时同步更新
+	 * @return 创建成功返回新创建的CacheTable，否则返回null
+	 */
+	public ICacheTable newCacheTable(String name, String primaryKeyFieldName, String[][] keyFieldNameGroups, String[] fieldNames, long maxStaleness)
+	{
+		ICacheTable newCacheTable = null;
+		lockAll();
+		try
+		{
+			newCacheTable = newCacheTables.create(name, primaryKeyFieldName, keyFieldNameGroups, fieldNames, maxStaleness, orderRows.values());
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, e);
+			newCacheTable = null;
+		}
+		finally
+		{
+			unlockAll();
+		}
+		return newCacheTable;
+	}
+
+	/**
+	 * 等待异步更新的指定字段的新CacheTable应用完当前所有变更
+	 * @param name 新CacheTable表名
+	 * @param timeout 最长等待时间(毫秒)
+	 * @return 在等待时间内应用完成返回true，新CacheTable不存在或超时返回false
+	 */
+	public boolean awaitNewCacheTable(String name, long timeout)
+	{
+		return newCacheTables.await(name, timeout);
+	}
+
+	/**
+	 * 清除数据(不对行数据做释放处理)
+	 */
+	public void clear()
+	{
+		dispose(false);
+	}
+
+	public void handleEvent(Event event)
+	{
+		if (CacheEvent.FIELD_DATA_CHANGE.equals(event.getType()))
+		{
+			keyFieldDataChange((ICacheTableRow) event.getCurrentTarget(), (String) event.getData());
+			cacheTableIndexes.fieldDataChange((ICacheTableRow) event.getCurrentTarget(), (String) event.getData());
+			newCacheTables.fieldDataChange((ICacheTableRow) event.getCurrentTarget(), (String) event.getData());
+		}
+	}
+
+	/*
+	 * 克隆，深度复制一份全新的数据
+	 */
+	public ICacheTable clone()
+	{
+		try
+		{
+			ConcurrentCacheTable cloneCacheTable = new ConcurrentCacheTable();
+			cloneCacheTable.init(name, primaryKeyFieldName, keyFieldNameGroups, capacity, segments.length);
+			for (ICacheTableRow cacheTableRow : orderRows.values())
+			{
+				ICacheTableRow cloneCacheTableRow = DataUtil.cacheTableRow();
+				for (ICacheTableField cacheTableField : cacheTableRow.getFields().values())
+				{
+					ICacheTableField cloneCacheTableField = DataUtil.cacheTableField(cacheTableField.getData(), cacheTableField.getJavaType());
+					cloneCacheTableField.setIsSqlSave(cacheTableField.getIsSqlSave());
+					cloneCacheTableField.setIsChangeSaveFlag(cacheTableField.getIsChangeSaveFlag());
+					cloneCacheTableRow.addField(cacheTableField.getFieldName(), cloneCacheTableField);
+				}
+				cloneCacheTable.addRow(cloneCacheTableRow);
+			}
+			return cloneCacheTable;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		return null;
+	}
+
+	public synchronized void dispose()
+	{
+		dispose(true);
+	}
+
+	public synchronized void dispose(boolean isDispose)
+	{
+		if (segments == null)
+			return;
+		lockAll();
+		try
+		{
+			for (Segment segment : segments)
+			{
+				for (SegmentEntry entry : segment.entries.values())
+				{
+					entry.removed = true;
+					entry.row.removeEventListener(CacheEvent.ROW_FIELD_DATA_CHANGE, this);
+					entry.row.removeEventListener(CacheEvent.DATA_TO_SAVE, this);
+					entry.row.removeEventListener(CacheEvent.FIELD_DATA_CHANGE, this);
+					if (isDispose)
+					{
+						entry.row.dispose();
+					}
+				}
+				segment.entries.clear();
+				segment.head.previous = segment.head;
+				segment.head.next = segment.head;
+				segment.updateTailStamp();
+			}
+			rowEntries.clear();
+			orderRows.clear();
+			rowSize.set(0);
+			expiresRowCount.set(0);
+			epoch.incrementAndGet();
+			snapshot = null;
+			for (ConcurrentHashMap<String, KeyFieldRows> groupRows : keyFieldRows.values())
+			{
+				groupRows.clear();
+			}
+			cacheTableIndexes.clear();
+		}
+		finally
+		{
+			unlockAll();
+		}
+		if (isDispose)
+		{
+			keyFieldRows.clear();
+			cacheTableIndexes.dispose();
+			newCacheTables.dispose();
+			keyFieldNameGroups = null;
+		}
+	}
+
+	/**
+	 * 取得行的主键key，未设置主键字段名的表，以行对象本身做为key
+	 * @param cacheTableRow 行数据
+	 * @return 主键key，行数据未指定主键字段时返回null
+	 */
+	private Object getRowPrimaryKey(ICacheTableRow cacheTableRow)
+	{
+		if (primaryKeyFieldName == null)
+		{
+			return cacheTableRow;
+		}
+		if (!cacheTableRow.containsField(primaryKeyFieldName))
+		{
+			Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, new Exception(this.name + " 缓存表在增加行数据时，遇到行数据未指定表主键字段 " + primaryKeyFieldName + " 及值。"));
+			return null;
+		}
+		return primaryKey(cacheTableRow.getFieldData(primaryKeyFieldName));
+	}
+
+	/**
+	 * 规范主键值，整数类型及字符串形式的整数统一为Long，其它类型统一为String，
+	 * 使"5"与5对应同一个主键，与CacheTable以字符串存放主键时的查找结果一致
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 主键key
+	 */
+	private Object primaryKey(Object primaryKeyFieldValue)
+	{
+		if (primaryKeyFieldValue instanceof Long)
+		{
+			return primaryKeyFieldValue;
+		}
+		if (primaryKeyFieldValue instanceof Integer || primaryKeyFieldValue instanceof Short || primaryKeyFieldValue instanceof Byte)
+		{
+			return Long.valueOf(((Number) primaryKeyFieldValue).longValue());
+		}
+		if (primaryKeyFieldValue == null)
+			return null;
+		String strPrimaryKey = primaryKeyFieldValue.toString();
+		Long longPrimaryKey = parseLongPrimaryKey(strPrimaryKey);
+		return longPrimaryKey != null ? longPrimaryKey : strPrimaryKey;
+	}
+
+	/**
+	 * 将字符串形式的整数主键值转为Long，只转换与Long.toString结果相同的字符串(如"05"、"+5"不转换)
+	 * @param strPrimaryKey 主键值字符串
+	 * @return 转换后的值，不是整数时返回null
+	 */
+	private static Long parseLongPrimaryKey(String strPrimaryKey)
+	{
+		int length = strPrimaryKey.length();
+		if (length == 0 || length > 20)
+			return null;
+		for (int i = 0; i < length; i++)
+		{
+			char c = strPrimaryKey.charAt(i);
+			if ((c < '0' || c > '9') && !(c == '-' && i == 0 && length > 1))
+				return null;
+		}
+		try
+		{
+			long value = Long.parseLong(strPrimaryKey);
+			return Long.toString(value).equals(strPrimaryKey) ? Long.valueOf(value) : null;
+		}
+		catch (NumberFormatException e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * 检查行是否包含所有集合键字段
+	 * @param cacheTableRow 行数据
+	 * @return 全部包含返回true，否则返回false
+	 */
+	private boolean checkKeyFields(ICacheTableRow cacheTableRow)
+	{
+		String[][] groups = keyFieldNameGroups;
+		if (groups != null)
+		{
+			for (String[] keyFieldNames : groups)
+			{
+				if (keyFieldNames == null)
+					continue;
+				for (String keyFieldName : keyFieldNames)
+				{
+					if (!cacheTableRow.containsField(keyFieldName))
+					{
+						Logger.getLogger(ConcurrentCacheTable.class.getName()).log(Level.SEVERE, null, new Exception(this.name + " 缓存表在增加行数据时，遇到行数据未指定表集合键字段 " + keyFieldName + " 及值。"));
+						return false;
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 取得过期时间
+	 * @param validTime 数据有效时间(毫秒),值<0时则表示不限
+	 * @return 过期时间
+	 */
+	private long getExpiresTime(long validTime)
+	{
+		if (validTime < 0)
+		{
+			return Long.MAX_VALUE;// 如果未指定有效时间，则指定一个最大时间
+		}
+		return DateUtil.getCurrentTimeMillis() + validTime;
+	}
+
+	/**
+	 * 取得主键key所在的分段
+	 * @param primaryKey 主键key
+	 * @return 分段
+	 */
+	private Segment segmentFor(Object primaryKey)
+	{
+		int h = primaryKey.hashCode();
+		h ^= (h >>> 16);
+		return segments[h & segmentMask];
+	}
+
+	/**
+	 * 将分段项加入分段、LRU头部热端及各索引，调用时需持有分段锁
+	 * @param segment 分段
+	 * @param entry 分段项
+	 */
+	private void linkEntry(Segment segment, SegmentEntry entry)
+	{
+		ICacheTableRow cacheTableRow = entry.row;
+		segment.entries.put(entry.key, entry);
+		entry.previous = segment.head;
+		entry.next = segment.head.next;
+		segment.head.next.previous = entry;
+		segment.head.next = entry;
+		entry.accessStamp = System.nanoTime();
+		segment.updateTailStamp();
+		rowEntries.put(cacheTableRow, entry);
+		if (entry.expires)
+		{
+			expiresRowCount.incrementAndGet();
+		}
+		if (entry.order != 0)
+		{
+			orderRows.put(entry.order, cacheTableRow);
+		}
+		rowSize.incrementAndGet();
+		epoch.incrementAndGet();
+
+		String[][] groups = keyFieldNameGroups;
+		if (groups != null)
+		{
+			for (String[] keyFieldNames : groups)
+			{
+				ConcurrentHashMap<String, KeyFieldRows> groupRows = keyFieldRows.get(getKeyFieldNameKey(keyFieldNames));
+				if (groupRows == null)
+					continue;
+				String[] keyFieldValues = getKeyFieldValues(cacheTableRow, keyFieldNames);
+				addKeyFieldRow(groupRows, keyFieldValues, cacheTableRow);
+				entry.keyFieldValues.put(keyFieldNames, keyFieldValues);
+			}
+		}
+		cacheTableIndexes.add(cacheTableRow);
+		cacheTableRow.addEventListener(CacheEvent.ROW_FIELD_DATA_CHANGE, this);
+		cacheTableRow.addEventListener(CacheEvent.DATA_TO_SAVE, this);
+		cacheTableRow.addEventListener(CacheEvent.FIELD_DATA_CHANGE, this);
+	}
+
+	/**
+	 * 将分段项移出分段、LRU链表及各索引，调用时需持有分段锁
+	 * @param segment 分段
+	 * @param entry 分段项
+	 */
+	private void unlinkEntry(Segment segment, SegmentEntry entry)
+	{
+		entry.removed = true;
+		segment.entries.remove(entry.key);
+		entry.previous.next = entry.next;
+		entry.next.previous = entry.previous;
+		entry.previous = null;
+		entry.next = null;
+		segment.updateTailStamp();
+		rowEntries.remove(entry.row);
+		if (entry.expires)
+		{
+			expiresRowCount.decrementAndGet();
+		}
+		orderRows.remove(entry.order, entry.row);
+		rowSize.decrementAndGet();
+		epoch.incrementAndGet();
+
+		for (Map.Entry<String[], String[]> keyFieldEntry : entry.keyFieldValues.entrySet())
+		{
+			ConcurrentHashMap<String, KeyFieldRows> groupRows = keyFieldRows.get(getKeyFieldNameKey(keyFieldEntry.getKey()));
+			if (groupRows != null)
+			{
+				removeKeyFieldRow(groupRows, keyFieldEntry.getValue(), entry.row);
+			}
+		}
+		entry.keyFieldValues.clear();
+		cacheTableIndexes.remove(entry.row);
+	}
+
+	/**
+	 * 将行加入集合键值对应的行集(包括各前缀键值)
+	 * @param groupRows 集合键字段组的行集
+	 * @param keyFieldValues 集合键值列表
+	 * @param cacheTableRow 行数据
+	 */
+	private void addKeyFieldRow(ConcurrentHashMap<String, KeyFieldRows> groupRows, String[] keyFieldValues, ICacheTableRow cacheTableRow)
+	{
+		for (int i = 1; i <= keyFieldValues.length; i++)
+		{
+			String valueKey = getKeyFieldValueKey(keyFieldValues, i);
+			while (true)
+			{
+				KeyFieldRows rows = groupRows.get(valueKey);
+				if (rows == null)
+				{
+					rows = new KeyFieldRows();
+					KeyFieldRows oldRows = groupRows.putIfAbsent(valueKey, rows);
+					if (oldRows != null)
+					{
+						rows = oldRows;
+					}
+				}
+				if (rows.add(cacheTableRow))
+				{
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 将行移出集合键值对应的行集(包括各前缀键值)，行集为空时移除
+	 * @param groupRows 集合键字段组的行集
+	 * @param keyFieldValues 集合键值列表
+	 * @param cacheTableRow 行数据
+	 */
+	private void removeKeyFieldRow(ConcurrentHashMap<String, KeyFieldRows> groupRows, String[] keyFieldValues, ICacheTableRow cacheTableRow)
+	{
+		for (int i = 1; i <= keyFieldValues.length; i++)
+		{
+			String valueKey = getKeyFieldValueKey(keyFieldValues, i);
+			KeyFieldRows rows = groupRows.get(valueKey);
+			if (rows != null && rows.remove(cacheTableRow))
+			{
+				groupRows.remove(valueKey, rows);
+			}
+		}
+	}
+
+	/**
+	 * 行的字段数据改变时，按新的集合键值移动该行在集合键字段组中的位置
+	 * @param cacheTableRow 行数据
+	 * @param fieldName 改变的字段名
+	 */
+	private void keyFieldDataChange(ICacheTableRow cacheTableRow, String fieldName)
+	{
+		String[][] groups = keyFieldNameGroups;
+		if (groups == null || fieldName == null)
+			return;
+		SegmentEntry entry = rowEntries.get(cacheTableRow);
+		if (entry == null)
+			return;
+		Segment segment = entry.segment;
+		segment.lock.lock();
+		try
+		{
+			if (entry.removed)
+				return;
+			for (String[] keyFieldNames : groups)
+			{
+				if (!containsFieldName(keyFieldNames, fieldName))
+					continue;
+				ConcurrentHashMap<String, KeyFieldRows> groupRows = keyFieldRows.get(getKeyFieldNameKey(keyFieldNames));
+				if (groupRows == null)
+					continue;
+				String[] oldKeyFieldValues = entry.keyFieldValues.get(keyFieldNames);
+				String[] keyFieldValues = getKeyFieldValues(cacheTableRow, keyFieldNames);
+				if (oldKeyFieldValues != null)
+				{
+					if (Arrays.equals(oldKeyFieldValues, keyFieldValues))
+						continue;
+					removeKeyFieldRow(groupRows, oldKeyFieldValues, cacheTableRow);
+				}
+				addKeyFieldRow(groupRows, keyFieldValues, cacheTableRow);
+				entry.keyFieldValues.put(keyFieldNames, keyFieldValues);
+			}
+		}
+		finally
+		{
+			segment.lock.unlock();
+		}
+	}
+
+	/**
+	 * 字段名列表中是否包含指定字段名
+	 * @param fieldNames 字段名列表
+	 * @param fieldName 字段名
+	 * @return 包含返回true，否则返回false
+	 */
+	private static boolean containsFieldName(String[] fieldNames, String fieldName)
+	{
+		for (String name : fieldNames)
+		{
+			if (fieldName.equals(name))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 行数超出容量时，依次淘汰整表最久未访问的行
+	 * 每淘汰一行前以CAS认领一个淘汰名额，多个线程可同时淘汰不同分段的行，淘汰的总行数不超过超出容量的行数
+	 */
+	private void evictOverCapacity()
+	{
+		while (capacity > -1)
+		{
+			int evicting = evictingCount.get();
+			if (rowSize.get() - evicting <= capacity)
+				return;
+			if (!evictingCount.compareAndSet(evicting, evicting + 1))
+				continue;
+			ICacheTableRow evictRow;
+			try
+			{
+				evictRow = evictColdest();
+			}
+			finally
+			{
+				evictingCount.decrementAndGet();
+			}
+			if (evictRow == null)
+				return;
+			releaseRow(evictRow);
+		}
+	}
+
+	/**
+	 * 移出整表最久未访问的行，各分段的LRU链表按访问时间排列，整表最久未访问的行即为各分段尾部冷端中访问时间最早的行
+	 * @return 移出的行数据，没有可淘汰的行时返回null
+	 */
+	private ICacheTableRow evictColdest()
+	{
+		while (true)
+		{
+			Segment coldestSegment = null;
+			long coldestStamp = Long.MAX_VALUE;
+			for (Segment segment : segments)
+			{
+				long tailStamp = segment.tailStamp;
+				if (tailStamp < coldestStamp)
+				{
+					coldestStamp = tailStamp;
+					coldestSegment = segment;
+				}
+			}
+			if (coldestSegment == null)
+				return null;
+			coldestSegment.lock.lock();
+			try
+			{
+				SegmentEntry endEntry = coldestSegment.head.previous;
+				if (endEntry != coldestSegment.head && endEntry.accessStamp == coldestStamp)
+				{
+					unlinkEntry(coldestSegment, endEntry);
+					return endEntry.row;
+				}
+			}
+			finally
+			{
+				coldestSegment.lock.unlock();
+			}
+			// 比较后尾部冷端已被访问或移除，重新比较
+		}
+	}
+
+	/**
+	 * 释放已移出分段的行数据
+	 * @param cacheTableRow 行数据
+	 */
+	private void releaseRow(ICacheTableRow cacheTableRow)
+	{
+		cacheTableRow.removeEventListener(CacheEvent.ROW_FIELD_DATA_CHANGE, this);
+		cacheTableRow.removeEventListener(CacheEvent.DATA_TO_SAVE, this);
+		cacheTableRow.removeEventListener(CacheEvent.FIELD_DATA_CHANGE, this);
+		newCacheTables.remove(cacheTableRow);// 向当前CacheTable的指定字段的新CacheTable中移除行数据
+		cacheTableRow.dispose();
+	}
+
+	/**
+	 * 访问行数据，未过期时将其移动到所在分段的头部热端，已过期时不访问，由过期时间轮移除
+	 * @param cacheTableRow 行数据
+	 * @return 行数据有效返回true，否则返回false
+	 */
+	private boolean touchRow(ICacheTableRow cacheTableRow)
+	{
+		if (DateUtil.getCurrentTimeMillis() > cacheTableRow.getExpiresTime())
+			return false;
+		SegmentEntry entry = rowEntries.get(cacheTableRow);
+		if (entry == null)
+			return false;
+		Segment segment = entry.segment;
+		if (capacity < 0)
+			return true;// 不限容量时无需维护LRU顺序
+		segment.lock.lock();
+		try
+		{
+			if (entry.removed)
+				return false;
+			if (segment.head.next != entry)
+			{
+				entry.previous.next = entry.next;
+				entry.next.previous = entry.previous;
+				entry.previous = segment.head;
+				entry.next = segment.head.next;
+				segment.head.next.previous = entry;
+				segment.head.next = entry;
+			}
+			entry.accessStamp = System.nanoTime();
+			segment.updateTailStamp();
+			return true;
+		}
+		finally
+		{
+			segment.lock.unlock();
+		}
+	}
+
+	/**
+	 * 取得指定排列位置的行，按排列顺序遍历(O(n))
+	 * @param rowIndex 行索引
+	 * @return 行数据，索引超出范围返回null
+	 */
+	private ICacheTableRow rowAt(int rowIndex)
+	{
+		if (rowIndex < 0)
+			return null;
+		int index = 0;
+		for (ICacheTableRow cacheTableRow : orderRows.values())
+		{
+			if (index++ == rowIndex)
+			{
+				return cacheTableRow;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * 按指定的行顺序重排行序号，调用时需持有所有分段锁
+	 * @param rows 行列表
+	 */
+	private void reorder(List<ICacheTableRow> rows)
+	{
+		ConcurrentSkipListMap<Long, ICacheTableRow> newOrderRows = new ConcurrentSkipListMap<Long, ICacheTableRow>();
+		long order = 0;
+		for (ICacheTableRow cacheTableRow : rows)
+		{
+			SegmentEntry entry = rowEntries.get(cacheTableRow);
+			if (entry != null)
+			{
+				entry.order = ++order;
+				newOrderRows.put(entry.order, cacheTableRow);
+			}
+		}
+		orderSequence.set(order);
+		orderRows = newOrderRows;
+		epoch.incrementAndGet();
+	}
+
+	/**
+	 * 进行字段名收集
+	 * @param cacheTableRow 行数据
+	 */
+	private void collectFieldNames(ICacheTableRow cacheTableRow)
+	{
+		cacheTableRow.setSchema(schema);
+		Enumeration<String> cacheTableRowFieldsKeys = cacheTableRow.getFields().keys();
+		while (cacheTableRowFieldsKeys.hasMoreElements())
+		{
+			String fieldName = cacheTableRowFieldsKeys.nextElement();
+			if (!this.fieldNames.contains(fieldName))
+			{
+				synchronized (this.fieldNames)
+				{
+					if (!this.fieldNames.contains(fieldName))
+					{// 如果不包含，说明是一个新的字段，则进行加入该表字段集
+						this.fieldNames.add(fieldName);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * 锁定所有分段
+	 */
+	private void lockAll()
+	{
+		for (Segment segment : segments)
+		{
+			segment.lock.lock();
+		}
+	}
+
+	/**
+	 * 解锁所有分段
+	 */
+	private void unlockAll()
+	{
+		for (int i = segments.length - 1; i >= 0; i--)
+		{
+			segments[i].lock.unlock();
+		}
+	}
+
+	private String getKeyFieldNameKey(String[] keyFieldNames)
+	{
+		if (keyFieldNames == null || keyFieldNames.length <= 0)
+			return null;
+		StringBuilder key = new StringBuilder();
+		for (String keyFieldName : keyFieldNames)
+		{
+			key.append('_').append(keyFieldName);
+		}
+		return key.toString();
+	}
+
+	/**
+	 * 取得行的集合键值列表
+	 * @param cacheTableRow 行数据
+	 * @param keyFieldNames 集合键字段名列表
+	 * @return 集合键值列表
+	 */
+	private String[] getKeyFieldValues(ICacheTableRow cacheTableRow, String[] keyFieldNames)
+	{
+		String[] keyFieldValues = new String[keyFieldNames.length];
+		for (int i = 0; i < keyFieldNames.length; i++)
+		{
+			Object keyFieldValue = cacheTableRow.getFieldData(keyFieldNames[i]);
+			keyFieldValues[i] = String.valueOf(keyFieldValue);
+		}
+		return keyFieldValues;
+	}
+
+	/**
+	 * 取得前length个集合键值的组合key
+	 * @param keyFieldValues 集合键值列表
+	 * @param length 集合键值个数
+	 * @return 组合key
+	 */
+	private String getKeyFieldValueKey(String[] keyFieldValues, int length)
+	{
+		if (length == 1)
+			return keyFieldValues[0];
+		StringBuilder key = new StringBuilder();
+		for (int i = 0; i < length; i++)
+		{
+			if (i > 0)
+			{
+				key.append(KEY_FIELD_VALUE_SEPARATOR);
+			}
+			key.append(keyFieldValues[i]);
+		}
+		return key.toString();
+	}
+
+	/**
+	 * 行数据分段
+	 */
+	private final static class Segment
+	{
+		/**
+		 * 分段锁
+		 */
+		final ReentrantLock lock = new ReentrantLock();
+
+		/**
+		 * 分段项集，key为主键key
+		 */
+		final HashMap<Object, SegmentEntry> entries = new HashMap<Object, SegmentEntry>();
+
+		/**
+		 * LRU链表头部哨兵，head.next为头部热端，head.previous为尾部冷端
+		 */
+		final SegmentEntry head = new SegmentEntry(null, null, null);
+
+		/**
+		 * 尾部冷端的访问时间，分段为空时为Long.MAX_VALUE，用于不加锁比较各分段
+		 */
+		volatile long tailStamp = Long.MAX_VALUE;
+
+		Segment()
+		{
+			head.previous = head;
+			head.next = head;
+		}
+
+		/**
+		 * 更新尾部冷端的访问时间，调用时需持有分段锁
+		 */
+		void updateTailStamp()
+		{
+			tailStamp = head.previous != head ? head.previous.accessStamp : Long.MAX_VALUE;
+		}
+	}
+
+	/**
+	 * 分段项
+	 */
+	private final static class SegmentEntry
+	{
+		final Segment segment;
+		final Object key;
+		final ICacheTableRow row;
+		/**
+		 * 行序号
+		 */
+		long order;
+		/**
+		 * 是否已移出分段
+		 */
+		volatile boolean removed;
+		/**
+		 * 访问时间(System.nanoTime)，加入分段或被访问时更新
+		 */
+		volatile long accessStamp;
+		SegmentEntry previous;
+		SegmentEntry next;
+		/**
+		 * 加入时的集合键值列表，用于移除时定位索引
+		 */
+		final HashMap<String[], String[]> keyFieldValues = new HashMap<String[], String[]>();
+		/**
+		 * 加入时是否指定了有效时间
+		 */
+		final boolean expires;
+
+		SegmentEntry(Segment segment, Object key, ICacheTableRow row)
+		{
+			this.segment = segment;
+			this.key = key;
+			this.row = row;
+			this.expires = row != null && row.getExpiresTime() != Long.MAX_VALUE;
+		}
+	}
+
+	/**
+	 * 相同集合键值的行集
+	 */
+	private final static class KeyFieldRows
+	{
+		private final LinkedHashSet<ICacheTableRow> rows = new LinkedHashSet<ICacheTableRow>();
+
+		/**
+		 * 已从索引中移除(为空后不再使用)
+		 */
+		private boolean removed;
+
+		/**
+		 * 加入行
+		 * @return 加入成功返回true，行集已被移除时返回false
+		 */
+		synchronized boolean add(ICacheTableRow cacheTableRow)
+		{
+			if (removed)
+				return false;
+			rows.add(cacheTableRow);
+			return true;
+		}
+
+		/**
+		 * 移除行
+		 * @return 移除后行集为空时返回true
+		 */
+		synchronized boolean remove(ICacheTableRow cacheTableRow)
+		{
+			rows.remove(cacheTableRow);
+			if (rows.isEmpty())
+			{
+				removed = true;
+				return true;
+			}
+			return false;
+		}
+
+		synchronized Vector<ICacheTableRow> toVector()
+		{
+			return new Vector<ICacheTableRow>(rows);
+		}
+	}
+}
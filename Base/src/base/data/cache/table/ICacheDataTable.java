@@ -1,6 +1,8 @@
 package base.data.cache.table;
 
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Vector;
 
 import base.types.JavaType;
@@ -32,6 +34,16 @@ public interface ICacheDataTable
 	 */
 	public void fill(String subsequentSql);
 
+	/**
+	 * 从数据表中以只能向前读取的结果集逐行取得数据填充缓存表，每满一段行才持有写锁加入表
+	 * 整数主键、未指定容量且后续Sql语句仅包含WHERE条件时，按主键区间分段在多个连接上并行填充，并行填充时行的顺序不保证与数据库一致
+	 * @param subsequentSql 填充时的SQL后续Sql语句，如：WHERE 字段1>10 And 字段2<100
+	 * @param parallelism 并行读取的连接数，小于等于1时只以一个连接填充
+	 * @param cacheDataTableFillListener 填充进度监听，可为null
+	 * @return 填充的行数，填充出错时返回-1
+	 */
+	public long fill(String subsequentSql, int parallelism, ICacheDataTableFillListener cacheDataTableFillListener);
+
 	/**
 	 * 更新有更改过的数据至数据库表
 	 * @return 如果全部执成功，返回true,否则返回false
@@ -53,12 +65,65 @@ public interface ICacheDataTable
 	 */
 	public boolean updateToDataByChange(ICacheTableRow cacheTableRow, boolean saveChangeSaveFlag);
 
+	/**
+	 * 已更改数据的延迟写入，可取得写入的统计数据
+	 * @return 延迟写入
+	 */
+	public CacheDataTableWriteBehind getWriteBehind();
+
+	/**
+	 * 开启写前日志，已更改的字段在加入延迟写入时追加至日志文件，全部写入数据库成功后截断日志
+	 * 开启时先将日志中上次未写入的数据写入数据库表，应在填充缓存表(fill)前调用，否则缓存表中可能为旧数据
+	 * @param filePath 日志文件路径，每个数据库缓存表使用单独的文件
+	 * @param fileSize 文件初始大小(字节)，小于等于0时使用默认值16MB，记录超出时自动扩大
+	 * @param isForce 每次追加后是否同步至磁盘，为false时只保证进程异常退出时不丢失数据
+	 * @return 重放写入数据库的行数，打开日志或写入数据库失败时返回-1且不开启
+	 */
+	public int startJournal(String filePath, int fileSize, boolean isForce);
+
+	/**
+	 * 关闭写前日志，尚未写入数据库的更改仍保留在日志文件中
+	 */
+	public void stopJournal();
+
+	/**
+	 * 写前日志，可取得日志的统计数据
+	 * @return 写前日志
+	 */
+	public CacheDataTableJournal getJournal();
+
+	/**
+	 * 开启按需读取，按主键或集合键查找不到行时从数据库表读取并加入缓存表，同一个键的并发读取合并为一次查询
+	 * 集合键查找时只要缓存表中存在该键的行即不再读取，按需读取时应以主键或完整的集合键查找
+	 * @param validTime 读取的行的有效时间(毫秒)，值为-1时则表示不过期，过期移除前会先写入已更改的数据
+	 * @param absentTime 数据库表中不存在的键的记录时间(毫秒)，期间查找该键不再查询数据库，小于等于0时不记录
+	 */
+	public void startReadThrough(long validTime, long absentTime);
+
+	/**
+	 * 关闭按需读取
+	 */
+	public void stopReadThrough();
+
+	/**
+	 * 按需读取，可取得读取的统计数据
+	 * @return 按需读取
+	 */
+	public CacheDataTableReadThrough getReadThrough();
+
 	/**
 	 * 启动自动更新已更改数据至数据库表的操作
 	 * @param period 更新的间隔时间(毫秒)
 	 */
 	public void startAutoUpdate(int period);
 
+	/**
+	 * 启动自动更新已更改数据至数据库表的操作
+	 * @param period 更新的间隔时间(毫秒)
+	 * @param batchSize 已更改的行数达到此值时不等待间隔时间立即安排一次更新，小于等于0时只按间隔时间更新
+	 */
+	public void startAutoUpdate(int period, int batchSize);
+
 	/**
 	 * 停止自动更新已更改数据至数据库表的操作
 	 */
@@ -167,7 +232,7 @@ public interface ICacheDataTable
 
 	/**
 	 * 排序表行数据
-	 * @param comparator 排序比较函数
+	 * @param comparator 排序比较函数，行数量达到并行阈值(CacheTableParallel)时会在多个线程中同时调用，需线程安全
 	 */
 	public void sort(Comparator<? super ICacheTableRow> comparator);
 	
@@ -183,6 +248,31 @@ public interface ICacheDataTable
 	 */
 	public Vector<ICacheTableRow> getRows();
 
+	/**
+	 * 取得行快照，快照创建后不可修改，遍历时不需要加锁；表的行自上次快照后没有增加、移除、排序时直接返回上次的快照
+	 * @return 行快照
+	 */
+	public CacheTableSnapshot snapshot();
+
+	/**
+	 * 行版本号，行增加、移除、排序、清除时递增
+	 * @return 版本号
+	 */
+	public long getEpoch();
+
+	/**
+	 * 表结构，行加入表时绑定
+	 * @return 表结构
+	 */
+	public CacheTableSchema getSchema();
+
+	/**
+	 * 取得字段句柄，用于按槽位读取本表各行的字段，如：handle.getData(cacheTableRow)
+	 * @param fieldName 字段名
+	 * @return 字段句柄
+	 */
+	public CacheTableFieldHandle getFieldHandle(String fieldName);
+
 	/**
 	 * 取得符合键值列表的数据列表
 	 * @param keyFieldNames 集合键字段名列表
@@ -190,6 +280,113 @@ public interface ICacheDataTable
 	 * @return 取得的行数据列表
 	 */
 	public Vector<ICacheTableRow> getRows(String[] keyFieldNames, String[] keyFieldValues);
+
+	/**
+	 * 建立哈希索引，建立后可按索引字段的值直接查找行，索引随行的增加、移除及字段数据的改变自动维护
+	 * @param fieldNames 索引字段名列表，可以为多个字段组成的复合索引
+	 * @return 建立成功或已存在返回true，否则返回false
+	 */
+	public boolean createIndex(String[] fieldNames);
+
+	/**
+	 * 建立有序索引，除相等查找外还可按索引字段的值进行范围查找
+	 * @param fieldNames 索引字段名列表，可以为多个字段组成的复合索引
+	 * @return 建立成功或已存在返回true，否则返回false
+	 */
+	public boolean createSortedIndex(String[] fieldNames);
+
+	/**
+	 * 移除索引，集合键字段组的索引不能移除
+	 * @param fieldNames 索引字段名列表
+	 * @return 存在并移除返回true，否则返回false
+	 */
+	public boolean removeIndex(String[] fieldNames);
+
+	/**
+	 * 建立排序视图，视图随行的增加、移除及排序字段数据的改变逐行调整，取得前N行时不需要对整表排序，频繁取得排行时应使用排序视图代替sortOn
+	 * @param fieldNames 排序字段名列表，如：new String[]{"score", "level"}
+	 * @param sortTypes 各排序字段的排序类型方式，如：new SortType[]{SortType.DESC, SortType.ASC}，未指定的字段升序
+	 * @param limit 视图默认取得的行数量(前N行)，值小于等于0时取得所有行
+	 * @return 排序视图，已存在相同排序的视图时返回该视图，失败时返回null
+	 */
+	public ICacheTableSortedView createSortedView(String[] fieldNames, SortType[] sortTypes, int limit);
+
+	/**
+	 * 移除排序视图
+	 * @param fieldNames 排序字段名列表
+	 * @param sortTypes 各排序字段的排序类型方式
+	 * @return 存在并移除返回true，否则返回false
+	 */
+	public boolean removeSortedView(String[] fieldNames, SortType[] sortTypes);
+
+	/**
+	 * 按索引取得字段值相等的行列表
+	 * @param fieldNames 索引字段名列表，需已建立对应的哈希索引或有序索引
+	 * @param fieldValues 字段值列表，可以只指定前面部分字段的值，值为字符串时将转换为字段值的类型
+	 * @return 行列表副本，不含已过期的行，未建立索引或不存在时返回null
+	 */
+	public Vector<ICacheTableRow> getRowsByIndex(String[] fieldNames, Object[] fieldValues);
+
+	/**
+	 * 按有序索引取得字段值在指定范围内的行列表(包含边界值)，如：level BETWEEN 10 AND 20
+	 * @param fieldNames 索引字段名列表，需已建立对应的有序索引
+	 * @param fromValues 起始字段值列表，为null时则不限下界
+	 * @param toValues 结束字段值列表，为null时则不限上界
+	 * @return 按字段值从小到大排列的行列表副本，不含已过期的行，未建立有序索引时返回null
+	 */
+	public Vector<ICacheTableRow> getRowsByRange(String[] fieldNames, Object[] fromValues, Object[] toValues);
+
+	/**
+	 * 按有序索引取得字段值在指定范围内的行列表
+	 * @param fieldNames 索引字段名列表，需已建立对应的有序索引
+	 * @param fromValues 起始字段值列表，为null时则不限下界
+	 * @param fromInclusive 是否包含等于起始字段值的行
+	 * @param toValues 结束字段值列表，为null时则不限上界
+	 * @param toInclusive 是否包含等于结束字段值的行
+	 * @return 按字段值从小到大排列的行列表副本，不含已过期的行，未建立有序索引时返回null
+	 */
+	public Vector<ICacheTableRow> getRowsByRange(String[] fieldNames, Object[] fromValues, boolean fromInclusive, Object[] toValues, boolean toInclusive);
+
+	/**
+	 * 取得已建立的所有索引(包括集合键字段组的索引)，哈希索引在前
+	 * @return 索引列表副本
+	 */
+	public ArrayList<ICacheTableIndex> getIndexes();
+
+	/**
+	 * 建立查询，如：query().where("level", QueryOperator.GREATER_EQUAL, 10).and("guildId", QueryOperator.EQUAL, 1).orderBy("level", SortType.DESC).limit(10).toRows()
+	 * 查询执行时优先使用已建立的索引，没有可用的索引时遍历全表
+	 * @return 查询
+	 */
+	public ICacheTableQuery query();
+
+	/**
+	 * 遍历所有未过期的行
+	 * @param cacheTableRowHandler 行处理函数
+	 */
+	public void forEachRow(ICacheTableRowHandler cacheTableRowHandler);
+
+	/**
+	 * 遍历所有未过期的行，遍历开始时的行快照，遍历过程中增加或移除的行不影响遍历
+	 * @param cacheTableRowHandler 行处理函数
+	 * @param isParallel 是否允许并行遍历，行数量达到并行阈值(CacheTableParallel)时行处理函数会在多个线程中同时调用，需线程安全
+	 */
+	public void forEachRow(ICacheTableRowHandler cacheTableRowHandler, boolean isParallel);
+
+	/**
+	 * 统计所有未过期行的字段数据，行数量达到并行阈值(CacheTableParallel)时并行统计
+	 * @param fieldName 统计字段名
+	 * @return 统计结果，包括数量、合计、平均值、最小值及最大值
+	 */
+	public CacheTableAggregate aggregate(String fieldName);
+
+	/**
+	 * 按分组字段分组统计所有未过期行的字段数据，如：按公会统计成员等级，行数量达到并行阈值(CacheTableParallel)时并行统计
+	 * @param fieldName 统计字段名
+	 * @param groupByFieldName 分组字段名
+	 * @return 分组字段数据(整数类型统一为Long，浮点类型统一为Double)与统计结果的映射
+	 */
+	public HashMap<Object, CacheTableAggregate> aggregate(String fieldName, String groupByFieldName);
 	
 	/**
 	 * 取得行
@@ -198,5 +395,60 @@ public interface ICacheDataTable
 	 */
 	public ICacheTableRow getRow(int rowIndex);
 
+	/**
+	 * 按主键值取得行，直接由主键表查找，不遍历集合键结构
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 取得的行数据，不存在或已过期时返回null
+	 */
+	public ICacheTableRow getRowByPrimaryKey(Object primaryKeyFieldValue);
+
+	/**
+	 * 按整数主键值取得行
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 取得的行数据，不存在或已过期时返回null
+	 */
+	public ICacheTableRow getRowByPrimaryKey(long primaryKeyFieldValue);
+
+	/**
+	 * 按整数主键值取得行
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 取得的行数据，不存在或已过期时返回null
+	 */
+	public ICacheTableRow getRowByPrimaryKey(int primaryKeyFieldValue);
+
+	/**
+	 * 检测是否包含指定主键值的行
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 如果存在且未过期返回true, 否则返回false
+	 */
+	public boolean containsPrimaryKey(Object primaryKeyFieldValue);
+
+	/**
+	 * 检测是否包含指定整数主键值的行
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 如果存在且未过期返回true, 否则返回false
+	 */
+	public boolean containsPrimaryKey(long primaryKeyFieldValue);
+
+	/**
+	 * 按主键值移除行数据
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 移除成功或者指定主键值的行不存在返回true,否则返回false
+	 */
+	public boolean removeByPrimaryKey(Object primaryKeyFieldValue);
+
+	/**
+	 * 按整数主键值移除行数据
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 移除成功或者指定主键值的行不存在返回true,否则返回false
+	 */
+	public boolean removeByPrimaryKey(long primaryKeyFieldValue);
+
+	/**
+	 * 已过期移除的行数
+	 * @return 行数
+	 */
+	public long getExpiresCount();
+
 	public void dispose();
 }
@@ -0,0 +1,27 @@
+package base.data.cache.table;
+
+/**
+ * 数据库缓存表填充进度监听
+ * 并行填充时在各填充线程中调用，实现需要线程安全
+ * @author Devin
+ *
+ */
+public interface ICacheDataTableFillListener
+{
+	/**
+	 * 填充进度
+	 * @param cacheDataTable 数据库缓存表
+	 * @param rowCount 已填充的行数
+	 * @param finishedRanges 已完成的主键区间数
+	 * @param rangeCount 主键区间总数，未按主键区间分段时为1
+	 */
+	public void progress(ICacheDataTable cacheDataTable, long rowCount, int finishedRanges, int rangeCount);
+
+	/**
+	 * 填充完成
+	 * @param cacheDataTable 数据库缓存表
+	 * @param rowCount 已填充的行数，填充出错时为-1
+	 * @param time 填充用时(毫秒)
+	 */
+	public void complete(ICacheDataTable cacheDataTable, long rowCount, long time);
+}
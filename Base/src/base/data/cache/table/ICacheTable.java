@@ -1,6 +1,9 @@
 package base.data.cache.table;
 
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Vector;
 
 import base.types.SortType;
@@ -96,11 +99,36 @@ public interface ICacheTable
 	public void exchangeRow(ICacheTableRow cacheTableRow1, ICacheTableRow cacheTableRow2, String[] excludeFields);
 	
 	/**
-	 * 取得所有行数据
+	 * 取得所有行数据，不含已过期但尚未被过期服务移除的行
 	 * @return 取得的行数据
 	 */
 	public Vector<ICacheTableRow> getRows();
 
+	/**
+	 * 取得行快照，快照创建后不可修改，遍历时不需要加锁；表的行自上次快照后没有增加、移除、排序时直接返回上次的快照
+	 * @return 行快照
+	 */
+	public CacheTableSnapshot snapshot();
+
+	/**
+	 * 行版本号，行增加、移除、排序、清除时递增
+	 * @return 版本号
+	 */
+	public long getEpoch();
+
+	/**
+	 * 表结构，行加入表时绑定
+	 * @return 表结构
+	 */
+	public CacheTableSchema getSchema();
+
+	/**
+	 * 取得字段句柄，用于按槽位读取本表各行的字段，如：handle.getData(cacheTableRow)
+	 * @param fieldName 字段名
+	 * @return 字段句柄
+	 */
+	public CacheTableFieldHandle getFieldHandle(String fieldName);
+
 	/**
 	 * 取得符合键值列表的数据列表
 	 * @param keyFieldNames 集合键字段名列表
@@ -109,6 +137,113 @@ public interface ICacheTable
 	 */
 	public Vector<ICacheTableRow> getRows(String[] keyFieldNames, String[] keyFieldValues);
 
+	/**
+	 * 建立哈希索引，建立后可按索引字段的值直接查找行，索引随行的增加、移除及字段数据的改变自动维护
+	 * @param fieldNames 索引字段名列表，可以为多个字段组成的复合索引
+	 * @return 建立成功或已存在返回true，否则返回false
+	 */
+	public boolean createIndex(String[] fieldNames);
+
+	/**
+	 * 建立有序索引，除相等查找外还可按索引字段的值进行范围查找
+	 * @param fieldNames 索引字段名列表，可以为多个字段组成的复合索引
+	 * @return 建立成功或已存在返回true，否则返回false
+	 */
+	public boolean createSortedIndex(String[] fieldNames);
+
+	/**
+	 * 移除索引，集合键字段组的索引不能移除
+	 * @param fieldNames 索引字段名列表
+	 * @return 存在并移除返回true，否则返回false
+	 */
+	public boolean removeIndex(String[] fieldNames);
+
+	/**
+	 * 建立排序视图，视图随行的增加、移除及排序字段数据的改变逐行调整，取得前N行时不需要对整表排序，频繁取得排行时应使用排序视图代替sortOn
+	 * @param fieldNames 排序字段名列表，如：new String[]{"score", "level"}
+	 * @param sortTypes 各排序字段的排序类型方式，如：new SortType[]{SortType.DESC, SortType.ASC}，未指定的字段升序
+	 * @param limit 视图默认取得的行数量(前N行)，值小于等于0时取得所有行
+	 * @return 排序视图，已存在相同排序的视图时返回该视图，失败时返回null
+	 */
+	public ICacheTableSortedView createSortedView(String[] fieldNames, SortType[] sortTypes, int limit);
+
+	/**
+	 * 移除排序视图
+	 * @param fieldNames 排序字段名列表
+	 * @param sortTypes 各排序字段的排序类型方式
+	 * @return 存在并移除返回true，否则返回false
+	 */
+	public boolean removeSortedView(String[] fieldNames, SortType[] sortTypes);
+
+	/**
+	 * 按索引取得字段值相等的行列表
+	 * @param fieldNames 索引字段名列表，需已建立对应的哈希索引或有序索引
+	 * @param fieldValues 字段值列表，可以只指定前面部分字段的值，值为字符串时将转换为字段值的类型
+	 * @return 行列表副本，不含已过期的行，未建立索引或不存在时返回null
+	 */
+	public Vector<ICacheTableRow> getRowsByIndex(String[] fieldNames, Object[] fieldValues);
+
+	/**
+	 * 按有序索引取得字段值在指定范围内的行列表(包含边界值)，如：level BETWEEN 10 AND 20
+	 * @param fieldNames 索引字段名列表，需已建立对应的有序索引
+	 * @param fromValues 起始字段值列表，为null时则不限下界
+	 * @param toValues 结束字段值列表，为null时则不限上界
+	 * @return 按字段值从小到大排列的行列表副本，不含已过期的行，未建立有序索引时返回null
+	 */
+	public Vector<ICacheTableRow> getRowsByRange(String[] fieldNames, Object[] fromValues, Object[] toValues);
+
+	/**
+	 * 按有序索引取得字段值在指定范围内的行列表
+	 * @param fieldNames 索引字段名列表，需已建立对应的有序索引
+	 * @param fromValues 起始字段值列表，为null时则不限下界
+	 * @param fromInclusive 是否包含等于起始字段值的行
+	 * @param toValues 结束字段值列表，为null时则不限上界
+	 * @param toInclusive 是否包含等于结束字段值的行
+	 * @return 按字段值从小到大排列的行列表副本，不含已过期的行，未建立有序索引时返回null
+	 */
+	public Vector<ICacheTableRow> getRowsByRange(String[] fieldNames, Object[] fromValues, boolean fromInclusive, Object[] toValues, boolean toInclusive);
+
+	/**
+	 * 取得已建立的所有索引(包括集合键字段组的索引)，哈希索引在前
+	 * @return 索引列表副本
+	 */
+	public ArrayList<ICacheTableIndex> getIndexes();
+
+	/**
+	 * 建立查询，如：query().where("level", QueryOperator.GREATER_EQUAL, 10).and("guildId", QueryOperator.EQUAL, 1).orderBy("level", SortType.DESC).limit(10).toRows()
+	 * 查询执行时优先使用已建立的索引，没有可用的索引时遍历全表
+	 * @return 查询
+	 */
+	public ICacheTableQuery query();
+
+	/**
+	 * 遍历所有未过期的行
+	 * @param cacheTableRowHandler 行处理函数
+	 */
+	public void forEachRow(ICacheTableRowHandler cacheTableRowHandler);
+
+	/**
+	 * 遍历所有未过期的行，遍历开始时的行快照，遍历过程中增加或移除的行不影响遍历
+	 * @param cacheTableRowHandler 行处理函数
+	 * @param isParallel 是否允许并行遍历，行数量达到并行阈值(CacheTableParallel)时行处理函数会在多个线程中同时调用，需线程安全
+	 */
+	public void forEachRow(ICacheTableRowHandler cacheTableRowHandler, boolean isParallel);
+
+	/**
+	 * 统计所有未过期行的字段数据，行数量达到并行阈值(CacheTableParallel)时并行统计
+	 * @param fieldName 统计字段名
+	 * @return 统计结果，包括数量、合计、平均值、最小值及最大值
+	 */
+	public CacheTableAggregate aggregate(String fieldName);
+
+	/**
+	 * 按分组字段分组统计所有未过期行的字段数据，如：按公会统计成员等级，行数量达到并行阈值(CacheTableParallel)时并行统计
+	 * @param fieldName 统计字段名
+	 * @param groupByFieldName 分组字段名
+	 * @return 分组字段数据(整数类型统一为Long，浮点类型统一为Double)与统计结果的映射
+	 */
+	public HashMap<Object, CacheTableAggregate> aggregate(String fieldName, String groupByFieldName);
+
 	/**
 	 * 取得行
 	 * @param rowIndex 行索引
@@ -116,6 +251,68 @@ public interface ICacheTable
 	 */
 	public ICacheTableRow getRow(int rowIndex);
 
+	/**
+	 * 按主键值取得行，直接由主键表查找，不遍历集合键结构
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 取得的行数据，不存在或已过期时返回null
+	 */
+	public ICacheTableRow getRowByPrimaryKey(Object primaryKeyFieldValue);
+
+	/**
+	 * 按整数主键值取得行
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 取得的行数据，不存在或已过期时返回null
+	 */
+	public ICacheTableRow getRowByPrimaryKey(long primaryKeyFieldValue);
+
+	/**
+	 * 按整数主键值取得行
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 取得的行数据，不存在或已过期时返回null
+	 */
+	public ICacheTableRow getRowByPrimaryKey(int primaryKeyFieldValue);
+
+	/**
+	 * 检测是否包含指定主键值的行
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 如果存在且未过期返回true, 否则返回false
+	 */
+	public boolean containsPrimaryKey(Object primaryKeyFieldValue);
+
+	/**
+	 * 检测是否包含指定整数主键值的行
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 如果存在且未过期返回true, 否则返回false
+	 */
+	public boolean containsPrimaryKey(long primaryKeyFieldValue);
+
+	/**
+	 * 按主键值移除行数据
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 移除成功或者指定主键值的行不存在返回true,否则返回false
+	 */
+	public boolean removeByPrimaryKey(Object primaryKeyFieldValue);
+
+	/**
+	 * 按整数主键值移除行数据
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 移除成功或者指定主键值的行不存在返回true,否则返回false
+	 */
+	public boolean removeByPrimaryKey(long primaryKeyFieldValue);
+
+	/**
+	 * 批量移除已过期的行，由过期服务调用，行已不在表中或有效时间已被延长时忽略
+	 * @param cacheTableRows 到期的行列表
+	 * @return 实际移除的行数
+	 */
+	public int removeExpiresRows(List<ICacheTableRow> cacheTableRows);
+
+	/**
+	 * 已过期移除的行数
+	 * @return 行数
+	 */
+	public long getExpiresCount();
+
 	/**
 	 * 移除表行
 	 * @param rowIndex 行索引
@@ -175,12 +372,12 @@ public interface ICacheTable
 
 	/**
 	 * 排序表行数据
-	 * @param comparator 排序比较函数
+	 * @param comparator 排序比较函数，行数量达到并行阈值(CacheTableParallel)时会在多个线程中同时调用，需线程安全
 	 */
 	public void sort(Comparator<? super ICacheTableRow> comparator);
 
 	/**
-	 * 表行大小
+	 * 表行大小，不含已过期但尚未被过期服务移除的行
 	 * @return 表行大小
 	 */
 	public int getRowSize();
@@ -195,6 +392,25 @@ public interface ICacheTable
 	 */
 	public ICacheTable newCacheTable(String name, String primaryKeyFieldName, String[][] keyFieldNameGroups, String[] fieldNames);
 
+	/**
+	 * 创建当前CacheTable的指定字段的新CacheTable，maxStaleness大于0时新CacheTable异步更新：当前CacheTable增加、移除行时只写入变更日志，由计时器批量应用，新CacheTable最多落后maxStaleness毫秒
+	 * @param name CacheTable表名
+	 * @param primaryKeyFieldName 表主键字段名
+	 * @param keyFieldNameGroups 集合键字段名列表组，此值将做为行数据key，如果指定多个字段，中间以“_”连接，最终数据为：[0]字段值_[1]字段值_…，值不允许为空
+	 * @param fieldNames 指定字段名列表，字段需存在于当前的CacheTable中，如：new String[]{"ID", "Name", ...}
+	 * @param maxStaleness 最大延迟时间(毫秒)，小于等于0时同步更新
+	 * @return 创建成功返回新创建的CacheTable，否则返回null
+	 */
+	public ICacheTable newCacheTable(String name, String primaryKeyFieldName, String[][] keyFieldNameGroups, String[] fieldNames, long maxStaleness);
+
+	/**
+	 * 等待异步更新的指定字段的新CacheTable应用完当前所有变更
+	 * @param name 新CacheTable表名
+	 * @param timeout 最长等待时间(毫秒)
+	 * @return 在等待时间内应用完成返回true，新CacheTable不存在或超时返回false
+	 */
+	public boolean awaitNewCacheTable(String name, long timeout);
+
 	/**
 	 * 清除数据(不对行数据做释放处理)
 	 */
@@ -0,0 +1,103 @@
+package base.data.cache.table;
+
+import java.util.Vector;
+
+public interface ICacheTableIndex
+{
+	/**
+	 * 缓存表索引
+	 * @param fieldNames 索引字段名列表，值不能为空
+	 */
+	public void init(String[] fieldNames);
+
+	/**
+	 * 索引名，由字段名以“_”连接组成：_[0]字段名_[1]字段名_...
+	 * @return name
+	 */
+	public String getName();
+
+	/**
+	 * 索引字段名列表
+	 * @return fieldNames
+	 */
+	public String[] getFieldNames();
+
+	/**
+	 * 是否为有序索引
+	 * @return 有序索引返回true，哈希索引返回false
+	 */
+	public boolean isSorted();
+
+	/**
+	 * 索引是否包含指定的字段
+	 * @param fieldName 字段名
+	 * @return 包含返回true，否则返回false
+	 */
+	public boolean containsField(String fieldName);
+
+	/**
+	 * 行是否已加入索引
+	 * @param cacheTableRow 行数据
+	 * @return 已加入返回true，否则返回false
+	 */
+	public boolean containsRow(ICacheTableRow cacheTableRow);
+
+	/**
+	 * 将行加入索引
+	 * @param cacheTableRow 行数据
+	 * @return 加入成功返回true，行未包含所有索引字段时返回false
+	 */
+	public boolean add(ICacheTableRow cacheTableRow);
+
+	/**
+	 * 将行插入索引，相同键值的行按插入位置排列
+	 * @param cacheTableRow 行数据
+	 * @param index 插入位置，超出相同键值行的数量时加入到最后
+	 * @return 插入成功返回true，行未包含所有索引字段时返回false
+	 */
+	public boolean insert(ICacheTableRow cacheTableRow, int index);
+
+	/**
+	 * 从索引中移除行
+	 * @param cacheTableRow 行数据
+	 * @return 行存在于索引中并移除返回true，否则返回false
+	 */
+	public boolean remove(ICacheTableRow cacheTableRow);
+
+	/**
+	 * 行的索引字段数据改变后，按新的字段数据重新建立行的索引
+	 * @param cacheTableRow 行数据
+	 * @return 行存在于索引中返回true，否则返回false
+	 */
+	public boolean update(ICacheTableRow cacheTableRow);
+
+	/**
+	 * 取得与键值列表相等的行列表
+	 * @param values 键值列表，可以只指定前面部分字段的值
+	 * @return 行列表副本，不存在时返回null
+	 */
+	public Vector<ICacheTableRow> getRows(Object[] values);
+
+	/**
+	 * 取得键值在指定范围内的行列表，按键值从小到大排列，只有有序索引支持
+	 * @param fromValues 起始键值列表，可以只指定前面部分字段的值，为null时则不限下界
+	 * @param fromInclusive 是否包含等于起始键值的行
+	 * @param toValues 结束键值列表，可以只指定前面部分字段的值，为null时则不限上界
+	 * @param toInclusive 是否包含等于结束键值的行
+	 * @return 行列表副本，不支持范围查找或键值无法转换为字段值的类型时返回null
+	 */
+	public Vector<ICacheTableRow> getRows(Object[] fromValues, boolean fromInclusive, Object[] toValues, boolean toInclusive);
+
+	/**
+	 * 已加入索引的行数量
+	 * @return 行数量
+	 */
+	public int size();
+
+	/**
+	 * 清除索引数据
+	 */
+	public void clear();
+
+	public void dispose();
+}
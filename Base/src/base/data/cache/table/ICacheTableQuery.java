@@ -0,0 +1,74 @@
+package base.data.cache.table;
+
+import java.util.Iterator;
+import java.util.Vector;
+
+import base.types.QueryOperator;
+import base.types.SortType;
+
+public interface ICacheTableQuery
+{
+	/**
+	 * 增加查询条件
+	 * @param fieldName 字段名
+	 * @param operator 运算符
+	 * @param value 条件值，BETWEEN时为两个元素的数组：[起始值, 结束值]，IN时为数组或集合
+	 * @return 当前查询
+	 */
+	public ICacheTableQuery where(String fieldName, QueryOperator operator, Object value);
+
+	/**
+	 * 增加查询条件，与where相同，所有条件均需满足
+	 * @param fieldName 字段名
+	 * @param operator 运算符
+	 * @param value 条件值，BETWEEN时为两个元素的数组：[起始值, 结束值]，IN时为数组或集合
+	 * @return 当前查询
+	 */
+	public ICacheTableQuery and(String fieldName, QueryOperator operator, Object value);
+
+	/**
+	 * 增加排序字段，多次调用时按调用顺序依次排序
+	 * @param fieldName 字段名
+	 * @param sortType 排序类型方式，为null时升序
+	 * @return 当前查询
+	 */
+	public ICacheTableQuery orderBy(String fieldName, SortType sortType);
+
+	/**
+	 * 限制返回的行数量
+	 * @param limit 最大行数量，值小于0时不限制
+	 * @return 当前查询
+	 */
+	public ICacheTableQuery limit(int limit);
+
+	/**
+	 * 执行查询
+	 * @return 满足所有条件的行列表快照，不含已过期的行，没有满足条件的行时返回空列表
+	 */
+	public Vector<ICacheTableRow> toRows();
+
+	/**
+	 * 执行查询，以游标方式逐行返回结果
+	 * 未指定排序时在遍历过程中逐行检查条件，不复制结果行，适合只处理前面部分结果或结果较多的查询。
+	 * @return 结果行游标，不支持移除操作
+	 */
+	public Iterator<ICacheTableRow> cursor();
+
+	/**
+	 * 执行查询，取得第一个满足条件的行
+	 * @return 行数据，没有满足条件的行时返回null
+	 */
+	public ICacheTableRow first();
+
+	/**
+	 * 执行查询，取得满足条件的行数量
+	 * @return 行数量
+	 */
+	public int count();
+
+	/**
+	 * 取得查询计划说明，用于检查查询是否使用了索引
+	 * @return 查询计划说明
+	 */
+	public String explain();
+}
@@ -57,6 +57,58 @@ public interface ICacheTableRow
 	 */
 	public void setIsNewRow(boolean value);
 	
+	/**
+	 * 是否已加入数据库缓存表的待写入列表
+	 * @return
+	 */
+	public boolean getIsDirty();
+	
+	/**
+	 * 原子地比较并设置是否已加入待写入列表，只有设置成功的线程将行加入待写入列表
+	 * @param expect 期望的当前值
+	 * @param update 要设置的值
+	 * @return 当前值与期望值相等并设置成功时返回true
+	 */
+	public boolean compareAndSetIsDirty(boolean expect, boolean update);
+	
+	/**
+	 * 最近一次被访问的时间(纳秒)，用于限定容量的缓存表按访问先后提升行
+	 * @return 访问时间
+	 */
+	public long getAccessTime();
+	
+	/**
+	 * 最近一次被访问的时间(纳秒)
+	 * @param accessTime 访问时间
+	 */
+	public void setAccessTime(long accessTime);
+	
+	/**
+	 * 原子地比较并设置是否已加入缓存表的待提升列表，只有设置成功的线程将行加入待提升列表
+	 * @param expect 期望的当前值
+	 * @param update 要设置的值
+	 * @return 当前值与期望值相等并设置成功时返回true
+	 */
+	public boolean compareAndSetIsAccessQueued(boolean expect, boolean update);
+	
+	/**
+	 * 标记槽位对应的字段已更改
+	 * @param slot 字段槽位
+	 */
+	public void setFieldDirty(int slot);
+	
+	/**
+	 * 原子地取出并清除已更改字段的位图
+	 * @return 位图，第slot位为1表示槽位slot对应的字段已更改，不支持位图时返回null，此时需逐个字段检查更改状态
+	 */
+	public long[] takeDirtyFields();
+	
+	/**
+	 * 将取出的位图重新标记为已更改，用于未写入或写入失败的字段
+	 * @param dirtyFields 位图
+	 */
+	public void restoreDirtyFields(long[] dirtyFields);
+	
 	/**
 	 * 行数据发生改变
 	 * @return
@@ -134,6 +186,32 @@ public interface ICacheTableRow
 	 */
 	public <T> T getFieldData(String fieldName);
 
+	/**
+	 * 按表结构槽位取得字段单元，槽位需来自行绑定的表结构
+	 * @param slot 字段槽位
+	 * @return 字段单元，如果字段单元为null，则返回null
+	 */
+	public ICacheTableField getField(int slot);
+
+	/**
+	 * 按表结构槽位取得字段单元数据，槽位需来自行绑定的表结构
+	 * @param slot 字段槽位
+	 * @return 字段单元数据，如果对应的字段单元为null，则返回null
+	 */
+	public <T> T getFieldData(int slot);
+
+	/**
+	 * 行绑定的表结构
+	 * @return 表结构，未加入表时返回null
+	 */
+	public CacheTableSchema getSchema();
+
+	/**
+	 * 绑定表结构，行的字段名将加入表结构，之后可按槽位读取字段，由表在加入行时调用
+	 * @param schema 表结构
+	 */
+	public void setSchema(CacheTableSchema schema);
+
 	/**
 	 * 取得行字段数据是否被更改状态
 	 * @param isChange 更改状态：true为有更改,false为没有更改
@@ -152,6 +230,12 @@ public interface ICacheTableRow
 	 * 立即通知表进行数据物理存储
 	 */
 	public void toSave();
+
+	/**
+	 * 字段数据发生改变，通知行所在的表维护索引
+	 * @param fieldName 数据改变的字段名
+	 */
+	public void fieldDataChange(String fieldName);
 	
 	/*
 	 * 克隆，深度复制一份全新的数据,数据内容仅为行字段数据集，其它行属性则为默认值
@@ -0,0 +1,10 @@
+package base.data.cache.table;
+
+public interface ICacheTableRowHandler
+{
+	/**
+	 * 处理行数据，并行遍历时会在多个线程中同时调用
+	 * @param cacheTableRow 行数据
+	 */
+	public void handle(ICacheTableRow cacheTableRow);
+}
@@ -0,0 +1,108 @@
+package base.data.cache.table;
+
+import java.util.Vector;
+
+import base.types.SortType;
+
+public interface ICacheTableSortedView
+{
+	/**
+	 * 缓存表排序视图
+	 * @param fieldNames 排序字段名列表，值不能为空
+	 * @param sortTypes 各排序字段的排序类型方式，数量少于字段数量或值为null时升序
+	 * @param limit 默认取得的行数量(前N行)，值小于等于0时取得所有行
+	 */
+	public void init(String[] fieldNames, SortType[] sortTypes, int limit);
+
+	/**
+	 * 视图名，由字段名及排序类型方式以“_”连接组成：_[0]字段名_[0]排序类型方式_...
+	 * @return name
+	 */
+	public String getName();
+
+	/**
+	 * 排序字段名列表
+	 * @return fieldNames
+	 */
+	public String[] getFieldNames();
+
+	/**
+	 * 各排序字段的排序类型方式
+	 * @return sortTypes
+	 */
+	public SortType[] getSortTypes();
+
+	/**
+	 * 默认取得的行数量
+	 * @return limit
+	 */
+	public int getLimit();
+
+	/**
+	 * 视图是否包含指定的排序字段
+	 * @param fieldName 字段名
+	 * @return 包含返回true，否则返回false
+	 */
+	public boolean containsField(String fieldName);
+
+	/**
+	 * 将行加入视图
+	 * @param cacheTableRow 行数据
+	 * @return 加入成功返回true，行未包含所有排序字段时返回false
+	 */
+	public boolean add(ICacheTableRow cacheTableRow);
+
+	/**
+	 * 从视图中移除行
+	 * @param cacheTableRow 行数据
+	 * @return 行存在于视图中并移除返回true，否则返回false
+	 */
+	public boolean remove(ICacheTableRow cacheTableRow);
+
+	/**
+	 * 行的排序字段数据改变后，调整行在视图中的位置
+	 * @param cacheTableRow 行数据
+	 * @return 行存在于视图中返回true，否则返回false
+	 */
+	public boolean update(ICacheTableRow cacheTableRow);
+
+	/**
+	 * 取得排在最前面的limit行
+	 * @return 按排序顺序排列的行列表副本，不含已过期的行
+	 */
+	public Vector<ICacheTableRow> getRows();
+
+	/**
+	 * 取得从指定名次开始的行
+	 * @param offset 起始名次，从0开始
+	 * @param count 行数量，值小于等于0时取得之后的所有行
+	 * @return 按排序顺序排列的行列表副本，不含已过期的行
+	 */
+	public Vector<ICacheTableRow> getRows(int offset, int count);
+
+	/**
+	 * 取得排在最前面的行
+	 * @return 行数据，视图为空时返回null
+	 */
+	public ICacheTableRow first();
+
+	/**
+	 * 取得行的名次
+	 * @param cacheTableRow 行数据
+	 * @return 名次，从0开始，行不在视图中时返回-1
+	 */
+	public int getRank(ICacheTableRow cacheTableRow);
+
+	/**
+	 * 视图中的行数量
+	 * @return 行数量
+	 */
+	public int size();
+
+	/**
+	 * 清除视图数据
+	 */
+	public void clear();
+
+	public void dispose();
+}
@@ -0,0 +1,1906 @@
+package base.data.cache.table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import base.data.DataFactory;
+import base.data.cache.CacheEvent;
+import base.event.Event;
+import base.event.IEventListener;
+import base.types.SortType;
+import base.utils.DataUtil;
+import base.utils.DateUtil;
+
+/**
+ * LRU缓存表
+ * 用于限定容量的缓存表，行之间使用行自身的previous/next组成侵入式双向链表维护访问顺序，主键及集合键均使用哈希索引，
+ * 访问提升只在链表上移动行，为常数时间，不再需要在Vector中移动元素。
+ * 读取行只持有读锁并记录被访问的行(每行只记录一次)，在增加行(淘汰前)持有写锁时再按访问先后统一移动到头部热端。
+ * 行的排列顺序由CacheTableRowOrder维护，增加、按位置插入、移除(含尾部冷端淘汰)、按位置取得行及取得行位置均为O(log n)，排序时重建顺序。
+ * @author Devin
+ *
+ */
+public class LruCacheTable implements IEventListener, Cloneable, ICacheTable
+{
+	/**
+	 * 集合键值之间的分隔符
+	 */
+	private final static char KEY_FIELD_VALUE_SEPARATOR = '\u0001';
+
+	/**
+	 * 读写锁，读取行时使用读锁，LRU链表只在持有写锁时调整
+	 */
+	protected final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * 等待提升的被访问行数上限，超过时丢弃最早记录的行，以免只读不写时无限增长
+	 */
+	private final static int MAX_ACCESS_ROW_COUNT = 4096;
+
+	/**
+	 * 表名
+	 */
+	protected String name;
+
+	/**
+	 * 主键字段名
+	 */
+	protected String primaryKeyFieldName;
+
+	/**
+	 * 集合键字段名列表组
+	 */
+	protected String[][] keyFieldNameGroups;
+
+	/**
+	 * 数据行记录容量的大小,-1则为不限
+	 */
+	protected int capacity;
+
+	/**
+	 * 字段名称列表，该列表是表中所出现的所有的字段名
+	 */
+	protected Vector<String> fieldNames = new Vector<String>();
+
+	/**
+	 * LRU链表哨兵，getNext()为头部热端，getPrevious()为尾部冷端
+	 */
+	protected ICacheTableRow headCacheTableRow;
+
+	/**
+	 * 行排列顺序
+	 */
+	private final CacheTableRowOrder orderRows = new CacheTableRowOrder();
+
+	/**
+	 * 主键行项集，key为主键key，未设置主键字段名时以行对象本身做为key
+	 */
+	private HashMap<Object, LruEntry> primaryEntries = new HashMap<Object, LruEntry>();
+
+	/**
+	 * 行所对应的行项
+	 */
+	private HashMap<ICacheTableRow, LruEntry> rowEntries = new HashMap<ICacheTableRow, LruEntry>();
+
+	/**
+	 * 按照集合键字段归类的行集，key为集合键字段名组合key
+	 */
+	private HashMap<String, HashMap<String, LinkedHashSet<ICacheTableRow>>> keyFieldRows = new HashMap<String, HashMap<String, LinkedHashSet<ICacheTableRow>>>();
+
+	/**
+	 * 建立的哈希索引及有序索引
+	 */
+	private final CacheTableIndexes cacheTableIndexes = new CacheTableIndexes();
+
+	/**
+	 * 当前CacheTable的指定字段的新CacheTable集
+	 */
+	private final CacheTableDerivedTables newCacheTables = new CacheTableDerivedTables(this);
+
+	/**
+	 * 加入时指定了有效时间的行数，为0时取得所有行及行数不需要检查过期时间，在持有写锁时维护
+	 */
+	private int expiresRowCount;
+
+	/**
+	 * 已过期移除的行数
+	 */
+	private final AtomicLong expiresCount = new AtomicLong();
+
+	/**
+	 * 行版本号，行增加、移除、排序、清除时递增
+	 */
+	private final AtomicLong epoch = new AtomicLong();
+
+	/**
+	 * 最近创建的行快照
+	 */
+	private volatile CacheTableSnapshot snapshot;
+
+	/**
+	 * 表结构，字段名对应的槽位
+	 */
+	private final CacheTableSchema schema = new CacheTableSchema();
+
+	/**
+	 * 被访问的行，读取时只做记录，在持有写锁时再统一移动到头部热端
+	 */
+	private final ConcurrentLinkedQueue<ICacheTableRow> accessCacheTableRows = new ConcurrentLinkedQueue<ICacheTableRow>();
+
+	/**
+	 * 等待提升的被访问行数
+	 */
+	private final AtomicInteger accessCacheTableRowCount = new AtomicInteger();
+
+	/**
+	 * LRU缓存表
+	 */
+	public LruCacheTable()
+	{
+	}
+
+	/**
+	 * 缓存表
+	 * @param name 表名
+	 * @param primaryKeyFieldName 表主键字段名
+	 * @param keyFieldNameGroups 集合键字段名集列表组，每一组值将做为行数据key，如果指定多个字段，中间以“_”连接，最终数据为：[0]字段值_[1]字段值_...
+	 */
+	public void init(String name, String primaryKeyFieldName, String[][] keyFieldNameGroups)
+	{
+		init(name, primaryKeyFieldName, keyFieldNameGroups, -1);
+	}
+
+	/**
+	 * 缓存表
+	 * @param name 表名
+	 * @param primaryKeyFieldName 表主键字段名
+	 * @param keyFieldNameGroups 集合键字段名集列表组，每一组值将做为行数据key，如果指定多个字段，中间以“_”连接，最终数据为：[0]字段值_[1]字段值_...
+	 * @param capacity 数据行记录容量的大小，使用LRU算法淘汰机制，值为-1时则表示不限容量
+	 */
+	public void init(String name, String primaryKeyFieldName, String[][] keyFieldNameGroups, int capacity)
+	{
+		this.name = name;
+		this.primaryKeyFieldName = primaryKeyFieldName;
+		this.keyFieldNameGroups = keyFieldNameGroups;
+		this.capacity = capacity;
+		this.headCacheTableRow = DataUtil.cacheTableRow();
+		this.headCacheTableRow.setPrevious(headCacheTableRow);
+		this.headCacheTableRow.setNext(headCacheTableRow);
+
+		if (keyFieldNameGroups != null && keyFieldNameGroups.length > 0)
+		{
+			for (String[] keyFieldNames : keyFieldNameGroups)
+			{
+				String strKey = getKeyFieldNameKey(keyFieldNames);
+				if (strKey != null)
+				{
+					keyFieldRows.put(strKey, new HashMap<String, LinkedHashSet<ICacheTableRow>>());
+				}
+			}
+		}
+	}
+
+	/**
+	 * 表名
+	 * @return name
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * 集合键字段名列表组
+	 * @return keyFieldNames
+	 */
+	public String[][] getKeyFieldNameGroups()
+	{
+		return keyFieldNameGroups;
+	}
+
+	/**
+	 * 字段名称列表，该列表是表中所出现的所有的字段名
+	 */
+	public Vector<String> fieldNames()
+	{
+		return fieldNames;
+	}
+
+	/**
+	 * 增加表行
+	 * @param cacheTableRow 行数据，值不允许为空
+	 * @return 增加成功返回true，否则返回false
+	 */
+	public boolean addRow(ICacheTableRow cacheTableRow)
+	{
+		return addRow(cacheTableRow, -1);
+	}
+
+	/**
+	 * 增加表行
+	 * @param cacheTableRow 行数据，值不允许为空
+	 * @param validTime 数据有效时间(毫秒),值<0时则表示不限
+	 * @return 增加成功返回true，否则返回false
+	 */
+	public boolean addRow(ICacheTableRow cacheTableRow, long validTime)
+	{
+		return insertRow(cacheTableRow, -1, validTime);
+	}
+
+	/**
+	 * 插入表行
+	 * @param cacheTableRow 行数据，值不允许为空
+	 * @param index 表行索引，值不能小于0
+	 * @return 增加成功返回true，否则返回false
+	 */
+	public boolean insertRow(ICacheTableRow cacheTableRow, int index)
+	{
+		return insertRow(cacheTableRow, index, -1);
+	}
+
+	/**
+	 * 插入表行
+	 * @param cacheTableRow 行数据，值不允许为空
+	 * @param index 表行索引，值<0时则增加至末尾
+	 * @param validTime 数据有效时间(毫秒),值<0时则表示不限
+	 * @return 增加成功返回true，否则返回false
+	 */
+	public boolean insertRow(ICacheTableRow cacheTableRow, int index, long validTime)
+	{
+		lock.writeLock().lock();
+		try
+		{
+			if (cacheTableRow == null)
+				return false;
+
+			Object primaryKey = getRowPrimaryKey(cacheTableRow);
+			if (primaryKey == null)
+				return false;
+			if (primaryEntries.containsKey(primaryKey))
+			{
+				Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, new Exception(this.name + " 缓存表在增加行数据时，遇到相同主键值的行：" + primaryKey));
+				return false;
+			}
+
+			String[][] keyFieldValues = getRowKeyFieldValues(cacheTableRow);
+			if (keyFieldValues == null)
+				return false;
+
+			if (validTime < 0)
+			{
+				validTime = Long.MAX_VALUE;// 如果未指定有效时间，则指定一个最大时间
+			}
+			else
+			{
+				validTime = DateUtil.getCurrentTimeMillis() + validTime;
+			}
+			cacheTableRow.setExpiresTime(validTime);
+
+			drainAccessRows();
+			if (capacity > -1 && primaryEntries.size() >= capacity)
+			{// 如果当前容量已经达到最大，则进行尾部冷端淘汰
+				ICacheTableRow endRow = headCacheTableRow.getPrevious();
+				if (endRow != headCacheTableRow)
+				{
+					removeRow(endRow);
+				}
+			}
+
+			LruEntry entry = new LruEntry(cacheTableRow, primaryKey, keyFieldValues);
+			if (entry.expires)
+			{
+				expiresRowCount++;
+			}
+			primaryEntries.put(primaryKey, entry);
+			rowEntries.put(cacheTableRow, entry);
+			addKeyFieldRows(cacheTableRow, keyFieldValues);
+			orderRows.insert(index, cacheTableRow);
+			epoch.incrementAndGet();
+			insertHead(cacheTableRow);
+			if (cacheTableRow.getExpiresTime() != Long.MAX_VALUE)
+			{
+				DataFactory.cacheController().cacheTableExpiryService().schedule(this, cacheTableRow);
+			}
+			cacheTableIndexes.add(cacheTableRow);
+			cacheTableRow.addEventListener(CacheEvent.ROW_FIELD_DATA_CHANGE, this);
+			cacheTableRow.addEventListener(CacheEvent.DATA_TO_SAVE, this);
+			cacheTableRow.addEventListener(CacheEvent.FIELD_DATA_CHANGE, this);
+
+			cacheTableRow.setSchema(schema);
+			// 进行字段名收集
+			Enumeration<String> cacheTableRowFieldsKeys = cacheTableRow.getFields().keys();
+			while (cacheTableRowFieldsKeys.hasMoreElements())
+			{
+				String fieldName = cacheTableRowFieldsKeys.nextElement();
+				if (!this.fieldNames.contains(fieldName))
+				{// 如果不包含，说明是一个新的字段，则进行加入该表字段集
+					this.fieldNames.add(fieldName);
+				}
+			}
+
+			newCacheTables.insert(cacheTableRow, index);// 如果存在当前CacheTable的指定字段的新CacheTable，则在增加新的行时，需要往新CacheTable中执行增加，用以同步数据
+			return true;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return false;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 取得所属对应键值列表行列表中的第一个行数据
+	 * @param keyFieldNames 集合键字段名列表
+	 * @param keyFieldValues 集合键值列表
+	 * @return 取得的行数据
+	 */
+	public ICacheTableRow getRow(String[] keyFieldNames, String[] keyFieldValues)
+	{
+		lock.readLock().lock();
+		try
+		{
+			ICacheTableRow cacheTableRow = findRow(keyFieldNames, keyFieldValues);
+			if (cacheTableRow != null)
+			{
+				recordAccess(cacheTableRow);
+			}
+			return cacheTableRow;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+		return null;
+	}
+
+	/**
+	 * 按主键值取得行
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 取得的行数据，不存在或已过期时返回null
+	 */
+	public ICacheTableRow getRowByPrimaryKey(Object primaryKeyFieldValue)
+	{
+		if (primaryKeyFieldName == null || primaryKeyFieldValue == null)
+			return null;
+		lock.readLock().lock();
+		try
+		{
+			ICacheTableRow cacheTableRow = findRowByPrimaryKey(primaryKeyFieldValue);
+			if (cacheTableRow != null)
+			{
+				if (DateUtil.getCurrentTimeMillis() > cacheTableRow.getExpiresTime())
+					return null;// 已过期的行由过期时间轮移除，读取时不移除
+				recordAccess(cacheTableRow);
+			}
+			return cacheTableRow;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return null;
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * 按整数主键值取得行
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 取得的行数据，不存在或已过期时返回null
+	 */
+	public ICacheTableRow getRowByPrimaryKey(long primaryKeyFieldValue)
+	{
+		return getRowByPrimaryKey(Long.valueOf(primaryKeyFieldValue));
+	}
+
+	/**
+	 * 按整数主键值取得行
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 取得的行数据，不存在或已过期时返回null
+	 */
+	public ICacheTableRow getRowByPrimaryKey(int primaryKeyFieldValue)
+	{
+		return getRowByPrimaryKey(Long.valueOf(primaryKeyFieldValue));
+	}
+
+	/**
+	 * 检测是否包含指定主键值的行
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 如果存在且未过期返回true, 否则返回false
+	 */
+	public boolean containsPrimaryKey(Object primaryKeyFieldValue)
+	{
+		if (primaryKeyFieldName == null || primaryKeyFieldValue == null)
+			return false;
+		lock.readLock().lock();
+		try
+		{
+			ICacheTableRow cacheTableRow = findRowByPrimaryKey(primaryKeyFieldValue);
+			return cacheTableRow != null && DateUtil.getCurrentTimeMillis() <= cacheTableRow.getExpiresTime();
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return false;
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * 检测是否包含指定整数主键值的行
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 如果存在且未过期返回true, 否则返回false
+	 */
+	public boolean containsPrimaryKey(long primaryKeyFieldValue)
+	{
+		return containsPrimaryKey(Long.valueOf(primaryKeyFieldValue));
+	}
+
+	/**
+	 * 按主键值移除行数据
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 移除成功或者指定主键值的行不存在返回true,否则返回false
+	 */
+	public boolean removeByPrimaryKey(Object primaryKeyFieldValue)
+	{
+		if (primaryKeyFieldName == null || primaryKeyFieldValue == null)
+			return true;
+		lock.writeLock().lock();
+		try
+		{
+			return removeRow(findRowByPrimaryKey(primaryKeyFieldValue));
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return false;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 按整数主键值移除行数据
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 移除成功或者指定主键值的行不存在返回true,否则返回false
+	 */
+	public boolean removeByPrimaryKey(long primaryKeyFieldValue)
+	{
+		return removeByPrimaryKey(Long.valueOf(primaryKeyFieldValue));
+	}
+
+	/**
+	 * 行字段数据交换
+	 * @param cacheTableRow1 行1
+	 * @param cacheTableRow2 行2
+	 */
+	public void exchangeRow(ICacheTableRow cacheTableRow1, ICacheTableRow cacheTableRow2)
+	{
+		exchangeRow(cacheTableRow1, cacheTableRow2, null);
+	}
+
+	/**
+	 * 行字段数据交换
+	 * @param cacheTableRow1 行1
+	 * @param cacheTableRow2 行2
+	 * @param excludeFields 要排除的字段
+	 */
+	public void exchangeRow(ICacheTableRow cacheTableRow1, ICacheTableRow cacheTableRow2, String[] excludeFields)
+	{
+		if (cacheTableRow1 == null || cacheTableRow2 == null)
+		{
+			Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, new Exception("缓存表在进行行字段数据交换时，遇到指定的行为空行。"));
+			return;
+		}
+
+		if (cacheTableRow1.getFields().size() != cacheTableRow2.getFields().size())
+		{
+			Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, new Exception("缓存表在进行行字段数据交换时，遇到行字段数量互相不匹配。"));
+			return;
+		}
+
+		for (ICacheTableField cacheTableField1 : cacheTableRow1.getFields().values())
+		{
+			if (excludeFields != null && excludeFields.length > 0)
+			{
+				boolean isExist = false;
+				for (String exFieldName : excludeFields)
+				{
+					if (exFieldName.equals(cacheTableField1.getFieldName()))
+					{// 如果存在于排除字段中
+						isExist = true;
+						break;
+					}
+				}
+				if (isExist)
+				{
+					continue;
+				}
+			}
+
+			if (cacheTableRow2.containsField(cacheTableField1.getFieldName()))
+			{
+				ICacheTableField cacheTableField2 = cacheTableRow2.getField(cacheTableField1.getFieldName());
+				Object data1 = cacheTableField1.getData();
+				Object data2 = cacheTableField2.getData();
+				cacheTableField1.setData(data2);
+				cacheTableField2.setData(data1);
+			}
+			else
+			{
+				Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, new Exception("缓存表在进行行字段数据交换时，遇到行字段互相不匹配。"));
+				break;
+			}
+		}
+	}
+
+	/**
+	 * 取得所有行数据
+	 * @return 取得的行数据，为当前行数据的快照，不含已过期但尚未被过期服务移除的行
+	 */
+	public Vector<ICacheTableRow> getRows()
+	{
+		lock.readLock().lock();
+		try
+		{
+			if (expiresRowCount <= 0)
+				return new Vector<ICacheTableRow>(orderRows);
+			long currentTime = DateUtil.getCurrentTimeMillis();
+			Vector<ICacheTableRow> cacheTableRows = new Vector<ICacheTableRow>(orderRows.size());
+			for (ICacheTableRow cacheTableRow : orderRows)
+			{
+				if (currentTime <= cacheTableRow.getExpiresTime())
+				{// 已过期的行由过期服务移除
+					cacheTableRows.add(cacheTableRow);
+				}
+			}
+			return cacheTableRows;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+		return null;
+	}
+
+	/**
+	 * 取得行快照，遍历时不需要加锁，表的行自上次快照后没有变化时直接返回上次的快照
+	 * @return 行快照
+	 */
+	public CacheTableSnapshot snapshot()
+	{
+		CacheTableSnapshot cacheTableSnapshot = snapshot;
+		if (cacheTableSnapshot != null && cacheTableSnapshot.getEpoch() == epoch.get())
+			return cacheTableSnapshot;
+		lock.readLock().lock();
+		try
+		{
+			long currentEpoch = epoch.get();
+			cacheTableSnapshot = snapshot;
+			if (cacheTableSnapshot == null || cacheTableSnapshot.getEpoch() != currentEpoch)
+			{
+				cacheTableSnapshot = new CacheTableSnapshot(orderRows.toArray(new ICacheTableRow[orderRows.size()]), currentEpoch);
+				snapshot = cacheTableSnapshot;
+			}
+			return cacheTableSnapshot;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+		return CacheTableSnapshot.EMPTY;
+	}
+
+	/**
+	 * 行版本号，行增加、移除、排序、清除时递增
+	 * @return 版本号
+	 */
+	public long getEpoch()
+	{
+		return epoch.get();
+	}
+
+	/**
+	 * 表结构，行加入表时绑定
+	 * @return 表结构
+	 */
+	public CacheTableSchema getSchema()
+	{
+		return schema;
+	}
+
+	/**
+	 * 取得字段句柄，用于按槽位读取本表各行的字段
+	 * @param fieldName 字段名
+	 * @return 字段句柄
+	 */
+	public CacheTableFieldHandle getFieldHandle(String fieldName)
+	{
+		return schema.getFieldHandle(fieldName);
+	}
+
+	/**
+	 * 取得符合键值列表的数据列表
+	 * @param keyFieldNames 集合键字段名列表
+	 * @param keyFieldValues 集合键值列表，可只指定前面部分的集合键值
+	 * @return 取得的行数据列表，为当前行数据的快照
+	 */
+	public Vector<ICacheTableRow> getRows(String[] keyFieldNames, String[] keyFieldValues)
+	{
+		lock.readLock().lock();
+		try
+		{
+			LinkedHashSet<ICacheTableRow> rows = findKeyFieldRows(keyFieldNames, keyFieldValues);
+			if (rows == null)
+				return null;
+			Vector<ICacheTableRow> cacheTableRows = new Vector<ICacheTableRow>(rows);
+			long currentTime = DateUtil.getCurrentTimeMillis();
+			for (int i = cacheTableRows.size() - 1; i >= 0; i--)
+			{
+				ICacheTableRow cacheTableRow = cacheTableRows.get(i);
+				if (currentTime > cacheTableRow.getExpiresTime())
+				{// 如果当前行数据已过期，只跳过，由过期时间轮移除
+					cacheTableRows.remove(i);
+				}
+			}
+			return cacheTableRows;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+		return null;
+	}
+
+	/**
+	 * 建立哈希索引，建立后可按索引字段的值直接查找行，索引随行的增加、移除及字段数据的改变自动维护
+	 * @param fieldNames 索引字段名列表，可以为多个字段组成的复合索引
+	 * @return 建立成功或已存在返回true，否则返回false
+	 */
+	public boolean createIndex(String[] fieldNames)
+	{
+		lock.writeLock().lock();
+		try
+		{
+			return cacheTableIndexes.createIndex(fieldNames, orderRows) != null;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return false;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 建立有序索引，除相等查找外还可按索引字段的值进行范围查找
+	 * @param fieldNames 索引字段名列表，可以为多个字段组成的复合索引
+	 * @return 建立成功或已存在返回true，否则返回false
+	 */
+	public boolean createSortedIndex(String[] fieldNames)
+	{
+		lock.writeLock().lock();
+		try
+		{
+			return cacheTableIndexes.createSortedIndex(fieldNames, orderRows) != null;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return false;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 移除建立的索引，集合键字段组使用独立的集合键索引，不受影响
+	 * @param fieldNames 索引字段名列表
+	 * @return 存在并移除返回true，否则返回false
+	 */
+	public boolean removeIndex(String[] fieldNames)
+	{
+		return cacheTableIndexes.removeIndex(fieldNames);
+	}
+
+	/**
+	 * 建立排序视图，视图随行的增加、移除及排序字段数据的改变逐行调整，取得前N行时不需要对整表排序，频繁取得排行时应使用排序视图代替sortOn
+	 * @param fieldNames 排序字段名列表，如：new String[]{"score", "level"}
+	 * @param sortTypes 各排序字段的排序类型方式，如：new SortType[]{SortType.DESC, SortType.ASC}，未指定的字段升序
+	 * @param limit 视图默认取得的行数量(前N行)，值小于等于0时取得所有行
+	 * @return 排序视图，已存在相同排序的视图时返回该视图，失败时返回null
+	 */
+	public ICacheTableSortedView createSortedView(String[] fieldNames, SortType[] sortTypes, int limit)
+	{
+		lock.writeLock().lock();
+		try
+		{
+			return cacheTableIndexes.createSortedView(fieldNames, sortTypes, limit, orderRows);
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return null;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 移除排序视图
+	 * @param fieldNames 排序字段名列表
+	 * @param sortTypes 各排序字段的排序类型方式
+	 * @return 存在并移除返回true，否则返回false
+	 */
+	public boolean removeSortedView(String[] fieldNames, SortType[] sortTypes)
+	{
+		return cacheTableIndexes.removeSortedView(fieldNames, sortTypes);
+	}
+
+	/**
+	 * 按索引取得字段值相等的行列表
+	 * @param fieldNames 索引字段名列表，需已建立对应的哈希索引或有序索引
+	 * @param fieldValues 字段值列表，可以只指定前面部分字段的值，值为字符串时将转换为字段值的类型
+	 * @return 行列表副本，不含已过期的行，未建立索引或不存在时返回null
+	 */
+	public Vector<ICacheTableRow> getRowsByIndex(String[] fieldNames, Object[] fieldValues)
+	{
+		try
+		{
+			ICacheTableIndex cacheTableIndex = cacheTableIndexes.getIndex(fieldNames);
+			if (cacheTableIndex == null)
+				return null;
+			return excludeExpires(cacheTableIndex.getRows(fieldValues));
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		return null;
+	}
+
+	/**
+	 * 按有序索引取得字段值在指定范围内的行列表(包含边界值)，如：level BETWEEN 10 AND 20
+	 * @param fieldNames 索引字段名列表，需已建立对应的有序索引
+	 * @param fromValues 起始字段值列表，为null时则不限下界
+	 * @param toValues 结束字段值列表，为null时则不限上界
+	 * @return 按字段值从小到大排列的行列表副本，不含已过期的行，未建立有序索引时返回null
+	 */
+	public Vector<ICacheTableRow> getRowsByRange(String[] fieldNames, Object[] fromValues, Object[] toValues)
+	{
+		return getRowsByRange(fieldNames, fromValues, true, toValues, true);
+	}
+
+	/**
+	 * 按有序索引取得字段值在指定范围内的行列表
+	 * @param fieldNames 索引字段名列表，需已建立对应的有序索引
+	 * @param fromValues 起始字段值列表，为null时则不限下界
+	 * @param fromInclusive 是否包含等于起始字段值的行
+	 * @param toValues 结束字段值列表，为null时则不限上界
+	 * @param toInclusive 是否包含等于结束字段值的行
+	 * @return 按字段值从小到大排列的行列表副本，不含已过期的行，未建立有序索引时返回null
+	 */
+	public Vector<ICacheTableRow> getRowsByRange(String[] fieldNames, Object[] fromValues, boolean fromInclusive, Object[] toValues, boolean toInclusive)
+	{
+		try
+		{
+			ICacheTableIndex cacheTableSortedIndex = cacheTableIndexes.getSortedIndex(fieldNames);
+			if (cacheTableSortedIndex == null)
+			{
+				Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, new Exception(this.name + " 缓存表未建立有序索引：" + CacheTableIndex.getIndexName(fieldNames)));
+				return null;
+			}
+			return excludeExpires(cacheTableSortedIndex.getRows(fromValues, fromInclusive, toValues, toInclusive));
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		return null;
+	}
+
+	/**
+	 * 取得已建立的所有索引，哈希索引在前
+	 * @return 索引列表副本
+	 */
+	public ArrayList<ICacheTableIndex> getIndexes()
+	{
+		return cacheTableIndexes.getIndexes();
+	}
+
+	/**
+	 * 建立查询，如：query().where("level", QueryOperator.GREATER_EQUAL, 10).and("guildId", QueryOperator.EQUAL, 1).orderBy("level", SortType.DESC).limit(10).toRows()
+	 * 查询执行时优先使用已建立的索引及集合键，没有可用的索引时遍历全表
+	 * @return 查询
+	 */
+	public ICacheTableQuery query()
+	{
+		return new CacheTableQuery(this);
+	}
+
+	/**
+	 * 遍历所有未过期的行
+	 * @param cacheTableRowHandler 行处理函数
+	 */
+	public void forEachRow(ICacheTableRowHandler cacheTableRowHandler)
+	{
+		forEachRow(cacheTableRowHandler, false);
+	}
+
+	/**
+	 * 遍历所有未过期的行，遍历开始时的行快照，遍历过程中增加或移除的行不影响遍历
+	 * @param cacheTableRowHandler 行处理函数
+	 * @param isParallel 是否允许并行遍历，行数量达到并行阈值(CacheTableParallel)时行处理函数会在多个线程中同时调用，需线程安全
+	 */
+	public void forEachRow(ICacheTableRowHandler cacheTableRowHandler, boolean isParallel)
+	{
+		try
+		{
+			CacheTableParallel.forEach(toRowArray(), cacheTableRowHandler, isParallel);
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+	}
+
+	/**
+	 * 统计所有未过期行的字段数据，行数量达到并行阈值(CacheTableParallel)时并行统计
+	 * @param fieldName 统计字段名
+	 * @return 统计结果，包括数量、合计、平均值、最小值及最大值
+	 */
+	public CacheTableAggregate aggregate(String fieldName)
+	{
+		try
+		{
+			return CacheTableParallel.aggregate(toRowArray(), schema.getFieldHandle(fieldName));
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		return new CacheTableAggregate();
+	}
+
+	/**
+	 * 按分组字段分组统计所有未过期行的字段数据，行数量达到并行阈值(CacheTableParallel)时并行统计
+	 * @param fieldName 统计字段名
+	 * @param groupByFieldName 分组字段名
+	 * @return 分组字段数据(整数类型统一为Long，浮点类型统一为Double)与统计结果的映射
+	 */
+	public HashMap<Object, CacheTableAggregate> aggregate(String fieldName, String groupByFieldName)
+	{
+		try
+		{
+			return CacheTableParallel.aggregate(toRowArray(), schema.getFieldHandle(fieldName), schema.getFieldHandle(groupByFieldName));
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		return new HashMap<Object, CacheTableAggregate>();
+	}
+
+	/**
+	 * 取得行快照
+	 * @return 行数组
+	 */
+	private Object[] toRowArray()
+	{
+		lock.readLock().lock();
+		try
+		{
+			return orderRows.toArray();
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * 跳过行列表中已过期的行，已过期的行由过期时间轮从表中移除，读取时不移除
+	 * @param cacheTableRows 行列表副本
+	 * @return 不含过期行的行列表，没有行时返回null
+	 */
+	private Vector<ICacheTableRow> excludeExpires(Vector<ICacheTableRow> cacheTableRows)
+	{
+		if (cacheTableRows == null || cacheTableRows.size() <= 0)
+			return null;
+		long currentTime = DateUtil.getCurrentTimeMillis();
+		for (int i = cacheTableRows.size() - 1; i >= 0; i--)
+		{
+			ICacheTableRow cacheTableRow = cacheTableRows.get(i);
+			if (currentTime > cacheTableRow.getExpiresTime())
+			{// 如果当前行数据已过期
+				cacheTableRows.remove(i);
+			}
+		}
+		return cacheTableRows.size() > 0 ? cacheTableRows : null;
+	}
+
+	/**
+	 * 取得行
+	 * @param rowIndex 行索引
+	 * @return 取得的行数据，如果提供的索引超出范围，则返回null
+	 */
+	public ICacheTableRow getRow(int rowIndex)
+	{
+		lock.readLock().lock();
+		try
+		{
+			ICacheTableRow cacheTableRow = rowAt(rowIndex);
+			if (cacheTableRow == null)
+				return null;
+			if (DateUtil.getCurrentTimeMillis() > cacheTableRow.getExpiresTime())
+				return null;// 已过期的行由过期时间轮移除，读取时不移除
+			recordAccess(cacheTableRow);
+			return cacheTableRow;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return null;
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * 移除表行
+	 * @param rowIndex 行索引
+	 * @return 移除成功或者指定的索引不存于列表返回true,否则返回false
+	 */
+	public boolean removeRow(int rowIndex)
+	{
+		lock.writeLock().lock();
+		try
+		{
+			return removeRow(rowAt(rowIndex));
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return false;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 移除行数据
+	 * @param cacheTableRow 行数据
+	 * @return 移除成功或者指定的行数据为空返回true,否则返回false
+	 */
+	public boolean removeRow(ICacheTableRow cacheTableRow)
+	{
+		lock.writeLock().lock();
+		try
+		{
+			if (cacheTableRow == null)
+				return true;
+			LruEntry entry = rowEntries.remove(cacheTableRow);
+			if (entry == null)
+				return true;
+			if (entry.expires)
+			{
+				expiresRowCount--;
+			}
+			primaryEntries.remove(entry.primaryKey);
+			removeKeyFieldRows(cacheTableRow, entry.keyFieldValues);
+			orderRows.remove(cacheTableRow);
+			epoch.incrementAndGet();
+			cacheTableRow.removeEventListener(CacheEvent.ROW_FIELD_DATA_CHANGE, this);
+			cacheTableRow.removeEventListener(CacheEvent.DATA_TO_SAVE, this);
+			cacheTableRow.removeEventListener(CacheEvent.FIELD_DATA_CHANGE, this);
+			cacheTableIndexes.remove(cacheTableRow);
+			unlink(cacheTableRow);
+
+			newCacheTables.remove(cacheTableRow);// 向当前CacheTable的指定字段的新CacheTable中移除行数据
+			cacheTableRow.dispose();
+			return true;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return false;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 移除表所有行数据并释放行数据
+	 * @return 移除成功返回true,否则返回false
+	 */
+	public boolean removeAll()
+	{
+		lock.writeLock().lock();
+		try
+		{
+			for (ICacheTableRow cacheTableRow : new ArrayList<ICacheTableRow>(orderRows))
+			{
+				removeRow(cacheTableRow);
+			}
+			return true;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, e);
+			return false;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 取得列表中首次出现的行索引
+	 * @param keyFieldNames 集合键字段列表
+	 * @param keyFieldValues 集合键值列表
+	 * @return 行索引，如果指定的主键Key不存于列表中，则返回-1
+	 */
+	public int rowIndexOf(String[] keyFieldNames, String[] keyFieldValues)
+	{
+		lock.readLock().lock();
+		try
+		{
+			ICacheTableRow cacheTableRow = findRow(keyFieldNames, keyFieldValues);
+			if (cacheTableRow != null)
+			{
+				recordAccess(cacheTableRow);
+				return orderRows.indexOf(cacheTableRow);
+			}
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+		return -1;
+	}
+
+	/**
+	 * 取得列表中最后一次出现的行索引
+	 * 行在排列顺序中只会出现一次，与rowIndexOf结果相同
+	 * @param keyFieldNames 集合键字段列表
+	 * @param keyFieldValues 集合键值列表
+	 * @return 行索引，如果指定的主键Key不存于列表中，则返回-1
+	 */
+	public int rowLastIndexOf(String[] keyFieldNames, String[] keyFieldValues)
+	{
+		return rowIndexOf(keyFieldNames, keyFieldValues);
+	}
+
+	/**
+	 * 检测是否包含有指定集合键值的行
+	 * @param keyFieldNames 集合键字段列表
+	 * @param keyFieldValues 集合键值列表
+	 * @return 如果存在返回true, 否则返回false
+	 */
+	public boolean containsKeyField(String[] keyFieldNames, String[] keyFieldValues)
+	{
+		Vector<ICacheTableRow> cacheTableRows = getRows(keyFieldNames, keyFieldValues);
+		return cacheTableRows != null && cacheTableRows.size() > 0;
+	}
+
+	/**
+	 * 排序表行数据
+	 * @param fieldNames 排序字段，
+	 * 格式：new Object[]{数据值类型(JavaType.xxx),字段名,数据值类型(JavaType.xxx),字段名,...}，需其数组长度应与options长度相等
+	 * 说明：fieldName长度其[数据值类型(JavaType.xxx),字段名]计算为1个长度
+	 * @param options 排序规则，
+	 * 格式：new SortType[]{SortType.asc,SortType.desc,SortType.asc,SortType.desc,...}，需其数组长度应与fieldName长度相等，如不相等，其不相等部分将默认为SortType.asc。
+	 * 说明：fieldName长度其[数据值类型(JavaType.xxx),字段名]计算为1个长度
+	 */
+	public void sortOn(final Object[] fieldNames, final SortType[] options)
+	{
+		sort(CacheTableComparator.getComparator(name, fieldNames, options));
+	}
+
+	/**
+	 * 排序表行数据，只改变行排列顺序，不影响LRU访问顺序
+	 * @param comparator 排序比较函数，行数量达到并行阈值(CacheTableParallel)时会在多个线程中同时调用，需线程安全
+	 */
+	public void sort(Comparator<? super ICacheTableRow> comparator)
+	{
+		lock.writeLock().lock();
+		try
+		{
+			ArrayList<ICacheTableRow> rows = new ArrayList<ICacheTableRow>(orderRows);
+			if (comparator instanceof CacheTableComparator)
+			{
+				((CacheTableComparator) comparator).sort(rows);
+			}
+			else
+			{
+				CacheTableParallel.sort(rows, comparator);
+			}
+			reorder(rows);
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 批量移除已过期的行，由过期服务调用，行已不在表中时忽略，有效时间已被延长时按新的到期时间重新安排
+	 * @param cacheTableRows 到期的行列表
+	 * @return 实际移除的行数
+	 */
+	public int removeExpiresRows(List<ICacheTableRow> cacheTableRows)
+	{
+		int count = 0;
+		lock.writeLock().lock();
+		try
+		{
+			long currentTime = DateUtil.getCurrentTimeMillis();
+			for (ICacheTableRow cacheTableRow : cacheTableRows)
+			{
+				if (!rowEntries.containsKey(cacheTableRow))
+					continue;
+				if (currentTime <= cacheTableRow.getExpiresTime())
+				{// 有效时间已被延长
+					DataFactory.cacheController().cacheTableExpiryService().schedule(this, cacheTableRow);
+					continue;
+				}
+				removeRow(cacheTableRow);
+				count++;
+			}
+			expiresCount.addAndGet(count);
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+		return count;
+	}
+
+	/**
+	 * 已过期移除的行数
+	 * @return 行数
+	 */
+	public long getExpiresCount()
+	{
+		return expiresCount.get();
+	}
+
+	/**
+	 * 表行大小，不含已过期但尚未被过期服务移除的行
+	 * @return 表行大小
+	 */
+	public int getRowSize()
+	{
+		lock.readLock().lock();
+		try
+		{
+			if (expiresRowCount <= 0)
+				return orderRows.size();
+			long currentTime = DateUtil.getCurrentTimeMillis();
+			int rowSize = 0;
+			for (ICacheTableRow cacheTableRow : orderRows)
+			{
+				if (currentTime <= cacheTableRow.getExpiresTime())
+				{
+					rowSize++;
+				}
+			}
+			return rowSize;
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * 创建当前CacheTable的指定字段的新CacheTable，新CacheTable的数据将会自动同步更新于当前CacheTable，其同步项为当前CacheTable增加新行、移除行以及行字段的内容数据。
+	 * @param name CacheTable表名
+	 * @param primaryKeyFieldName 表主键字段名
+	 * @param keyFieldNameGroups 集合键字段名列表组，此值将做为行数据key，如果指定多个字段，中间以“_”连接，最终数据为：[0]字段值_[1]字段值_…，值不允许为空
+	 * @param fieldNames 指定字段名列表，字段需存在于当前的CacheTable中，如：new String[]{"ID", "Name", ...}
+	 * @return 创建成功返回新创建的CacheTable，否则返回null
+	 */
+	public ICacheTable newCacheTable(String name, String primaryKeyFieldName, String[][] keyFieldNameGroups, String[] fieldNames)
+	{
+		return newCacheTable(name, primaryKeyFieldName, keyFieldNameGroups, fieldNames, 0);
+	}
+
+	/**
+	 * 创建当前CacheTable的指定字段的新CacheTable，maxStaleness大于0时新CacheTable异步更新：当前CacheTable增加、移除行时只写入变更日志，由计时器批量应用，新CacheTable最多落后maxStaleness毫秒
+	 * @param name CacheTable表名
+	 * @param primaryKeyFieldName 表主键字段名
+	 * @param keyFieldNameGroups 集合键字段名列表组，此值将做为行数据key，如果指定多个字段，中间以“_”连接，最终数据为：[0]字段值_[1]字段值_…，值不允许为空
+	 * @param fieldNames 指定字段名列表，字段需存在于当前的CacheTable中，如：new String[]{"ID", "Name", ...}
+	 * @param maxStaleness 最大延迟时间(毫秒)，小于等于0时同步更新
+	 * @return 创建成功返回新创建的CacheTable，否则返回null
+	 */
+	public ICacheTable newCacheTable(String name, String primaryKeyFieldName, String[][] keyFieldNameGroups, String[] fieldNames, long maxStaleness)
+	{
+		ICacheTable newCacheTable = null;
+		lock.writeLock().lock();
+		try
+		{
+			newCacheTable = newCacheTables.create(name, primaryKeyFieldName, keyFieldNameGroups, fieldNames, maxStaleness, orderRows);
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, e);
+			newCacheTable = null;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+		return newCacheTable;
+	}
+
+	/**
+	 * 等待异步更新的指定字段的新CacheTable应用完当前所有变更
+	 * @param name 新CacheTable表名
+	 * @param timeout 最长等待时间(毫秒)
+	 * @return 在等待时间内应用完成返回true，新CacheTable不存在或超时返回false
+	 */
+	public boolean awaitNewCacheTable(String name, long timeout)
+	{
+		return newCacheTables.await(name, timeout);
+	}
+
+	/**
+	 * 清除数据(不对行数据做释放处理)
+	 */
+	public void clear()
+	{
+		dispose(false);
+	}
+
+	public void handleEvent(Event event)
+	{
+		if (CacheEvent.FIELD_DATA_CHANGE.equals(event.getType()))
+		{
+			keyFieldDataChange((ICacheTableRow) event.getCurrentTarget(), (String) event.getData());
+			cacheTableIndexes.fieldDataChange((ICacheTableRow) event.getCurrentTarget(), (String) event.getData());
+			newCacheTables.fieldDataChange((ICacheTableRow) event.getCurrentTarget(), (String) event.getData());
+		}
+	}
+
+	/*
+	 * 克隆，深度复制一份全新的数据
+	 */
+	public ICacheTable clone()
+	{
+		lock.readLock().lock();
+		try
+		{
+			LruCacheTable cloneCacheTable = new LruCacheTable();
+			cloneCacheTable.init(name, primaryKeyFieldName, keyFieldNameGroups, capacity);
+			for (ICacheTableRow cacheTableRow : orderRows)
+			{
+				ICacheTableRow cloneCacheTableRow = DataUtil.cacheTableRow();
+				for (ICacheTableField cacheTableField : cacheTableRow.getFields().values())
+				{
+					ICacheTableField cloneCacheTableField = DataUtil.cacheTableField(cacheTableField.getData(), cacheTableField.getJavaType());
+					cloneCacheTableField.setIsSqlSave(cacheTableField.getIsSqlSave());
+					cloneCacheTableField.setIsChangeSaveFlag(cacheTableField.getIsChangeSaveFlag());
+					cloneCacheTableRow.addField(cacheTableField.getFieldName(), cloneCacheTableField);
+				}
+				cloneCacheTable.addRow(cloneCacheTableRow);
+			}
+			return cloneCacheTable;
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, e);
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+		return null;
+	}
+
+	public synchronized void dispose()
+	{
+		dispose(true);
+	}
+
+	public synchronized void dispose(boolean isDispose)
+	{
+		lock.writeLock().lock();
+		try
+		{
+			for (ICacheTableRow cacheTableRow : orderRows)
+			{
+				cacheTableRow.removeEventListener(CacheEvent.ROW_FIELD_DATA_CHANGE, this);
+				cacheTableRow.removeEventListener(CacheEvent.DATA_TO_SAVE, this);
+				cacheTableRow.removeEventListener(CacheEvent.FIELD_DATA_CHANGE, this);
+				cacheTableRow.setPrevious(null);
+				cacheTableRow.setNext(null);
+				if (isDispose)
+				{
+					cacheTableRow.dispose();
+				}
+			}
+			orderRows.clear();
+			epoch.incrementAndGet();
+			snapshot = null;
+			clearAccessRows();
+			expiresRowCount = 0;
+			primaryEntries.clear();
+			rowEntries.clear();
+			for (HashMap<String, LinkedHashSet<ICacheTableRow>> groupRows : keyFieldRows.values())
+			{
+				groupRows.clear();
+			}
+			cacheTableIndexes.clear();
+			if (headCacheTableRow != null)
+			{
+				headCacheTableRow.setPrevious(headCacheTableRow);
+				headCacheTableRow.setNext(headCacheTableRow);
+			}
+			if (isDispose)
+			{
+				keyFieldRows.clear();
+				cacheTableIndexes.dispose();
+				newCacheTables.dispose();
+				keyFieldNameGroups = null;
+			}
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 插入到头部热端
+	 * @param cacheTableRow CacheTableRow
+	 */
+	private void insertHead(ICacheTableRow cacheTableRow)
+	{
+		ICacheTableRow firstRow = headCacheTableRow.getNext();
+		cacheTableRow.setPrevious(headCacheTableRow);
+		cacheTableRow.setNext(firstRow);
+		firstRow.setPrevious(cacheTableRow);
+		headCacheTableRow.setNext(cacheTableRow);
+	}
+
+	/**
+	 * 移动到头部热端
+	 * @param cacheTableRow CacheTableRow
+	 */
+	private void moveToHead(ICacheTableRow cacheTableRow)
+	{
+		if (headCacheTableRow.getNext() == cacheTableRow)
+			return;
+		unlink(cacheTableRow);
+		insertHead(cacheTableRow);
+	}
+
+	/**
+	 * 记录被访问的行，只在限定容量时才需要维护LRU顺序
+	 * @param cacheTableRow CacheTableRow
+	 */
+	private void recordAccess(ICacheTableRow cacheTableRow)
+	{
+		if (capacity <= -1)
+			return;
+		cacheTableRow.setAccessTime(System.nanoTime());
+		if (!cacheTableRow.compareAndSetIsAccessQueued(false, true))
+			return;// 已在待提升列表中，只更新访问时间
+		if (accessCacheTableRowCount.incrementAndGet() > MAX_ACCESS_ROW_COUNT)
+		{// 读取时持有读锁，不能获取写锁提升，丢弃最早记录的行以保留最近的访问
+			ICacheTableRow oldestCacheTableRow = accessCacheTableRows.poll();
+			if (oldestCacheTableRow != null)
+			{
+				accessCacheTableRowCount.decrementAndGet();
+				oldestCacheTableRow.compareAndSetIsAccessQueued(true, false);
+			}
+		}
+		accessCacheTableRows.offer(cacheTableRow);
+	}
+
+	/**
+	 * 将记录的被访问行按访问先后移动到头部热端，已移除的行忽略，调用时需持有写锁
+	 */
+	private void drainAccessRows()
+	{
+		if (accessCacheTableRowCount.get() <= 0)
+			return;
+		ArrayList<ICacheTableRow> cacheTableRows = new ArrayList<ICacheTableRow>();
+		ICacheTableRow cacheTableRow;
+		while ((cacheTableRow = accessCacheTableRows.poll()) != null)
+		{
+			accessCacheTableRowCount.decrementAndGet();
+			cacheTableRow.compareAndSetIsAccessQueued(true, false);
+			if (rowEntries.containsKey(cacheTableRow))
+			{
+				cacheTableRows.add(cacheTableRow);
+			}
+		}
+		Collections.sort(cacheTableRows, CacheTableAccessTimeComparator.INSTANCE);
+		for (ICacheTableRow accessCacheTableRow : cacheTableRows)
+		{
+			moveToHead(accessCacheTableRow);
+		}
+	}
+
+	/**
+	 * 清除记录的被访问行
+	 */
+	private void clearAccessRows()
+	{
+		ICacheTableRow cacheTableRow;
+		while ((cacheTableRow = accessCacheTableRows.poll()) != null)
+		{
+			accessCacheTableRowCount.decrementAndGet();
+			cacheTableRow.compareAndSetIsAccessQueued(true, false);
+		}
+	}
+
+	/**
+	 * 从LRU链表中断开
+	 * @param cacheTableRow CacheTableRow
+	 */
+	private void unlink(ICacheTableRow cacheTableRow)
+	{
+		ICacheTableRow previousRow = cacheTableRow.getPrevious();
+		ICacheTableRow nextRow = cacheTableRow.getNext();
+		if (previousRow != null)
+			previousRow.setNext(nextRow);
+		if (nextRow != null)
+			nextRow.setPrevious(previousRow);
+		cacheTableRow.setPrevious(null);
+		cacheTableRow.setNext(null);
+	}
+
+	/**
+	 * 按指定的行顺序重建行排列顺序
+	 * @param rows 行列表
+	 */
+	private void reorder(List<ICacheTableRow> rows)
+	{
+		orderRows.reset(rows);
+		epoch.incrementAndGet();
+	}
+
+	/**
+	 * 取得指定排列位置的行
+	 * @param rowIndex 行索引
+	 * @return 行数据，索引超出范围返回null
+	 */
+	private ICacheTableRow rowAt(int rowIndex)
+	{
+		return orderRows.get(rowIndex);
+	}
+
+	/**
+	 * 取得所属对应键值列表行列表中第一个未过期的行，不做LRU处理，调用时需持有锁
+	 * @param keyFieldNames 集合键字段名列表
+	 * @param keyFieldValues 集合键值列表
+	 * @return 行数据，不存在时返回null
+	 */
+	private ICacheTableRow findRow(String[] keyFieldNames, String[] keyFieldValues)
+	{
+		LinkedHashSet<ICacheTableRow> rows = findKeyFieldRows(keyFieldNames, keyFieldValues);
+		if (rows != null)
+		{
+			long currentTime = DateUtil.getCurrentTimeMillis();
+			for (ICacheTableRow cacheTableRow : rows)
+			{
+				if (currentTime <= cacheTableRow.getExpiresTime())
+					return cacheTableRow;// 已过期的行由过期时间轮移除，读取时只跳过
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * 按主键值查找行，不做过期检查及LRU处理，调用时需持有锁
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 行数据，不存在时返回null
+	 */
+	private ICacheTableRow findRowByPrimaryKey(Object primaryKeyFieldValue)
+	{
+		LruEntry entry = primaryEntries.get(primaryKey(primaryKeyFieldValue));
+		return entry == null ? null : entry.row;
+	}
+
+	/**
+	 * 取得行的主键key，未设置主键字段名的表，以行对象本身做为key
+	 * @param cacheTableRow 行数据
+	 * @return 主键key，行数据未指定主键字段时返回null
+	 */
+	private Object getRowPrimaryKey(ICacheTableRow cacheTableRow)
+	{
+		if (primaryKeyFieldName == null)
+		{
+			return cacheTableRow;
+		}
+		if (!cacheTableRow.containsField(primaryKeyFieldName))
+		{
+			Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, new Exception(this.name + " 缓存表在增加行数据时，遇到行数据未指定表主键字段 " + primaryKeyFieldName + " 及值。"));
+			return null;
+		}
+		return primaryKey(cacheTableRow.getFieldData(primaryKeyFieldName));
+	}
+
+	/**
+	 * 规范主键值，整数类型及字符串形式的整数统一为Long，其它类型统一为String，
+	 * 使"5"与5对应同一个主键，与CacheTable以字符串存放主键时的查找结果一致
+	 * @param primaryKeyFieldValue 主键值
+	 * @return 主键key
+	 */
+	private Object primaryKey(Object primaryKeyFieldValue)
+	{
+		if (primaryKeyFieldValue instanceof Long)
+		{
+			return primaryKeyFieldValue;
+		}
+		if (primaryKeyFieldValue instanceof Integer || primaryKeyFieldValue instanceof Short || primaryKeyFieldValue instanceof Byte)
+		{
+			return Long.valueOf(((Number) primaryKeyFieldValue).longValue());
+		}
+		if (primaryKeyFieldValue == null)
+			return null;
+		String strPrimaryKey = primaryKeyFieldValue.toString();
+		Long longPrimaryKey = parseLongPrimaryKey(strPrimaryKey);
+		return longPrimaryKey != null ? longPrimaryKey : strPrimaryKey;
+	}
+
+	/**
+	 * 将字符串形式的整数主键值转为Long，只转换与Long.toString结果相同的字符串(如"05"、"+5"不转换)
+	 * @param strPrimaryKey 主键值字符串
+	 * @return 转换后的值，不是整数时返回null
+	 */
+	private static Long parseLongPrimaryKey(String strPrimaryKey)
+	{
+		int length = strPrimaryKey.length();
+		if (length == 0 || length > 20)
+			return null;
+		for (int i = 0; i < length; i++)
+		{
+			char c = strPrimaryKey.charAt(i);
+			if ((c < '0' || c > '9') && !(c == '-' && i == 0 && length > 1))
+				return null;
+		}
+		try
+		{
+			long value = Long.parseLong(strPrimaryKey);
+			return Long.toString(value).equals(strPrimaryKey) ? Long.valueOf(value) : null;
+		}
+		catch (NumberFormatException e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * 取得行的各组集合键值列表
+	 * @param cacheTableRow 行数据
+	 * @return 集合键值列表组，与keyFieldNameGroups对应，行数据缺少集合键字段时返回null
+	 */
+	private String[][] getRowKeyFieldValues(ICacheTableRow cacheTableRow)
+	{
+		if (keyFieldNameGroups == null)
+			return new String[0][];
+		String[][] keyFieldValues = new String[keyFieldNameGroups.length][];
+		for (int i = 0; i < keyFieldNameGroups.length; i++)
+		{
+			String[] keyFieldNames = keyFieldNameGroups[i];
+			if (keyFieldNames == null)
+				continue;
+			keyFieldValues[i] = new String[keyFieldNames.length];
+			for (int j = 0; j < keyFieldNames.length; j++)
+			{
+				if (!cacheTableRow.containsField(keyFieldNames[j]))
+				{
+					Logger.getLogger(LruCacheTable.class.getName()).log(Level.SEVERE, null, new Exception(this.name + " 缓存表在增加行数据时，遇到行数据未指定表集合键字段 " + keyFieldNames[j] + " 及值。"));
+					return null;
+				}
+				Object keyFieldValue = cacheTableRow.getFieldData(keyFieldNames[j]);
+				keyFieldValues[i][j] = String.valueOf(keyFieldValue);
+			}
+		}
+		return keyFieldValues;
+	}
+
+	/**
+	 * 将行加入各集合键索引，每一级集合键值前缀均会记录该行
+	 * @param cacheTableRow 行数据
+	 * @param keyFieldValues 集合键值列表组
+	 */
+	private void addKeyFieldRows(ICacheTableRow cacheTableRow, String[][] keyFieldValues)
+	{
+		for (int i = 0; i < keyFieldValues.length; i++)
+		{
+			if (keyFieldValues[i] == null)
+				continue;
+			HashMap<String, LinkedHashSet<ICacheTableRow>> groupRows = keyFieldRows.get(getKeyFieldNameKey(keyFieldNameGroups[i]));
+			if (groupRows == null)
+				continue;
+			addKeyFieldRow(groupRows, keyFieldValues[i], cacheTableRow);
+		}
+	}
+
+	/**
+	 * 将行加入一组集合键索引，每一级集合键值前缀均会记录该行
+	 * @param groupRows 集合键字段组的行集
+	 * @param keyFieldValues 该组的集合键值列表
+	 * @param cacheTableRow 行数据
+	 */
+	private void addKeyFieldRow(HashMap<String, LinkedHashSet<ICacheTableRow>> groupRows, String[] keyFieldValues, ICacheTableRow cacheTableRow)
+	{
+		for (int length = 1; length <= keyFieldValues.length; length++)
+		{
+			String valueKey = getKeyFieldValueKey(keyFieldValues, length);
+			LinkedHashSet<ICacheTableRow> rows = groupRows.get(valueKey);
+			if (rows == null)
+			{
+				rows = new LinkedHashSet<ICacheTableRow>();
+				groupRows.put(valueKey, rows);
+			}
+			rows.add(cacheTableRow);
+		}
+	}
+
+	/**
+	 * 将行移出各集合键索引
+	 * @param cacheTableRow 行数据
+	 * @param keyFieldValues 加入时的集合键值列表组
+	 */
+	private void removeKeyFieldRows(ICacheTableRow cacheTableRow, String[][] keyFieldValues)
+	{
+		if (keyFieldNameGroups == null)
+			return;
+		for (int i = 0; i < keyFieldValues.length; i++)
+		{
+			if (keyFieldValues[i] == null)
+				continue;
+			HashMap<String, LinkedHashSet<ICacheTableRow>> groupRows = keyFieldRows.get(getKeyFieldNameKey(keyFieldNameGroups[i]));
+			if (groupRows == null)
+				continue;
+			removeKeyFieldRow(groupRows, keyFieldValues[i], cacheTableRow);
+		}
+	}
+
+	/**
+	 * 将行移出一组集合键索引
+	 * @param groupRows 集合键字段组的行集
+	 * @param keyFieldValues 该组加入时的集合键值列表
+	 * @param cacheTableRow 行数据
+	 */
+	private void removeKeyFieldRow(HashMap<String, LinkedHashSet<ICacheTableRow>> groupRows, String[] keyFieldValues, ICacheTableRow cacheTableRow)
+	{
+		for (int length = 1; length <= keyFieldValues.length; length++)
+		{
+			String valueKey = getKeyFieldValueKey(keyFieldValues, length);
+			LinkedHashSet<ICacheTableRow> rows = groupRows.get(valueKey);
+			if (rows != null)
+			{
+				rows.remove(cacheTableRow);
+				if (rows.isEmpty())
+				{
+					groupRows.remove(valueKey);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 行的字段数据改变时，按新的集合键值移动该行在集合键字段组中的位置
+	 * @param cacheTableRow 行数据
+	 * @param fieldName 改变的字段名
+	 */
+	private void keyFieldDataChange(ICacheTableRow cacheTableRow, String fieldName)
+	{
+		if (fieldName == null)
+			return;
+		lock.writeLock().lock();
+		try
+		{
+			if (keyFieldNameGroups == null)
+				return;
+			LruEntry entry = rowEntries.get(cacheTableRow);
+			if (entry == null)
+				return;
+			for (int i = 0; i < keyFieldNameGroups.length && i < entry.keyFieldValues.length; i++)
+			{
+				String[] keyFieldNames = keyFieldNameGroups[i];
+				if (keyFieldNames == null || !containsFieldName(keyFieldNames, fieldName))
+					continue;
+				HashMap<String, LinkedHashSet<ICacheTableRow>> groupRows = keyFieldRows.get(getKeyFieldNameKey(keyFieldNames));
+				if (groupRows == null)
+					continue;
+				String[] keyFieldValues = new String[keyFieldNames.length];
+				for (int j = 0; j < keyFieldNames.length; j++)
+				{
+					Object keyFieldValue = cacheTableRow.getFieldData(keyFieldNames[j]);
+					keyFieldValues[j] = String.valueOf(keyFieldValue);
+				}
+				String[] oldKeyFieldValues = entry.keyFieldValues[i];
+				if (oldKeyFieldValues != null)
+				{
+					if (Arrays.equals(oldKeyFieldValues, keyFieldValues))
+						continue;
+					removeKeyFieldRow(groupRows, oldKeyFieldValues, cacheTableRow);
+				}
+				addKeyFieldRow(groupRows, keyFieldValues, cacheTableRow);
+				entry.keyFieldValues[i] = keyFieldValues;
+			}
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 字段名列表中是否包含指定字段名
+	 * @param fieldNames 字段名列表
+	 * @param fieldName 字段名
+	 * @return 包含返回true，否则返回false
+	 */
+	private static boolean containsFieldName(String[] fieldNames, String fieldName)
+	{
+		for (String name : fieldNames)
+		{
+			if (fieldName.equals(name))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 取得集合键值对应的行集，调用时需持有锁
+	 * @param keyFieldNames 集合键字段名列表
+	 * @param keyFieldValues 集合键值列表，可只指定前面部分的集合键值
+	 * @return 行集，不存在时返回null
+	 */
+	private LinkedHashSet<ICacheTableRow> findKeyFieldRows(String[] keyFieldNames, String[] keyFieldValues)
+	{
+		String keyFieldNameKey = getKeyFieldNameKey(keyFieldNames);
+		if (keyFieldNameKey == null || keyFieldValues == null || keyFieldValues.length <= 0)
+			return null;
+		HashMap<String, LinkedHashSet<ICacheTableRow>> groupRows = keyFieldRows.get(keyFieldNameKey);
+		if (groupRows == null)
+			return null;
+		return groupRows.get(getKeyFieldValueKey(keyFieldValues, keyFieldValues.length));
+	}
+
+	private String getKeyFieldNameKey(String[] keyFieldNames)
+	{
+		if (keyFieldNames == null || keyFieldNames.length <= 0)
+			return null;
+		StringBuilder key = new StringBuilder();
+		for (String keyFieldName : keyFieldNames)
+		{
+			key.append('_').append(keyFieldName);
+		}
+		return key.toString();
+	}
+
+	/**
+	 * 取得前length个集合键值的组合key
+	 * @param keyFieldValues 集合键值列表
+	 * @param length 集合键值个数
+	 * @return 组合key
+	 */
+	private String getKeyFieldValueKey(String[] keyFieldValues, int length)
+	{
+		if (length == 1)
+			return keyFieldValues[0];
+		StringBuilder key = new StringBuilder();
+		for (int i = 0; i < length; i++)
+		{
+			if (i > 0)
+			{
+				key.append(KEY_FIELD_VALUE_SEPARATOR);
+			}
+			key.append(keyFieldValues[i]);
+		}
+		return key.toString();
+	}
+
+	/**
+	 * 行项
+	 */
+	private final static class LruEntry
+	{
+		/**
+		 * 行数据
+		 */
+		final ICacheTableRow row;
+
+		/**
+		 * 主键key
+		 */
+		final Object primaryKey;
+
+		/**
+		 * 当前所在的集合键值列表组，用于移除时定位索引，集合键字段数据改变时在持有写锁时更新对应组
+		 */
+		final String[][] keyFieldValues;
+
+		/**
+		 * 加入时是否指定了有效时间
+		 */
+		final boolean expires;
+
+		LruEntry(ICacheTableRow row, Object primaryKey, String[][] keyFieldValues)
+		{
+			this.row = row;
+			this.primaryKey = primaryKey;
+			this.keyFieldValues = keyFieldValues;
+			this.expires = row.getExpiresTime() != Long.MAX_VALUE;
+		}
+	}
+}
@@ -0,0 +1,689 @@
+package base.data.sql;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import base.Base;
+
+/**
+ * 无锁数据库连接池
+ * 空闲连接存放于无锁的后进先出列表，连接以原子操作取用，取用和回收都不获取全局锁；
+ * 没有空闲连接且已达到最大活动连接数时线程进入等待队列并挂起，回收的连接直接交给等待最久的线程，只唤醒该线程；
+ * 取得连接的等待以配置的等待时间为截止时间，超时返回null，不会递归重试；
+ * 线程优先取用自己上次使用的连接，减少连接在线程间切换；
+ * 记录等待时间分布、活动及空闲连接数、超时次数等统计数据。
+ * @author Devin
+ *
+ */
+public class ConcurrentSqlConnectionPool implements ISqlConnectionPool
+{
+	/**
+	 * 等待时间分布的各区间上限(毫秒)，最后一个区间为大于等于最后一个上限
+	 */
+	private final static long[] WAIT_TIME_BOUNDS = { 1, 5, 10, 50, 100, 500, 1000 };
+
+	/**
+	 * 池是否可用
+	 */
+	private volatile boolean isAvailable;
+
+	public boolean isAvailable()
+	{
+		return isAvailable;
+	}
+
+	/**
+	 * 连接配置
+	 */
+	private final ISqlConnectionConfigBean connectionConfigBean;
+
+	/**
+	 * 空闲连接，后进先出，最近使用的连接优先取用；被线程按上次使用取用的连接仍留在列表中，取出时跳过
+	 */
+	private final ConcurrentLinkedDeque<PooledConnection> freeConnections = new ConcurrentLinkedDeque<PooledConnection>();
+
+	/**
+	 * 所有连接
+	 */
+	private final ConcurrentHashMap<ISqlConnection, PooledConnection> connections = new ConcurrentHashMap<ISqlConnection, PooledConnection>();
+
+	/**
+	 * 等待连接的线程，先进先出
+	 */
+	private final ConcurrentLinkedQueue<Waiter> waiters = new ConcurrentLinkedQueue<Waiter>();
+
+	/**
+	 * 线程上次使用的连接
+	 */
+	private final ThreadLocal<PooledConnection> lastConnection = new ThreadLocal<PooledConnection>();
+
+	/**
+	 * 连接总数(含正在创建的连接)
+	 */
+	private final AtomicInteger connectionCount = new AtomicInteger();
+
+	/**
+	 * 活动连接数
+	 */
+	private final AtomicInteger activeCount = new AtomicInteger();
+
+	/**
+	 * 等待中的线程数
+	 */
+	private final AtomicInteger waitingCount = new AtomicInteger();
+
+	/**
+	 * 取得连接的次数
+	 */
+	private final AtomicLong acquireCount = new AtomicLong();
+
+	/**
+	 * 取用线程上次使用的连接的次数
+	 */
+	private final AtomicLong affinityCount = new AtomicLong();
+
+	/**
+	 * 回收时直接交给等待线程的次数
+	 */
+	private final AtomicLong handoffCount = new AtomicLong();
+
+	/**
+	 * 等待超时的次数
+	 */
+	private final AtomicLong timeoutCount = new AtomicLong();
+
+	/**
+	 * 创建连接的次数
+	 */
+	private final AtomicLong createCount = new AtomicLong();
+
+	/**
+	 * 租用序号，每次取用连接时分配新的序号
+	 */
+	private final AtomicLong leaseSequence = new AtomicLong();
+
+	/**
+	 * 等待时间分布，每个区间的次数
+	 */
+	private final AtomicLongArray waitTimeCounts = new AtomicLongArray(WAIT_TIME_BOUNDS.length + 1);
+
+	/**
+	 * 累计等待时间(纳秒)
+	 */
+	private final AtomicLong waitTime = new AtomicLong();
+
+	/**
+	 * 实例新连接池
+	 * @param connectionConfigBean 连接池配置
+	 */
+	public ConcurrentSqlConnectionPool(ISqlConnectionConfigBean connectionConfigBean)
+	{
+		this.connectionConfigBean = connectionConfigBean;
+		init();
+	}
+
+	/**
+	 * 初始化
+	 */
+	private void init()
+	{
+		int initConnections = Math.min(connectionConfigBean.getInitConnections(), Math.min(connectionConfigBean.getMaxFreeConnections(), connectionConfigBean.getMaxActiveConnections()));
+		for (int i = 0; i < initConnections; i++)
+		{
+			connectionCount.incrementAndGet();
+			PooledConnection pooledConnection = createConnection();
+			if (pooledConnection == null)
+			{
+				connectionCount.decrementAndGet();
+				continue;
+			}
+			pooledConnection.isQueued.set(true);
+			freeConnections.offerFirst(pooledConnection);
+		}
+		isAvailable = true;
+	}
+
+	/**
+	 * 创建连接，调用前需已增加连接总数
+	 * @return 连接，创建失败时返回null
+	 */
+	private PooledConnection createConnection()
+	{
+		Connection conn = null;
+		try
+		{
+			conn = DriverManager.getConnection(connectionConfigBean.getUrl(), connectionConfigBean.getUserName(), connectionConfigBean.getPassword());
+			ISqlConnection sqlConnection = Base.newClass(SqlConnection.class);
+			sqlConnection.init(conn);
+			sqlConnection.setStatementCacheSize(connectionConfigBean.getStatementCacheSize());
+			PooledConnection pooledConnection = new PooledConnection(sqlConnection);
+			connections.put(sqlConnection, pooledConnection);
+			createCount.incrementAndGet();
+			return pooledConnection;
+		}
+		catch (Exception e)
+		{
+			if (conn != null)
+			{
+				try
+				{
+					conn.close();
+				}
+				catch (Exception closeException)
+				{
+				}
+			}
+			Logger.getLogger(ConcurrentSqlConnectionPool.class.getName()).log(Level.SEVERE, null, e);
+			return null;
+		}
+	}
+
+	/**
+	 * 取得连接，没有空闲连接且已达到最大活动连接数时等待，超出配置的等待时间返回null
+	 * @return 连接，取不到时返回null
+	 */
+	public ISqlConnection getConnection()
+	{
+		return getConnection(connectionConfigBean.getConnectionTimeOut());
+	}
+
+	/**
+	 * 取得连接，没有空闲连接且已达到最大活动连接数时等待
+	 * @param timeOut 最长等待时间(毫秒)
+	 * @return 连接，超时、线程被中断或池已关闭时返回null
+	 */
+	public ISqlConnection getConnection(long timeOut)
+	{
+		if (!isAvailable)
+			return null;
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(timeOut, 0));
+		while (true)
+		{
+			PooledConnection pooledConnection = tryAcquire();
+			if (pooledConnection == null)
+			{
+				pooledConnection = await(deadline);
+				if (pooledConnection == null)
+					return null;
+			}
+			pooledConnection = validate(pooledConnection);
+			if (pooledConnection != null)
+			{
+				activeCount.incrementAndGet();
+				acquireCount.incrementAndGet();
+				lastConnection.set(pooledConnection);
+				return pooledConnection.sqlConnection;
+			}
+			if (System.nanoTime() - deadline >= 0)
+			{
+				timeoutCount.incrementAndGet();
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * 不等待地取用连接，依次尝试线程上次使用的连接、空闲连接、创建新连接
+	 * @return 连接，已达到最大活动连接数且没有空闲连接时返回null
+	 */
+	private PooledConnection tryAcquire()
+	{
+		PooledConnection pooledConnection = lastConnection.get();
+		if (pooledConnection != null && !pooledConnection.isClosed && pooledConnection.lease.compareAndSet(PooledConnection.FREE, leaseSequence.incrementAndGet()))
+		{
+			affinityCount.incrementAndGet();
+			return pooledConnection;
+		}
+		while ((pooledConnection = freeConnections.pollFirst()) != null)
+		{
+			pooledConnection.isQueued.set(false);
+			if (!pooledConnection.isClosed && pooledConnection.lease.compareAndSet(PooledConnection.FREE, leaseSequence.incrementAndGet()))
+				return pooledConnection;
+		}
+		if (!reserveConnection())
+			return null;
+		pooledConnection = createConnection();
+		if (pooledConnection == null)
+		{
+			connectionCount.decrementAndGet();
+			return null;
+		}
+		pooledConnection.lease.set(leaseSequence.incrementAndGet());
+		return pooledConnection;
+	}
+
+	/**
+	 * 在未达到最大活动连接数时预先增加连接总数，为将要创建的连接占用名额
+	 * @return 占用成功返回true，已达到最大活动连接数时返回false
+	 */
+	private boolean reserveConnection()
+	{
+		int count;
+		while ((count = connectionCount.get()) < connectionConfigBean.getMaxActiveConnections())
+		{
+			if (connectionCount.compareAndSet(count, count + 1))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 进入等待队列，直到回收的连接交给当前线程或超出截止时间
+	 * @param deadline 截止时间(System.nanoTime)
+	 * @return 连接，超时、线程被中断或池已关闭时返回null
+	 */
+	private PooledConnection await(long deadline)
+	{
+		long startTime = System.nanoTime();
+		Waiter waiter = new Waiter(Thread.currentThread());
+		waiters.offer(waiter);
+		waitingCount.incrementAndGet();
+		try
+		{
+			// 进入队列后再尝试一次，避免进入队列前回收的连接已放回空闲列表而无人唤醒
+			PooledConnection pooledConnection = tryAcquire();
+			if (pooledConnection != null)
+			{
+				if (waiter.state.compareAndSet(Waiter.WAITING, Waiter.CANCELLED))
+				{
+					waiters.remove(waiter);
+				}
+				else
+				{// 同时已有连接交给当前线程，归还多取的一个
+					waiter.pooledConnection.lease.set(PooledConnection.RELEASING);
+					release(waiter.pooledConnection);
+				}
+				return pooledConnection;
+			}
+			while (waiter.state.get() == Waiter.WAITING)
+			{
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0 || !isAvailable || Thread.currentThread().isInterrupted())
+				{
+					if (waiter.state.compareAndSet(Waiter.WAITING, Waiter.CANCELLED))
+					{
+						waiters.remove(waiter);
+						if (remaining <= 0)
+						{
+							timeoutCount.incrementAndGet();
+							Logger.getLogger(ConcurrentSqlConnectionPool.class.getName()).log(Level.WARNING, null, new Exception("取得数据库连接超时，活动连接数：" + activeCount.get() + "，等待线程数：" + waitingCount.get()));
+						}
+						return null;
+					}
+					break;
+				}
+				LockSupport.parkNanos(this, remaining);
+			}
+			return waiter.pooledConnection;
+		}
+		finally
+		{
+			waitingCount.decrementAndGet();
+			recordWaitTime(System.nanoTime() - startTime);
+		}
+	}
+
+	/**
+	 * 检查取用的连接是否可用，不可用时关闭并创建新连接替换
+	 * 不可用连接占用的名额直接转给新连接，不先减少连接总数，避免期间被其它线程占用后超出最大活动连接数
+	 * @param pooledConnection 取用的连接
+	 * @return 可用的连接，创建失败或已没有名额时返回null
+	 */
+	private PooledConnection validate(PooledConnection pooledConnection)
+	{
+		if (pooledConnection.sqlConnection.isAvailable())
+			return pooledConnection;
+		if (!close(pooledConnection) && !reserveConnection())
+			return null;// 连接已被其它线程移除时其名额已释放，需重新占用
+		PooledConnection newPooledConnection = createConnection();
+		if (newPooledConnection == null)
+		{
+			connectionCount.decrementAndGet();
+			return null;
+		}
+		newPooledConnection.lease.set(leaseSequence.incrementAndGet());
+		return newPooledConnection;
+	}
+
+	/**
+	 * 回收连接
+	 * @param sqlConnection 要回收的sql连接
+	 */
+	public void releaseConnection(ISqlConnection sqlConnection)
+	{
+		if (sqlConnection == null)
+			return;
+		PooledConnection pooledConnection = connections.get(sqlConnection);
+		long lease = pooledConnection != null ? pooledConnection.lease.get() : PooledConnection.FREE;
+		if (lease <= PooledConnection.FREE || !pooledConnection.lease.compareAndSet(lease, PooledConnection.RELEASING))
+		{// 以原子操作结束本次租用，同一租用被多个线程同时回收时只有一个成功
+			Logger.getLogger(ConcurrentSqlConnectionPool.class.getName()).log(Level.SEVERE, null, new Exception("回收的数据库连接不属于连接池或已回收：" + connectionConfigBean.getPoolName()));
+			return;
+		}
+		activeCount.decrementAndGet();
+		if (!isAvailable || !sqlConnection.isAvailable())
+		{
+			discard(pooledConnection);
+			return;
+		}
+		release(pooledConnection);
+	}
+
+	/**
+	 * 将回收中的连接交给等待线程，没有等待线程时放回空闲列表，空闲连接已超出最大空闲连接数时关闭
+	 * @param pooledConnection 回收中的连接
+	 */
+	private void release(PooledConnection pooledConnection)
+	{
+		Waiter waiter;
+		while ((waiter = waiters.poll()) != null)
+		{
+			if (waiter.state.get() == Waiter.WAITING)
+			{
+				pooledConnection.lease.set(leaseSequence.incrementAndGet());
+				waiter.pooledConnection = pooledConnection;
+				if (waiter.state.compareAndSet(Waiter.WAITING, Waiter.FULFILLED))
+				{// 连接以新的租用序号直接交给等待线程
+					handoffCount.incrementAndGet();
+					LockSupport.unpark(waiter.thread);
+					return;
+				}
+				waiter.pooledConnection = null;
+				pooledConnection.lease.set(PooledConnection.RELEASING);
+			}
+		}
+		if (connectionCount.get() - activeCount.get() > connectionConfigBean.getMaxFreeConnections())
+		{
+			discard(pooledConnection);
+			return;
+		}
+		pooledConnection.lease.set(PooledConnection.FREE);
+		if (pooledConnection.isQueued.compareAndSet(false, true))
+		{
+			freeConnections.offerFirst(pooledConnection);
+		}
+		if (!waiters.isEmpty())
+		{// 放回期间有线程进入等待队列，重新取用交给等待线程
+			if (pooledConnection.lease.compareAndSet(PooledConnection.FREE, PooledConnection.RELEASING))
+			{
+				release(pooledConnection);
+			}
+		}
+	}
+
+	/**
+	 * 关闭并移除连接
+	 * @param pooledConnection 连接
+	 */
+	private void discard(PooledConnection pooledConnection)
+	{
+		if (close(pooledConnection))
+		{
+			connectionCount.decrementAndGet();
+		}
+	}
+
+	/**
+	 * 关闭并移除连接，不减少连接总数
+	 * @param pooledConnection 连接
+	 * @return 连接由本次调用移除时返回true，此时其占用的名额需由调用方释放或转给新连接
+	 */
+	private boolean close(PooledConnection pooledConnection)
+	{
+		boolean isRemoved = connections.remove(pooledConnection.sqlConnection) != null;
+		pooledConnection.isClosed = true;
+		freeConnections.remove(pooledConnection);
+		pooledConnection.sqlConnection.close();
+		return isRemoved;
+	}
+
+	/**
+	 * 记录等待时间
+	 * @param time 等待时间(纳秒)
+	 */
+	private void recordWaitTime(long time)
+	{
+		waitTime.addAndGet(time);
+		long millis = TimeUnit.NANOSECONDS.toMillis(time);
+		int index = 0;
+		while (index < WAIT_TIME_BOUNDS.length && millis >= WAIT_TIME_BOUNDS[index])
+		{
+			index++;
+		}
+		waitTimeCounts.incrementAndGet(index);
+	}
+
+	/**
+	 * 取得连接总数
+	 * @return
+	 */
+	public int getConnectionsCount()
+	{
+		return connectionCount.get();
+	}
+
+	/**
+	 * 活动连接数
+	 * @return activeCount
+	 */
+	public int getActiveCount()
+	{
+		return activeCount.get();
+	}
+
+	/**
+	 * 空闲连接数
+	 * @return 连接总数减去活动连接数
+	 */
+	public int getIdleCount()
+	{
+		return Math.max(connectionCount.get() - activeCount.get(), 0);
+	}
+
+	/**
+	 * 等待中的线程数
+	 * @return waitingCount
+	 */
+	public int getWaitingCount()
+	{
+		return waitingCount.get();
+	}
+
+	/**
+	 * 取得连接的次数
+	 * @return acquireCount
+	 */
+	public long getAcquireCount()
+	{
+		return acquireCount.get();
+	}
+
+	/**
+	 * 取用线程上次使用的连接的次数
+	 * @return affinityCount
+	 */
+	public long getAffinityCount()
+	{
+		return affinityCount.get();
+	}
+
+	/**
+	 * 回收时直接交给等待线程的次数
+	 * @return handoffCount
+	 */
+	public long getHandoffCount()
+	{
+		return handoffCount.get();
+	}
+
+	/**
+	 * 等待超时的次数
+	 * @return timeoutCount
+	 */
+	public long getTimeoutCount()
+	{
+		return timeoutCount.get();
+	}
+
+	/**
+	 * 创建连接的次数
+	 * @return createCount
+	 */
+	public long getCreateCount()
+	{
+		return createCount.get();
+	}
+
+	/**
+	 * 累计等待时间(纳秒)
+	 * @return waitTime
+	 */
+	public long getWaitTime()
+	{
+		return waitTime.get();
+	}
+
+	/**
+	 * 等待时间分布的各区间上限(毫秒)
+	 * @return 区间上限列表，等待时间分布比其多一个区间，为大于等于最后一个上限的次数
+	 */
+	public long[] getWaitTimeBounds()
+	{
+		return WAIT_TIME_BOUNDS.clone();
+	}
+
+	/**
+	 * 等待时间分布
+	 * @return 每个区间的等待次数
+	 */
+	public long[] getWaitTimeCounts()
+	{
+		long[] counts = new long[waitTimeCounts.length()];
+		for (int i = 0; i < counts.length; i++)
+		{
+			counts[i] = waitTimeCounts.get(i);
+		}
+		return counts;
+	}
+
+	/**
+	 * 关闭当前连接池(会关闭池中所有的连接)，等待中的线程立即返回null
+	 */
+	public void closeConnectionPool()
+	{
+		isAvailable = false;
+		Waiter waiter;
+		while ((waiter = waiters.poll()) != null)
+		{
+			LockSupport.unpark(waiter.thread);
+		}
+		for (PooledConnection pooledConnection : connections.values())
+		{
+			discard(pooledConnection);
+		}
+		freeConnections.clear();
+	}
+
+	public String toString()
+	{
+		StringBuilder waitTimes = new StringBuilder();
+		for (int i = 0; i < waitTimeCounts.length(); i++)
+		{
+			waitTimes.append(i != 0 ? "," : "").append(i < WAIT_TIME_BOUNDS.length ? "<" + WAIT_TIME_BOUNDS[i] : ">=" + WAIT_TIME_BOUNDS[WAIT_TIME_BOUNDS.length - 1]).append("ms:").append(waitTimeCounts.get(i));
+		}
+		return "poolName=" + connectionConfigBean.getPoolName() + ", connections=" + connectionCount.get() + ", active=" + activeCount.get() + ", idle=" + getIdleCount() + ", waiting=" + waitingCount.get() + ", acquireCount=" + acquireCount.get() + ", affinityCount=" + affinityCount.get() + ", handoffCount=" + handoffCount.get() + ", timeoutCount=" + timeoutCount.get() + ", createCount=" + createCount.get() + ", waitTimes=[" + waitTimes + "]";
+	}
+
+	/**
+	 * 池中的连接
+	 */
+	private static class PooledConnection
+	{
+		/**
+		 * 空闲
+		 */
+		final static long FREE = 0;
+
+		/**
+		 * 回收中，已结束租用但尚未放回空闲列表或交给等待线程
+		 */
+		final static long RELEASING = -1;
+
+		/**
+		 * 连接
+		 */
+		final ISqlConnection sqlConnection;
+
+		/**
+		 * 租用状态，使用中时为本次租用的序号，以原子操作取用及回收
+		 */
+		final AtomicLong lease = new AtomicLong(FREE);
+
+		/**
+		 * 是否在空闲列表中
+		 */
+		final AtomicBoolean isQueued = new AtomicBoolean(false);
+
+		/**
+		 * 是否已关闭
+		 */
+		volatile boolean isClosed;
+
+		PooledConnection(ISqlConnection sqlConnection)
+		{
+			this.sqlConnection = sqlConnection;
+		}
+	}
+
+	/**
+	 * 等待连接的线程
+	 */
+	private static class Waiter
+	{
+		/**
+		 * 等待中
+		 */
+		final static int WAITING = 0;
+
+		/**
+		 * 已交给连接
+		 */
+		final static int FULFILLED = 1;
+
+		/**
+		 * 已超时或取消
+		 */
+		final static int CANCELLED = 2;
+
+		/**
+		 * 等待的线程
+		 */
+		final Thread thread;
+
+		/**
+		 * 等待状态
+		 */
+		final AtomicInteger state = new AtomicInteger(WAITING);
+
+		/**
+		 * 交给的连接，状态设置为已交给前写入
+		 */
+		volatile PooledConnection pooledConnection;
+
+		Waiter(Thread thread)
+		{
+			this.thread = thread;
+		}
+	}
+}
@@ -0,0 +1,18 @@
+package base.data.sql;
+
+/**
+ * 异步SQL执行完成回调
+ * 在执行SQL的线程中调用，不允许在回调中执行耗时操作或同步等待其他异步SQL的结果
+ * @author Devin
+ *
+ * @param <T> 执行结果类型
+ */
+public interface ISqlAsyncCallback<T>
+{
+	/**
+	 * 执行完成
+	 * @param result 执行结果，出错、被拒绝或被取消时为null
+	 * @param error 出错、被拒绝或被取消时的异常，正常完成时为null
+	 */
+	public void complete(T result, Throwable error);
+}
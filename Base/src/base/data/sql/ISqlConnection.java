@@ -3,6 +3,8 @@ package base.data.sql;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 import java.util.Vector;
 
 public interface ISqlConnection
@@ -28,6 +30,30 @@ public interface ISqlConnection
 	 */
 	public ResultSet executeQuery(String sql, ISqlConnectionParameter sqlConnectionParameter);
 
+	/**
+	 * 执行SQL
+	 * @param sql Sql语句，以“?”做为参数占位符
+	 * @param sqlTypedParameter 按位置设置的强类型参数值集，执行后不被释放，可为null
+	 * @return ResultSet
+	 */
+	public ResultSet executeQuery(String sql, ISqlTypedParameter sqlTypedParameter);
+
+	/**
+	 * 打开只能向前读取的结果集，结果集不缓存至内存，由调用方逐行读取后调用closeQuery关闭
+	 * 同一连接同时只能打开一个结果集，关闭前连接不允许归还连接池
+	 * @param sql Sql语句，以“?”做为参数占位符
+	 * @param sqlTypedParameter 按位置设置的强类型参数值集，可为null
+	 * @param fetchSize 每次从数据库取得的行数，0为驱动默认值，MySQL驱动使用Integer.MIN_VALUE时逐行读取
+	 * @return 结果集，执行出错时返回null
+	 */
+	public ResultSet openQuery(String sql, ISqlTypedParameter sqlTypedParameter, int fetchSize);
+
+	/**
+	 * 关闭由openQuery打开的结果集
+	 * @param resultSet 结果集
+	 */
+	public void closeQuery(ResultSet resultSet);
+
 	/**
 	 * 执行 SQL 语句
 	 * 主要用于执行非查询语句
@@ -37,6 +63,15 @@ public interface ISqlConnection
 	 */
 	public boolean executeUpdate(String sql, ISqlConnectionParameter sqlConnectionParameter);
 
+	/**
+	 * 执行 SQL 语句
+	 * 主要用于执行非查询语句
+	 * @param sql SQL 语句，以“?”做为参数占位符
+	 * @param sqlTypedParameter 按位置设置的强类型参数值集，执行后不被释放，可为null
+	 * @return 正常执行返回true,否则返回false
+	 */
+	public boolean executeUpdate(String sql, ISqlTypedParameter sqlTypedParameter);
+
 	/**
 	 * 执行 SQL 语句
 	 * 主要用于执行非查询语句
@@ -50,6 +85,29 @@ public interface ISqlConnection
 	 */
 	public boolean executeUpdate(Vector<String> sqls);
 
+	/**
+	 * 以PreparedStatement批量执行 SQL 语句
+	 * 每条SQL语句只预编译一次，其参数值集逐行绑定后以JDBC批处理提交，全部语句在同一事务中执行
+	 * @param sqlBatches SQL语句及其参数值集列表，SQL语句以“?”做为参数占位符，按Map的迭代顺序执行，
+	 * 比如：
+	 * LinkedHashMap<String, List<Object[]>> sqlBatches=new LinkedHashMap<String, List<Object[]>>();
+	 * sqlBatches.put("UPDATE 表名 SET 字段1=?, 字段2=? WHERE 主键=?", 参数值集列表);
+	 * @return 全部正常执行返回true,否则返回false，如果存在一个执行失败，会执行回滚事务
+	 */
+	public boolean executeBatch(Map<String, List<Object[]>> sqlBatches);
+
+	/**
+	 * 设置缓存的最大PreparedStatement数
+	 * @param statementCacheSize 小于等于0时不缓存，已缓存的语句超出时立即关闭
+	 */
+	public void setStatementCacheSize(int statementCacheSize);
+
+	/**
+	 * PreparedStatement缓存，可取得命中、未命中及淘汰次数
+	 * @return statementCache
+	 */
+	public SqlStatementCache getStatementCache();
+
 	/**
 	 * 关闭库物理连接
 	 * @throws SQLException
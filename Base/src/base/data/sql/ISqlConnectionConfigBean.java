@@ -1,5 +1,7 @@
 package base.data.sql;
 
+import base.types.SqlConnectionPoolType;
+
 public interface ISqlConnectionConfigBean
 {
 	/**
@@ -91,4 +93,24 @@ public interface ISqlConnectionConfigBean
 	 * @param connectionTimeOut 等待重连时间
 	 */
 	public void setConnectionTimeOut(long connectionTimeOut);
+
+	/**
+	 * 连接池类型
+	 */
+	public SqlConnectionPoolType getPoolType();
+
+	/**
+	 * @param poolType 连接池类型
+	 */
+	public void setPoolType(SqlConnectionPoolType poolType);
+
+	/**
+	 * 每个连接缓存的最大PreparedStatement数，小于等于0时不缓存
+	 */
+	public int getStatementCacheSize();
+
+	/**
+	 * @param statementCacheSize 每个连接缓存的最大PreparedStatement数，小于等于0时不缓存
+	 */
+	public void setStatementCacheSize(int statementCacheSize);
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+package base.data.sql;
+
+/**
+ * 数据库连接池
+ * @author Devin
+ *
+ */
+public interface ISqlConnectionPool
+{
+	/**
+	 * 池是否可用
+	 * @return
+	 */
+	public boolean isAvailable();
+
+	/**
+	 * 取得连接，没有空闲连接且已达到最大活动连接数时等待，超出等待时间返回null
+	 * @return 连接，取不到时返回null
+	 */
+	public ISqlConnection getConnection();
+
+	/**
+	 * 回收连接
+	 * @param sqlConnection 要回收的sql连接
+	 */
+	public void releaseConnection(ISqlConnection sqlConnection);
+
+	/**
+	 * 取得连接总数
+	 * @return
+	 */
+	public int getConnectionsCount();
+
+	/**
+	 * 关闭当前连接池(会关闭池中所有的连接)
+	 */
+	public void closeConnectionPool();
+}
@@ -0,0 +1,105 @@
+package base.data.sql;
+
+import java.sql.SQLException;
+import java.util.Date;
+
+/**
+ * 查询结果的当前行
+ * 逐行读取时同一个实例在每行之间重复使用，只能在当前行内读取，不允许保存引用在移动到下一行后继续使用
+ * @author Devin
+ *
+ */
+public interface ISqlRow
+{
+	/**
+	 * 当前行号，从1开始
+	 * @return 行号
+	 */
+	public long getRowNumber();
+
+	/**
+	 * 列数
+	 * @return 列数
+	 * @throws SQLException
+	 */
+	public int getColumnCount() throws SQLException;
+
+	/**
+	 * 列名
+	 * @param columnIndex 列位置，从1开始
+	 * @return 列名
+	 * @throws SQLException
+	 */
+	public String getColumnName(int columnIndex) throws SQLException;
+
+	/**
+	 * 列值对应的Java类名
+	 * @param columnIndex 列位置，从1开始
+	 * @return 类名，比如：java.lang.Long
+	 * @throws SQLException
+	 */
+	public String getColumnClassName(int columnIndex) throws SQLException;
+
+	/**
+	 * 最后读取的列值是否为NULL，基本类型的列值为NULL时返回0或false
+	 * @return 为NULL返回true
+	 * @throws SQLException
+	 */
+	public boolean wasNull() throws SQLException;
+
+	public int getInt(int columnIndex) throws SQLException;
+
+	public int getInt(String columnName) throws SQLException;
+
+	public long getLong(int columnIndex) throws SQLException;
+
+	public long getLong(String columnName) throws SQLException;
+
+	public short getShort(int columnIndex) throws SQLException;
+
+	public short getShort(String columnName) throws SQLException;
+
+	public byte getByte(int columnIndex) throws SQLException;
+
+	public byte getByte(String columnName) throws SQLException;
+
+	public boolean getBoolean(int columnIndex) throws SQLException;
+
+	public boolean getBoolean(String columnName) throws SQLException;
+
+	public float getFloat(int columnIndex) throws SQLException;
+
+	public float getFloat(String columnName) throws SQLException;
+
+	public double getDouble(int columnIndex) throws SQLException;
+
+	public double getDouble(String columnName) throws SQLException;
+
+	public String getString(int columnIndex) throws SQLException;
+
+	public String getString(String columnName) throws SQLException;
+
+	/**
+	 * 日期列值，以Timestamp读取以保留时间部分
+	 * @param columnIndex 列位置，从1开始
+	 * @return 列值，为NULL时返回null
+	 * @throws SQLException
+	 */
+	public Date getDate(int columnIndex) throws SQLException;
+
+	/**
+	 * 日期列值，以Timestamp读取以保留时间部分
+	 * @param columnName 列名
+	 * @return 列值，为NULL时返回null
+	 * @throws SQLException
+	 */
+	public Date getDate(String columnName) throws SQLException;
+
+	public byte[] getBytes(int columnIndex) throws SQLException;
+
+	public byte[] getBytes(String columnName) throws SQLException;
+
+	public Object getObject(int columnIndex) throws SQLException;
+
+	public Object getObject(String columnName) throws SQLException;
+}
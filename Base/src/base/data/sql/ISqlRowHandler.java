@@ -0,0 +1,20 @@
+package base.data.sql;
+
+import java.sql.SQLException;
+
+/**
+ * 查询结果逐行处理
+ * 处理期间一直占用数据库连接，全部行处理完成、处理中止或出错后连接归还连接池
+ * @author Devin
+ *
+ */
+public interface ISqlRowHandler
+{
+	/**
+	 * 处理一行
+	 * @param row 当前行，在各行之间重复使用，不允许在方法返回后继续使用
+	 * @return 返回true继续处理下一行，返回false中止处理
+	 * @throws SQLException
+	 */
+	public boolean handle(ISqlRow row) throws SQLException;
+}
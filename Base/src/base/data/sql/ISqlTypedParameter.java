@@ -0,0 +1,134 @@
+package base.data.sql;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Date;
+
+/**
+ * 按位置设置的强类型参数值集
+ * 用于以“?”为参数占位符的SQL语句，参数位置从1开始，基本类型的值不装箱，绑定时不进行类型反射
+ * @author Devin
+ *
+ */
+public interface ISqlTypedParameter
+{
+	/**
+	 * 设置int参数值
+	 * @param parameterIndex 参数位置，从1开始
+	 * @param value 值
+	 * @return 参数值集本身
+	 */
+	public ISqlTypedParameter setInt(int parameterIndex, int value);
+
+	/**
+	 * 设置long参数值
+	 * @param parameterIndex 参数位置，从1开始
+	 * @param value 值
+	 * @return 参数值集本身
+	 */
+	public ISqlTypedParameter setLong(int parameterIndex, long value);
+
+	/**
+	 * 设置short参数值
+	 * @param parameterIndex 参数位置，从1开始
+	 * @param value 值
+	 * @return 参数值集本身
+	 */
+	public ISqlTypedParameter setShort(int parameterIndex, short value);
+
+	/**
+	 * 设置byte参数值
+	 * @param parameterIndex 参数位置，从1开始
+	 * @param value 值
+	 * @return 参数值集本身
+	 */
+	public ISqlTypedParameter setByte(int parameterIndex, byte value);
+
+	/**
+	 * 设置boolean参数值
+	 * @param parameterIndex 参数位置，从1开始
+	 * @param value 值
+	 * @return 参数值集本身
+	 */
+	public ISqlTypedParameter setBoolean(int parameterIndex, boolean value);
+
+	/**
+	 * 设置float参数值
+	 * @param parameterIndex 参数位置，从1开始
+	 * @param value 值
+	 * @return 参数值集本身
+	 */
+	public ISqlTypedParameter setFloat(int parameterIndex, float value);
+
+	/**
+	 * 设置double参数值
+	 * @param parameterIndex 参数位置，从1开始
+	 * @param value 值
+	 * @return 参数值集本身
+	 */
+	public ISqlTypedParameter setDouble(int parameterIndex, double value);
+
+	/**
+	 * 设置String参数值
+	 * @param parameterIndex 参数位置，从1开始
+	 * @param value 值，为null时绑定为NULL
+	 * @return 参数值集本身
+	 */
+	public ISqlTypedParameter setString(int parameterIndex, String value);
+
+	/**
+	 * 设置日期参数值，以Timestamp绑定以保留时间部分
+	 * @param parameterIndex 参数位置，从1开始
+	 * @param value 值，为null时绑定为NULL
+	 * @return 参数值集本身
+	 */
+	public ISqlTypedParameter setDate(int parameterIndex, Date value);
+
+	/**
+	 * 设置日期参数值，以Timestamp绑定
+	 * @param parameterIndex 参数位置，从1开始
+	 * @param timeMillis 毫秒时间
+	 * @return 参数值集本身
+	 */
+	public ISqlTypedParameter setTimestamp(int parameterIndex, long timeMillis);
+
+	/**
+	 * 设置二进制参数值
+	 * @param parameterIndex 参数位置，从1开始
+	 * @param value 值，为null时绑定为NULL
+	 * @return 参数值集本身
+	 */
+	public ISqlTypedParameter setBytes(int parameterIndex, byte[] value);
+
+	/**
+	 * 设置NULL参数值
+	 * @param parameterIndex 参数位置，从1开始
+	 * @param sqlType java.sql.Types中定义的SQL类型
+	 * @return 参数值集本身
+	 */
+	public ISqlTypedParameter setNull(int parameterIndex, int sqlType);
+
+	/**
+	 * 已设置的最大参数位置
+	 * @return 参数个数
+	 */
+	public int size();
+
+	/**
+	 * 将参数值按位置绑定到PreparedStatement
+	 * @param preparedStatement PreparedStatement
+	 * @throws SQLException 存在未设置的参数位置时抛出
+	 */
+	public void bind(PreparedStatement preparedStatement) throws SQLException;
+
+	/**
+	 * 清除所有参数值，清除后可重新设置以重复使用
+	 */
+	public void clear();
+
+	/**
+	 * 复制参数值集，用于在其他线程中执行时保留当前的参数值，二进制值同时复制其内容
+	 * @return 新的参数值集
+	 */
+	public ISqlTypedParameter copy();
+}
@@ -0,0 +1,532 @@
+package base.data.sql;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.sql.rowset.CachedRowSet;
+
+/**
+ * 异步SQL执行控制器
+ * 在SqlController之上提供返回Future的异步执行，调用线程(如网络读取线程)不会因数据库执行缓慢而阻塞；
+ * 每个数据库连接池使用独立的固定大小线程池及有界队列执行，队列已满时立即以RejectedExecutionException完成返回的Future，由调用方决定降级或重试；
+ * 开启查询合并后，同一连接池中SQL语句及参数值都相同、且仍在执行中的查询只执行一次，各调用方取得共享数据的独立结果集。
+ * @author Devin
+ *
+ */
+public class SqlAsyncController
+{
+	/**
+	 * 默认每个连接池的执行线程数
+	 */
+	public final static int DEFAULT_THREADS = 4;
+
+	/**
+	 * 默认每个连接池的最大排队任务数
+	 */
+	public final static int DEFAULT_MAX_QUEUE_SIZE = 1024;
+
+	/**
+	 * 数据库连接池控制器
+	 */
+	private final SqlController sqlController;
+
+	/**
+	 * 各连接池的执行线程池
+	 */
+	private final ConcurrentHashMap<String, ThreadPoolExecutor> executors = new ConcurrentHashMap<String, ThreadPoolExecutor>();
+
+	/**
+	 * 执行中的可合并查询
+	 */
+	private final ConcurrentHashMap<QueryKey, InFlightQuery> inFlightQueries = new ConcurrentHashMap<QueryKey, InFlightQuery>();
+
+	/**
+	 * 是否合并执行中的相同查询
+	 */
+	private volatile boolean isCoalesceQuery;
+
+	/**
+	 * 因队列已满被拒绝的任务数，不含执行线程池关闭后被拒绝的任务
+	 */
+	private final AtomicLong rejectedCount = new AtomicLong();
+
+	/**
+	 * 被合并的查询数
+	 */
+	private final AtomicLong coalescedCount = new AtomicLong();
+
+	/**
+	 * 异步SQL执行控制器
+	 * @param sqlController 数据库连接池控制器
+	 */
+	public SqlAsyncController(SqlController sqlController)
+	{
+		this.sqlController = sqlController;
+	}
+
+	/**
+	 * 创建连接池的执行线程池，未创建时首次异步执行将以默认值创建
+	 * @param poolName 数据库连接池名
+	 * @param threads 执行线程数，不应大于连接池的最大活动连接数
+	 * @param maxQueueSize 最大排队任务数，超出时新任务被拒绝
+	 * @return 执行线程池，已存在时返回null
+	 */
+	public ThreadPoolExecutor createExecutor(String poolName, int threads, int maxQueueSize)
+	{
+		ThreadPoolExecutor executor = newExecutor(poolName, threads, maxQueueSize);
+		if (executors.putIfAbsent(poolName, executor) != null)
+		{
+			executor.shutdown();
+			Logger.getLogger(SqlAsyncController.class.getName()).log(Level.SEVERE, null, new Exception("已存在连接池 " + poolName + " 的异步执行线程池，无法创建，返回 null"));
+			return null;
+		}
+		return executor;
+	}
+
+	/**
+	 * 创建执行线程池
+	 * @param poolName 数据库连接池名
+	 * @param threads 执行线程数
+	 * @param maxQueueSize 最大排队任务数
+	 * @return 执行线程池
+	 */
+	private ThreadPoolExecutor newExecutor(final String poolName, int threads, int maxQueueSize)
+	{
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(Math.max(maxQueueSize, 1)), new ThreadFactory()
+		{
+			private final AtomicInteger threadNumber = new AtomicInteger();
+
+			public Thread newThread(Runnable runnable)
+			{
+				return new Thread(runnable, "SqlAsync-" + poolName + "-" + threadNumber.incrementAndGet());
+			}
+		});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * 取得连接池的执行线程池，不存在时以默认值创建
+	 * @param poolName 数据库连接池名
+	 * @return 执行线程池
+	 */
+	private ThreadPoolExecutor getExecutor(String poolName)
+	{
+		ThreadPoolExecutor executor = executors.get(poolName);
+		if (executor == null)
+		{
+			ThreadPoolExecutor newExecutor = newExecutor(poolName, DEFAULT_THREADS, DEFAULT_MAX_QUEUE_SIZE);
+			executor = executors.putIfAbsent(poolName, newExecutor);
+			if (executor == null)
+			{
+				executor = newExecutor;
+			}
+			else
+			{
+				newExecutor.shutdown();
+			}
+		}
+		return executor;
+	}
+
+	/**
+	 * 关闭连接池的执行线程池，已排队的任务仍会执行完成
+	 * @param poolName 数据库连接池名
+	 */
+	public void closeExecutor(String poolName)
+	{
+		ThreadPoolExecutor executor = executors.remove(poolName);
+		if (executor != null)
+		{
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * 关闭所有执行线程池，已排队的任务仍会执行完成
+	 */
+	public void closeAllExecutor()
+	{
+		for (String poolName : executors.keySet())
+		{
+			closeExecutor(poolName);
+		}
+	}
+
+	/**
+	 * 连接池当前排队的任务数
+	 * @param poolName 数据库连接池名
+	 * @return 排队任务数，未创建执行线程池时返回0
+	 */
+	public int getQueueDepth(String poolName)
+	{
+		ThreadPoolExecutor executor = executors.get(poolName);
+		return executor != null ? executor.getQueue().size() : 0;
+	}
+
+	/**
+	 * 是否合并执行中的相同查询
+	 * @return isCoalesceQuery
+	 */
+	public boolean getIsCoalesceQuery()
+	{
+		return isCoalesceQuery;
+	}
+
+	/**
+	 * 是否合并执行中的相同查询
+	 * @param isCoalesceQuery 为true时，SQL语句及参数值都相同的查询在执行完成前只执行一次，只应用于只读查询
+	 */
+	public void setIsCoalesceQuery(boolean isCoalesceQuery)
+	{
+		this.isCoalesceQuery = isCoalesceQuery;
+	}
+
+	/**
+	 * 因队列已满被拒绝的任务数，不含执行线程池关闭后被拒绝的任务
+	 * @return rejectedCount
+	 */
+	public long getRejectedCount()
+	{
+		return rejectedCount.get();
+	}
+
+	/**
+	 * 被合并的查询数
+	 * @return coalescedCount
+	 */
+	public long getCoalescedCount()
+	{
+		return coalescedCount.get();
+	}
+
+	/**
+	 * 异步执行SQL查询
+	 * @param poolName Sql连接池名称
+	 * @param sql Sql语句，以“?”做为参数占位符
+	 * @param sqlTypedParameter 按位置设置的强类型参数值集，提交时复制，提交后可立即修改或重复使用，可为null
+	 * @param callback 完成回调，可为null
+	 * @return 查询结果，结果集已缓存至内存，执行出错时结果为null
+	 */
+	public Future<ResultSet> executeQuery(final String poolName, final String sql, ISqlTypedParameter sqlTypedParameter, ISqlAsyncCallback<ResultSet> callback)
+	{
+		final SqlAsyncFuture<ResultSet> future = new SqlAsyncFuture<ResultSet>(callback);
+		final ISqlTypedParameter parameter = sqlTypedParameter != null ? sqlTypedParameter.copy() : null;
+		if (!isCoalesceQuery)
+		{
+			execute(poolName, sql, future, new Runnable()
+			{
+				public void run()
+				{
+					if (future.isCancelled())
+						return;
+					try
+					{
+						future.complete(sqlController.executeQuery(poolName, sql, parameter));
+					}
+					catch (Throwable e)
+					{
+						future.fail(e);
+					}
+				}
+			});
+			return future;
+		}
+
+		final QueryKey queryKey = new QueryKey(poolName, sql, parameter);
+		while (true)
+		{
+			InFlightQuery inFlightQuery = inFlightQueries.get(queryKey);
+			if (inFlightQuery != null)
+			{
+				if (inFlightQuery.join(future))
+				{
+					coalescedCount.incrementAndGet();
+					return future;
+				}
+				inFlightQueries.remove(queryKey, inFlightQuery);
+				continue;
+			}
+			final InFlightQuery newInFlightQuery = new InFlightQuery();
+			newInFlightQuery.join(future);
+			if (inFlightQueries.putIfAbsent(queryKey, newInFlightQuery) != null)
+				continue;
+			RejectedExecutionException rejected = execute(poolName, sql, null, new Runnable()
+			{
+				public void run()
+				{
+					ResultSet resultSet = null;
+					Throwable error = null;
+					try
+					{
+						resultSet = sqlController.executeQuery(poolName, sql, parameter);
+					}
+					catch (Throwable e)
+					{
+						error = e;
+					}
+					finally
+					{// 先移除再关闭，之后到达的相同查询将重新执行以取得最新数据
+						inFlightQueries.remove(queryKey, newInFlightQuery);
+					}
+					completeAll(newInFlightQuery.close(), resultSet, error);
+				}
+			});
+			if (rejected != null)
+			{
+				inFlightQueries.remove(queryKey, newInFlightQuery);
+				completeAll(newInFlightQuery.close(), null, rejected);
+			}
+			return future;
+		}
+	}
+
+	/**
+	 * 以同一查询结果完成所有合并的调用，第一个调用取得原结果集，其他调用取得共享数据的独立结果集
+	 * @param futures 合并的调用
+	 * @param resultSet 查询结果
+	 * @param error 执行出错时的异常
+	 */
+	private void completeAll(List<SqlAsyncFuture<ResultSet>> futures, ResultSet resultSet, Throwable error)
+	{
+		boolean isResultSetUsed = false;
+		for (SqlAsyncFuture<ResultSet> future : futures)
+		{
+			if (error != null)
+			{
+				future.fail(error);
+				continue;
+			}
+			if (future.isCancelled())
+				continue;
+			ResultSet futureResultSet = resultSet;
+			try
+			{
+				if (isResultSetUsed && resultSet instanceof CachedRowSet)
+				{
+					futureResultSet = ((CachedRowSet) resultSet).createShared();
+				}
+			}
+			catch (Exception e)
+			{
+				future.fail(e);
+				continue;
+			}
+			if (future.complete(futureResultSet) && futureResultSet == resultSet)
+			{
+				isResultSetUsed = true;
+			}
+		}
+	}
+
+	/**
+	 * 异步执行SQL
+	 * @param poolName Sql连接池名称
+	 * @param sql Sql语句，以“?”做为参数占位符
+	 * @param sqlTypedParameter 按位置设置的强类型参数值集，提交时复制，提交后可立即修改或重复使用，可为null
+	 * @param callback 完成回调，可为null
+	 * @return 执行结果，执行成功为true，否则为false
+	 */
+	public Future<Boolean> executeUpdate(final String poolName, final String sql, ISqlTypedParameter sqlTypedParameter, ISqlAsyncCallback<Boolean> callback)
+	{
+		final SqlAsyncFuture<Boolean> future = new SqlAsyncFuture<Boolean>(callback);
+		final ISqlTypedParameter parameter = sqlTypedParameter != null ? sqlTypedParameter.copy() : null;
+		execute(poolName, sql, future, new Runnable()
+		{
+			public void run()
+			{
+				if (future.isCancelled())
+					return;
+				try
+				{
+					future.complete(sqlController.executeUpdate(poolName, sql, parameter));
+				}
+				catch (Throwable e)
+				{
+					future.fail(e);
+				}
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * 异步以PreparedStatement批量执行 SQL 语句，全部语句在同一事务中执行
+	 * @param poolName Sql连接池名称
+	 * @param sqlBatches SQL语句及其参数值集列表，SQL语句以“?”做为参数占位符，按Map的迭代顺序执行，执行完成前不允许修改
+	 * @param callback 完成回调，可为null
+	 * @return 执行结果，全部正常执行为true，否则为false
+	 */
+	public Future<Boolean> executeBatch(final String poolName, final Map<String, List<Object[]>> sqlBatches, ISqlAsyncCallback<Boolean> callback)
+	{
+		final SqlAsyncFuture<Boolean> future = new SqlAsyncFuture<Boolean>(callback);
+		execute(poolName, String.valueOf(sqlBatches.keySet()), future, new Runnable()
+		{
+			public void run()
+			{
+				if (future.isCancelled())
+					return;
+				try
+				{
+					future.complete(sqlController.executeBatch(poolName, sqlBatches));
+				}
+				catch (Throwable e)
+				{
+					future.fail(e);
+				}
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * 异步以只能向前读取的结果集执行查询，由处理器在执行线程中逐行处理
+	 * @param poolName Sql连接池名称
+	 * @param sql Sql语句，以“?”做为参数占位符
+	 * @param sqlTypedParameter 按位置设置的强类型参数值集，提交时复制，提交后可立即修改或重复使用，可为null
+	 * @param fetchSize 每次从数据库取得的行数，0为驱动默认值，MySQL驱动使用Integer.MIN_VALUE时逐行读取
+	 * @param sqlRowHandler 行处理器
+	 * @param callback 完成回调，可为null
+	 * @return 执行结果，正常执行为true，否则为false
+	 */
+	public Future<Boolean> query(final String poolName, final String sql, ISqlTypedParameter sqlTypedParameter, final int fetchSize, final ISqlRowHandler sqlRowHandler, ISqlAsyncCallback<Boolean> callback)
+	{
+		final SqlAsyncFuture<Boolean> future = new SqlAsyncFuture<Boolean>(callback);
+		final ISqlTypedParameter parameter = sqlTypedParameter != null ? sqlTypedParameter.copy() : null;
+		execute(poolName, sql, future, new Runnable()
+		{
+			public void run()
+			{
+				if (future.isCancelled())
+					return;
+				try
+				{
+					future.complete(sqlController.query(poolName, sql, parameter, fetchSize, sqlRowHandler));
+				}
+				catch (Throwable e)
+				{
+					future.fail(e);
+				}
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * 提交到连接池的执行线程池
+	 * 执行线程池已关闭时拒绝的任务不计入rejectedCount
+	 * @param poolName 数据库连接池名
+	 * @param sql Sql语句，用于日志
+	 * @param future 被拒绝时以RejectedExecutionException完成，可为null
+	 * @param task 任务
+	 * @return 被拒绝时返回拒绝原由，提交成功返回null
+	 */
+	private RejectedExecutionException execute(String poolName, String sql, SqlAsyncFuture<?> future, Runnable task)
+	{
+		ThreadPoolExecutor executor = getExecutor(poolName);
+		try
+		{
+			executor.execute(task);
+			return null;
+		}
+		catch (RejectedExecutionException e)
+		{
+			RejectedExecutionException rejected;
+			if (executor.isShutdown())
+			{
+				rejected = new RejectedExecutionException("连接池 " + poolName + " 的异步执行线程池已关闭，SQL语句 " + sql + " 被拒绝。", e);
+				Logger.getLogger(SqlAsyncController.class.getName()).log(Level.SEVERE, null, rejected);
+			}
+			else
+			{
+				rejectedCount.incrementAndGet();
+				rejected = new RejectedExecutionException("连接池 " + poolName + " 的异步执行队列已满，SQL语句 " + sql + " 被拒绝。", e);
+				Logger.getLogger(SqlAsyncController.class.getName()).log(Level.WARNING, rejected.getMessage());
+			}
+			if (future != null)
+			{
+				future.fail(rejected);
+			}
+			return rejected;
+		}
+	}
+
+	/**
+	 * 可合并查询的标识，连接池名、SQL语句及参数值都相同时相等
+	 */
+	private static class QueryKey
+	{
+		private final String poolName;
+		private final String sql;
+		private final ISqlTypedParameter parameter;
+		private final int hash;
+
+		private QueryKey(String poolName, String sql, ISqlTypedParameter parameter)
+		{
+			this.poolName = poolName;
+			this.sql = sql;
+			this.parameter = parameter;
+			this.hash = (poolName.hashCode() * 31 + sql.hashCode()) * 31 + (parameter != null ? parameter.hashCode() : 0);
+		}
+
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+				return true;
+			if (!(obj instanceof QueryKey))
+				return false;
+			QueryKey other = (QueryKey) obj;
+			return hash == other.hash && poolName.equals(other.poolName) && sql.equals(other.sql) && (parameter == null ? other.parameter == null : parameter.equals(other.parameter));
+		}
+
+		public int hashCode()
+		{
+			return hash;
+		}
+	}
+
+	/**
+	 * 执行中的可合并查询
+	 */
+	private static class InFlightQuery
+	{
+		private final ArrayList<SqlAsyncFuture<ResultSet>> futures = new ArrayList<SqlAsyncFuture<ResultSet>>(2);
+		private boolean isClosed;
+
+		/**
+		 * 加入等待结果的调用
+		 * @param future 调用的结果
+		 * @return 查询已完成时返回false
+		 */
+		private synchronized boolean join(SqlAsyncFuture<ResultSet> future)
+		{
+			if (isClosed)
+				return false;
+			futures.add(future);
+			return true;
+		}
+
+		/**
+		 * 查询完成，不再接受新的调用
+		 * @return 等待结果的调用
+		 */
+		private synchronized List<SqlAsyncFuture<ResultSet>> close()
+		{
+			isClosed = true;
+			return futures;
+		}
+	}
+}
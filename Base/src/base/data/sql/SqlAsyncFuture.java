@@ -0,0 +1,157 @@
+package base.data.sql;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 异步SQL执行结果
+ * 只能完成一次，完成(正常、出错或取消)后调用回调；取消时不中断已开始执行的SQL，尚未开始执行的SQL将不再执行
+ * @author Devin
+ *
+ * @param <T> 执行结果类型
+ */
+public class SqlAsyncFuture<T> implements Future<T>
+{
+	private final static int STATE_WAITING = 0;
+	private final static int STATE_COMPLETED = 1;
+	private final static int STATE_FAILED = 2;
+	private final static int STATE_CANCELLED = 3;
+
+	/**
+	 * 状态
+	 */
+	private final AtomicInteger state = new AtomicInteger(STATE_WAITING);
+
+	/**
+	 * 完成信号
+	 */
+	private final CountDownLatch latch = new CountDownLatch(1);
+
+	/**
+	 * 完成回调，可为null
+	 */
+	private final ISqlAsyncCallback<T> callback;
+
+	/**
+	 * 执行结果
+	 */
+	private volatile T result;
+
+	/**
+	 * 出错时的异常
+	 */
+	private volatile Throwable error;
+
+	/**
+	 * 异步SQL执行结果
+	 * @param callback 完成回调，可为null
+	 */
+	public SqlAsyncFuture(ISqlAsyncCallback<T> callback)
+	{
+		this.callback = callback;
+	}
+
+	/**
+	 * 以执行结果完成
+	 * @param result 执行结果
+	 * @return 已完成过返回false
+	 */
+	public boolean complete(T result)
+	{
+		if (!state.compareAndSet(STATE_WAITING, STATE_COMPLETED))
+			return false;
+		this.result = result;
+		done();
+		return true;
+	}
+
+	/**
+	 * 以异常完成
+	 * @param error 异常
+	 * @return 已完成过返回false
+	 */
+	public boolean fail(Throwable error)
+	{
+		if (!state.compareAndSet(STATE_WAITING, STATE_FAILED))
+			return false;
+		this.error = error;
+		done();
+		return true;
+	}
+
+	public boolean cancel(boolean mayInterruptIfRunning)
+	{
+		if (!state.compareAndSet(STATE_WAITING, STATE_CANCELLED))
+			return false;
+		this.error = new CancellationException();
+		done();
+		return true;
+	}
+
+	/**
+	 * 唤醒等待的线程并调用回调
+	 */
+	private void done()
+	{
+		latch.countDown();
+		if (callback != null)
+		{
+			try
+			{
+				callback.complete(result, error);
+			}
+			catch (Exception e)
+			{
+				Logger.getLogger(SqlAsyncFuture.class.getName()).log(Level.SEVERE, null, e);
+			}
+		}
+	}
+
+	public boolean isCancelled()
+	{
+		return state.get() == STATE_CANCELLED;
+	}
+
+	public boolean isDone()
+	{
+		return state.get() != STATE_WAITING;
+	}
+
+	public T get() throws InterruptedException, ExecutionException
+	{
+		latch.await();
+		return report();
+	}
+
+	public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException
+	{
+		if (!latch.await(timeout, unit))
+			throw new TimeoutException();
+		return report();
+	}
+
+	/**
+	 * 取得完成后的结果
+	 * @return 执行结果
+	 * @throws ExecutionException 出错时抛出
+	 */
+	private T report() throws ExecutionException
+	{
+		switch (state.get())
+		{
+			case STATE_CANCELLED:
+				throw new CancellationException();
+			case STATE_FAILED:
+				throw new ExecutionException(error);
+			default:
+				return result;
+		}
+	}
+}
@@ -5,14 +5,17 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Vector;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import base.utils.DateUtil;
 
@@ -40,6 +43,21 @@ public class SqlConnection implements ISqlConnection
 	 */
 	private long createTestTime=0;
 
+	/**
+	 * PreparedStatement缓存，以原始SQL语句为键，重复执行的语句不再解析参数占位符及重新预编译
+	 */
+	private final SqlStatementCache statementCache = new SqlStatementCache(SqlStatementCache.DEFAULT_CAPACITY);
+
+	/**
+	 * 由openQuery打开结果集的语句，关闭结果集前不能被再次使用
+	 */
+	private SqlStatement openSqlStatement;
+
+	/**
+	 * 由openQuery打开结果集时设置的每次取得行数
+	 */
+	private int openFetchSize;
+
 	/**
 	 * 数据连接
 	 */
@@ -127,19 +145,20 @@ public class SqlConnection implements ISqlConnection
 	public ResultSet executeQuery(String sql, ISqlConnectionParameter sqlConnectionParameter)
 	{
 		CachedRowSetImpl crs = null;
+		SqlStatement sqlStatement = null;
 		lock.writeLock().lock();
 		try
 		{
-			PreparedStatement preparedStatement = getPreparedStatement(sql, sqlConnectionParameter);
-			if (preparedStatement != null)
+			sqlStatement = getSqlStatement(sql, sqlConnectionParameter);
+			if (sqlStatement != null)
 			{
 				crs = new CachedRowSetImpl();
-				ResultSet rs = preparedStatement.executeQuery();
+				ResultSet rs = sqlStatement.getPreparedStatement().executeQuery();
 				crs.populate(rs);
-				preparedStatement.close();
-				preparedStatement = null;
 				rs.close();
 				rs = null;
+				statementCache.release(sqlStatement);
+				sqlStatement = null;
 			}
 
 			if (sqlConnectionParameter != null)
@@ -150,6 +169,7 @@ public class SqlConnection implements ISqlConnection
 		}
 		catch (SQLException e)
 		{
+			statementCache.remove(sqlStatement);
 			Logger.getLogger(SqlConnection.class.getName()).log(Level.SEVERE, null, e);
 		}
 		finally
@@ -159,6 +179,133 @@ public class SqlConnection implements ISqlConnection
 		return crs;
 	}
 
+	/**
+	 * 执行SQL
+	 * @param sql Sql语句，以“?”做为参数占位符
+	 * @param sqlTypedParameter 按位置设置的强类型参数值集，执行后不被释放，可为null
+	 * @return ResultSet
+	 */
+	public ResultSet executeQuery(String sql, ISqlTypedParameter sqlTypedParameter)
+	{
+		CachedRowSetImpl crs = null;
+		SqlStatement sqlStatement = null;
+		lock.writeLock().lock();
+		try
+		{
+			sqlStatement = getSqlStatement(sql, sqlTypedParameter);
+			if (sqlStatement != null)
+			{
+				crs = new CachedRowSetImpl();
+				ResultSet rs = sqlStatement.getPreparedStatement().executeQuery();
+				crs.populate(rs);
+				rs.close();
+				rs = null;
+				statementCache.release(sqlStatement);
+				sqlStatement = null;
+			}
+		}
+		catch (SQLException e)
+		{
+			statementCache.remove(sqlStatement);
+			Logger.getLogger(SqlConnection.class.getName()).log(Level.SEVERE, "执行SQL语句出现错误：" + sql, e);
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+		return crs;
+	}
+
+	/**
+	 * 打开只能向前读取的结果集，结果集不缓存至内存，由调用方逐行读取后调用closeQuery关闭
+	 * 同一连接同时只能打开一个结果集，关闭前连接不允许归还连接池
+	 * @param sql Sql语句，以“?”做为参数占位符
+	 * @param sqlTypedParameter 按位置设置的强类型参数值集，可为null
+	 * @param fetchSize 每次从数据库取得的行数，0为驱动默认值，MySQL驱动使用Integer.MIN_VALUE时逐行读取
+	 * @return 结果集，执行出错时返回null
+	 */
+	public ResultSet openQuery(String sql, ISqlTypedParameter sqlTypedParameter, int fetchSize)
+	{
+		SqlStatement sqlStatement = null;
+		lock.writeLock().lock();
+		try
+		{
+			if (openSqlStatement != null)
+			{
+				Logger.getLogger(SqlConnection.class.getName()).log(Level.SEVERE, null, new Exception("执行SQL语句“" + sql + "”时，连接上一个逐行读取的结果集“" + openSqlStatement.getSql() + "”尚未关闭。"));
+				return null;
+			}
+			sqlStatement = getSqlStatement(sql, sqlTypedParameter);
+			if (sqlStatement == null)
+				return null;
+			PreparedStatement preparedStatement = sqlStatement.getPreparedStatement();
+			if (fetchSize != 0)
+			{
+				preparedStatement.setFetchSize(fetchSize);
+			}
+			ResultSet resultSet = preparedStatement.executeQuery();
+			openSqlStatement = sqlStatement;
+			openFetchSize = fetchSize;
+			return resultSet;
+		}
+		catch (SQLException e)
+		{
+			statementCache.remove(sqlStatement);
+			Logger.getLogger(SqlConnection.class.getName()).log(Level.SEVERE, "执行SQL语句出现错误：" + sql, e);
+			return null;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 关闭由openQuery打开的结果集
+	 * @param resultSet 结果集
+	 */
+	public void closeQuery(ResultSet resultSet)
+	{
+		lock.writeLock().lock();
+		try
+		{
+			SqlStatement sqlStatement = openSqlStatement;
+			openSqlStatement = null;
+			boolean isReusable = true;
+			try
+			{
+				if (resultSet != null)
+				{
+					resultSet.close();
+				}
+				if (sqlStatement != null && openFetchSize != 0)
+				{// 恢复驱动默认值，缓存的语句下次执行时不受本次设置影响
+					sqlStatement.getPreparedStatement().setFetchSize(0);
+				}
+			}
+			catch (SQLException e)
+			{
+				isReusable = false;
+				Logger.getLogger(SqlConnection.class.getName()).log(Level.SEVERE, null, e);
+			}
+			if (sqlStatement != null)
+			{
+				if (isReusable)
+				{
+					statementCache.release(sqlStatement);
+				}
+				else
+				{
+					statementCache.remove(sqlStatement);
+				}
+			}
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
 	/**
 	 * 执行 SQL 语句
 	 * 主要用于执行非查询语句
@@ -169,15 +316,16 @@ public class SqlConnection implements ISqlConnection
 	public boolean executeUpdate(String sql, ISqlConnectionParameter sqlConnectionParameter)
 	{
 		boolean result = false;
+		SqlStatement sqlStatement = null;
 		lock.writeLock().lock();
 		try
 		{
-			PreparedStatement preparedStatement = getPreparedStatement(sql, sqlConnectionParameter);
-			if (preparedStatement != null)
+			sqlStatement = getSqlStatement(sql, sqlConnectionParameter);
+			if (sqlStatement != null)
 			{
-				result = preparedStatement.executeUpdate() >= 1;
-				preparedStatement.close();
-				preparedStatement = null;
+				result = sqlStatement.getPreparedStatement().executeUpdate() >= 1;
+				statementCache.release(sqlStatement);
+				sqlStatement = null;
 			}
 
 			if (sqlConnectionParameter != null)
@@ -188,6 +336,7 @@ public class SqlConnection implements ISqlConnection
 		}
 		catch (SQLException e)
 		{
+			statementCache.remove(sqlStatement);
 			Logger.getLogger(SqlConnection.class.getName()).log(Level.SEVERE, null, e);
 		}
 		finally
@@ -197,6 +346,40 @@ public class SqlConnection implements ISqlConnection
 		return result;
 	}
 
+	/**
+	 * 执行 SQL 语句
+	 * 主要用于执行非查询语句
+	 * @param sql SQL 语句，以“?”做为参数占位符
+	 * @param sqlTypedParameter 按位置设置的强类型参数值集，执行后不被释放，可为null
+	 * @return 正常执行返回true,否则返回false
+	 */
+	public boolean executeUpdate(String sql, ISqlTypedParameter sqlTypedParameter)
+	{
+		boolean result = false;
+		SqlStatement sqlStatement = null;
+		lock.writeLock().lock();
+		try
+		{
+			sqlStatement = getSqlStatement(sql, sqlTypedParameter);
+			if (sqlStatement != null)
+			{
+				result = sqlStatement.getPreparedStatement().executeUpdate() >= 1;
+				statementCache.release(sqlStatement);
+				sqlStatement = null;
+			}
+		}
+		catch (SQLException e)
+		{
+			statementCache.remove(sqlStatement);
+			Logger.getLogger(SqlConnection.class.getName()).log(Level.SEVERE, "执行SQL语句出现错误：" + sql, e);
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+		return result;
+	}
+
 	/**
 	 * 执行 SQL 语句
 	 * 主要用于执行非查询语句
@@ -279,85 +462,205 @@ public class SqlConnection implements ISqlConnection
 	}
 
 	/**
-	 * 取得PreparedStatement
-	 * @param sql Sql语句
-	 * @param sqlConnectionParameter 参数值集
-	 * @return
+	 * 以PreparedStatement批量执行 SQL 语句
+	 * 每条SQL语句只预编译一次，其参数值集逐行绑定后以JDBC批处理提交，全部语句在同一事务中执行
+	 * @param sqlBatches SQL语句及其参数值集列表，SQL语句以“?”做为参数占位符，按Map的迭代顺序执行
+	 * @return 全部正常执行返回true,否则返回false，如果存在一个执行失败，会执行回滚事务
 	 */
-	private PreparedStatement getPreparedStatement(String sql, ISqlConnectionParameter sqlConnectionParameter)
+	public boolean executeBatch(Map<String, List<Object[]>> sqlBatches)
 	{
-		PreparedStatement preparedStatement = null;
+		boolean result = true;
+		boolean oldAutoCommit = true;
+		boolean isTransaction = false;
+		String excSql = null;
+		lock.writeLock().lock();
 		try
 		{
-			if (isAvailable())
+			if (sqlBatches == null || sqlBatches.size() <= 0)
+				return false;
+			oldAutoCommit = connection.getAutoCommit();
+			connection.setAutoCommit(false);
+			isTransaction = true;
+			for (Entry<String, List<Object[]>> sqlBatch : sqlBatches.entrySet())
 			{
-				if (sqlConnectionParameter != null)
+				excSql = sqlBatch.getKey();
+				List<Object[]> parameterRows = sqlBatch.getValue();
+				if (parameterRows == null || parameterRows.size() <= 0)
+					continue;
+				SqlStatement sqlStatement = statementCache.get(connection, excSql, false);
+				PreparedStatement preparedStatement = sqlStatement.getPreparedStatement();
+				boolean isReusable = false;
+				try
 				{
-					ConcurrentHashMap<String, Object> parameters = sqlConnectionParameter.getParameters();
-					Object[] values = new Object[parameters.size()];
-					Pattern pattern = Pattern.compile("\\{(.+?)\\}");
-					Matcher matcher = pattern.matcher(sql);
-					int i = 0;
-					while (matcher.find())
+					for (Object[] parameters : parameterRows)
 					{
-						String parKey = matcher.group();
-						if (!parameters.containsKey(parKey))
+						for (int i = 0; i < parameters.length; i++)
 						{
-							Logger.getLogger(SqlConnection.class.getName()).log(Level.SEVERE, null, new Exception("执行SQL语句“" + sql + "”时，所提供的值参数不匹配。"));
-							return null;
+							setParameter(preparedStatement, i + 1, parameters[i]);
 						}
-						else
+						preparedStatement.addBatch();
+					}
+					int[] results = preparedStatement.executeBatch();
+					for (int resultValue : results)
+					{// 更新的值与原值相同时影响行数可能为0，只有驱动明确返回执行失败时才视为失败
+						if (resultValue == Statement.EXECUTE_FAILED)
 						{
-							sql = sql.replace(parKey, "?");
-							values[i] = parameters.get(parKey);
+							result = false;
+							break;
 						}
-						i++;
 					}
+					isReusable = true;
+				}
+				finally
+				{
+					if (isReusable)
+					{
+						statementCache.release(sqlStatement);
+					}
+					else
+					{
+						statementCache.remove(sqlStatement);
+					}
+				}
+				if (!result)
+					break;
+			}
+
+			if (result)
+			{
+				connection.commit();
+			}
+			else
+			{
+				connection.rollback();
+				Logger.getLogger(SqlConnection.class.getName()).log(Level.SEVERE, null, new Exception("批量执行SQL语句“" + excSql + "”时存在执行失败的语句，事务已回滚。"));
+			}
+		}
+		catch (Exception e)
+		{// 参数绑定等非SQLException的错误同样回滚，避免未提交的事务留在连接上
+			result = false;
+			try
+			{
+				if (isTransaction)
+				{
+					connection.rollback();
+				}
+			}
+			catch (SQLException e2)
+			{
+				Logger.getLogger(SqlConnection.class.getName()).log(Level.SEVERE, "事务回滚时出错，执行SQL语句：\r\n" + excSql, e2);
+			}
+			Logger.getLogger(SqlConnection.class.getName()).log(Level.SEVERE, "事务执行完成回滚。回滚原由为执行SQL语句出现错误：\r\n" + excSql, e);
+		}
+		finally
+		{
+			if (isTransaction)
+			{// 无论执行是否出错，连接归还前恢复原自动提交模式
+				try
+				{
+					connection.setAutoCommit(oldAutoCommit);
+				}
+				catch (SQLException e)
+				{
+					Logger.getLogger(SqlConnection.class.getName()).log(Level.SEVERE, "恢复自动提交模式时出错，执行SQL语句：\r\n" + excSql, e);
+				}
+			}
+			lock.writeLock().unlock();
+		}
+		return result;
+	}
+
+	/**
+	 * 按值的类型绑定PreparedStatement参数
+	 * @param preparedStatement PreparedStatement
+	 * @param parameterIndex 参数位置，从1开始
+	 * @param value 参数值，日期类型以Timestamp绑定以保留时间部分
+	 * @throws SQLException
+	 */
+	private void setParameter(PreparedStatement preparedStatement, int parameterIndex, Object value) throws SQLException
+	{
+		if (value == null)
+		{
+			preparedStatement.setNull(parameterIndex, Types.NULL);
+		}
+		else if (value instanceof String)
+		{
+			preparedStatement.setString(parameterIndex, (String) value);
+		}
+		else if (value instanceof Integer)
+		{
+			preparedStatement.setInt(parameterIndex, (Integer) value);
+		}
+		else if (value instanceof Long)
+		{
+			preparedStatement.setLong(parameterIndex, (Long) value);
+		}
+		else if (value instanceof Boolean)
+		{
+			preparedStatement.setBoolean(parameterIndex, (Boolean) value);
+		}
+		else if (value instanceof Double)
+		{
+			preparedStatement.setDouble(parameterIndex, (Double) value);
+		}
+		else if (value instanceof Float)
+		{
+			preparedStatement.setFloat(parameterIndex, (Float) value);
+		}
+		else if (value instanceof Short)
+		{
+			preparedStatement.setShort(parameterIndex, (Short) value);
+		}
+		else if (value instanceof Byte)
+		{
+			preparedStatement.setByte(parameterIndex, (Byte) value);
+		}
+		else if (value instanceof Timestamp)
+		{
+			preparedStatement.setTimestamp(parameterIndex, (Timestamp) value);
+		}
+		else if (value instanceof java.util.Date)
+		{
+			preparedStatement.setTimestamp(parameterIndex, new Timestamp(((java.util.Date) value).getTime()));
+		}
+		else
+		{
+			preparedStatement.setObject(parameterIndex, value);
+		}
+	}
 
-					preparedStatement = connection.prepareStatement(sql);
-					int pi = 1;
-					for (Object value : values)
+	/**
+	 * 取得已绑定参数值的预编译语句
+	 * 语句从缓存中取得，SQL语句首次执行时才解析“{参数名}”占位符并预编译，使用后需调用statementCache.release，执行出错时调用statementCache.remove
+	 * @param sql Sql语句
+	 * @param sqlConnectionParameter 参数值集，为null时SQL语句不做参数解析
+	 * @return 已预编译的SQL语句，连接无效或参数不匹配时返回null
+	 */
+	private SqlStatement getSqlStatement(String sql, ISqlConnectionParameter sqlConnectionParameter)
+	{
+		SqlStatement sqlStatement = null;
+		try
+		{
+			if (isAvailable())
+			{
+				sqlStatement = statementCache.get(connection, sql, sqlConnectionParameter != null);
+				if (sqlConnectionParameter != null)
+				{
+					ConcurrentHashMap<String, Object> parameters = sqlConnectionParameter.getParameters();
+					String[] parameterNames = sqlStatement.getParameterNames();
+					PreparedStatement preparedStatement = sqlStatement.getPreparedStatement();
+					for (int i = 0; i < parameterNames.length; i++)
 					{
-						String simpleName = value.getClass().getSimpleName().toLowerCase();
-						switch (simpleName)
+						Object value = parameters.get(parameterNames[i]);
+						if (value == null)
 						{
-							case "string":
-								preparedStatement.setString(pi, (String) value);
-								break;
-							case "boolean":
-								preparedStatement.setBoolean(pi, (boolean) value);
-								break;
-							case "byte":
-								preparedStatement.setByte(pi, (byte) value);
-								break;
-							case "short":
-								preparedStatement.setShort(pi, (short) value);
-								break;
-							case "integer":
-								preparedStatement.setInt(pi, (int) value);
-								break;
-							case "long":
-								preparedStatement.setLong(pi, (long) value);
-								break;
-							case "float":
-								preparedStatement.setFloat(pi, (float) value);
-								break;
-							case "double":
-								preparedStatement.setDouble(pi, (double) value);
-								break;
-							case "date":
-								java.util.Date jDate = (java.util.Date) value;
-								java.sql.Date sDate = new java.sql.Date(jDate.getTime());
-								preparedStatement.setDate(pi, sDate);
-								break;
+							statementCache.release(sqlStatement);
+							Logger.getLogger(SqlConnection.class.getName()).log(Level.SEVERE, null, new Exception("执行SQL语句“" + sql + "”时，所提供的值参数不匹配。"));
+							return null;
 						}
-						pi++;
+						setNamedParameter(preparedStatement, i + 1, value);
 					}
 				}
-				else
-				{
-					preparedStatement = connection.prepareStatement(sql);
-				}
 			}
 			else
 			{
@@ -366,9 +669,79 @@ public class SqlConnection implements ISqlConnection
 		}
 		catch (SQLException e)
 		{
+			statementCache.remove(sqlStatement);
+			sqlStatement = null;
 			Logger.getLogger(SqlConnection.class.getName()).log(Level.SEVERE, null, e);
 		}
-		return preparedStatement;
+		return sqlStatement;
+	}
+
+	/**
+	 * 取得已绑定参数值的预编译语句
+	 * 语句从缓存中取得，使用后需调用statementCache.release，执行出错时调用statementCache.remove
+	 * @param sql Sql语句，以“?”做为参数占位符
+	 * @param sqlTypedParameter 按位置设置的强类型参数值集，可为null
+	 * @return 已预编译的SQL语句，连接无效时返回null
+	 * @throws SQLException 预编译或绑定参数出错
+	 */
+	private SqlStatement getSqlStatement(String sql, ISqlTypedParameter sqlTypedParameter) throws SQLException
+	{
+		if (!isAvailable())
+		{
+			Logger.getLogger(SqlConnection.class.getName()).log(Level.SEVERE, null, new Exception("执行SQL语句“" + sql + "”时，遇到数据库连接无效。"));
+			return null;
+		}
+		SqlStatement sqlStatement = statementCache.get(connection, sql, false);
+		if (sqlTypedParameter != null)
+		{
+			try
+			{
+				sqlTypedParameter.bind(sqlStatement.getPreparedStatement());
+			}
+			catch (SQLException e)
+			{
+				statementCache.release(sqlStatement);
+				throw e;
+			}
+		}
+		return sqlStatement;
+	}
+
+	/**
+	 * 按值的类型绑定“{参数名}”占位符对应的参数，日期类型以java.sql.Date绑定
+	 * @param preparedStatement PreparedStatement
+	 * @param parameterIndex 参数位置，从1开始
+	 * @param value 参数值
+	 * @throws SQLException
+	 */
+	private void setNamedParameter(PreparedStatement preparedStatement, int parameterIndex, Object value) throws SQLException
+	{
+		if (value instanceof java.util.Date && !(value instanceof Timestamp))
+		{
+			preparedStatement.setDate(parameterIndex, new java.sql.Date(((java.util.Date) value).getTime()));
+		}
+		else
+		{
+			setParameter(preparedStatement, parameterIndex, value);
+		}
+	}
+
+	/**
+	 * 设置缓存的最大PreparedStatement数
+	 * @param statementCacheSize 小于等于0时不缓存，已缓存的语句超出时立即关闭
+	 */
+	public void setStatementCacheSize(int statementCacheSize)
+	{
+		statementCache.setCapacity(statementCacheSize);
+	}
+
+	/**
+	 * PreparedStatement缓存，可取得命中、未命中及淘汰次数
+	 * @return statementCache
+	 */
+	public SqlStatementCache getStatementCache()
+	{
+		return statementCache;
 	}
 
 	/**
@@ -379,6 +752,7 @@ public class SqlConnection implements ISqlConnection
 	{
 		try
 		{
+			statementCache.clear();
 //			if(!connection.isClosed())
 //			{
 				connection.close();
@@ -5,6 +5,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import base.Base;
+import base.types.SqlConnectionPoolType;
 
 /**
  * 数据库连接池配置
@@ -51,6 +52,24 @@ public class SqlConnectionConfig implements ISqlConnectionConfig
 			sqlConnectionConfigBean.setMaxFreeConnections(Integer.parseInt(properties.getProperty(name+"_maxFreeConnections")));
 			sqlConnectionConfigBean.setMaxActiveConnections(Integer.parseInt(properties.getProperty(name+"_maxActiveConnections")));
 			sqlConnectionConfigBean.setConnectionTimeOut(Integer.parseInt(properties.getProperty(name+"_connectionTimeOut")));
+			String poolType = properties.getProperty(name+"_poolType");
+			if (poolType != null && !poolType.trim().isEmpty())
+			{
+				try
+				{
+					sqlConnectionConfigBean.setPoolType(SqlConnectionPoolType.valueOf(poolType.trim().toUpperCase()));
+				}
+				catch (IllegalArgumentException e)
+				{// 无效的连接池类型，使用默认的读写锁连接池
+					Logger.getLogger(SqlConnectionConfig.class.getName()).log(Level.SEVERE, null, new Exception("数据库连接池 " + name + " 配置的连接池类型 " + poolType + " 无效，将使用 " + SqlConnectionPoolType.LOCK + " 类型。"));
+					sqlConnectionConfigBean.setPoolType(SqlConnectionPoolType.LOCK);
+				}
+			}
+			String statementCacheSize = properties.getProperty(name+"_statementCacheSize");
+			if (statementCacheSize != null && !statementCacheSize.trim().isEmpty())
+			{
+				sqlConnectionConfigBean.setStatementCacheSize(Integer.parseInt(statementCacheSize.trim()));
+			}
 		}
 		catch (Exception e)
 		{
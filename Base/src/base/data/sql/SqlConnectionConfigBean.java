@@ -1,5 +1,7 @@
 package base.data.sql;
 
+import base.types.SqlConnectionPoolType;
+
 /**
  * 数据库连接池配置实体
  * @author Devin
@@ -195,4 +197,46 @@ public class SqlConnectionConfigBean implements ISqlConnectionConfigBean
 	{
 		this.connectionTimeOut = connectionTimeOut;
 	}
+
+	/**
+	 * 连接池类型
+	 */
+	private volatile SqlConnectionPoolType poolType = SqlConnectionPoolType.LOCK;
+
+	/**
+	 * 连接池类型
+	 */
+	public SqlConnectionPoolType getPoolType()
+	{
+		return poolType;
+	}
+
+	/**
+	 * @param poolType 连接池类型
+	 */
+	public void setPoolType(SqlConnectionPoolType poolType)
+	{
+		this.poolType = poolType;
+	}
+
+	/**
+	 * 每个连接缓存的最大PreparedStatement数，小于等于0时不缓存
+	 */
+	private volatile int statementCacheSize = SqlStatementCache.DEFAULT_CAPACITY;
+
+	/**
+	 * 每个连接缓存的最大PreparedStatement数，小于等于0时不缓存
+	 */
+	public int getStatementCacheSize()
+	{
+		return statementCacheSize;
+	}
+
+	/**
+	 * @param statementCacheSize 每个连接缓存的最大PreparedStatement数，小于等于0时不缓存
+	 */
+	public void setStatementCacheSize(int statementCacheSize)
+	{
+		this.statementCacheSize = statementCacheSize;
+	}
 }
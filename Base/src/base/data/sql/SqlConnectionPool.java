@@ -19,7 +19,7 @@ import base.Base;
  * @author Devin
  *
  */
-public class SqlConnectionPool
+public class SqlConnectionPool implements ISqlConnectionPool
 {
 	/**
 	 * 线程读写锁
@@ -109,6 +109,7 @@ public class SqlConnectionPool
 			conn = DriverManager.getConnection(connectionConfigBean.getUrl(), connectionConfigBean.getUserName(), connectionConfigBean.getPassword());
 			sqlConnection = Base.newClass(SqlConnection.class);
 			sqlConnection.init(conn);
+			sqlConnection.setStatementCacheSize(connectionConfigBean.getStatementCacheSize());
 		}
 		catch (Exception e)
 		{
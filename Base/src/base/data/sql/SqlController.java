@@ -1,11 +1,15 @@
 package base.data.sql;
 
 import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Vector;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import base.types.SqlConnectionPoolType;
+
 /**
  * 数据库连接池控制器
  * @author Devin
@@ -16,18 +20,26 @@ public class SqlController
 	/**
 	 * 池列表容器
 	 */
-	public final ConcurrentHashMap<String, SqlConnectionPool> pools = new ConcurrentHashMap<String, SqlConnectionPool>();
+	public final ConcurrentHashMap<String, ISqlConnectionPool> pools = new ConcurrentHashMap<String, ISqlConnectionPool>();
 
 	/**
-	 * 创建数据连接池
+	 * 创建数据连接池，按配置的连接池类型创建对应的实现
 	 * @param sqlConnectionConfig 配置数据
 	 */
-	public SqlConnectionPool createPool(ISqlConnectionConfig sqlConnectionConfig)
+	public ISqlConnectionPool createPool(ISqlConnectionConfig sqlConnectionConfig)
 	{
-		SqlConnectionPool sqlConnectionPool = null;
+		ISqlConnectionPool sqlConnectionPool = null;
 		try
 		{
-			sqlConnectionPool = new SqlConnectionPool(sqlConnectionConfig.getSqlConnectionConfigBean());
+			ISqlConnectionConfigBean sqlConnectionConfigBean = sqlConnectionConfig.getSqlConnectionConfigBean();
+			if (sqlConnectionConfigBean.getPoolType() == SqlConnectionPoolType.CONCURRENT)
+			{
+				sqlConnectionPool = new ConcurrentSqlConnectionPool(sqlConnectionConfigBean);
+			}
+			else
+			{
+				sqlConnectionPool = new SqlConnectionPool(sqlConnectionConfigBean);
+			}
 			pools.put(sqlConnectionConfig.getSqlConnectionConfigBean().getPoolName(), sqlConnectionPool);
 		}
 		catch (Exception e)
@@ -42,9 +54,9 @@ public class SqlController
 	 * @param poolName 数据库连接池名
 	 * @return
 	 */
-	public SqlConnectionPool getPool(String poolName)
+	public ISqlConnectionPool getPool(String poolName)
 	{
-		SqlConnectionPool sqlConnectionPool = null;
+		ISqlConnectionPool sqlConnectionPool = null;
 		try
 		{
 			if (pools.size() > 0)
@@ -96,7 +108,7 @@ public class SqlController
 	 */
 	public void releaseConnection(String poolName, ISqlConnection sqlConnection)
 	{
-		SqlConnectionPool sqlConnectionPool = getPool(poolName);
+		ISqlConnectionPool sqlConnectionPool = getPool(poolName);
 		sqlConnectionPool.releaseConnection(sqlConnection);
 	}
 
@@ -106,7 +118,7 @@ public class SqlController
 	 */
 	public void closePool(String poolName)
 	{
-		SqlConnectionPool sqlConnectionPool = getPool(poolName);
+		ISqlConnectionPool sqlConnectionPool = getPool(poolName);
 		if (sqlConnectionPool != null)
 		{
 			sqlConnectionPool.closeConnectionPool();
@@ -122,7 +134,7 @@ public class SqlController
 	 */
 	public ResultSet executeQuery(String poolName, String sql)
 	{
-		return executeQuery(poolName, sql, null);
+		return executeQuery(poolName, sql, (ISqlConnectionParameter) null);
 	}
 
 	/**
@@ -155,6 +167,126 @@ public class SqlController
 		return rs;
 	}
 
+	/**
+	 * 执行SQL
+	 * @param poolName Sql连接池名称
+	 * @param sql Sql语句，以“?”做为参数占位符
+	 * @param sqlTypedParameter 按位置设置的强类型参数值集，执行后不被释放，可为null
+	 * @return ResultSet
+	 */
+	public ResultSet executeQuery(String poolName, String sql, ISqlTypedParameter sqlTypedParameter)
+	{
+		ResultSet rs = null;
+		ISqlConnection sqlConnection = null;
+		try
+		{
+			sqlConnection = getConnection(poolName);
+			if(sqlConnection!=null)
+			{
+				rs = sqlConnection.executeQuery(sql, sqlTypedParameter);
+			}
+			else
+			{
+				Logger.getLogger(SqlController.class.getName()).log(Level.SEVERE, null, new Exception("在 " + poolName + " 池中executeQuery执行Sql语句 " + sql + " 时遇到数据库连接为空。"));
+			}
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(SqlController.class.getName()).log(Level.SEVERE, null, new Exception("在 " + poolName + " 池中executeQuery执行Sql语句 " + sql + " 遇到错误。", e));
+		}
+		finally
+		{
+			if(sqlConnection!=null)
+			{
+				releaseConnection(poolName, sqlConnection);
+			}
+		}
+		return rs;
+	}
+
+	/**
+	 * 打开逐行读取的查询游标
+	 * 游标打开期间一直占用取得的连接，读取完最后一行、读取出错或调用游标的close后连接归还连接池，
+	 * 比如：
+	 * try (SqlQueryCursor cursor = sqlController.openQuery(poolName, sql, parameter, Integer.MIN_VALUE))
+	 * {
+	 * 	for (ISqlRow row : cursor)
+	 * 	{
+	 * 		row.getLong("id");
+	 * 	}
+	 * }
+	 * @param poolName Sql连接池名称
+	 * @param sql Sql语句，以“?”做为参数占位符
+	 * @param sqlTypedParameter 按位置设置的强类型参数值集，可为null
+	 * @param fetchSize 每次从数据库取得的行数，0为驱动默认值，MySQL驱动使用Integer.MIN_VALUE时逐行读取
+	 * @return 查询游标，执行出错时返回null
+	 */
+	public SqlQueryCursor openQuery(String poolName, String sql, ISqlTypedParameter sqlTypedParameter, int fetchSize)
+	{
+		ISqlConnectionPool sqlConnectionPool = getPool(poolName);
+		if (sqlConnectionPool == null)
+		{
+			Logger.getLogger(SqlController.class.getName()).log(Level.SEVERE, null, new Exception("未找到可用的数据库连接池 " + poolName));
+			return null;
+		}
+		ISqlConnection sqlConnection = sqlConnectionPool.getConnection();
+		if (sqlConnection == null)
+		{
+			Logger.getLogger(SqlController.class.getName()).log(Level.SEVERE, null, new Exception("在 " + poolName + " 池中openQuery执行Sql语句 " + sql + " 时遇到数据库连接为空。"));
+			return null;
+		}
+		ResultSet resultSet = null;
+		try
+		{
+			resultSet = sqlConnection.openQuery(sql, sqlTypedParameter, fetchSize);
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(SqlController.class.getName()).log(Level.SEVERE, null, new Exception("在 " + poolName + " 池中openQuery执行Sql语句 " + sql + " 遇到错误。", e));
+		}
+		if (resultSet == null)
+		{
+			sqlConnectionPool.releaseConnection(sqlConnection);
+			return null;
+		}
+		return new SqlQueryCursor(sqlConnectionPool, sqlConnection, resultSet, sql);
+	}
+
+	/**
+	 * 以只能向前读取的结果集执行查询，由处理器逐行处理，各行以同一个ISqlRow实例传入
+	 * 处理期间一直占用取得的连接，全部行处理完成、处理中止或出错后归还连接池
+	 * @param poolName Sql连接池名称
+	 * @param sql Sql语句，以“?”做为参数占位符
+	 * @param sqlTypedParameter 按位置设置的强类型参数值集，可为null
+	 * @param fetchSize 每次从数据库取得的行数，0为驱动默认值，MySQL驱动使用Integer.MIN_VALUE时逐行读取
+	 * @param sqlRowHandler 行处理器
+	 * @return 正常执行返回true(包括处理器中止处理),否则返回false
+	 */
+	public boolean query(String poolName, String sql, ISqlTypedParameter sqlTypedParameter, int fetchSize, ISqlRowHandler sqlRowHandler)
+	{
+		SqlQueryCursor cursor = openQuery(poolName, sql, sqlTypedParameter, fetchSize);
+		if (cursor == null)
+			return false;
+		try
+		{
+			while (cursor.hasNext())
+			{
+				if (!sqlRowHandler.handle(cursor.next()))
+					break;
+			}
+			return !cursor.getIsError();
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(SqlController.class.getName()).log(Level.SEVERE, null, new Exception("在 " + poolName + " 池中query处理Sql语句 " + sql + " 的第" + cursor.getRowCount() + "行时遇到错误。", e));
+			return false;
+		}
+		finally
+		{
+			cursor.close();
+		}
+	}
+
 	/**
 	 * 执行SQL
 	 * @param poolName Sql连接池名称
@@ -164,7 +296,7 @@ public class SqlController
 	 */
 	public boolean executeUpdate(String poolName, String sql)
 	{
-		return executeUpdate(poolName, sql, null);
+		return executeUpdate(poolName, sql, (ISqlConnectionParameter) null);
 	}
 
 	/**
@@ -197,6 +329,43 @@ public class SqlController
 		return result;
 	}
 
+	/**
+	 * 执行SQL
+	 * @param poolName Sql连接池名称
+	 * @param sql Sql语句，以“?”做为参数占位符
+	 * @param sqlTypedParameter 按位置设置的强类型参数值集，执行后不被释放，可为null
+	 * @return boolean 执行结果，执行成功返回true,否则返回false
+	 */
+	public boolean executeUpdate(String poolName, String sql, ISqlTypedParameter sqlTypedParameter)
+	{
+		boolean result = false;
+		ISqlConnection sqlConnection = null;
+		try
+		{
+			sqlConnection = getConnection(poolName);
+			if(sqlConnection!=null)
+			{
+				result = sqlConnection.executeUpdate(sql, sqlTypedParameter);
+			}
+			else
+			{
+				Logger.getLogger(SqlController.class.getName()).log(Level.SEVERE, null, new Exception("在 " + poolName + " 池中executeUpdate执行Sql语句 " + sql + " 时遇到数据库连接为空。"));
+			}
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(SqlController.class.getName()).log(Level.SEVERE, null, new Exception("在 " + poolName + " 池中executeUpdate执行Sql语句 " + sql + " 遇到错误。", e));
+		}
+		finally
+		{
+			if(sqlConnection!=null)
+			{
+				releaseConnection(poolName, sqlConnection);
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * 执行 SQL 语句
 	 * 主要用于执行非查询语句
@@ -241,6 +410,43 @@ public class SqlController
 		return result;
 	}
 	
+	/**
+	 * 以PreparedStatement批量执行 SQL 语句
+	 * 每条SQL语句只预编译一次，其参数值集逐行绑定后以JDBC批处理提交，全部语句在同一事务中执行
+	 * @param poolName Sql连接池名称
+	 * @param sqlBatches SQL语句及其参数值集列表，SQL语句以“?”做为参数占位符，按Map的迭代顺序执行
+	 * @return 全部正常执行返回true,否则返回false，如果存在一个执行失败，会执行回滚事务
+	 */
+	public boolean executeBatch(String poolName, Map<String, List<Object[]>> sqlBatches)
+	{
+		boolean result = false;
+		ISqlConnection sqlConnection = null;
+		try
+		{
+			sqlConnection = getConnection(poolName);
+			if(sqlConnection!=null)
+			{
+				result = sqlConnection.executeBatch(sqlBatches);
+			}
+			else
+			{
+				Logger.getLogger(SqlController.class.getName()).log(Level.SEVERE, null, new Exception("在 " + poolName + " 池中executeBatch执行Sql语句 " + sqlBatches.keySet() + " 时遇到数据库连接为空。"));
+			}
+		}
+		catch (Exception e)
+		{
+			Logger.getLogger(SqlController.class.getName()).log(Level.SEVERE, null, new Exception("在 " + poolName + " 池中executeBatch执行Sql语句 " + sqlBatches.keySet() + " 遇到错误。", e));
+		}
+		finally
+		{
+			if(sqlConnection!=null)
+			{
+				releaseConnection(poolName, sqlConnection);
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * 取得指定池的有效连接总数，返回-1则表示执行遇到错误
 	 * @return
@@ -249,7 +455,7 @@ public class SqlController
 	{
 		try
 		{
-			SqlConnectionPool sqlConnectionPool = getPool(poolName);
+			ISqlConnectionPool sqlConnectionPool = getPool(poolName);
 			return sqlConnectionPool.getConnectionsCount();
 		}
 		catch (Exception e)
@@ -0,0 +1,162 @@
+package base.data.sql;
+
+import java.io.Closeable;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 逐行读取的查询游标
+ * 打开期间一直占用取得的数据库连接，结果集只能向前读取，各行以同一个ISqlRow实例返回；
+ * 读取完最后一行、读取出错或调用close后立即关闭结果集并将连接归还连接池，未读取完时必须调用close(可使用try-with-resources)。
+ * 游标只能遍历一次，非线程安全。
+ * @author Devin
+ *
+ */
+public class SqlQueryCursor implements Iterable<ISqlRow>, Iterator<ISqlRow>, Closeable
+{
+	/**
+	 * 来源数据连接池
+	 */
+	private final ISqlConnectionPool sqlConnectionPool;
+
+	/**
+	 * 占用的数据连接
+	 */
+	private final ISqlConnection sqlConnection;
+
+	/**
+	 * 结果集
+	 */
+	private final ResultSet resultSet;
+
+	/**
+	 * 当前行
+	 */
+	private final SqlRow row;
+
+	/**
+	 * Sql语句
+	 */
+	private final String sql;
+
+	/**
+	 * 是否已移动到尚未返回的下一行
+	 */
+	private boolean isNextReady;
+
+	/**
+	 * 是否已关闭
+	 */
+	private boolean isClosed;
+
+	/**
+	 * 读取时是否出错
+	 */
+	private boolean isError;
+
+	/**
+	 * 逐行读取的查询游标
+	 * @param sqlConnectionPool 来源数据连接池，关闭时连接归还至此池
+	 * @param sqlConnection 占用的数据连接
+	 * @param resultSet 由sqlConnection.openQuery打开的结果集
+	 * @param sql Sql语句
+	 */
+	public SqlQueryCursor(ISqlConnectionPool sqlConnectionPool, ISqlConnection sqlConnection, ResultSet resultSet, String sql)
+	{
+		this.sqlConnectionPool = sqlConnectionPool;
+		this.sqlConnection = sqlConnection;
+		this.resultSet = resultSet;
+		this.row = new SqlRow(resultSet);
+		this.sql = sql;
+	}
+
+	public Iterator<ISqlRow> iterator()
+	{
+		return this;
+	}
+
+	public boolean hasNext()
+	{
+		if (isNextReady)
+			return true;
+		if (isClosed)
+			return false;
+		try
+		{
+			isNextReady = row.next();
+		}
+		catch (SQLException e)
+		{
+			isError = true;
+			Logger.getLogger(SqlQueryCursor.class.getName()).log(Level.SEVERE, "逐行读取SQL语句查询结果出现错误：" + sql, e);
+		}
+		if (!isNextReady)
+		{
+			close();
+		}
+		return isNextReady;
+	}
+
+	public ISqlRow next()
+	{
+		if (!hasNext())
+			throw new NoSuchElementException();
+		isNextReady = false;
+		return row;
+	}
+
+	public void remove()
+	{
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * 已读取的行数
+	 * @return 行数
+	 */
+	public long getRowCount()
+	{
+		return row.getRowNumber();
+	}
+
+	/**
+	 * 读取时是否出错，出错时游标已关闭，已读取的行不完整
+	 * @return isError
+	 */
+	public boolean getIsError()
+	{
+		return isError;
+	}
+
+	/**
+	 * 是否已关闭
+	 * @return isClosed
+	 */
+	public boolean getIsClosed()
+	{
+		return isClosed;
+	}
+
+	/**
+	 * 关闭结果集并将连接归还连接池，可重复调用
+	 */
+	public void close()
+	{
+		if (isClosed)
+			return;
+		isClosed = true;
+		isNextReady = false;
+		try
+		{
+			sqlConnection.closeQuery(resultSet);
+		}
+		finally
+		{
+			sqlConnectionPool.releaseConnection(sqlConnection);
+		}
+	}
+}
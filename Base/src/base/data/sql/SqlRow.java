@@ -0,0 +1,224 @@
+package base.data.sql;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.HashMap;
+
+/**
+ * 查询结果的当前行
+ * 直接读取只能向前读取的结果集当前行，不复制行数据；按列名读取时缓存列名对应的列位置，每个列名只向驱动查找一次
+ * @author Devin
+ *
+ */
+public class SqlRow implements ISqlRow
+{
+	/**
+	 * 结果集
+	 */
+	private final ResultSet resultSet;
+
+	/**
+	 * 列名对应的列位置
+	 */
+	private final HashMap<String, Integer> columnIndexes = new HashMap<String, Integer>();
+
+	/**
+	 * 结果集元数据
+	 */
+	private ResultSetMetaData metaData;
+
+	/**
+	 * 当前行号
+	 */
+	private long rowNumber;
+
+	/**
+	 * 查询结果的当前行
+	 * @param resultSet 结果集
+	 */
+	public SqlRow(ResultSet resultSet)
+	{
+		this.resultSet = resultSet;
+	}
+
+	/**
+	 * 移动到下一行
+	 * @return 存在下一行返回true
+	 * @throws SQLException
+	 */
+	public boolean next() throws SQLException
+	{
+		if (!resultSet.next())
+			return false;
+		rowNumber++;
+		return true;
+	}
+
+	/**
+	 * 取得列名对应的列位置
+	 * @param columnName 列名
+	 * @return 列位置，从1开始
+	 * @throws SQLException
+	 */
+	private int columnIndex(String columnName) throws SQLException
+	{
+		Integer columnIndex = columnIndexes.get(columnName);
+		if (columnIndex == null)
+		{
+			columnIndex = resultSet.findColumn(columnName);
+			columnIndexes.put(columnName, columnIndex);
+		}
+		return columnIndex;
+	}
+
+	public long getRowNumber()
+	{
+		return rowNumber;
+	}
+
+	public int getColumnCount() throws SQLException
+	{
+		if (metaData == null)
+		{
+			metaData = resultSet.getMetaData();
+		}
+		return metaData.getColumnCount();
+	}
+
+	public String getColumnName(int columnIndex) throws SQLException
+	{
+		if (metaData == null)
+		{
+			metaData = resultSet.getMetaData();
+		}
+		return metaData.getColumnLabel(columnIndex);
+	}
+
+	public String getColumnClassName(int columnIndex) throws SQLException
+	{
+		if (metaData == null)
+		{
+			metaData = resultSet.getMetaData();
+		}
+		return metaData.getColumnClassName(columnIndex);
+	}
+
+	public boolean wasNull() throws SQLException
+	{
+		return resultSet.wasNull();
+	}
+
+	public int getInt(int columnIndex) throws SQLException
+	{
+		return resultSet.getInt(columnIndex);
+	}
+
+	public int getInt(String columnName) throws SQLException
+	{
+		return resultSet.getInt(columnIndex(columnName));
+	}
+
+	public long getLong(int columnIndex) throws SQLException
+	{
+		return resultSet.getLong(columnIndex);
+	}
+
+	public long getLong(String columnName) throws SQLException
+	{
+		return resultSet.getLong(columnIndex(columnName));
+	}
+
+	public short getShort(int columnIndex) throws SQLException
+	{
+		return resultSet.getShort(columnIndex);
+	}
+
+	public short getShort(String columnName) throws SQLException
+	{
+		return resultSet.getShort(columnIndex(columnName));
+	}
+
+	public byte getByte(int columnIndex) throws SQLException
+	{
+		return resultSet.getByte(columnIndex);
+	}
+
+	public byte getByte(String columnName) throws SQLException
+	{
+		return resultSet.getByte(columnIndex(columnName));
+	}
+
+	public boolean getBoolean(int columnIndex) throws SQLException
+	{
+		return resultSet.getBoolean(columnIndex);
+	}
+
+	public boolean getBoolean(String columnName) throws SQLException
+	{
+		return resultSet.getBoolean(columnIndex(columnName));
+	}
+
+	public float getFloat(int columnIndex) throws SQLException
+	{
+		return resultSet.getFloat(columnIndex);
+	}
+
+	public float getFloat(String columnName) throws SQLException
+	{
+		return resultSet.getFloat(columnIndex(columnName));
+	}
+
+	public double getDouble(int columnIndex) throws SQLException
+	{
+		return resultSet.getDouble(columnIndex);
+	}
+
+	public double getDouble(String columnName) throws SQLException
+	{
+		return resultSet.getDouble(columnIndex(columnName));
+	}
+
+	public String getString(int columnIndex) throws SQLException
+	{
+		return resultSet.getString(columnIndex);
+	}
+
+	public String getString(String columnName) throws SQLException
+	{
+		return resultSet.getString(columnIndex(columnName));
+	}
+
+	public Date getDate(int columnIndex) throws SQLException
+	{
+		Timestamp timestamp = resultSet.getTimestamp(columnIndex);
+		return timestamp != null ? new Date(timestamp.getTime()) : null;
+	}
+
+	public Date getDate(String columnName) throws SQLException
+	{
+		return getDate(columnIndex(columnName));
+	}
+
+	public byte[] getBytes(int columnIndex) throws SQLException
+	{
+		return resultSet.getBytes(columnIndex);
+	}
+
+	public byte[] getBytes(String columnName) throws SQLException
+	{
+		return resultSet.getBytes(columnIndex(columnName));
+	}
+
+	public Object getObject(int columnIndex) throws SQLException
+	{
+		return resultSet.getObject(columnIndex);
+	}
+
+	public Object getObject(String columnName) throws SQLException
+	{
+		return resultSet.getObject(columnIndex(columnName));
+	}
+}
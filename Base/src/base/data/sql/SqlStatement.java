@@ -0,0 +1,83 @@
+package base.data.sql;
+
+import java.sql.PreparedStatement;
+
+/**
+ * 已预编译的SQL语句
+ * 保存原始SQL语句解析后以“?”为参数占位符的SQL语句、按占位符顺序排列的参数名及对应的PreparedStatement
+ * @author Devin
+ *
+ */
+public class SqlStatement
+{
+	/**
+	 * 原始SQL语句
+	 */
+	private final String sql;
+
+	/**
+	 * 以“?”为参数占位符的SQL语句
+	 */
+	private final String parsedSql;
+
+	/**
+	 * 按占位符顺序排列的参数名(含“{}”)，原始SQL语句以“?”为参数占位符时为null
+	 */
+	private final String[] parameterNames;
+
+	/**
+	 * 预编译的语句
+	 */
+	private final PreparedStatement preparedStatement;
+
+	/**
+	 * 已预编译的SQL语句
+	 * @param sql 原始SQL语句
+	 * @param parsedSql 以“?”为参数占位符的SQL语句
+	 * @param parameterNames 按占位符顺序排列的参数名，原始SQL语句以“?”为参数占位符时为null
+	 * @param preparedStatement 预编译的语句
+	 */
+	public SqlStatement(String sql, String parsedSql, String[] parameterNames, PreparedStatement preparedStatement)
+	{
+		this.sql = sql;
+		this.parsedSql = parsedSql;
+		this.parameterNames = parameterNames;
+		this.preparedStatement = preparedStatement;
+	}
+
+	/**
+	 * 原始SQL语句
+	 * @return sql
+	 */
+	public String getSql()
+	{
+		return sql;
+	}
+
+	/**
+	 * 以“?”为参数占位符的SQL语句
+	 * @return parsedSql
+	 */
+	public String getParsedSql()
+	{
+		return parsedSql;
+	}
+
+	/**
+	 * 按占位符顺序排列的参数名(含“{}”)
+	 * @return parameterNames，原始SQL语句以“?”为参数占位符时为null
+	 */
+	public String[] getParameterNames()
+	{
+		return parameterNames;
+	}
+
+	/**
+	 * 预编译的语句
+	 * @return preparedStatement
+	 */
+	public PreparedStatement getPreparedStatement()
+	{
+		return preparedStatement;
+	}
+}
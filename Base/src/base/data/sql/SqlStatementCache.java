@@ -0,0 +1,245 @@
+package base.data.sql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 数据库连接的PreparedStatement缓存
+ * 以原始SQL语句为键，按最近最少使用淘汰，淘汰或清除时关闭语句；
+ * 以“{参数名}”为占位符的SQL语句只在首次使用时解析一次，保存解析后的SQL语句及参数名顺序，之后不再进行正则匹配及重新预编译。
+ * 缓存的语句只能由所属连接在持有连接锁时使用，使用前需清除上次绑定的参数。
+ * @author Devin
+ *
+ */
+public class SqlStatementCache
+{
+	/**
+	 * 默认的最大缓存语句数
+	 */
+	public final static int DEFAULT_CAPACITY = 64;
+
+	/**
+	 * 参数占位符“{参数名}”
+	 */
+	private final static Pattern PARAMETER_PATTERN = Pattern.compile("\\{(.+?)\\}");
+
+	/**
+	 * 缓存的语句，按访问顺序排列
+	 */
+	private final LinkedHashMap<String, SqlStatement> statements = new LinkedHashMap<String, SqlStatement>(16, 0.75f, true);
+
+	/**
+	 * 最大缓存语句数，小于等于0时不缓存
+	 */
+	private volatile int capacity;
+
+	/**
+	 * 命中次数
+	 */
+	private long hitCount;
+
+	/**
+	 * 未命中次数
+	 */
+	private long missCount;
+
+	/**
+	 * 淘汰次数
+	 */
+	private long evictCount;
+
+	/**
+	 * 数据库连接的PreparedStatement缓存
+	 * @param capacity 最大缓存语句数，小于等于0时不缓存
+	 */
+	public SqlStatementCache(int capacity)
+	{
+		this.capacity = capacity;
+	}
+
+	/**
+	 * 取得已预编译的SQL语句，未缓存时解析并预编译后加入缓存
+	 * @param connection 数据库物理连接
+	 * @param sql 原始SQL语句
+	 * @param isNamedParameter SQL语句是否以“{参数名}”为参数占位符，为false时以“?”为参数占位符，不进行解析
+	 * @return 已预编译的SQL语句，不缓存时使用后需调用release关闭
+	 * @throws SQLException
+	 */
+	public synchronized SqlStatement get(Connection connection, String sql, boolean isNamedParameter) throws SQLException
+	{
+		SqlStatement sqlStatement = statements.get(sql);
+		if (sqlStatement != null)
+		{
+			if ((sqlStatement.getParameterNames() != null) == isNamedParameter)
+			{
+				hitCount++;
+				sqlStatement.getPreparedStatement().clearParameters();
+				return sqlStatement;
+			}
+			remove(sqlStatement);// 同一语句以不同的占位符方式使用
+		}
+		missCount++;
+		String parsedSql = sql;
+		String[] parameterNames = null;
+		if (isNamedParameter)
+		{
+			ArrayList<String> names = new ArrayList<String>();
+			StringBuffer parsedSqlBuffer = new StringBuffer(sql.length());
+			Matcher matcher = PARAMETER_PATTERN.matcher(sql);
+			while (matcher.find())
+			{
+				names.add(matcher.group());
+				matcher.appendReplacement(parsedSqlBuffer, "?");
+			}
+			matcher.appendTail(parsedSqlBuffer);
+			parsedSql = parsedSqlBuffer.toString();
+			parameterNames = names.toArray(new String[names.size()]);
+		}
+		sqlStatement = new SqlStatement(sql, parsedSql, parameterNames, connection.prepareStatement(parsedSql));
+		if (capacity > 0)
+		{
+			statements.put(sql, sqlStatement);
+			evict();
+		}
+		return sqlStatement;
+	}
+
+	/**
+	 * 使用完语句，未缓存的语句将被关闭
+	 * @param sqlStatement 已预编译的SQL语句
+	 */
+	public synchronized void release(SqlStatement sqlStatement)
+	{
+		if (sqlStatement != null && statements.get(sqlStatement.getSql()) != sqlStatement)
+		{
+			close(sqlStatement);
+		}
+	}
+
+	/**
+	 * 移除并关闭语句，语句执行出错时调用，下次使用时重新预编译
+	 * @param sqlStatement 已预编译的SQL语句
+	 */
+	public synchronized void remove(SqlStatement sqlStatement)
+	{
+		if (sqlStatement == null)
+			return;
+		if (statements.get(sqlStatement.getSql()) == sqlStatement)
+		{
+			statements.remove(sqlStatement.getSql());
+		}
+		close(sqlStatement);
+	}
+
+	/**
+	 * 超出最大缓存语句数时淘汰最近最少使用的语句
+	 */
+	private void evict()
+	{
+		Iterator<Entry<String, SqlStatement>> iterator = statements.entrySet().iterator();
+		while (statements.size() > capacity && iterator.hasNext())
+		{
+			SqlStatement sqlStatement = iterator.next().getValue();
+			iterator.remove();
+			close(sqlStatement);
+			evictCount++;
+		}
+	}
+
+	/**
+	 * 关闭语句
+	 * @param sqlStatement 已预编译的SQL语句
+	 */
+	private void close(SqlStatement sqlStatement)
+	{
+		try
+		{
+			sqlStatement.getPreparedStatement().close();
+		}
+		catch (SQLException e)
+		{
+			Logger.getLogger(SqlStatementCache.class.getName()).log(Level.SEVERE, null, e);
+		}
+	}
+
+	/**
+	 * 最大缓存语句数
+	 * @return capacity
+	 */
+	public int getCapacity()
+	{
+		return capacity;
+	}
+
+	/**
+	 * 最大缓存语句数
+	 * @param capacity 小于等于0时不缓存，已缓存的语句超出时立即淘汰
+	 */
+	public synchronized void setCapacity(int capacity)
+	{
+		this.capacity = capacity;
+		evict();
+	}
+
+	/**
+	 * 缓存的语句数
+	 * @return 语句数
+	 */
+	public synchronized int size()
+	{
+		return statements.size();
+	}
+
+	/**
+	 * 命中次数
+	 * @return hitCount
+	 */
+	public synchronized long getHitCount()
+	{
+		return hitCount;
+	}
+
+	/**
+	 * 未命中次数
+	 * @return missCount
+	 */
+	public synchronized long getMissCount()
+	{
+		return missCount;
+	}
+
+	/**
+	 * 淘汰次数
+	 * @return evictCount
+	 */
+	public synchronized long getEvictCount()
+	{
+		return evictCount;
+	}
+
+	/**
+	 * 关闭并清除所有缓存的语句
+	 */
+	public synchronized void clear()
+	{
+		for (SqlStatement sqlStatement : statements.values())
+		{
+			close(sqlStatement);
+		}
+		statements.clear();
+	}
+
+	public synchronized String toString()
+	{
+		return "size=" + statements.size() + ", capacity=" + capacity + ", hitCount=" + hitCount + ", missCount=" + missCount + ", evictCount=" + evictCount;
+	}
+}
@@ -0,0 +1,310 @@
+package base.data.sql;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * 按位置设置的强类型参数值集
+ * 每个参数位置保存一个类型标识，基本类型的值写入long数组(float、double以位模式保存)，引用类型的值写入Object数组，
+ * 绑定时按类型标识调用PreparedStatement对应的set方法，不装箱、不进行类型反射；
+ * 执行后不会被释放，可调用clear后重复使用。非线程安全，一个参数值集同时只能由一个线程设置及使用。
+ * @author Devin
+ *
+ */
+public class SqlTypedParameter implements ISqlTypedParameter
+{
+	private final static byte TYPE_NONE = 0;
+	private final static byte TYPE_INT = 1;
+	private final static byte TYPE_LONG = 2;
+	private final static byte TYPE_SHORT = 3;
+	private final static byte TYPE_BYTE = 4;
+	private final static byte TYPE_BOOLEAN = 5;
+	private final static byte TYPE_FLOAT = 6;
+	private final static byte TYPE_DOUBLE = 7;
+	private final static byte TYPE_STRING = 8;
+	private final static byte TYPE_TIMESTAMP = 9;
+	private final static byte TYPE_BYTES = 10;
+	private final static byte TYPE_NULL = 11;
+
+	/**
+	 * 各参数位置的类型标识
+	 */
+	private byte[] types;
+
+	/**
+	 * 基本类型的参数值，NULL参数保存其SQL类型
+	 */
+	private long[] primitiveValues;
+
+	/**
+	 * 引用类型的参数值
+	 */
+	private Object[] objectValues;
+
+	/**
+	 * 已设置的最大参数位置
+	 */
+	private int size;
+
+	/**
+	 * 按位置设置的强类型参数值集
+	 */
+	public SqlTypedParameter()
+	{
+		this(8);
+	}
+
+	/**
+	 * 按位置设置的强类型参数值集
+	 * @param capacity 初始参数个数，超出时自动扩展
+	 */
+	public SqlTypedParameter(int capacity)
+	{
+		capacity = Math.max(capacity, 1);
+		types = new byte[capacity];
+		primitiveValues = new long[capacity];
+		objectValues = new Object[capacity];
+	}
+
+	/**
+	 * 取得参数位置对应的数组下标，容量不足时扩展
+	 * @param parameterIndex 参数位置，从1开始
+	 * @return 数组下标
+	 */
+	private int slot(int parameterIndex)
+	{
+		if (parameterIndex < 1)
+			throw new IllegalArgumentException("参数位置" + parameterIndex + "无效，参数位置从1开始。");
+		int index = parameterIndex - 1;
+		if (index >= types.length)
+		{
+			int capacity = Math.max(types.length << 1, parameterIndex);
+			types = Arrays.copyOf(types, capacity);
+			primitiveValues = Arrays.copyOf(primitiveValues, capacity);
+			objectValues = Arrays.copyOf(objectValues, capacity);
+		}
+		if (parameterIndex > size)
+		{
+			size = parameterIndex;
+		}
+		return index;
+	}
+
+	/**
+	 * 设置基本类型的参数值
+	 * @param parameterIndex 参数位置，从1开始
+	 * @param type 类型标识
+	 * @param value 值
+	 * @return 参数值集本身
+	 */
+	private ISqlTypedParameter setPrimitive(int parameterIndex, byte type, long value)
+	{
+		int index = slot(parameterIndex);
+		types[index] = type;
+		primitiveValues[index] = value;
+		objectValues[index] = null;
+		return this;
+	}
+
+	/**
+	 * 设置引用类型的参数值
+	 * @param parameterIndex 参数位置，从1开始
+	 * @param type 类型标识
+	 * @param value 值
+	 * @param nullSqlType 值为null时绑定的SQL类型
+	 * @return 参数值集本身
+	 */
+	private ISqlTypedParameter setObject(int parameterIndex, byte type, Object value, int nullSqlType)
+	{
+		if (value == null)
+			return setNull(parameterIndex, nullSqlType);
+		int index = slot(parameterIndex);
+		types[index] = type;
+		primitiveValues[index] = 0;
+		objectValues[index] = value;
+		return this;
+	}
+
+	public ISqlTypedParameter setInt(int parameterIndex, int value)
+	{
+		return setPrimitive(parameterIndex, TYPE_INT, value);
+	}
+
+	public ISqlTypedParameter setLong(int parameterIndex, long value)
+	{
+		return setPrimitive(parameterIndex, TYPE_LONG, value);
+	}
+
+	public ISqlTypedParameter setShort(int parameterIndex, short value)
+	{
+		return setPrimitive(parameterIndex, TYPE_SHORT, value);
+	}
+
+	public ISqlTypedParameter setByte(int parameterIndex, byte value)
+	{
+		return setPrimitive(parameterIndex, TYPE_BYTE, value);
+	}
+
+	public ISqlTypedParameter setBoolean(int parameterIndex, boolean value)
+	{
+		return setPrimitive(parameterIndex, TYPE_BOOLEAN, value ? 1 : 0);
+	}
+
+	public ISqlTypedParameter setFloat(int parameterIndex, float value)
+	{
+		return setPrimitive(parameterIndex, TYPE_FLOAT, Float.floatToRawIntBits(value));
+	}
+
+	public ISqlTypedParameter setDouble(int parameterIndex, double value)
+	{
+		return setPrimitive(parameterIndex, TYPE_DOUBLE, Double.doubleToRawLongBits(value));
+	}
+
+	public ISqlTypedParameter setString(int parameterIndex, String value)
+	{
+		return setObject(parameterIndex, TYPE_STRING, value, Types.VARCHAR);
+	}
+
+	public ISqlTypedParameter setDate(int parameterIndex, Date value)
+	{
+		if (value == null)
+			return setNull(parameterIndex, Types.TIMESTAMP);
+		return setPrimitive(parameterIndex, TYPE_TIMESTAMP, value.getTime());
+	}
+
+	public ISqlTypedParameter setTimestamp(int parameterIndex, long timeMillis)
+	{
+		return setPrimitive(parameterIndex, TYPE_TIMESTAMP, timeMillis);
+	}
+
+	public ISqlTypedParameter setBytes(int parameterIndex, byte[] value)
+	{
+		return setObject(parameterIndex, TYPE_BYTES, value, Types.VARBINARY);
+	}
+
+	public ISqlTypedParameter setNull(int parameterIndex, int sqlType)
+	{
+		return setPrimitive(parameterIndex, TYPE_NULL, sqlType);
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	public void bind(PreparedStatement preparedStatement) throws SQLException
+	{
+		for (int i = 0; i < size; i++)
+		{
+			int parameterIndex = i + 1;
+			long value = primitiveValues[i];
+			switch (types[i])
+			{
+				case TYPE_INT:
+					preparedStatement.setInt(parameterIndex, (int) value);
+					break;
+				case TYPE_LONG:
+					preparedStatement.setLong(parameterIndex, value);
+					break;
+				case TYPE_SHORT:
+					preparedStatement.setShort(parameterIndex, (short) value);
+					break;
+				case TYPE_BYTE:
+					preparedStatement.setByte(parameterIndex, (byte) value);
+					break;
+				case TYPE_BOOLEAN:
+					preparedStatement.setBoolean(parameterIndex, value != 0);
+					break;
+				case TYPE_FLOAT:
+					preparedStatement.setFloat(parameterIndex, Float.intBitsToFloat((int) value));
+					break;
+				case TYPE_DOUBLE:
+					preparedStatement.setDouble(parameterIndex, Double.longBitsToDouble(value));
+					break;
+				case TYPE_STRING:
+					preparedStatement.setString(parameterIndex, (String) objectValues[i]);
+					break;
+				case TYPE_TIMESTAMP:
+					preparedStatement.setTimestamp(parameterIndex, new Timestamp(value));
+					break;
+				case TYPE_BYTES:
+					preparedStatement.setBytes(parameterIndex, (byte[]) objectValues[i]);
+					break;
+				case TYPE_NULL:
+					preparedStatement.setNull(parameterIndex, (int) value);
+					break;
+				default:
+					throw new SQLException("第" + parameterIndex + "个参数未设置值。");
+			}
+		}
+	}
+
+	public void clear()
+	{
+		Arrays.fill(types, 0, size, TYPE_NONE);
+		Arrays.fill(objectValues, 0, size, null);
+		size = 0;
+	}
+
+	public ISqlTypedParameter copy()
+	{
+		SqlTypedParameter sqlTypedParameter = new SqlTypedParameter(size);
+		System.arraycopy(types, 0, sqlTypedParameter.types, 0, size);
+		System.arraycopy(primitiveValues, 0, sqlTypedParameter.primitiveValues, 0, size);
+		for (int i = 0; i < size; i++)
+		{// 二进制值可能被调用方继续修改，复制其内容
+			Object value = objectValues[i];
+			sqlTypedParameter.objectValues[i] = value instanceof byte[] ? ((byte[]) value).clone() : value;
+		}
+		sqlTypedParameter.size = size;
+		return sqlTypedParameter;
+	}
+
+	/**
+	 * 参数个数、各位置的类型及值都相同时相等，二进制值按内容比较
+	 */
+	public boolean equals(Object obj)
+	{
+		if (this == obj)
+			return true;
+		if (!(obj instanceof SqlTypedParameter))
+			return false;
+		SqlTypedParameter other = (SqlTypedParameter) obj;
+		if (size != other.size)
+			return false;
+		for (int i = 0; i < size; i++)
+		{
+			if (types[i] != other.types[i] || primitiveValues[i] != other.primitiveValues[i])
+				return false;
+			Object value = objectValues[i];
+			Object otherValue = other.objectValues[i];
+			if (value instanceof byte[] && otherValue instanceof byte[])
+			{
+				if (!Arrays.equals((byte[]) value, (byte[]) otherValue))
+					return false;
+			}
+			else if (value == null ? otherValue != null : !value.equals(otherValue))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public int hashCode()
+	{
+		int hash = size;
+		for (int i = 0; i < size; i++)
+		{
+			Object value = objectValues[i];
+			hash = 31 * hash + types[i];
+			hash = 31 * hash + (int) (primitiveValues[i] ^ (primitiveValues[i] >>> 32));
+			hash = 31 * hash + (value instanceof byte[] ? Arrays.hashCode((byte[]) value) : value != null ? value.hashCode() : 0);
+		}
+		return hash;
+	}
+}
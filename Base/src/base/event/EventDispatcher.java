@@ -312,10 +312,9 @@ public class EventDispatcher
 	private static LinkedBlockingQueue<Event> _eventObjlist = new LinkedBlockingQueue<Event>();
     private static Event createEvent(String type, Object data)
     {
-        Event e;
-        if (_eventObjlist.size() > 0)
+        Event e = _eventObjlist.poll();// 多个线程同时派发时，先判断数量再取出可能取得null
+        if (e != null)
         {
-            e = _eventObjlist.poll();
             e.reset(type, data);
         }
         else
@@ -0,0 +1,26 @@
+package base.timer;
+
+import java.util.List;
+
+/**
+ * 时间轮到期帧听接口
+ * @author Devin
+ *
+ * @param <T> 到期对象类型
+ */
+public interface ITimerWheelListener<T>
+{
+	/**
+	 * 到期处理，每个时间刻度内到期的对象会批量回调
+	 * @param targets 到期的对象列表
+	 */
+	public void expired(List<T> targets);
+
+	/**
+	 * 到期对象是否已取消，时间轮推进经过或清理时直接丢弃已取消的对象，不再回调到期处理
+	 * 在时间轮的槽锁内调用，不能再请求可能在加入对象时持有的锁
+	 * @param target 到期对象
+	 * @return 已取消返回true，否则返回false
+	 */
+	public boolean isCancelled(T target);
+}
@@ -0,0 +1,299 @@
+package base.timer;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import base.utils.DateUtil;
+
+/**
+ * 哈希时间轮
+ * 按时间刻度将到期对象散列到环形槽中，由TimerController的固定频率计时器驱动推进，
+ * 每次推进只处理经过的槽，加入及到期处理均与总对象数量无关。推进经过的槽中已取消的对象直接丢弃，不等到其到期时间。
+ * @author Devin
+ *
+ * @param <T> 到期对象类型
+ */
+public class TimerWheel<T>
+{
+	/**
+	 * 计时器名称
+	 */
+	private final String name;
+
+	/**
+	 * 时间刻度(毫秒)
+	 */
+	private final long tickDuration;
+
+	/**
+	 * 环形槽
+	 */
+	private final ConcurrentLinkedQueue<TimerWheelEntry<T>>[] buckets;
+
+	/**
+	 * 槽索引掩码
+	 */
+	private final int mask;
+
+	/**
+	 * 到期帧听
+	 */
+	private final ITimerWheelListener<T> listener;
+
+	/**
+	 * 等待到期的对象数
+	 */
+	private final AtomicInteger size = new AtomicInteger();
+
+	/**
+	 * 已处理到的时间刻度
+	 */
+	private volatile long currentTick;
+
+	/**
+	 * 槽锁，加入对象时持有读锁，推进时持有写锁，保证加入时读取的刻度在放入槽之前不会被推进越过
+	 */
+	private final ReentrantReadWriteLock tickLock = new ReentrantReadWriteLock();
+
+	/**
+	 * 推进任务
+	 */
+	private TimerWheelTask timerWheelTask;
+
+	/**
+	 * 哈希时间轮
+	 * @param name 计时器名称
+	 * @param tickDuration 时间刻度(毫秒)
+	 * @param wheelSize 槽数，将向上取整为2的幂
+	 * @param listener 到期帧听
+	 */
+	@SuppressWarnings("unchecked")
+	public TimerWheel(String name, long tickDuration, int wheelSize, ITimerWheelListener<T> listener)
+	{
+		this.name = name;
+		this.tickDuration = tickDuration;
+		this.listener = listener;
+		int bucketCount = 1;
+		while (bucketCount < wheelSize)
+		{
+			bucketCount <<= 1;
+		}
+		this.mask = bucketCount - 1;
+		this.buckets = (ConcurrentLinkedQueue<TimerWheelEntry<T>>[]) new ConcurrentLinkedQueue<?>[bucketCount];
+		for (int i = 0; i < bucketCount; i++)
+		{
+			buckets[i] = new ConcurrentLinkedQueue<TimerWheelEntry<T>>();
+		}
+		this.currentTick = DateUtil.getCurrentTimeMillis() / tickDuration;
+	}
+
+	/**
+	 * 开始推进
+	 */
+	public synchronized void start()
+	{
+		if (timerWheelTask != null)
+			return;
+		timerWheelTask = new TimerWheelTask();
+		TimerController.timerAtFixedRate(name, timerWheelTask, tickDuration, tickDuration);
+	}
+
+	/**
+	 * 停止推进
+	 */
+	public synchronized void stop()
+	{
+		if (timerWheelTask == null)
+			return;
+		timerWheelTask.cancel();
+		timerWheelTask = null;
+		TimerController.removeTimer(name);
+	}
+
+	/**
+	 * 是否已开始推进
+	 * @return 已开始返回true，否则返回false
+	 */
+	public synchronized boolean isStarted()
+	{
+		return timerWheelTask != null;
+	}
+
+	/**
+	 * 加入到期对象
+	 * @param target 到期对象
+	 * @param deadline 到期时间(毫秒)
+	 */
+	public void add(T target, long deadline)
+	{
+		long deadlineTick = deadline / tickDuration;
+		tickLock.readLock().lock();
+		try
+		{
+			long nextTick = currentTick + 1;
+			if (deadlineTick < nextTick)
+			{// 已过期或在当前刻度内到期的，放入下一个将要处理的槽
+				deadlineTick = nextTick;
+			}
+			buckets[(int) (deadlineTick & mask)].offer(new TimerWheelEntry<T>(target, deadline));
+			size.incrementAndGet();
+		}
+		finally
+		{
+			tickLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * 等待到期的对象数
+	 * @return 对象数
+	 */
+	public int size()
+	{
+		return size.get();
+	}
+
+	/**
+	 * 清除所有等待到期的对象
+	 */
+	public void clear()
+	{
+		for (ConcurrentLinkedQueue<TimerWheelEntry<T>> bucket : buckets)
+		{
+			bucket.clear();
+		}
+		size.set(0);
+	}
+
+	/**
+	 * 清除所有已取消的到期对象
+	 * @return 清除的对象数
+	 */
+	public synchronized int purge()
+	{
+		int count = 0;
+		tickLock.writeLock().lock();
+		try
+		{
+			for (ConcurrentLinkedQueue<TimerWheelEntry<T>> bucket : buckets)
+			{
+				Iterator<TimerWheelEntry<T>> iterator = bucket.iterator();
+				while (iterator.hasNext())
+				{
+					if (listener.isCancelled(iterator.next().target))
+					{
+						iterator.remove();
+						size.decrementAndGet();
+						count++;
+					}
+				}
+			}
+		}
+		finally
+		{
+			tickLock.writeLock().unlock();
+		}
+		return count;
+	}
+
+	/**
+	 * 推进到当前时间，处理经过的槽
+	 */
+	protected synchronized void tick()
+	{
+		long now = DateUtil.getCurrentTimeMillis();
+		long nowTick = now / tickDuration;
+		if (nowTick <= currentTick)
+			return;
+		List<T> targets = new ArrayList<T>();
+		List<TimerWheelEntry<T>> entries = new ArrayList<TimerWheelEntry<T>>();
+		tickLock.writeLock().lock();
+		try
+		{// 处理经过的槽及更新刻度期间不允许加入，到期帧听在锁外调用，帧听中可再次加入对象
+			long fromTick = currentTick + 1;
+			if (nowTick - fromTick > mask)
+			{// 落后超过一圈时，每个槽只需处理一次
+				fromTick = nowTick - mask;
+			}
+			for (long tick = fromTick; tick <= nowTick; tick++)
+			{
+				ConcurrentLinkedQueue<TimerWheelEntry<T>> bucket = buckets[(int) (tick & mask)];
+				TimerWheelEntry<T> entry;
+				while ((entry = bucket.poll()) != null)
+				{
+					entries.add(entry);
+				}
+				for (TimerWheelEntry<T> timerWheelEntry : entries)
+				{
+					if (listener.isCancelled(timerWheelEntry.target))
+					{// 已取消，不再放回槽中
+						size.decrementAndGet();
+					}
+					else if (timerWheelEntry.deadline <= now)
+					{
+						size.decrementAndGet();
+						targets.add(timerWheelEntry.target);
+					}
+					else if (timerWheelEntry.deadline / tickDuration <= nowTick)
+					{// 在当前刻度内尚未到期，放入下一个将要处理的槽
+						buckets[(int) ((nowTick + 1) & mask)].offer(timerWheelEntry);
+					}
+					else
+					{// 尚未到期(属于后续的轮次)，放回原槽
+						bucket.offer(timerWheelEntry);
+					}
+				}
+				entries.clear();
+			}
+			currentTick = nowTick;
+		}
+		finally
+		{
+			tickLock.writeLock().unlock();
+		}
+		if (targets.size() > 0)
+		{
+			listener.expired(targets);
+		}
+	}
+
+	/**
+	 * 时间轮项
+	 */
+	private final static class TimerWheelEntry<T>
+	{
+		final T target;
+		final long deadline;
+
+		TimerWheelEntry(T target, long deadline)
+		{
+			this.target = target;
+			this.deadline = deadline;
+		}
+	}
+
+	/**
+	 * 时间轮推进任务
+	 */
+	private class TimerWheelTask extends TimerTask
+	{
+		@Override
+		public void run()
+		{
+			try
+			{
+				tick();
+			}
+			catch (Exception e)
+			{
+				Logger.getLogger(TimerWheel.class.getName()).log(Level.SEVERE, "时间轮 " + name + " 推进出现错误。", e);
+			}
+		}
+	}
+}
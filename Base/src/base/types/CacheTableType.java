@@ -0,0 +1,29 @@
+package base.types;
+
+/**
+ * 缓存表实现类型
+ * @author Devin
+ *
+ */
+public enum CacheTableType
+{
+	/**
+	 * 默认缓存表，整表使用一个读写锁
+	 */
+	DEFAULT,
+
+	/**
+	 * 并发缓存表，按主键值哈希分段加锁，不同分段的行可并行读写
+	 */
+	CONCURRENT,
+
+	/**
+	 * LRU缓存表，侵入式双向链表加哈希索引，限定容量时的访问提升为常数时间，增加、插入及淘汰行因维护行排列顺序为O(log n)
+	 */
+	LRU,
+
+	/**
+	 * 列式缓存表，行数据按字段存放于基本类型数组中，表结构由加入的第一行确定
+	 */
+	COLUMN
+}
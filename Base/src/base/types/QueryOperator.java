@@ -0,0 +1,49 @@
+package base.types;
+
+/**
+ * 缓存表查询条件运算符
+ * @author Devin
+ *
+ */
+public enum QueryOperator
+{
+	/**
+	 * 等于
+	 */
+	EQUAL,
+
+	/**
+	 * 不等于
+	 */
+	NOT_EQUAL,
+
+	/**
+	 * 大于
+	 */
+	GREATER,
+
+	/**
+	 * 大于等于
+	 */
+	GREATER_EQUAL,
+
+	/**
+	 * 小于
+	 */
+	LESS,
+
+	/**
+	 * 小于等于
+	 */
+	LESS_EQUAL,
+
+	/**
+	 * 在两个值之间(包含边界值)，条件值为两个元素的数组：[起始值, 结束值]
+	 */
+	BETWEEN,
+
+	/**
+	 * 等于列表中的任意一个值，条件值为数组或集合
+	 */
+	IN
+}
@@ -0,0 +1,19 @@
+package base.types;
+
+/**
+ * 数据库连接池实现类型
+ * @author Devin
+ *
+ */
+public enum SqlConnectionPoolType
+{
+	/**
+	 * 以读写锁及条件等待实现的连接池
+	 */
+	LOCK,
+
+	/**
+	 * 以无锁空闲列表及等待线程直接交接实现的连接池
+	 */
+	CONCURRENT
+}
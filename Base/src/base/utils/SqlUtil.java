@@ -3,6 +3,7 @@ package base.utils;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
+import base.data.sql.ISqlRow;
 import base.types.JavaType;
 
 public class SqlUtil
@@ -60,6 +61,59 @@ public class SqlUtil
 		return resultSetData;
 	}
 	
+	/**
+	 * 取得查询结果当前行的值
+	 * @param sqlRow 查询结果的当前行
+	 * @param columnIndex 列索引
+	 * @param javaType JavaType
+	 * @return 如果成功读取返回读取到的值，否则返回null
+	 * @throws SQLException
+	 */
+	public static Object sqlRowGet(ISqlRow sqlRow, int columnIndex, JavaType javaType) throws SQLException
+	{
+		Object sqlRowData = null;
+		switch (javaType)
+		{
+			case BOOLEAN:
+				sqlRowData = sqlRow.getBoolean(columnIndex);
+				break;
+			case BYTE:
+				sqlRowData = sqlRow.getByte(columnIndex);
+				break;
+			case SHORT:
+				sqlRowData = sqlRow.getShort(columnIndex);
+				break;
+			case INTEGER:
+				sqlRowData = sqlRow.getInt(columnIndex);
+				break;
+			case LONG:
+				sqlRowData = sqlRow.getLong(columnIndex);
+				break;
+			case FLOAT:
+				sqlRowData = sqlRow.getFloat(columnIndex);
+				break;
+			case DOUBLE:
+				sqlRowData = sqlRow.getDouble(columnIndex);
+				break;
+			case CHAR:
+				sqlRowData = sqlRow.getByte(columnIndex);
+				break;
+			case STRING:
+				sqlRowData = sqlRow.getString(columnIndex);
+				break;
+			case BIGDECIMAL:
+				sqlRowData = sqlRow.getDouble(columnIndex);
+				break;
+			case DATE:
+				sqlRowData = sqlRow.getDate(columnIndex);
+				break;
+			default:
+				sqlRowData = sqlRow.getObject(columnIndex);
+				break;
+		}
+		return sqlRowData;
+	}
+	
 	/**
 	 * 判断查询结果集中是否存在某列
 	 * @param rs 查询结果集
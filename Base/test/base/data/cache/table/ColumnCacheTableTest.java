@@ -0,0 +1,88 @@
+package base.data.cache.table;
+
+import base.Base;
+import base.data.DataFactory;
+import base.types.CacheTableType;
+import base.utils.DataUtil;
+
+/**
+ * 列式缓存表克隆测试
+ * 向COLUMN类型的缓存表加入long、int、double、String及boolean字段各一的行后克隆，检查克隆表的行数及各字段值与原表一致，
+ * 并检查修改克隆表的字段值不影响原表。任一检查失败时输出原因并以非0状态退出。
+ * 运行：java -cp 编译输出目录:libs/* base.data.cache.table.ColumnCacheTableTest 编译输出目录/
+ * @author Devin
+ *
+ */
+public class ColumnCacheTableTest
+{
+	private final static int ROW_COUNT = 100;
+
+	public static void main(String[] args) throws Exception
+	{
+		Base.setClassRootDir(args.length > 0 ? args[0] : "bin/");
+		ICacheTable cacheTable = DataFactory.cacheController().createCacheTable("columnCacheTableTest", "id", null, CacheTableType.COLUMN);
+		for (long id = 0; id < ROW_COUNT; id++)
+		{
+			cacheTable.addRow(newRow(id));
+		}
+
+		ICacheTable cloneCacheTable = cacheTable.clone();
+		check(cloneCacheTable != null, "clone() 返回null");
+		check(cloneCacheTable.getRowSize() == ROW_COUNT, "克隆表行数 " + cloneCacheTable.getRowSize() + "，应为 " + ROW_COUNT);
+		for (long id = 0; id < ROW_COUNT; id++)
+		{
+			ICacheTableRow cloneCacheTableRow = cloneCacheTable.getRowByPrimaryKey(id);
+			check(cloneCacheTableRow != null, "克隆表缺少主键为 " + id + " 的行");
+			check(cloneCacheTableRow != cacheTable.getRowByPrimaryKey(id), "克隆表与原表共用主键为 " + id + " 的行");
+			checkEquals(cloneCacheTableRow, "id", id);
+			checkEquals(cloneCacheTableRow, "level", (int) (id % 100));
+			checkEquals(cloneCacheTableRow, "rate", id * 0.5d);
+			checkEquals(cloneCacheTableRow, "name", "name" + id);
+			checkEquals(cloneCacheTableRow, "online", id % 2 == 0);
+		}
+
+		cloneCacheTable.getRowByPrimaryKey(0L).getField("level").setData(99);
+		checkEquals(cacheTable.getRowByPrimaryKey(0L), "level", 0);
+
+		DataFactory.cacheController().removeCacheTable("columnCacheTableTest");
+		System.out.println("ColumnCacheTableTest passed");
+		System.exit(0);
+	}
+
+	/**
+	 * 检查行的字段值
+	 * @param cacheTableRow 行数据
+	 * @param fieldName 字段名
+	 * @param expected 期望的字段值
+	 */
+	private static void checkEquals(ICacheTableRow cacheTableRow, String fieldName, Object expected)
+	{
+		Object actual = cacheTableRow.getFieldData(fieldName);
+		check(expected.equals(actual), "字段 " + fieldName + " 的值为 " + actual + "，应为 " + expected);
+	}
+
+	/**
+	 * 检查条件，不满足时输出原因并退出
+	 * @param condition 条件
+	 * @param message 不满足时的原因
+	 */
+	private static void check(boolean condition, String message)
+	{
+		if (!condition)
+		{
+			System.out.println("ColumnCacheTableTest failed: " + message);
+			System.exit(1);
+		}
+	}
+
+	private static ICacheTableRow newRow(long id)
+	{
+		ICacheTableRow cacheTableRow = DataUtil.cacheTableRow();
+		cacheTableRow.addField("id", id);
+		cacheTableRow.addField("level", (int) (id % 100));
+		cacheTableRow.addField("rate", id * 0.5d);
+		cacheTableRow.addField("name", "name" + id);
+		cacheTableRow.addField("online", id % 2 == 0);
+		return cacheTableRow;
+	}
+}
@@ -0,0 +1,122 @@
+package base.data.cache.table;
+
+import base.Base;
+import base.data.DataFactory;
+import base.types.CacheTableType;
+import base.utils.DataUtil;
+
+/**
+ * 限容量缓存表淘汰顺序测试
+ * 分别对DEFAULT及LRU类型的容量为3的缓存表按主键读取行后增加新行，检查被淘汰的是最久未被访问的行，
+ * 其中包括同一行被反复读取(超过待提升列表上限)后再读取另一行的情况。任一检查失败时输出原因并以非0状态退出。
+ * 运行：java -cp 编译输出目录:libs/* base.data.cache.table.LruCacheTableTest 编译输出目录/
+ * @author Devin
+ *
+ */
+public class LruCacheTableTest
+{
+	private final static CacheTableType[] CACHE_TABLE_TYPES = { CacheTableType.DEFAULT, CacheTableType.LRU };
+
+	private final static int CAPACITY = 3;
+
+	public static void main(String[] args) throws Exception
+	{
+		Base.setClassRootDir(args.length > 0 ? args[0] : "bin/");
+		int tableIndex = 0;
+		for (CacheTableType cacheTableType : CACHE_TABLE_TYPES)
+		{
+			// 读取1、2、1后1最近被访问，3最久未被访问
+			ICacheTable cacheTable = newCacheTable("lruCacheTableTest" + tableIndex++, cacheTableType);
+			read(cacheTable, 1);
+			read(cacheTable, 2);
+			read(cacheTable, 1);
+			cacheTable.addRow(newRow(4));
+			checkRows(cacheTable, cacheTableType, new long[] { 1, 2, 4 }, 3);
+			cacheTable.addRow(newRow(5));
+			checkRows(cacheTable, cacheTableType, new long[] { 1, 4, 5 }, 2);
+
+			// 反复读取2超过待提升列表上限后再读取1，1仍应在2之后被淘汰
+			cacheTable = newCacheTable("lruCacheTableTest" + tableIndex++, cacheTableType);
+			for (int i = 0; i < 10000; i++)
+			{
+				read(cacheTable, 2);
+			}
+			read(cacheTable, 1);
+			cacheTable.addRow(newRow(4));
+			checkRows(cacheTable, cacheTableType, new long[] { 1, 2, 4 }, 3);
+			cacheTable.addRow(newRow(5));
+			checkRows(cacheTable, cacheTableType, new long[] { 1, 4, 5 }, 2);
+		}
+		for (int i = 0; i < tableIndex; i++)
+		{
+			DataFactory.cacheController().removeCacheTable("lruCacheTableTest" + i);
+		}
+		System.out.println("LruCacheTableTest passed");
+		System.exit(0);
+	}
+
+	/**
+	 * 创建容量为3并依次加入主键为1、2、3的行的缓存表
+	 * @param tableName 表名
+	 * @param cacheTableType 缓存表类型
+	 * @return 缓存表
+	 */
+	private static ICacheTable newCacheTable(String tableName, CacheTableType cacheTableType)
+	{
+		ICacheTable cacheTable = DataFactory.cacheController().createCacheTable(tableName, "id", null, CAPACITY, cacheTableType);
+		for (long id = 1; id <= CAPACITY; id++)
+		{
+			cacheTable.addRow(newRow(id));
+		}
+		return cacheTable;
+	}
+
+	/**
+	 * 按主键读取行
+	 * @param cacheTable 缓存表
+	 * @param id 主键值
+	 */
+	private static void read(ICacheTable cacheTable, long id)
+	{
+		check(cacheTable.getRowByPrimaryKey(id) != null, cacheTable.getName() + " 读取时缺少主键为 " + id + " 的行");
+	}
+
+	/**
+	 * 检查缓存表中剩余的行
+	 * @param cacheTable 缓存表
+	 * @param cacheTableType 缓存表类型
+	 * @param ids 应剩余的主键值
+	 * @param evictedId 应被淘汰的主键值
+	 */
+	private static void checkRows(ICacheTable cacheTable, CacheTableType cacheTableType, long[] ids, long evictedId)
+	{
+		check(cacheTable.getRowSize() == ids.length, cacheTableType + " 行数 " + cacheTable.getRowSize() + "，应为 " + ids.length);
+		check(!cacheTable.containsPrimaryKey(evictedId), cacheTableType + " 主键为 " + evictedId + " 的行应被淘汰");
+		for (long id : ids)
+		{
+			check(cacheTable.containsPrimaryKey(id), cacheTableType + " 主键为 " + id + " 的行不应被淘汰");
+		}
+	}
+
+	/**
+	 * 检查条件，不满足时输出原因并退出
+	 * @param condition 条件
+	 * @param message 不满足时的原因
+	 */
+	private static void check(boolean condition, String message)
+	{
+		if (!condition)
+		{
+			System.out.println("LruCacheTableTest failed: " + message);
+			System.exit(1);
+		}
+	}
+
+	private static ICacheTableRow newRow(long id)
+	{
+		ICacheTableRow cacheTableRow = DataUtil.cacheTableRow();
+		cacheTableRow.addField("id", id);
+		cacheTableRow.addField("name", "name" + id);
+		return cacheTableRow;
+	}
+}